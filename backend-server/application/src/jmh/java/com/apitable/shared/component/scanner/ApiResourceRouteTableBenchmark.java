@@ -0,0 +1,111 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apitable.shared.component.ResourceDefinition;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+/**
+ * compares the compiled route table with scanning every url pattern through AntPathMatcher,
+ * for a mix of literal and templated request paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResourceRouteTableBenchmark {
+
+    @Param({ "200", "800" })
+    private int routeCount;
+
+    private final Map<String, ResourceDefinition> urlDefineResources = new ConcurrentHashMap<>();
+
+    private ApiResourceRouteTable routeTable;
+
+    private ApiResourceRouteTable uncachedRouteTable;
+
+    private String[] paths;
+
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        List<String> requestPaths = new ArrayList<>();
+        for (int i = 0; i < routeCount; i++) {
+            String url = i % 5 == 0 ? "/module" + i % 40 + "/update" + i + "/{id}" : "/module" + i % 40 + "/action" + i;
+            ResourceDefinition definition = new ResourceDefinition();
+            definition.setResourceCode("code" + i);
+            definition.setResourceUrl(url);
+            urlDefineResources.put(url, definition);
+            requestPaths.add(url.replace("{id}", "nod" + i));
+        }
+        routeTable = new ApiResourceRouteTable(urlDefineResources.values(), 4096);
+        uncachedRouteTable = new ApiResourceRouteTable(urlDefineResources.values(), 0);
+        paths = requestPaths.toArray(new String[0]);
+    }
+
+    private String nextPath() {
+        cursor = (cursor + 1) % paths.length;
+        return paths[cursor];
+    }
+
+    @Benchmark
+    public ResourceDefinition antPathScan() {
+        String path = nextPath();
+        PathMatcher matcher = new AntPathMatcher();
+        for (Map.Entry<String, ResourceDefinition> entry : urlDefineResources.entrySet()) {
+            if (matcher.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public ResourceDefinition routeTable() {
+        return routeTable.match(nextPath());
+    }
+
+    @Benchmark
+    public ResourceDefinition routeTableWithoutCache() {
+        return uncachedRouteTable.match(nextPath());
+    }
+}
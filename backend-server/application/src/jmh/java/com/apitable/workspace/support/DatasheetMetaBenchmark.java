@@ -0,0 +1,146 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apitable.workspace.enums.FieldType;
+import com.apitable.workspace.ro.FieldMapRo;
+import com.apitable.workspace.ro.LinkFieldProperty;
+import com.apitable.workspace.ro.MetaMapRo;
+
+/**
+ * compares the typed meta model with the JSONUtil bean conversion when collecting the link fields
+ * of a meta and rewriting the foreign datasheet ids, as done by a datasheet copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatasheetMetaBenchmark {
+
+    @Param({ "20", "200" })
+    private int fieldCount;
+
+    private String metaData;
+
+    @Setup
+    public void setup() {
+        JSONObject fieldMap = JSONUtil.createObj();
+        JSONArray columns = JSONUtil.createArray();
+        for (int i = 0; i < fieldCount; i++) {
+            String fieldId = "fld" + i;
+            JSONObject field = JSONUtil.createObj().set("id", fieldId).set("name", "Field " + i);
+            if (i % 4 == 0) {
+                field.set("type", FieldType.LINK.getFieldType())
+                        .set("property", JSONUtil.createObj().set("foreignDatasheetId", "dst" + i).set("brotherFieldId", "fldB" + i));
+            }
+            else {
+                field.set("type", FieldType.TEXT.getFieldType()).set("property", JSONUtil.createObj());
+            }
+            fieldMap.set(fieldId, field);
+            columns.add(JSONUtil.createObj().set("fieldId", fieldId));
+        }
+        JSONArray rows = JSONUtil.createArray();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(JSONUtil.createObj().set("recordId", "rec" + i));
+        }
+        JSONArray views = JSONUtil.createArray();
+        for (int i = 0; i < 5; i++) {
+            views.add(JSONUtil.createObj().set("id", "viw" + i).set("type", 1).set("columns", columns).set("rows", rows));
+        }
+        metaData = JSONUtil.createObj().set("fieldMap", fieldMap).set("views", views).toString();
+    }
+
+    @Benchmark
+    public String jsonUtilBean() {
+        MetaMapRo metaMapRo = JSONUtil.parseObj(metaData).toBean(MetaMapRo.class);
+        JSONObject fieldMap = JSONUtil.createObj();
+        for (Object field : metaMapRo.getFieldMap().values()) {
+            FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
+            if (fieldMapRo.getType().equals(FieldType.LINK.getFieldType())) {
+                LinkFieldProperty property = fieldMapRo.getProperty().toBean(LinkFieldProperty.class);
+                property.setForeignDatasheetId(property.getForeignDatasheetId() + "_copy");
+                fieldMapRo.setProperty(JSONUtil.parseObj(property));
+            }
+            fieldMap.set(fieldMapRo.getId(), JSONUtil.parseObj(fieldMapRo));
+        }
+        metaMapRo.setFieldMap(fieldMap);
+        return JSONUtil.parseObj(metaMapRo).toString();
+    }
+
+    @Benchmark
+    public String typedMeta() {
+        DatasheetMeta meta = DatasheetMetaCodec.parse(metaData);
+        Map<String, DatasheetMeta.Field> fieldMap = new LinkedHashMap<>(meta.getFieldMap().size());
+        for (DatasheetMeta.Field field : meta.getFieldMap().values()) {
+            if (field.isType(FieldType.LINK)) {
+                field = field.withPropertyValue("foreignDatasheetId", field.getPropertyText("foreignDatasheetId") + "_copy");
+            }
+            fieldMap.put(field.getId(), field);
+        }
+        return DatasheetMetaCodec.write(meta.withFieldMap(fieldMap));
+    }
+
+    @Benchmark
+    public List<String> jsonUtilForeignDstIds() {
+        MetaMapRo metaMapRo = JSONUtil.parseObj(metaData).toBean(MetaMapRo.class);
+        List<String> dstIds = new ArrayList<>();
+        for (Object field : metaMapRo.getFieldMap().values()) {
+            FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
+            if (fieldMapRo.getType().equals(FieldType.LINK.getFieldType())) {
+                dstIds.add(fieldMapRo.getProperty().toBean(LinkFieldProperty.class).getForeignDatasheetId());
+            }
+        }
+        return dstIds;
+    }
+
+    @Benchmark
+    public List<String> typedForeignDstIds() {
+        DatasheetMeta meta = DatasheetMetaCodec.parse(metaData);
+        List<String> dstIds = new ArrayList<>();
+        for (DatasheetMeta.Field field : meta.getFieldMap().values()) {
+            if (field.isType(FieldType.LINK)) {
+                dstIds.add(field.getPropertyText("foreignDatasheetId"));
+            }
+        }
+        return dstIds;
+    }
+}
@@ -70,4 +70,13 @@ public interface AssetMapper extends BaseMapper<AssetEntity> {
      * @return updated rows
      */
     Integer updateFileSizeMimeTypeById(@Param("entity") AssetEntity asset);
+
+    /**
+     * clear the preview of asset if it is still the given one
+     *
+     * @param id      asset id
+     * @param preview preview
+     * @return updated rows
+     */
+    int clearPreviewByIdAndPreview(@Param("id") Long id, @Param("preview") String preview);
 }
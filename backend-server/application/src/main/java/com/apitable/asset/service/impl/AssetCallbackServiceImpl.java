@@ -18,19 +18,15 @@
 
 package com.apitable.asset.service.impl;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
-import javax.imageio.ImageIO;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.ObjectUtil;
@@ -40,6 +36,7 @@ import com.apitable.starter.oss.core.OssStatObject;
 import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
 import lombok.extern.slf4j.Slf4j;
 
+import com.apitable.asset.dto.ImageDto;
 import com.apitable.asset.entity.AssetEntity;
 import com.apitable.asset.enums.AssetType;
 import com.apitable.asset.enums.AssetUploadSource;
@@ -53,16 +50,14 @@ import com.apitable.base.enums.ActionException;
 import com.apitable.base.enums.DatabaseException;
 import com.apitable.base.enums.ParameterException;
 import com.apitable.shared.cache.service.AssetCacheService;
+import com.apitable.shared.component.asset.AssetPreviewQueue;
 import com.apitable.shared.config.properties.ConstProperties;
-import com.apitable.shared.util.PdfToImageUtil;
-import com.apitable.shared.util.StringUtil;
+import com.apitable.shared.util.ImageSizeUtil;
 import com.apitable.space.dto.SpaceAssetDTO;
 import com.apitable.space.mapper.SpaceAssetMapper;
 import com.apitable.space.service.ISpaceAssetService;
 import com.apitable.core.exception.BusinessException;
-import com.apitable.core.util.DigestUtil;
 import com.apitable.core.util.ExceptionUtil;
-import com.apitable.core.util.InputStreamCache;
 import com.apitable.core.util.MimeTypeMapping;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -72,7 +67,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import static com.apitable.shared.constants.AssetsPublicConstants.IMAGE_PREFIX;
-import static com.apitable.shared.constants.AssetsPublicConstants.SPACE_PREFIX;
 import static com.apitable.shared.constants.WidgetAssetConstants.TOKEN_MAX;
 
 /**
@@ -114,6 +108,9 @@ public class AssetCallbackServiceImpl implements IAssetCallbackService {
     @Resource
     private ConstProperties constProperties;
 
+    @Resource
+    private AssetPreviewQueue assetPreviewQueue;
+
     @Deprecated
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -297,8 +294,9 @@ public class AssetCallbackServiceImpl implements IAssetCallbackService {
         entity.setExtensionName(MimeTypeMapping.mimeTypeToExtension(mimeType));
         // If it is a PDF type resource, generate a preview image and upload it
         if (MediaType.APPLICATION_PDF_VALUE.equals(mimeType)) {
-            String pdfImgUploadPath = this.uploadAndSavePdfImg(body.getBucket(), body.getKey());
-            entity.setPreview(pdfImgUploadPath);
+            // generated in background, its key is known before
+            entity.setPreview(assetPreviewQueue.previewKey(body.getHash()));
+            assetPreviewQueue.submit(body.getUploadAssetId(), body.getHash(), body.getBucket(), body.getKey());
         }
         else if (body.getImageHeight() == null && mimeType.startsWith(IMAGE_PREFIX)) {
             // If it is a picture, parse the height and width of the picture
@@ -309,35 +307,15 @@ public class AssetCallbackServiceImpl implements IAssetCallbackService {
         return entity;
     }
 
-    private String uploadAndSavePdfImg(String bucketName, String key) {
-        AtomicReference<String> pdfImgUploadPath = new AtomicReference<>();
-        ossTemplate.executeStreamFunction(bucketName, key,
-                in -> {
-                    InputStream imageIn = PdfToImageUtil.convert(in);
-                    if (imageIn == null) {
-                        return;
-                    }
-                    try (InputStreamCache pdfImgStreamCache = new InputStreamCache(imageIn, imageIn.available())) {
-                        pdfImgUploadPath.set(StringUtil.buildPath(SPACE_PREFIX));
-                        String pdfImgChecksum = DigestUtil.md5Hex(pdfImgStreamCache.getInputStream());
-                        ossTemplate.upload(bucketName, pdfImgStreamCache.getInputStream(), pdfImgUploadPath.get(), MediaType.IMAGE_JPEG_VALUE, pdfImgChecksum);
-                    }
-                    catch (IOException e) {
-                        log.error("Failed to upload PDF preview resource", e);
-                    }
-                });
-        return pdfImgUploadPath.get();
-    }
-
     private void appendImageInfo(String bucketName, String key, AssetEntity entity) {
         // If it is a picture, parse the height and width of the picture
         ossTemplate.executeStreamFunction(bucketName, key,
                 in -> {
                     try {
-                        BufferedImage bi = ImageIO.read(in);
-                        if (bi != null) {
-                            entity.setHeight(bi.getHeight());
-                            entity.setWidth(bi.getWidth());
+                        ImageDto imageDto = ImageSizeUtil.read(in);
+                        if (imageDto != null) {
+                            entity.setHeight(imageDto.getHeight());
+                            entity.setWidth(imageDto.getWidth());
                         }
                     }
                     catch (IOException e) {
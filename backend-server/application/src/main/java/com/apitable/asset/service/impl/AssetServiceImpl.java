@@ -18,7 +18,6 @@
 
 package com.apitable.asset.service.impl;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -32,7 +31,6 @@ import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
-import javax.imageio.ImageIO;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.io.FileUtil;
@@ -66,9 +64,10 @@ import com.apitable.base.enums.ParameterException;
 import com.apitable.interfaces.security.facade.HumanVerificationServiceFacade;
 import com.apitable.interfaces.security.model.NonRobotMetadata;
 import com.apitable.shared.cache.service.SpaceCapacityCacheService;
+import com.apitable.shared.component.asset.AssetPreviewQueue;
 import com.apitable.shared.config.properties.ConstProperties;
 import com.apitable.shared.util.ApiHelper;
-import com.apitable.shared.util.PdfToImageUtil;
+import com.apitable.shared.util.ImageSizeUtil;
 import com.apitable.space.dto.SpaceAssetDTO;
 import com.apitable.space.mapper.SpaceAssetMapper;
 import com.apitable.space.service.ISpaceAssetService;
@@ -76,7 +75,6 @@ import com.apitable.user.service.IDeveloperService;
 import com.apitable.workspace.enums.PermissionException;
 import com.apitable.workspace.mapper.NodeMapper;
 import com.apitable.core.exception.BusinessException;
-import com.apitable.core.util.DigestUtil;
 import com.apitable.core.util.ExceptionUtil;
 import com.apitable.core.util.HttpContextUtil;
 import com.apitable.core.util.InputStreamCache;
@@ -143,6 +141,9 @@ public class AssetServiceImpl extends ServiceImpl<AssetMapper, AssetEntity> impl
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Resource
+    private AssetPreviewQueue assetPreviewQueue;
+
     @Override
     public void checkBeforeUpload(String nodeId, String secret) {
         // get api key
@@ -190,7 +191,7 @@ public class AssetServiceImpl extends ServiceImpl<AssetMapper, AssetEntity> impl
             // set resource size
             result.setSize(fileSize);
             // md5 check to determine whether the file already exists
-            String checksum = DigestUtil.md5Hex(streamCache.getInputStream());
+            String checksum = streamCache.getChecksum();
             // Determine whether the upper limit of the attachment space is exceeded, and the whitelist space is skipped
             // iSubscriptionService.checkCapacity(spaceId, fileSize, checksum);
             ImageDto imageDto = getImageInfo(streamCache.getInputStream());
@@ -217,13 +218,14 @@ public class AssetServiceImpl extends ServiceImpl<AssetMapper, AssetEntity> impl
                         ossTemplate.upload(constProperties.getOssBucketByAsset().getBucketName(), streamCache.getInputStream(), uploadPath, mimeType, checksum);
                         result.setToken(uploadPath);
                         result.setBucket(constProperties.getOssBucketByAsset().getType());
+                        // pdf image is generated in background, its key is known before
+                        String preview = isPdf ? assetPreviewQueue.previewKey(checksum) : null;
+                        result.setPreview(preview);
+                        // save in database
+                        Long assetId = save(checksum, null, fileSize, uploadPath, mimeType, height, width, preview);
                         if (isPdf) {
-                            // upload pdf image
-                            String pdfImgUploadPath = uploadAndSavePdfImg(streamCache.getInputStream());
-                            result.setPreview(pdfImgUploadPath);
+                            assetPreviewQueue.submit(assetId, checksum, constProperties.getOssBucketByAsset().getBucketName(), uploadPath);
                         }
-                        // save in database
-                        Long assetId = save(checksum, null, fileSize, uploadPath, mimeType, height, width, result.getPreview());
                         // The calculation of the number table is uniformly calculated in the op, without the need to process the data
                         if (assetType != AssetType.DATASHEET) {
                             iSpaceAssetService.saveAssetInSpace(spaceId, nodeId, assetId, checksum, assetType, fileOriginalName, fileSize);
@@ -239,14 +241,13 @@ public class AssetServiceImpl extends ServiceImpl<AssetMapper, AssetEntity> impl
                         result.setBucket(assetEntity.getBucket());
                         result.setPreview(assetEntity.getPreview());
                         if (isPdf && assetEntity.getPreview() == null) {
-                            // upload pdf image
-                            String pdfImgUploadPath = uploadAndSavePdfImg(streamCache.getInputStream());
-                            result.setPreview(pdfImgUploadPath);
-                            // Basic resource records, supplementary preview data
+                            // Basic resource records, supplementary preview data generated in background
                             AssetEntity update = new AssetEntity();
                             update.setId(assetEntity.getId());
-                            update.setPreview(result.getPreview());
+                            update.setPreview(assetPreviewQueue.previewKey(checksum));
                             updateById(update);
+                            result.setPreview(update.getPreview());
+                            assetPreviewQueue.submit(assetEntity.getId(), checksum, constProperties.getOssBucketByAsset().getBucketName(), assetEntity.getFileUrl());
                         }
                         // Determine whether the file has been referenced on the number table, if so, add the number of references once, otherwise add a space attachment record
                         SpaceAssetDTO assetDto = spaceAssetMapper.selectDto(spaceId, nodeId, assetEntity.getId());
@@ -358,7 +359,7 @@ public class AssetServiceImpl extends ServiceImpl<AssetMapper, AssetEntity> impl
             // set resource size
             result.setSize(fileSize);
             // md5 check to determine whether the file already exists
-            String checksum = DigestUtil.md5Hex(streamCache.getInputStream());
+            String checksum = streamCache.getChecksum();
             AssetEntity assetEntity = baseMapper.selectByChecksum(checksum);
             // read image
             ImageDto imageDto = getImageInfo(streamCache.getInputStream());
@@ -375,7 +376,7 @@ public class AssetServiceImpl extends ServiceImpl<AssetMapper, AssetEntity> impl
                 // upload attachment
                 ossTemplate.upload(constProperties.getOssBucketByAsset().getBucketName(), streamCache.getInputStream(), uploadPath, contentType, checksum);
                 // Calculate the file header Sum
-                String headSum = DigestUtil.createHeadSum(streamCache.getInputStream());
+                String headSum = streamCache.getHeadSum();
                 // Save into the database and bind the developer attachment table relationship
                 Long assetId = this.save(checksum, headSum, fileSize, uploadPath, contentType, result.getHeight(), result.getWidth(), result.getPreview());
                 iDeveloperAssetService.saveAssetInDeveloper(assetId, createdBy, checksum, developerAssetType, fileOriginalName, fileSize);
@@ -458,34 +459,10 @@ public class AssetServiceImpl extends ServiceImpl<AssetMapper, AssetEntity> impl
         }
     }
 
-    private String uploadAndSavePdfImg(InputStream in) {
-        log.info("PDF to generate pictures");
-        InputStream imageIn = PdfToImageUtil.convert(in);
-        if (imageIn == null) {
-            return null;
-        }
-
-        try (InputStreamCache pdfImgStreamCache = new InputStreamCache(imageIn, imageIn.available())) {
-            String pdfImgUploadPath = buildPath(SPACE_PREFIX);
-            String pdfImgChecksum = DigestUtil.md5Hex(pdfImgStreamCache.getInputStream());
-            ossTemplate.upload(constProperties.getOssBucketByAsset().getBucketName(), pdfImgStreamCache.getInputStream(), pdfImgUploadPath, MediaType.IMAGE_JPEG_VALUE, pdfImgChecksum);
-            return pdfImgUploadPath;
-        }
-        catch (IOException e) {
-            log.error("Failed to upload resource", e);
-            throw new BusinessException("upload failed");
-        }
-    }
-
     private ImageDto getImageInfo(InputStream in) {
         try {
-            BufferedImage bi = ImageIO.read(in);
-            if (bi != null) {
-                ImageDto imageDto = new ImageDto();
-                imageDto.setHeight(bi.getHeight());
-                imageDto.setWidth(bi.getWidth());
-                return imageDto;
-            }
+            // only the image header is read
+            return ImageSizeUtil.read(in);
         }
         catch (Exception e) {
             log.error("Error reading image, error message: " + e.getMessage(), e);
@@ -36,6 +36,10 @@ public class ControlRequestOption implements Serializable {
 
     protected boolean internalBuilding;
 
+    protected String spaceId;
+
+    protected boolean controlIdKeeping;
+
     public static ControlRequestOption create() {
         return new ControlRequestOption();
     }
@@ -62,4 +66,14 @@ public class ControlRequestOption implements Serializable {
         this.internalBuilding = internalBuilding;
         return this;
     }
+
+    public ControlRequestOption setSpaceId(String spaceId) {
+        this.spaceId = spaceId;
+        return this;
+    }
+
+    public ControlRequestOption setControlIdKeeping(boolean controlIdKeeping) {
+        this.controlIdKeeping = controlIdKeeping;
+        return this;
+    }
 }
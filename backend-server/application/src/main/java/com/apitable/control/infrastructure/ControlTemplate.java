@@ -19,16 +19,18 @@
 package com.apitable.control.infrastructure;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import javax.annotation.Resource;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.StrUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import com.apitable.control.infrastructure.ControlIdBuilder.ControlId;
+import com.apitable.control.infrastructure.ControlIdBuilder.FieldControlId;
 import com.apitable.control.infrastructure.PrincipalBuilder.Principal;
 import com.apitable.control.infrastructure.exception.UnknownControlTypeException;
 import com.apitable.control.infrastructure.exception.UnknownPrincipalTypeException;
@@ -36,6 +38,7 @@ import com.apitable.control.infrastructure.permission.FieldPermission;
 import com.apitable.control.infrastructure.permission.NodePermission;
 import com.apitable.control.infrastructure.request.ControlRequest;
 import com.apitable.control.infrastructure.request.ControlRequestFactory;
+import com.apitable.control.infrastructure.request.FieldControlRequest;
 import com.apitable.control.infrastructure.request.FieldControlRequestFactory;
 import com.apitable.control.infrastructure.request.NodeControlRequest;
 import com.apitable.control.infrastructure.request.NodeControlRequestFactory;
@@ -44,10 +47,10 @@ import com.apitable.control.infrastructure.role.FieldEditorRole;
 import com.apitable.control.infrastructure.role.NodeManagerRole;
 import com.apitable.organization.entity.UnitEntity;
 import com.apitable.organization.enums.UnitType;
-import com.apitable.organization.service.IMemberService;
 import com.apitable.organization.service.ITeamService;
 import com.apitable.organization.service.IUnitService;
-import com.apitable.space.service.ISpaceRoleService;
+import com.apitable.shared.cache.bean.MemberUnitDto;
+import com.apitable.shared.cache.service.PermissionCacheService;
 import com.apitable.core.exception.BusinessException;
 
 import org.springframework.stereotype.Component;
@@ -70,10 +73,7 @@ public class ControlTemplate {
     private ITeamService iTeamService;
 
     @Resource
-    private IMemberService iMemberService;
-
-    @Resource
-    private ISpaceRoleService iSpaceRoleService;
+    private PermissionCacheService permissionCacheService;
 
     private final List<ControlRequestFactory> factories = new ArrayList<>();
 
@@ -102,6 +102,14 @@ public class ControlTemplate {
         return execute(PrincipalBuilder.memberId(memberId), ControlIdBuilder.nodeIds(nodeIds), ControlRequestOption.create().setNodeTreeRoleBuilding(true));
     }
 
+    /**
+     * fetch node tree role, node parent paths are loaded from node tree snapshot of space
+     */
+    public ControlRoleDict fetchNodeTreeNode(String spaceId, Long memberId, List<String> nodeIds) {
+        return execute(PrincipalBuilder.memberId(memberId), ControlIdBuilder.nodeIds(nodeIds),
+                ControlRequestOption.create().setNodeTreeRoleBuilding(true).setSpaceId(spaceId));
+    }
+
     public ControlRoleDict fetchShareNodeTree(Long memberId, List<String> nodeIds) {
         return execute(PrincipalBuilder.memberId(memberId), ControlIdBuilder.nodeIds(nodeIds),
                 ControlRequestOption.create().setNodeTreeRoleBuilding(true).setShareNodeTreeRoleBuilding(true));
@@ -153,6 +161,33 @@ public class ControlTemplate {
         return execute(PrincipalBuilder.memberId(memberId), ControlIdBuilder.fieldIds(datasheetId, fieldIds));
     }
 
+    /**
+     * fetch field roles of multiple datasheets in one request
+     *
+     * @param memberId member ID
+     * @param datasheetToFieldIds datasheet ID -> field IDs
+     * @return datasheet ID -> field role dict
+     */
+    public Map<String, ControlRoleDict> fetchFieldRoles(Long memberId, Map<String, List<String>> datasheetToFieldIds) {
+        Map<String, ControlRoleDict> datasheetToRoleDict = new LinkedHashMap<>(datasheetToFieldIds.size());
+        List<String> controlIds = new ArrayList<>();
+        datasheetToFieldIds.forEach((datasheetId, fieldIds) -> {
+            datasheetToRoleDict.put(datasheetId, ControlRoleDict.create());
+            controlIds.addAll(ControlIdBuilder.fieldIds(datasheetId, fieldIds).getControlIds());
+        });
+        if (controlIds.isEmpty()) {
+            return datasheetToRoleDict;
+        }
+        // roles are keyed by control id, fields of different datasheets may have the same id
+        ControlRoleDict controlRoleDict = execute(PrincipalBuilder.memberId(memberId), new FieldControlId(controlIds),
+                ControlRequestOption.create().setControlIdKeeping(true));
+        controlRoleDict.forEach((cId, role) -> {
+            int index = cId.indexOf(ControlIdBuilder.SYMBOL);
+            datasheetToRoleDict.get(cId.substring(0, index)).put(cId.substring(index + 1), role);
+        });
+        return datasheetToRoleDict;
+    }
+
     public void checkFieldPermission(Long memberId, String datasheetId, String fieldId, FieldPermission permission, Consumer<Boolean> consumer) {
         ControlRole controlRole = fetchFieldRole(memberId, datasheetId, fieldId);
         consumer.accept(controlRole.hasPermission(permission));
@@ -174,6 +209,10 @@ public class ControlTemplate {
                     ((NodeControlRequest) request).setShareTreeBuilding(this.requestOption.shareNodeTreeRoleBuilding);
                     ((NodeControlRequest) request).setRubbishBuilding(this.requestOption.rubbishRoleBuilding);
                     ((NodeControlRequest) request).setInternalBuilding(this.requestOption.internalBuilding);
+                    ((NodeControlRequest) request).setSpaceId(this.requestOption.spaceId);
+                }
+                else if (request instanceof FieldControlRequest) {
+                    ((FieldControlRequest) request).setControlIdKeeping(this.requestOption.controlIdKeeping);
                 }
             }
         }
@@ -199,16 +238,20 @@ public class ControlTemplate {
             return this.doExecute(PrincipalBuilder.roleId(unitEntity.getUnitRefId()), controlId, requestWrapper);
         }
         else if (principal.getPrincipalType() == PrincipalType.MEMBER_ID) {
+            MemberUnitDto memberUnits = permissionCacheService.getMemberUnits(principal.getPrincipal());
+            if (memberUnits == null) {
+                throw new BusinessException(MEMBER_NOT_IN_SPACE);
+            }
             // Check if main admin only if principal is member
-            if (isWorkbenchAdmin(principal.getPrincipal())) {
+            if (permissionCacheService.getSpaceAdmins(memberUnits.getSpaceId()).contains(principal.getPrincipal())) {
                 ControlRoleDict controlRoleDict = ControlRoleDict.create();
                 ControlRole topRole = this.getTopRole(controlId.getControlType());
-                controlId.toRealIdList().forEach(cId -> controlRoleDict.put(cId, topRole));
+                List<String> realIds = isControlIdKeeping(requestWrapper) ? controlId.getControlIds() : controlId.toRealIdList();
+                realIds.forEach(cId -> controlRoleDict.put(cId, topRole));
                 return controlRoleDict;
             }
             // Query members, their departments, and the organizational units corresponding to their roles
-            List<Long> fromUnitIds = iMemberService.getUnitsByMember(principal.getPrincipal());
-            return doExecute(fromUnitIds, controlId, requestWrapper);
+            return doExecute(new ArrayList<>(memberUnits.getUnitIds()), controlId, requestWrapper);
         }
         else if (principal.getPrincipalType() == PrincipalType.TEAM_ID) {
             // Query the organizational unit of a department and all parent departments and roles
@@ -232,13 +275,10 @@ public class ControlTemplate {
         return request.execute();
     }
 
-    private boolean isWorkbenchAdmin(Long memberId) {
-        String spaceId = iMemberService.getSpaceIdByMemberId(memberId);
-        if (StrUtil.isBlank(spaceId)) {
-            throw new BusinessException(MEMBER_NOT_IN_SPACE);
-        }
-        List<Long> admins = iSpaceRoleService.getSpaceAdminsWithWorkbenchManage(spaceId);
-        return admins.contains(memberId);
+    private static boolean isControlIdKeeping(ControlRequestWrapper requestWrapper) {
+        return requestWrapper instanceof DefaultControlRequestWrapper
+                && ((DefaultControlRequestWrapper) requestWrapper).requestOption != null
+                && ((DefaultControlRequestWrapper) requestWrapper).requestOption.controlIdKeeping;
     }
 
     private ControlRole getTopRole(ControlType controlType) {
@@ -48,11 +48,17 @@ public class FieldControlRequest extends AbstractControlRequest {
 
     private final List<String> controlIds;
 
+    private boolean controlIdKeeping;
+
     public FieldControlRequest(List<Long> units, List<String> controlIds) {
         this.units = units;
         this.controlIds = controlIds;
     }
 
+    public void setControlIdKeeping(boolean controlIdKeeping) {
+        this.controlIdKeeping = controlIdKeeping;
+    }
+
     @Override
     public List<Long> getUnits() {
         return this.units;
@@ -78,7 +84,7 @@ public class FieldControlRequest extends AbstractControlRequest {
             controlUnitDTOList.stream().filter(dto -> units.contains(dto.getUnitId()))
                     .forEach(dto -> {
                         String controlId = dto.getControlId();
-                        roleDict.put(controlId.substring(controlId.indexOf(ControlIdBuilder.SYMBOL) + 1), role);
+                        roleDict.put(toRoleKey(controlId), role);
                         controlIds.remove(controlId);
                     });
         }
@@ -99,8 +105,12 @@ public class FieldControlRequest extends AbstractControlRequest {
                 continue;
             }
             ControlRole role = ControlRoleManager.getTopFieldRole(roleCodes);
-            roleDict.put(controlId.substring(controlId.indexOf(ControlIdBuilder.SYMBOL) + 1), role);
+            roleDict.put(toRoleKey(controlId), role);
         }
         return roleDict;
     }
+
+    private String toRoleKey(String controlId) {
+        return controlIdKeeping ? controlId : controlId.substring(controlId.indexOf(ControlIdBuilder.SYMBOL) + 1);
+    }
 }
@@ -18,7 +18,7 @@
 
 package com.apitable.control.infrastructure.request;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -26,7 +26,6 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -38,7 +37,8 @@ import com.apitable.control.infrastructure.ControlRoleDict;
 import com.apitable.control.infrastructure.ControlType;
 import com.apitable.control.infrastructure.role.NodeRole;
 import com.apitable.control.infrastructure.role.DefaultWorkbenchRole;
-import com.apitable.control.mapper.ControlRoleMapper;
+import com.apitable.shared.cache.service.PermissionCacheService;
+import com.apitable.shared.cache.service.NodeTreeSnapshotCacheService;
 import com.apitable.workspace.mapper.NodeMapper;
 import com.apitable.workspace.dto.ControlRoleInfo;
 import com.apitable.workspace.dto.SimpleNodeInfo;
@@ -64,6 +64,8 @@ public class NodeControlRequest extends AbstractControlRequest {
 
     private boolean internalBuilding;
 
+    private String spaceId;
+
     public NodeControlRequest(List<Long> units, List<String> nodeIds) {
         this.units = units;
         this.nodeIds = nodeIds;
@@ -85,6 +87,10 @@ public class NodeControlRequest extends AbstractControlRequest {
         this.internalBuilding = internalBuilding;
     }
 
+    public void setSpaceId(String spaceId) {
+        this.spaceId = spaceId;
+    }
+
     @Override
     public List<Long> getUnits() {
         return this.units;
@@ -113,12 +119,14 @@ public class NodeControlRequest extends AbstractControlRequest {
         if (nodeList == null || nodeList.isEmpty()) {
             return ControlRoleDict.create();
         }
+        // Index the node list once, avoid scanning the list for every node and parent lookup
+        NodeTreeIndex treeIndex = new NodeTreeIndex(nodeList);
         // Internal call to load node permission set
         if (internalBuilding) {
             if (logger.isTraceEnabled()) {
                 logger.trace("Load Internal Node Permission");
             }
-            return this.getInternalNodeRoles(nodeList);
+            return this.getInternalNodeRoles(treeIndex);
         }
         // Find the upper-level path of the processing node (insert near-far in sequence),
         // and determine the highest authority of the node
@@ -132,7 +140,7 @@ public class NodeControlRequest extends AbstractControlRequest {
         // 2.If the node is in inheritance mode, the parent path has to be loaded, and the DB retrieval is also reduced
         for (String controlId : getControlIds()) {
             // Find the node first
-            SimpleNodeInfo node = findNode(nodeList, controlId);
+            SimpleNodeInfo node = treeIndex.getNode(controlId);
             // If the node information does not exist, look for the next one directly.
             // It should exist, unless a deleted node is passed in.
             if (node == null) {
@@ -146,7 +154,7 @@ public class NodeControlRequest extends AbstractControlRequest {
             // If the specified permission in the upper directory is not configured with itself, access is not allowed.
             if (node.getExtend()) {
                 // Continue to look up to the parent directory. If the specified permissions in the parent directory are not configured with themselves, access is not allowed.
-                Set<String> orderParentNodeIds = findParentNodeIdFromTop2Bottom(nodeList, node);
+                Set<String> orderParentNodeIds = new LinkedHashSet<>(treeIndex.findParentNodeIdFromTop2Bottom(node));
                 if (logger.isTraceEnabled()) {
                     logger.trace("Parent Node Id [{}]", orderParentNodeIds);
                 }
@@ -174,11 +182,9 @@ public class NodeControlRequest extends AbstractControlRequest {
 
         // Find the role corresponding to the parent node at one time,
         // and use the algorithm to traverse to calculate the role configuration of each node
-        List<ControlRoleInfo> controlRoleInfos = SpringContextHolder.getBean(ControlRoleMapper.class)
-            .selectControlRoleInfoByControlIds(roleNodeIds);
-        // group by node
-        Map<String, List<ControlRoleInfo>> nodeRoleMap = controlRoleInfos.stream()
-            .collect(Collectors.groupingBy(ControlRoleInfo::getControlId));
+        List<ControlRoleInfo> controlRoleInfos = getControlRoleInfos(roleNodeIds);
+        // index by node, the roles of each node are calculated only once
+        NodeRoleIndex roleIndex = new NodeRoleIndex(controlRoleInfos, getUnits());
         Map<String, Set<String>> nodeRoles = new LinkedHashMap<>(parentNodeRoleMap.size());
         // If the parent from top to bottom does not contain its own permissions, the following can no longer appear
         // The purpose of creating a SET collection to store unauthorized nodes is to avoid repeated comparisons and reduce traversal when a loop node encounters unauthorized access.
@@ -218,13 +224,12 @@ public class NodeControlRequest extends AbstractControlRequest {
                         }
                     }
                     // Categorize the roles the user has on the node, there may be multiple roles
-                    Set<String> roles = calNodeRoles(nodeRoleMap, parentNodeId, getUnits());
+                    Set<String> roles = roleIndex.getNodeRoles(parentNodeId);
                     if (roles.isEmpty()) {
                         // Found that the role configuration of a parent does not grant permission, which means that there is no permission,
                         // and directly filter out the following nodes
                         if (treeBuilding) {
-                            List<String> children = findAllChildren(nodeList, parentNodeId);
-                            accessDeniedNode.addAll(children);
+                            treeIndex.collectAllChildren(parentNodeId, accessDeniedNode);
                             break;
                         }
                     }
@@ -239,15 +244,14 @@ public class NodeControlRequest extends AbstractControlRequest {
             }
             else {
                 // If the node has set permissions, get the node permissions directly
-                Set<String> roles = calNodeRoles(nodeRoleMap, controlId, getUnits());
+                Set<String> roles = roleIndex.getNodeRoles(controlId);
                 if (!roles.isEmpty()) {
                     nodeRoles.put(controlId, roles);
                 }
                 else if (treeBuilding) {
                     // When building node tree, directly filter out the following nodes
                     accessDeniedNode.add(controlId);
-                    List<String> children = findAllChildren(nodeList, controlId);
-                    accessDeniedNode.addAll(children);
+                    treeIndex.collectAllChildren(controlId, accessDeniedNode);
                 }
             }
         }
@@ -260,8 +264,7 @@ public class NodeControlRequest extends AbstractControlRequest {
     public ControlRoleDict getRubbishNodeRoles() {
         ControlRoleDict roleDict = ControlRoleDict.create();
         // Query the permissions view of a node
-        List<ControlRoleInfo> controlRoleInfos = SpringContextHolder.getBean(ControlRoleMapper.class)
-            .selectControlRoleInfoByControlIds(nodeIds);
+        List<ControlRoleInfo> controlRoleInfos = getControlRoleInfos(nodeIds);
         if (controlRoleInfos.isEmpty()) {
             // All nodes have no permissions. The node was previously inherited from the root node and returns to the default permissions.
             nodeIds.forEach(controlId -> roleDict.put(controlId, new DefaultWorkbenchRole()));
@@ -286,25 +289,24 @@ public class NodeControlRequest extends AbstractControlRequest {
 
     /**
      * For internal call，Need to determine whether the node belongs to the ghost node
-     * @param nodeList simple node list
+     * @param treeIndex simple node index
      */
-    private ControlRoleDict getInternalNodeRoles(List<SimpleNodeInfo> nodeList) {
+    private ControlRoleDict getInternalNodeRoles(NodeTreeIndex treeIndex) {
         ControlRoleDict roleDict = ControlRoleDict.create();
-        Map<String, SimpleNodeInfo> nodeToInfoMap = nodeList.stream().collect(Collectors.toMap(SimpleNodeInfo::getNodeId, v -> v));
 
         Map<String, List<String>> reverseParentNodeRoleMap = new LinkedHashMap<>(16);
         Set<String> roleNodeIds = new HashSet<>();
         for (String controlId : getControlIds()) {
-            if (!nodeToInfoMap.containsKey(controlId)) {
+            if (!treeIndex.contains(controlId)) {
                 continue;
             }
-            SimpleNodeInfo node = nodeToInfoMap.get(controlId);
+            SimpleNodeInfo node = treeIndex.getNode(controlId);
             // // If the node has set permissions, get the permissions of node directly
             if (!node.getExtend()) {
                 roleNodeIds.add(controlId);
             }
             // Find all parent nodes from bottom to top
-            List<String> reverseParentNodeIds = findParentNodeIdFromBottom2Top(nodeList, node);
+            List<String> reverseParentNodeIds = treeIndex.findParentNodeIdFromBottom2Top(node);
             reverseParentNodeRoleMap.put(controlId, reverseParentNodeIds);
             if (reverseParentNodeIds.isEmpty()) {
                 continue;
@@ -318,17 +320,15 @@ public class NodeControlRequest extends AbstractControlRequest {
         }
 
         // Find the role corresponding to the parent node at one time, and use the algorithm to traverse to calculate the role configuration of each node
-        List<ControlRoleInfo> controlRoleInfos = SpringContextHolder.getBean(ControlRoleMapper.class)
-                .selectControlRoleInfoByControlIds(roleNodeIds);
-        // Group by node
-        Map<String, List<ControlRoleInfo>> nodeRoleMap = controlRoleInfos.stream()
-                .collect(Collectors.groupingBy(ControlRoleInfo::getControlId));
+        List<ControlRoleInfo> controlRoleInfos = getControlRoleInfos(roleNodeIds);
+        // Index by node
+        NodeRoleIndex roleIndex = new NodeRoleIndex(controlRoleInfos, getUnits());
 
         for (String controlId : getControlIds()) {
-            if (!nodeToInfoMap.containsKey(controlId)) {
+            if (!treeIndex.contains(controlId)) {
                 continue;
             }
-            SimpleNodeInfo node = nodeToInfoMap.get(controlId);
+            SimpleNodeInfo node = treeIndex.getNode(controlId);
             String nodeId = controlId;
             List<String> reverseParentNodeIds = reverseParentNodeRoleMap.get(controlId);
             if (node.getExtend()) {
@@ -340,7 +340,7 @@ public class NodeControlRequest extends AbstractControlRequest {
                 nodeId = reverseParentNodeIds.remove(0);
             }
             // Compute node role
-            Set<String> roles = calNodeRoles(nodeRoleMap, nodeId, getUnits());
+            Set<String> roles = roleIndex.getNodeRoles(nodeId);
             if (!roles.isEmpty()) {
                 // Get the most privileged role
                 roleDict.put(controlId, ControlRoleManager.getTopNodeRole(roles));
@@ -355,7 +355,7 @@ public class NodeControlRequest extends AbstractControlRequest {
             // Query from bottom to top whether there is a superior node without permission, it should be a ghost node
             boolean isGhostNode = false;
             for (String parentNodeId : reverseParentNodeIds) {
-                Set<String> parentRoles = calNodeRoles(nodeRoleMap, parentNodeId, getUnits());
+                Set<String> parentRoles = roleIndex.getNodeRoles(parentNodeId);
                 if (parentRoles.isEmpty()) {
                     isGhostNode = true;
                     break;
@@ -367,9 +367,17 @@ public class NodeControlRequest extends AbstractControlRequest {
         return roleDict;
     }
 
+    private List<ControlRoleInfo> getControlRoleInfos(Collection<String> controlIds) {
+        // role assignments of nodes are served from permission cache
+        return SpringContextHolder.getBean(PermissionCacheService.class).getControlRoles(controlIds).values().stream()
+            .flatMap(List::stream).collect(Collectors.toList());
+    }
+
     private List<SimpleNodeInfo> getSimpleNodeInfos() {
         // Query the parent node corresponding to the node. In order to improve performance, query all parent nodes at one time to obtain all the superiors of the current node.
-        List<SimpleNodeInfo> nodeList = SpringContextHolder.getBean(NodeMapper.class).selectAllParentNodeIdsByNodeIds(nodeIds, false);
+        List<SimpleNodeInfo> nodeList = spaceId != null
+            ? SpringContextHolder.getBean(NodeTreeSnapshotCacheService.class).getSnapshot(spaceId).getAllParentNodeInfos(nodeIds)
+            : SpringContextHolder.getBean(NodeMapper.class).selectAllParentNodeIdsByNodeIds(nodeIds, false);
         // is not generating a share tree, or the share node is at the first level
         if (!shareTreeBuilding || nodeList.size() == getControlIds().size()) {
             return nodeList;
@@ -377,24 +385,19 @@ public class NodeControlRequest extends AbstractControlRequest {
         // The shared tree allows the ghost nodes of the fault to retain permissions,
         // so it cannot be calculated from the top down, but calculated from the shared node down to avoid being directly truncated
         // The share node is at the root
-        SimpleNodeInfo node = findNode(nodeList, getControlIds().get(0));
+        NodeTreeIndex treeIndex = new NodeTreeIndex(nodeList);
+        SimpleNodeInfo node = treeIndex.getNode(getControlIds().get(0));
         if (node == null) {
             return null;
         }
         // The share node does not have permission
         if (node.getExtend()) {
             // Find the closest parent node of the specified permission and truncate the previous parent node
-            List<String> reverseParentNodeIds = findParentNodeIdFromBottom2Top(nodeList, node);
+            List<String> reverseParentNodeIds = treeIndex.findParentNodeIdFromBottom2Top(node);
             if (reverseParentNodeIds.isEmpty()) {
                 return nodeList;
             }
-            int i = 0;
-            for (SimpleNodeInfo simpleNodeInfo : nodeList) {
-                if (simpleNodeInfo.getNodeId().equals(reverseParentNodeIds.get(0))) {
-                    break;
-                }
-                i++;
-            }
+            int i = treeIndex.indexOf(reverseParentNodeIds.get(0));
             return nodeList.subList(i, nodeList.size());
         }
         else {
@@ -402,122 +405,4 @@ public class NodeControlRequest extends AbstractControlRequest {
             return nodeList.subList(nodeList.size() - getControlIds().size(), nodeList.size());
         }
     }
-
-    /**
-     * find node
-     * @param simpleNodeInfos node list
-     * @param nodeId node id
-     * @return node info
-     */
-    private static SimpleNodeInfo findNode(List<SimpleNodeInfo> simpleNodeInfos, String nodeId) {
-        SimpleNodeInfo node = null;
-        for (SimpleNodeInfo simpleNodeInfo : simpleNodeInfos) {
-            if (simpleNodeInfo.getNodeId().equals(nodeId)) {
-                node = simpleNodeInfo;
-                break;
-            }
-        }
-        return node;
-    }
-
-    /**
-     * Recursively get the list of parent nodes of a node
-     * @param simpleNodeInfos node list
-     * @param node node
-     * @return List of parent nodes from bottom to top
-     */
-    private static Set<String> findParentNodeIdFromTop2Bottom(List<SimpleNodeInfo> simpleNodeInfos, SimpleNodeInfo node) {
-        // Find parent node from bottom to top
-        List<String> parentNodeIds = findParentNodeIdFromBottom2Top(simpleNodeInfos, node);
-        // Reverse the order, because the acquisition is from bottom to top, for permission control, the order must be reversed, from top to bottom
-        Collections.reverse(parentNodeIds);
-        return new LinkedHashSet<>(parentNodeIds);
-    }
-
-    /**
-     * Query the parent node in reverse order
-     * @param simpleNodeInfos node info list
-     * @param node node
-     * @return list of node id
-     */
-    private static List<String> findParentNodeIdFromBottom2Top(List<SimpleNodeInfo> simpleNodeInfos, SimpleNodeInfo node) {
-        // Find parent nodes in reverse order, from bottom to top
-        List<String> parents = new ArrayList<>();
-        // Find all parent nodes with permissions configured, from bottom to top
-        findParentNodeRole(simpleNodeInfos, node, parents::add);
-        return parents;
-    }
-
-    /**
-     * Find the parent node that enables the role permission configuration
-     * @param simpleNodeInfos node list
-     * @param roleInfo node info
-     * @param parents parent node with permission
-     */
-    private static void findParentNodeRole(List<SimpleNodeInfo> simpleNodeInfos, SimpleNodeInfo roleInfo, Consumer<String> parents) {
-        for (SimpleNodeInfo simpleNodeInfo : simpleNodeInfos) {
-            if (roleInfo.getParentId().equals(simpleNodeInfo.getNodeId())) {
-                if (!simpleNodeInfo.getExtend()) {
-                    parents.accept(simpleNodeInfo.getNodeId());
-                }
-                findParentNodeRole(simpleNodeInfos, simpleNodeInfo, parents);
-            }
-        }
-    }
-
-    /**
-     * compute node role
-     * @param nodeRoleMap Node role key-value pair
-     * @param nodeId node id
-     * @param memberUnitIds List of organizational units to which members belong
-     * @return node role
-     */
-    private static Set<String> calNodeRoles(Map<String, List<ControlRoleInfo>> nodeRoleMap, String nodeId, List<Long> memberUnitIds) {
-        List<ControlRoleInfo> permissions = nodeRoleMap.get(nodeId);
-        if (permissions == null) {
-            return new HashSet<>();
-        }
-        // The organizational unit corresponding to the node role
-        Map<String, List<Long>> roleUnitMap = permissions.stream()
-            .collect(Collectors.groupingBy(ControlRoleInfo::getRole, Collectors.mapping(ControlRoleInfo::getUnitId, Collectors.toList())));
-        return roleUnitMap.entrySet()
-            .stream()
-            .filter(entry -> memberUnitIds.stream().anyMatch(m -> entry.getValue().contains(m)))
-            .map(Map.Entry::getKey).collect(Collectors.toSet());
-    }
-
-    /**
-     * find all child nodes
-     * @param simpleNodeInfos list of node info
-     * @param parentNodeId parent node id
-     * @return all child node
-     */
-    private static List<String> findAllChildren(List<SimpleNodeInfo> simpleNodeInfos, String parentNodeId) {
-        List<String> allChildren = new ArrayList<>();
-        List<String> children = findChildren(simpleNodeInfos, parentNodeId);
-        if (!children.isEmpty()) {
-            allChildren.addAll(children);
-            for (String child : children) {
-                List<String> subs = findAllChildren(simpleNodeInfos, child);
-                allChildren.addAll(subs);
-            }
-        }
-        return allChildren;
-    }
-
-    /**
-     * Find child node id
-     * @param simpleNodeInfos list of node info
-     * @param parentNodeId parent node id
-     * @return list of child node id
-     */
-    private static List<String> findChildren(List<SimpleNodeInfo> simpleNodeInfos, String parentNodeId) {
-        List<String> children = new ArrayList<>();
-        for (SimpleNodeInfo nodeInfo : simpleNodeInfos) {
-            if (nodeInfo.getParentId().equals(parentNodeId)) {
-                children.add(nodeInfo.getNodeId());
-            }
-        }
-        return children;
-    }
 }
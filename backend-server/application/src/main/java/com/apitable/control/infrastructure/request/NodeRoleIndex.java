@@ -0,0 +1,128 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.control.infrastructure.request;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.apitable.workspace.dto.ControlRoleInfo;
+
+/**
+ * node role index, built once per control request.
+ * role units are stored as sorted primitive arrays, resolved roles of each node are cached.
+ */
+class NodeRoleIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * node id -> role -> sorted unit ids
+     */
+    private final Map<String, Map<String, long[]>> nodeRoleUnits;
+
+    /**
+     * sorted unit ids of member
+     */
+    private final long[] memberUnits;
+
+    private final Map<String, Set<String>> resolved = new HashMap<>();
+
+    NodeRoleIndex(List<ControlRoleInfo> controlRoleInfos, Collection<Long> memberUnitIds) {
+        Map<String, Map<String, Set<Long>>> grouping = new HashMap<>();
+        for (ControlRoleInfo info : controlRoleInfos) {
+            if (info.getUnitId() == null) {
+                continue;
+            }
+            grouping.computeIfAbsent(info.getControlId(), k -> new HashMap<>(4))
+                .computeIfAbsent(info.getRole(), k -> new HashSet<>())
+                .add(info.getUnitId());
+        }
+        this.nodeRoleUnits = new HashMap<>(grouping.size() << 1);
+        grouping.forEach((nodeId, roleUnits) -> {
+            Map<String, long[]> roles = new HashMap<>(roleUnits.size() << 1);
+            roleUnits.forEach((role, units) -> roles.put(role, toSortedArray(units)));
+            nodeRoleUnits.put(nodeId, roles);
+        });
+        this.memberUnits = memberUnitIds == null ? EMPTY : toSortedArray(memberUnitIds);
+    }
+
+    /**
+     * compute node roles of member, each node is computed only once
+     * @param nodeId node id
+     * @return node roles, empty if member has no role on node
+     */
+    Set<String> getNodeRoles(String nodeId) {
+        Set<String> roles = resolved.get(nodeId);
+        if (roles == null) {
+            roles = calNodeRoles(nodeId);
+            resolved.put(nodeId, roles);
+        }
+        return roles;
+    }
+
+    private Set<String> calNodeRoles(String nodeId) {
+        Map<String, long[]> roleUnits = nodeRoleUnits.get(nodeId);
+        if (roleUnits == null || memberUnits.length == 0) {
+            return Collections.emptySet();
+        }
+        Set<String> roles = new HashSet<>(4);
+        roleUnits.forEach((role, units) -> {
+            if (intersects(units, memberUnits)) {
+                roles.add(role);
+            }
+        });
+        return roles;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                return true;
+            }
+            if (a[i] < b[j]) {
+                i++;
+            }
+            else {
+                j++;
+            }
+        }
+        return false;
+    }
+
+    private static long[] toSortedArray(Collection<Long> values) {
+        long[] array = new long[values.size()];
+        int i = 0;
+        for (Long value : values) {
+            if (value != null) {
+                array[i++] = value;
+            }
+        }
+        long[] result = i == array.length ? array : Arrays.copyOf(array, i);
+        Arrays.sort(result);
+        return result;
+    }
+}
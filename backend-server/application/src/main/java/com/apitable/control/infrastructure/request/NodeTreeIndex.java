@@ -0,0 +1,131 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.control.infrastructure.request;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.apitable.workspace.dto.SimpleNodeInfo;
+
+/**
+ * node tree index, built once per control request.
+ * replace linear scan over node list with node id and parent id lookup.
+ */
+class NodeTreeIndex {
+
+    private final Map<String, SimpleNodeInfo> nodeMap;
+
+    private final Map<String, List<String>> childrenMap;
+
+    private final List<String> nodeIds;
+
+    NodeTreeIndex(List<SimpleNodeInfo> nodeList) {
+        this.nodeMap = new HashMap<>(nodeList.size() << 1);
+        this.childrenMap = new HashMap<>(nodeList.size() << 1);
+        this.nodeIds = new ArrayList<>(nodeList.size());
+        for (SimpleNodeInfo node : nodeList) {
+            nodeMap.put(node.getNodeId(), node);
+            nodeIds.add(node.getNodeId());
+            if (node.getParentId() != null) {
+                childrenMap.computeIfAbsent(node.getParentId(), k -> new ArrayList<>()).add(node.getNodeId());
+            }
+        }
+    }
+
+    /**
+     * find node
+     * @param nodeId node id
+     * @return node info, null if not exist
+     */
+    SimpleNodeInfo getNode(String nodeId) {
+        return nodeMap.get(nodeId);
+    }
+
+    boolean contains(String nodeId) {
+        return nodeMap.containsKey(nodeId);
+    }
+
+    /**
+     * position of node in the original list
+     * @param nodeId node id
+     * @return index, -1 if not exist
+     */
+    int indexOf(String nodeId) {
+        return nodeIds.indexOf(nodeId);
+    }
+
+    /**
+     * Find the parent nodes that enable the role permission configuration, from bottom to top
+     * @param node node
+     * @return list of node id
+     */
+    List<String> findParentNodeIdFromBottom2Top(SimpleNodeInfo node) {
+        List<String> parents = new ArrayList<>();
+        // guard against dirty data with a cyclic parent chain
+        Set<String> visited = new HashSet<>();
+        visited.add(node.getNodeId());
+        SimpleNodeInfo parent = nodeMap.get(node.getParentId());
+        while (parent != null && visited.add(parent.getNodeId())) {
+            if (!parent.getExtend()) {
+                parents.add(parent.getNodeId());
+            }
+            parent = nodeMap.get(parent.getParentId());
+        }
+        return parents;
+    }
+
+    /**
+     * Find the parent nodes that enable the role permission configuration, from top to bottom
+     * @param node node
+     * @return list of node id
+     */
+    List<String> findParentNodeIdFromTop2Bottom(SimpleNodeInfo node) {
+        List<String> parentNodeIds = findParentNodeIdFromBottom2Top(node);
+        Collections.reverse(parentNodeIds);
+        return parentNodeIds;
+    }
+
+    /**
+     * find all child nodes, visit each node only once
+     * @param parentNodeId parent node id
+     * @param collector all child node collector, nodes already collected are not expanded again
+     */
+    void collectAllChildren(String parentNodeId, Set<String> collector) {
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(parentNodeId);
+        while (!stack.isEmpty()) {
+            List<String> children = childrenMap.get(stack.pop());
+            if (children == null) {
+                continue;
+            }
+            for (String child : children) {
+                if (collector.add(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+}
@@ -18,15 +18,12 @@
 
 package com.apitable.control.infrastructure.role;
 
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.ObjectUtil;
 
 import com.apitable.control.infrastructure.permission.NodePermission;
@@ -44,6 +41,10 @@ abstract class AbstractControlRole implements ControlRole {
 
     private final boolean inherit;
 
+    private volatile Map<Integer, Long> groupPermissionBit;
+
+    private long bits;
+
     public AbstractControlRole(boolean inherit) {
         this.inherit = inherit;
     }
@@ -60,27 +61,32 @@ abstract class AbstractControlRole implements ControlRole {
 
     @Override
     public Map<Integer, Long> getGroupPermissionBit() {
-        Map<Integer, List<PermissionDefinition>> mapGroups = permissions.stream().distinct()
-            .sorted(Comparator.comparing(PermissionDefinition::getGroup))
-            .collect(Collectors.groupingBy(PermissionDefinition::getGroup, Collectors.toList()));
-        return mapGroups.entrySet().stream()
-            .collect(Collectors.toMap(Map.Entry::getKey,
-                entry ->
-                    entry.getValue().stream()
-                        .mapToLong(PermissionDefinition::getValue)
-                        .reduce(0L, (left, right) -> left | right)));
+        Map<Integer, Long> groupBit = this.groupPermissionBit;
+        if (groupBit == null) {
+            // permissions are only assembled in the constructor, the bits are calculated once
+            Map<Integer, Long> map = new TreeMap<>();
+            long allBits = 0L;
+            for (PermissionDefinition permission : permissions) {
+                map.merge(permission.getGroup(), permission.getValue(), (left, right) -> left | right);
+                allBits |= permission.getValue();
+            }
+            this.bits = allBits;
+            groupBit = Collections.unmodifiableMap(map);
+            this.groupPermissionBit = groupBit;
+        }
+        return groupBit;
     }
 
     @Override
     public boolean hasPermission(PermissionDefinition permission) {
-        int group = permission.getGroup();
-        long value = permission.getValue();
-        return !((getGroupPermissionBit().get(group) & value) == 0);
+        Long groupBit = getGroupPermissionBit().get(permission.getGroup());
+        return groupBit != null && (groupBit & permission.getValue()) != 0;
     }
 
     @Override
     public long getBits() {
-        return getGroupPermissionBit().values().stream().reduce(0L, (left, right) -> left | right);
+        getGroupPermissionBit();
+        return this.bits;
     }
 
     @Override
@@ -115,22 +121,14 @@ abstract class AbstractControlRole implements ControlRole {
 
     @Override
     public <T> T permissionToBean(Class<T> beanClass) {
-        Map<String, Boolean> map = getPermissions().stream()
-                .collect(HashMap::new, (m, v) -> m.put(v.getCode(), true), HashMap::putAll);
-        return BeanUtil.toBeanIgnoreError(map, beanClass);
+        return PermissionBeanTemplate.of(beanClass, this, false).newBean();
     }
 
     @Override
     public <T> T permissionToBean(Class<T> beanClass, SpaceGlobalFeature feature) {
-        Map<String, Boolean> map = getPermissions().stream()
-                .collect(HashMap::new, (m, v) -> m.put(v.getCode(), true), HashMap::putAll);
         // For non-main admin, node export permissions are determined by the space global properties
-        if (getPermissions().contains(NodePermission.EXPORT_NODE) && !isAdmin()) {
-            // Comparison of space global attributes and individual permissions
-            boolean isAllowedNodeExportResult = isAllowedNodeExport(feature);
-            map.put(NodePermission.EXPORT_NODE.getCode(), isAllowedNodeExportResult);
-        }
-        return BeanUtil.toBeanIgnoreError(map, beanClass);
+        boolean exportDenied = hasPermission(NodePermission.EXPORT_NODE) && !isAdmin() && !isAllowedNodeExport(feature);
+        return PermissionBeanTemplate.of(beanClass, this, exportDenied).newBean();
     }
 
     private boolean isAllowedNodeExport(SpaceGlobalFeature feature) {
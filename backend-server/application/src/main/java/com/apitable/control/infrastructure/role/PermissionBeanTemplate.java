@@ -0,0 +1,144 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.control.infrastructure.role;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.hutool.core.exceptions.UtilException;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.core.util.StrUtil;
+
+import com.apitable.control.infrastructure.permission.NodePermission;
+import com.apitable.control.infrastructure.permission.PermissionDefinition;
+
+/**
+ * <p>
+ * permission bean template.
+ * the setters of a permission set are resolved once for each bean class,
+ * creating a bean is an instantiation and a few setter calls, without map or bean conversion.
+ * </p>
+ */
+final class PermissionBeanTemplate<T> {
+
+    /**
+     * template container, the key is bean class + group permission bits + whether node export is denied
+     */
+    private static final Map<TemplateKey, PermissionBeanTemplate<?>> TEMPLATES = new ConcurrentHashMap<>(32);
+
+    private final Constructor<T> constructor;
+
+    private final Method[] grantedSetters;
+
+    private final Method exportDeniedSetter;
+
+    private PermissionBeanTemplate(Class<T> beanClass, Iterable<PermissionDefinition> permissions, boolean exportDenied) {
+        this.constructor = ReflectUtil.getConstructor(beanClass);
+        if (this.constructor == null) {
+            throw new UtilException("No-argument constructor of [{}] is not exist", beanClass.getName());
+        }
+        List<Method> setters = new ArrayList<>();
+        for (PermissionDefinition permission : permissions) {
+            if (exportDenied && permission == NodePermission.EXPORT_NODE) {
+                continue;
+            }
+            // the permission that has no property in the bean is ignored
+            Method setter = getSetter(beanClass, permission.getCode());
+            if (setter != null) {
+                setters.add(setter);
+            }
+        }
+        this.grantedSetters = setters.toArray(new Method[0]);
+        this.exportDeniedSetter = exportDenied ? getSetter(beanClass, NodePermission.EXPORT_NODE.getCode()) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PermissionBeanTemplate<T> of(Class<T> beanClass, ControlRole role, boolean exportDenied) {
+        TemplateKey key = new TemplateKey(beanClass, role.getGroupPermissionBit(), exportDenied);
+        return (PermissionBeanTemplate<T>) TEMPLATES.computeIfAbsent(key,
+                k -> new PermissionBeanTemplate<>(beanClass, role.getPermissions(), exportDenied));
+    }
+
+    T newBean() {
+        try {
+            T bean = constructor.newInstance();
+            for (Method setter : grantedSetters) {
+                setter.invoke(bean, Boolean.TRUE);
+            }
+            if (exportDeniedSetter != null) {
+                exportDeniedSetter.invoke(bean, Boolean.FALSE);
+            }
+            return bean;
+        }
+        catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new UtilException(e);
+        }
+    }
+
+    private static Method getSetter(Class<?> beanClass, String code) {
+        Method setter = ReflectUtil.getMethodByName(beanClass, "set" + StrUtil.upperFirst(code));
+        if (setter == null || setter.getParameterCount() != 1 || !setter.getParameterTypes()[0].isAssignableFrom(Boolean.class)) {
+            return null;
+        }
+        setter.setAccessible(true);
+        return setter;
+    }
+
+    private static final class TemplateKey {
+
+        private final Class<?> beanClass;
+
+        private final Map<Integer, Long> groupPermissionBit;
+
+        private final boolean exportDenied;
+
+        private final int hash;
+
+        private TemplateKey(Class<?> beanClass, Map<Integer, Long> groupPermissionBit, boolean exportDenied) {
+            this.beanClass = beanClass;
+            this.groupPermissionBit = groupPermissionBit;
+            this.exportDenied = exportDenied;
+            this.hash = Objects.hash(beanClass, groupPermissionBit, exportDenied);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TemplateKey)) {
+                return false;
+            }
+            TemplateKey other = (TemplateKey) o;
+            return exportDenied == other.exportDenied && beanClass == other.beanClass
+                    && groupPermissionBit.equals(other.groupPermissionBit);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
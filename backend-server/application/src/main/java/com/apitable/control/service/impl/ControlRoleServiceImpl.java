@@ -41,6 +41,7 @@ import com.apitable.control.entity.ControlRoleEntity;
 import com.apitable.control.infrastructure.role.RoleConstants.Node;
 import com.apitable.control.mapper.ControlRoleMapper;
 import com.apitable.control.service.IControlRoleService;
+import com.apitable.shared.cache.service.PermissionCacheService;
 import com.apitable.base.enums.DatabaseException;
 import com.apitable.workspace.dto.ControlRoleInfo;
 import com.apitable.workspace.dto.ControlRoleUnitDTO;
@@ -61,6 +62,9 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
     @Resource
     private ControlRoleMapper controlRoleMapper;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
     @Override
     public List<ControlRoleEntity> getByControlId(String controlId) {
         log.info("Get all role information of control unit 「{}」", controlId);
@@ -107,6 +111,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
     @Transactional(rollbackFor = Exception.class)
     public void addControlRole(Long userId, String controlId, List<Long> unitIds, String role) {
         log.info("New control unit role。userId:{},controlId:{},role:{},unitIds:{}", userId, controlId, role, unitIds);
+        permissionCacheService.invalidateControlRoles(Collections.singletonList(controlId));
         List<ControlRoleEntity> entities = new ArrayList<>();
         List<Long> updateIds = new ArrayList<>();
         List<Long> insertUnitIds = new ArrayList<>(unitIds);
@@ -138,6 +143,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
     @Override
     public void addControlRole(Long userId, String controlId, Map<Long, String> unitRoleMap) {
         log.info("「{}」Add the organizational unit role set of control unit 「{}」", userId, controlId);
+        permissionCacheService.invalidateControlRoles(Collections.singletonList(controlId));
         List<Long> unitIds = ListUtil.toList(unitRoleMap.keySet());
         List<String> roleCodes = ListUtil.toList((unitRoleMap.values()));
         // modify former deleted status
@@ -177,6 +183,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
             return;
         }
         log.info("「{}」 modifies the role of control unit 「{}」 organizational unit 「{}」 to 「{}」", userId, controlId, unitIds, role);
+        permissionCacheService.invalidateControlRoles(Collections.singletonList(controlId));
         List<ControlRoleEntity> controlRoles = controlRoleMapper.selectByControlIdAndUnitIds(controlId, unitIds, true);
         if (controlRoles.isEmpty()) {
             addControlRole(userId, controlId, unitIds, role);
@@ -216,6 +223,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
     @Override
     public void editControlRole(Long userId, List<Long> controlRoleIds, String role) {
         log.info("「{}」 modifies the role of control unit table ID 「{}」 to 「{}」", userId, controlRoleIds, role);
+        invalidateByIds(controlRoleIds);
         boolean flag = SqlHelper.retBool(controlRoleMapper.updateRoleCodeByIds(userId, controlRoleIds, role));
         ExceptionUtil.isTrue(flag, DatabaseException.EDIT_ERROR);
     }
@@ -223,6 +231,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
     @Override
     public void removeByControlIds(Long userId, List<String> controlIds) {
         log.info("Delete all roles of the specified control unit「{}」", controlIds);
+        permissionCacheService.invalidateControlRoles(controlIds);
         // Query primary key ID
         List<Long> controlRoleIds = controlRoleMapper.selectIdByControlIds(controlIds);
         // Logical delete
@@ -234,6 +243,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
         log.info("Delete all roles of the specified organizational unit「{}」", unitIds);
         // Query primary key ID
         List<Long> controlRoleIds = controlRoleMapper.selectIdByUnitIds(unitIds);
+        invalidateByIds(controlRoleIds);
         // Logical delete
         removeByIds(controlRoleIds);
     }
@@ -241,6 +251,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
     @Override
     public void removeByControlIdAndUnitId(String controlId, Long unitId) {
         log.info("Delete the role of organizational unit 「{}」 under control unit 「{}」", controlId, unitId);
+        permissionCacheService.invalidateControlRoles(Collections.singletonList(controlId));
         List<Long> controlRoleIds = controlRoleMapper.selectIdByControlIdAndUnitId(controlId, unitId);
         boolean flag = removeByIds(controlRoleIds);
         ExceptionUtil.isTrue(flag, DatabaseException.DELETE_ERROR);
@@ -249,6 +260,7 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
     @Override
     public void removeByControlIdAndUnitIds(String controlId, List<Long> unitIds) {
         log.info("Delete the role of organizational unit 「{}」 under control unit 「{}」", controlId, unitIds);
+        permissionCacheService.invalidateControlRoles(Collections.singletonList(controlId));
         List<Long> controlRoleIds = controlRoleMapper.selectIdByControlIdAndUnitIds(controlId, unitIds);
         boolean flag = removeByIds(controlRoleIds);
         ExceptionUtil.isTrue(flag, DatabaseException.DELETE_ERROR);
@@ -278,4 +290,13 @@ public class ControlRoleServiceImpl extends ServiceImpl<ControlRoleMapper, Contr
                 .forEach(controlRole -> unitIdToCodeRole.put(controlRole.getUnitId(), controlRole.getRoleCode()));
         return unitIdToCodeRole;
     }
+
+    private void invalidateByIds(List<Long> controlRoleIds) {
+        if (CollUtil.isEmpty(controlRoleIds)) {
+            return;
+        }
+        Set<String> controlIds = listByIds(controlRoleIds).stream()
+                .map(ControlRoleEntity::getControlId).collect(Collectors.toSet());
+        permissionCacheService.invalidateControlRoles(controlIds);
+    }
 }
@@ -18,12 +18,16 @@
 
 package com.apitable.control.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
+import cn.hutool.core.collection.CollUtil;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
@@ -38,6 +42,9 @@ import com.apitable.control.service.IControlService;
 import com.apitable.control.service.IControlSettingService;
 import com.apitable.organization.entity.MemberEntity;
 import com.apitable.organization.service.IMemberService;
+import com.apitable.shared.cache.service.NodeTreeSnapshotCacheService;
+import com.apitable.space.enums.SpaceCounter;
+import com.apitable.space.service.ISpaceStatisticsService;
 import com.apitable.core.util.ExceptionUtil;
 import com.apitable.core.util.SqlTool;
 
@@ -63,6 +70,12 @@ public class ControlServiceImpl extends ServiceImpl<ControlMapper, ControlEntity
     @Resource
     private IMemberService iMemberService;
 
+    @Resource
+    private NodeTreeSnapshotCacheService nodeTreeSnapshotCacheService;
+
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
     @Override
     public ControlEntity getByControlId(String controlId) {
         log.info("Query control permission unit information");
@@ -99,14 +112,30 @@ public class ControlServiceImpl extends ServiceImpl<ControlMapper, ControlEntity
             flag = SqlHelper.retBool(controlMapper.insertBatch(Collections.singletonList(entity)));
         }
         ExceptionUtil.isTrue(flag, DatabaseException.INSERT_ERROR);
+        iSpaceStatisticsService.increment(spaceId, toCounter(controlType.getVal()), 1);
+        if (controlType == ControlType.NODE) {
+            // node tree snapshot keeps whether the node extends parent permission
+            nodeTreeSnapshotCacheService.invalidate(spaceId);
+        }
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void removeControl(Long userId, List<String> controlIds, boolean delSetting) {
         log.info("Delete the specified control unit「{}」", controlIds);
+        List<ControlEntity> controls = controlMapper.selectByControlIds(controlIds);
+        // node tree snapshot keeps whether the node extends parent permission
+        controls.stream()
+                .filter(control -> control.getControlType() == ControlType.NODE.getVal())
+                .map(ControlEntity::getSpaceId).distinct()
+                .forEach(nodeTreeSnapshotCacheService::invalidate);
         boolean flag = SqlHelper.retBool(controlMapper.deleteByControlIds(userId, controlIds));
         ExceptionUtil.isTrue(flag, DatabaseException.DELETE_ERROR);
+        controls.stream()
+                .collect(Collectors.groupingBy(ControlEntity::getSpaceId,
+                        Collectors.groupingBy(control -> toCounter(control.getControlType()), Collectors.counting())))
+                .forEach((spaceId, deltas) -> deltas.forEach((counter, count) ->
+                        iSpaceStatisticsService.increment(spaceId, counter, -count)));
         // Delete all roles of the specified control unit (no role may exist)
         iControlRoleService.removeByControlIds(userId, controlIds);
         // Delete the specified control unit settings
@@ -115,11 +144,23 @@ public class ControlServiceImpl extends ServiceImpl<ControlMapper, ControlEntity
         }
     }
 
+    private SpaceCounter toCounter(int controlType) {
+        return controlType == ControlType.NODE.getVal() ? SpaceCounter.NODE_ROLE : SpaceCounter.FIELD_ROLE;
+    }
+
     @Override
     public List<String> getControlIdByControlIdPrefixAndType(String prefix, Integer type) {
         return controlMapper.selectControlIdByControlIdPrefixAndType(prefix, type);
     }
 
+    @Override
+    public List<String> getControlIdByControlIdPrefixesAndType(Collection<String> prefixes, Integer type) {
+        if (CollUtil.isEmpty(prefixes)) {
+            return new ArrayList<>();
+        }
+        return controlMapper.selectControlIdByControlIdPrefixesAndType(prefixes, type);
+    }
+
     @Override
     public List<String> getExistedControlId(List<String> controlIds) {
         return controlMapper.selectControlIdByControlIds(controlIds);
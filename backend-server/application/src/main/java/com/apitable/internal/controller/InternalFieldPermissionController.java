@@ -20,6 +20,7 @@ package com.apitable.internal.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 import javax.validation.Valid;
@@ -140,13 +141,7 @@ public class InternalFieldPermissionController {
         }
         Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(Long.parseLong(userId), spaceId);
         // get field permissions for all nodes
-        List<FieldPermissionView> views = new ArrayList<>();
-        for (String nodeId : existNodeIds) {
-            FieldPermissionView view = iFieldRoleService.getFieldPermissionView(memberId, nodeId, shareId);
-            if (view != null) {
-                views.add(view);
-            }
-        }
-        return ResponseData.success(views);
+        Map<String, FieldPermissionView> views = iFieldRoleService.getFieldPermissionViews(memberId, existNodeIds, shareId);
+        return ResponseData.success(new ArrayList<>(views.values()));
     }
 }
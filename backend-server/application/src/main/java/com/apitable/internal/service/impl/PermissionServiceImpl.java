@@ -20,16 +20,17 @@ package com.apitable.internal.service.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.StrUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import com.apitable.control.infrastructure.ControlRoleDict;
 import com.apitable.control.infrastructure.ControlTemplate;
+import com.apitable.control.infrastructure.role.ControlRole;
 import com.apitable.control.infrastructure.role.ControlRoleManager;
 import com.apitable.control.infrastructure.role.NodeRole;
 import com.apitable.control.infrastructure.role.RoleConstants.Node;
@@ -87,14 +88,13 @@ public class PermissionServiceImpl implements IPermissionService {
         String uuid = iUserService.getUuidByUserId(userId);
         // template permissions are returned directly
         if (BooleanUtil.isTrue(isTemplate)) {
-            DatasheetPermissionView templateView = ControlRoleManager.parseNodeRole(Node.TEMPLATE_VISITOR).permissionToBean(DatasheetPermissionView.class);
-            templateView.setHasRole(true);
-            templateView.setUserId(userId);
-            templateView.setUuid(uuid);
-            templateView.setRole(Node.TEMPLATE_VISITOR);
+            ControlRole templateRole = ControlRoleManager.parseNodeRole(Node.TEMPLATE_VISITOR);
             for (String nodeId : nodeIds) {
-                DatasheetPermissionView view = new DatasheetPermissionView();
-                BeanUtil.copyProperties(templateView, view);
+                DatasheetPermissionView view = templateRole.permissionToBean(DatasheetPermissionView.class);
+                view.setHasRole(true);
+                view.setUserId(userId);
+                view.setUuid(uuid);
+                view.setRole(Node.TEMPLATE_VISITOR);
                 view.setNodeId(nodeId);
                 views.add(view);
             }
@@ -106,10 +106,12 @@ public class PermissionServiceImpl implements IPermissionService {
         Long owner = StrUtil.isNotBlank(shareId) && !shareId.startsWith(IdRulePrefixEnum.EMB.getIdRulePrefixEnum()) ?
                 iNodeShareSettingService.getUpdatedByByShareId(shareId) : userId;
         Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(owner, spaceId);
+        // permission to get all fields of the data tables, loaded at one time
+        Map<String, FieldPermissionView> fieldPermissionViews = iFieldRoleService.getFieldPermissionViews(memberId, nodeIds, shareId);
         // non space station member
         if (memberId == null) {
             for (String nodeId : nodeIds) {
-                DatasheetPermissionView view = this.getEmptyPermissionView(userId, uuid, memberId, nodeId, shareId);
+                DatasheetPermissionView view = this.getEmptyPermissionView(userId, uuid, nodeId, fieldPermissionViews.get(nodeId));
                 view.setIsDeleted(true);
                 views.add(view);
             }
@@ -120,7 +122,7 @@ public class PermissionServiceImpl implements IPermissionService {
         // If no node has permission, return an empty permission set
         if (roleDict.isEmpty()) {
             for (String nodeId : nodeIds) {
-                views.add(this.getEmptyPermissionView(userId, uuid, memberId, nodeId, shareId));
+                views.add(this.getEmptyPermissionView(userId, uuid, nodeId, fieldPermissionViews.get(nodeId)));
             }
             return views;
         }
@@ -131,7 +133,7 @@ public class PermissionServiceImpl implements IPermissionService {
         for (String nodeId : nodeIds) {
             if (!roleDict.containsKey(nodeId)) {
                 // Returns an empty permission set if there is no node permission
-                views.add(this.getEmptyPermissionView(userId, uuid, memberId, nodeId, shareId));
+                views.add(this.getEmptyPermissionView(userId, uuid, nodeId, fieldPermissionViews.get(nodeId)));
                 continue;
             }
             NodeRole controlRole = (NodeRole) roleDict.get(nodeId);
@@ -141,8 +143,7 @@ public class PermissionServiceImpl implements IPermissionService {
             permissionView.setUuid(uuid);
             permissionView.setRole(controlRole.getRoleTag());
             permissionView.setIsGhostNode(controlRole.isGhostNode());
-            // permission to get all fields of the data table
-            FieldPermissionView fieldPermissionView = iFieldRoleService.getFieldPermissionView(memberId, nodeId, shareId);
+            FieldPermissionView fieldPermissionView = fieldPermissionViews.get(nodeId);
             if (fieldPermissionView != null) {
                 permissionView.setDatasheetId(fieldPermissionView.getDatasheetId());
                 permissionView.setFieldPermissionMap(fieldPermissionView.getFieldPermissionMap());
@@ -154,12 +155,10 @@ public class PermissionServiceImpl implements IPermissionService {
         return views;
     }
 
-    private DatasheetPermissionView getEmptyPermissionView(Long userId, String uuid, Long memberId, String nodeId, String shareId) {
+    private DatasheetPermissionView getEmptyPermissionView(Long userId, String uuid, String nodeId, FieldPermissionView fieldPermissionView) {
         DatasheetPermissionView emptyPermissionView = new DatasheetPermissionView();
         emptyPermissionView.setUserId(userId);
         emptyPermissionView.setUuid(uuid);
-        // permission to get all fields of the data table
-        FieldPermissionView fieldPermissionView = iFieldRoleService.getFieldPermissionView(memberId, nodeId, shareId);
         if (fieldPermissionView != null) {
             emptyPermissionView.setDatasheetId(fieldPermissionView.getDatasheetId());
             emptyPermissionView.setFieldPermissionMap(fieldPermissionView.getFieldPermissionMap());
@@ -96,20 +96,6 @@ public interface MemberMapper extends ExpandBaseMapper<MemberEntity> {
      */
     List<SearchMemberDTO> selectByNameAndOpenIds(@Param("spaceId") String spaceId, @Param("openIds") List<String> openIds);
 
-    /**
-     *
-     * fuzzy search member id by member name
-     *
-     * <p>
-     *  only query non-wecom isv members, or the members had modify name in wecom isv space.
-     * </p>
-     *
-     * @param spaceId space id
-     * @param likeName keyword
-     * @return member id
-     */
-    List<Long> selectMemberIdsLikeName(@Param("spaceId") String spaceId, @Param("likeName") String likeName);
-
     /**
      * fuzzy search member by open id
      *
@@ -286,6 +272,15 @@ public interface MemberMapper extends ExpandBaseMapper<MemberEntity> {
      */
     Long selectIdByUserIdAndSpaceId(@Param("userId") Long userId, @Param("spaceId") String spaceId);
 
+    /**
+     * query the user's member in the space of node
+     *
+     * @param uuid user uuid
+     * @param nodeId node id
+     * @return member id and space id
+     */
+    SpaceMemberIdDTO selectSpaceMemberIdByUuidAndNodeId(@Param("uuid") String uuid, @Param("nodeId") String nodeId);
+
     /**
      * query user's memberId in space, exclude deleted member
      *
@@ -206,15 +206,6 @@ public interface TeamMapper extends BaseMapper<TeamEntity> {
      */
     List<TeamEntity> selectAllBySpaceId(@Param("spaceId") String spaceId);
 
-    /**
-     * fuzzy search team ids by keyword.
-     *
-     * @param spaceId space id
-     * @param likeName keyword
-     * @return team ids
-     */
-    List<Long> selectTeamIdsLikeName(@Param("spaceId") String spaceId, @Param("likeName") String likeName);
-
     /**
      * fuzzy search team ids by tean=m names.
      *
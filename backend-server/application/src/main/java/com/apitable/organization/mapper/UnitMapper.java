@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.apache.ibatis.annotations.Param;
 
+import com.apitable.organization.dto.UnitNameDTO;
 import com.apitable.organization.enums.UnitType;
 import com.apitable.shared.util.ibatis.ExpandBaseMapper;
 import com.apitable.organization.entity.UnitEntity;
@@ -68,6 +69,14 @@ public interface UnitMapper extends ExpandBaseMapper<UnitEntity> {
      */
     List<Long> selectIdBySpaceId(@Param("spaceId") String spaceId);
 
+    /**
+     * query the names of teams and members searchable by name in the space, used to build unit search index
+     *
+     * @param spaceId space id
+     * @return UnitNameDTO
+     */
+    List<UnitNameDTO> selectSearchableUnitNameBySpaceId(@Param("spaceId") String spaceId);
+
     /**
      * query the unit which no deleted in the space.
      *
@@ -81,6 +81,8 @@ import com.apitable.organization.vo.MemberInfoVo;
 import com.apitable.organization.vo.MemberTeamPathInfo;
 import com.apitable.organization.vo.UploadParseResultVO;
 import com.apitable.shared.cache.bean.UserSpaceDto;
+import com.apitable.shared.cache.service.PermissionCacheService;
+import com.apitable.shared.cache.service.UnitSearchIndexCacheService;
 import com.apitable.shared.cache.service.UserActiveSpaceCacheService;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
 import com.apitable.shared.component.TaskManager;
@@ -98,6 +100,7 @@ import com.apitable.shared.util.CollectionUtil;
 import com.apitable.shared.util.ibatis.ExpandServiceImpl;
 import com.apitable.space.entity.SpaceInviteRecordEntity;
 import com.apitable.space.enums.InviteType;
+import com.apitable.space.enums.SpaceCounter;
 import com.apitable.space.enums.SpaceException;
 import com.apitable.space.mapper.SpaceApplyMapper;
 import com.apitable.space.mapper.SpaceInviteLinkMapper;
@@ -105,6 +108,7 @@ import com.apitable.space.mapper.SpaceInviteRecordMapper;
 import com.apitable.space.mapper.StaticsMapper;
 import com.apitable.space.service.ISpaceRoleService;
 import com.apitable.space.service.ISpaceService;
+import com.apitable.space.service.ISpaceStatisticsService;
 import com.apitable.user.entity.UserEntity;
 import com.apitable.user.dto.UserLangDTO;
 import com.apitable.user.service.IUserService;
@@ -132,6 +136,9 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
     @Resource
     private TeamMemberRelMapper teamMemberRelMapper;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
     @Resource
     private IUserService iUserService;
 
@@ -188,6 +195,12 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
     @Resource
     private IRoleMemberService iRoleMemberService;
 
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
+    @Resource
+    private UnitSearchIndexCacheService unitSearchIndexCacheService;
+
 
     @Override
     public Long getMemberIdByUserIdAndSpaceId(Long userId, String spaceId) {
@@ -334,7 +347,9 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
 
     @Override
     public void updateMemberNameByUserId(Long userId, String memberName) {
+        List<String> spaceIds = getSpaceIdWithoutNameModifiedByUserId(userId);
         baseMapper.updateMemberNameByUserId(userId, memberName);
+        spaceIds.forEach(unitSearchIndexCacheService::invalidate);
     }
 
     @Override
@@ -393,6 +408,8 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
             return;
         }
         saveBatch(entities);
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, entities.size());
+        unitSearchIndexCacheService.invalidate(spaceId);
         // create units
         List<UnitEntity> unitEntities = new ArrayList<>();
         for (MemberEntity member : entities) {
@@ -473,6 +490,8 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
             List<Long> restoreMemberIds = restoreMembers.stream().map(MemberEntity::getId).collect(Collectors.toList());
             iUnitService.restoreMemberUnit(spaceId, restoreMemberIds);
             iTeamMemberRelService.addMemberTeams(restoreMemberIds, Collections.singletonList(rootTeamId));
+            iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, restoreMembers.size());
+            unitSearchIndexCacheService.invalidate(spaceId);
         }
 
         // send email
@@ -592,6 +611,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         // member remover from root team.
         Long rootTeamId = teamMapper.selectRootIdBySpaceId(spaceId);
         teamMemberRelMapper.deleteBatchMemberByTeams(distinctIds, rootTeamId);
+        permissionCacheService.invalidateMembers(distinctIds);
         NotificationRenderFieldHolder.set(NotificationRenderField.builder().playerIds(distinctIds).bodyExtras(
                 Dict.create().set(TEAM_NAME, teamMapper.selectTeamNameById(teamId)).set(TEAM_ID, teamId)).build());
     }
@@ -606,6 +626,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         member.setIsSocialNameModified(SocialNameModified.YES.getValue());
         boolean memUpdate = updateById(member);
         ExceptionUtil.isTrue(memUpdate, OrganizationException.UPDATE_MEMBER_ERROR);
+        unitSearchIndexCacheService.invalidate(baseMapper.selectSpaceIdByMemberId(memberId));
         // delete cache
         TaskManager.me().execute(() -> {
             MemberEntity entity = this.getById(memberId);
@@ -650,6 +671,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         if (CollUtil.isNotEmpty(removeTeamList)) {
             boolean dmrFlag = SqlHelper.retBool(teamMemberRelMapper.deleteByTeamIdsAndMemberId(memberId, removeTeamList));
             ExceptionUtil.isTrue(dmrFlag, OrganizationException.UPDATE_MEMBER_ERROR);
+            permissionCacheService.invalidateMembers(Collections.singletonList(memberId));
         }
     }
 
@@ -660,6 +682,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         // Check if there are duplicates in the adjusted departments, and eliminate the duplicates
         Long rootTeamId = teamMapper.selectRootIdBySpaceId(spaceId);
         teamMemberRelMapper.deleteBatchMemberByTeams(memberIds, rootTeamId);
+        permissionCacheService.invalidateMembers(memberIds);
         // Query the departments to which a member belongs, including the root department
         List<TeamMemberRelEntity> tmrList = teamMemberRelMapper.selectByMemberIds(memberIds);
         Map<Long, List<Long>> toAddMap = new LinkedHashMap<>(memberIds.size());
@@ -699,6 +722,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         }
         boolean flag = SqlHelper.retBool(teamMemberRelMapper.deleteBatchMemberByTeams(memberIds, teamId));
         ExceptionUtil.isTrue(flag, OrganizationException.DELETE_MEMBER_ERROR);
+        permissionCacheService.invalidateMembers(memberIds);
         if (CollUtil.isNotEmpty(needRelateRoots)) {
             // Associating the root team
             Long rootTeamId = teamMapper.selectRootIdBySpaceId(spaceId);
@@ -762,6 +786,8 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         iRoleMemberService.removeByRoleMemberIds(memberIds);
         // delete members
         removeByMemberIds(memberIds);
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, -memberEntities.size());
+        unitSearchIndexCacheService.invalidate(spaceId);
         // Removed from the space management role
         iSpaceRoleService.batchRemoveByMemberIds(spaceId, memberIds);
         // sending a notification email
@@ -915,6 +941,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         // query whether a user is bound to this mailbox
         UserEntity user = iUserService.getByEmail(uploadData.getEmail());
         boolean historyMember = false;
+        boolean deletedMember = false;
         if (user != null) {
             // notification email
             notifyEmails.add(uploadData.getEmail());
@@ -929,6 +956,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
                 memberId = existInSpace.getId();
                 member.setId(existInSpace.getId());
                 historyMember = true;
+                deletedMember = existInSpace.getIsDeleted();
             }
             // the application for adding space is invalid
             spaceApplyMapper.invalidateTheApply(ListUtil.toList(userId), spaceId, InviteType.FILE_IMPORT.getType());
@@ -945,6 +973,10 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
             restoreMember(member);
             // recovery team unit
             iUnitService.restoreMemberUnit(spaceId, Collections.singletonList(member.getId()));
+            if (deletedMember) {
+                iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, 1);
+            }
+            unitSearchIndexCacheService.invalidate(spaceId);
         }
         else {
             this.batchCreate(spaceId, Collections.singletonList(member));
@@ -1005,6 +1037,7 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
             }
             if (CollUtil.isNotEmpty(dmrEntities)) {
                 teamMemberRelMapper.insertBatch(dmrEntities);
+                permissionCacheService.invalidateMembers(Collections.singletonList(memberId));
             }
         }
         else {
@@ -1052,6 +1085,8 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
             restoreMember(member);
             // recovery unit
             iUnitService.restoreMemberUnit(spaceId, Collections.singletonList(member.getId()));
+            iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, 1);
+            unitSearchIndexCacheService.invalidate(spaceId);
         }
         else {
             // For the first time, create a member
@@ -1180,6 +1215,8 @@ public class MemberServiceImpl extends ExpandServiceImpl<MemberMapper, MemberEnt
         // todo is the recovery department migrated here？
         // restore a member from an organizational unit
         iUnitService.batchUpdateIsDeletedBySpaceIdAndRefId(spaceId, memberIds, UnitType.MEMBER, false);
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, memberIds.size());
+        unitSearchIndexCacheService.invalidate(spaceId);
     }
 
     @Override
@@ -19,8 +19,12 @@
 package com.apitable.organization.service.impl;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -47,6 +51,7 @@ import com.apitable.organization.vo.UnitInfoVo;
 import com.apitable.organization.vo.UnitMemberVo;
 import com.apitable.organization.vo.UnitSearchResultVo;
 import com.apitable.organization.vo.UnitTeamVo;
+import com.apitable.shared.cache.service.UnitSearchIndexCacheService;
 import com.apitable.shared.cache.service.UserSpaceRemindRecordCacheService;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
 import com.apitable.shared.config.properties.LimitProperties;
@@ -95,6 +100,9 @@ public class OrganizationServiceImpl implements IOrganizationService {
     @Resource
     private SocialServiceFacade socialServiceFacade;
 
+    @Resource
+    private UnitSearchIndexCacheService unitSearchIndexCacheService;
+
     @Override
     public UnitSearchResultVo findLikeUnitName(String spaceId, String likeWord, String highlightClassName) {
         log.info("search organizational unit");
@@ -102,9 +110,10 @@ public class OrganizationServiceImpl implements IOrganizationService {
         String all = "*";
         if (CharSequenceUtil.isNotBlank(likeWord) && !CharSequenceUtil.equals(likeWord, all)) {
             // fuzzy search department
-            List<Long> teamIds = teamMapper.selectTeamIdsLikeName(spaceId, likeWord);
+            List<Long> teamIds = unitSearchIndexCacheService.searchTeamIds(spaceId, likeWord);
             if (CollUtil.isNotEmpty(teamIds)) {
                 List<UnitTeamVo> unitTeamVoList = this.findUnitTeamVo(spaceId, teamIds);
+                sortByIds(unitTeamVoList, teamIds, UnitTeamVo::getTeamId);
                 unitTeamVoList.forEach(team -> {
                     team.setOriginName(team.getTeamName());
                     team.setTeamName(InformationUtil.keywordHighlight(team.getTeamName(), likeWord, highlightClassName));
@@ -112,9 +121,10 @@ public class OrganizationServiceImpl implements IOrganizationService {
                 unitSearchResultVo.setTeams(unitTeamVoList);
             }
             // fuzzy search members
-            List<Long> memberIds = memberMapper.selectMemberIdsLikeName(spaceId, likeWord);
+            List<Long> memberIds = unitSearchIndexCacheService.searchMemberIds(spaceId, likeWord);
             if (CollUtil.isNotEmpty(memberIds)) {
                 List<UnitMemberVo> unitMemberList = findUnitMemberVo(memberIds);
+                sortByIds(unitMemberList, memberIds, UnitMemberVo::getMemberId);
                 unitMemberList.forEach(member -> {
                     member.setOriginName(member.getMemberName());
                     member.setMemberName(InformationUtil.keywordHighlight(member.getMemberName(), likeWord, highlightClassName));
@@ -283,10 +293,10 @@ public class OrganizationServiceImpl implements IOrganizationService {
 
     private List<Long> getSearchUnitRefIds(String spaceId, String likeWord, Boolean searchEmail) {
         // fuzzy search department
-        List<Long> teamIds = teamMapper.selectTeamIdsLikeName(spaceId, likeWord);
+        List<Long> teamIds = unitSearchIndexCacheService.searchTeamIds(spaceId, likeWord);
         List<Long> refIds = new ArrayList<>(teamIds);
         // fuzzy search members
-        List<Long> memberIds = memberMapper.selectMemberIdsLikeName(spaceId, likeWord);
+        List<Long> memberIds = unitSearchIndexCacheService.searchMemberIds(spaceId, likeWord);
         refIds.addAll(memberIds);
         // fuzzy search email
         if (BooleanUtil.isTrue(searchEmail)) {
@@ -349,4 +359,15 @@ public class OrganizationServiceImpl implements IOrganizationService {
                 .filter(teamInfo -> !teamIdList.contains(teamInfo.getParentId()))
                 .map(TeamCteInfo::getId).collect(Collectors.toList());
     }
+
+    /**
+     * keep the order of searched ids, the better matched first
+     */
+    private static <T> void sortByIds(List<T> list, List<Long> ids, Function<T, Long> idGetter) {
+        Map<Long, Integer> positions = new HashMap<>(ids.size() << 1);
+        for (int i = 0; i < ids.size(); i++) {
+            positions.putIfAbsent(ids.get(i), i);
+        }
+        list.sort(Comparator.comparingInt(item -> positions.getOrDefault(idGetter.apply(item), Integer.MAX_VALUE)));
+    }
 }
@@ -50,6 +50,7 @@ import com.apitable.core.util.ExceptionUtil;
 import com.apitable.core.util.SqlTool;
 import com.apitable.organization.entity.RoleMemberEntity;
 import com.apitable.organization.entity.TeamEntity;
+import com.apitable.shared.cache.service.PermissionCacheService;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -72,6 +73,9 @@ public class RoleMemberServiceImpl extends ServiceImpl<RoleMemberMapper, RoleMem
     @Resource
     ISpaceService iSpaceService;
 
+    @Resource
+    PermissionCacheService permissionCacheService;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public List<Long> addRoleMembers(Long roleId, List<RoleMemberUnitRo> unitList) {
@@ -97,6 +101,7 @@ public class RoleMemberServiceImpl extends ServiceImpl<RoleMemberMapper, RoleMem
         });
         boolean flag = saveBatch(roleMembers);
         ExceptionUtil.isTrue(flag, OrganizationException.ADD_ROLE_MEMBER_ERROR);
+        permissionCacheService.invalidateMembers(memberIds);
         return getMemberIds(teamIds, memberIds);
     }
 
@@ -108,12 +113,16 @@ public class RoleMemberServiceImpl extends ServiceImpl<RoleMemberMapper, RoleMem
         List<RoleMemberInfoDTO> removedRoleMember = baseMapper.selectRoleMembersByRoleIdAndUnitRefIds(roleId, roleMemberIds);
         // begin remove role members.
         baseMapper.deleteByRoleIdAndUnitRefIds(roleId, roleMemberIds);
+        // only the member directly in role holds the role unit, team ids never collide with member ids
+        permissionCacheService.invalidateMembers(roleMemberIds);
         return getMemberIds(removedRoleMember);
     }
 
     @Override
     public void removeByRoleId(Long roleId) {
+        Set<Long> roleMemberIds = baseMapper.selectUnitRefIdsByRoleId(roleId);
         baseMapper.deleteByRoleId(roleId);
+        permissionCacheService.invalidateMembers(roleMemberIds);
     }
 
     @Override
@@ -207,6 +216,7 @@ public class RoleMemberServiceImpl extends ServiceImpl<RoleMemberMapper, RoleMem
             return;
         }
         baseMapper.deleteByUnitRefIds(roleMemberIds);
+        permissionCacheService.invalidateMembers(roleMemberIds);
     }
 
     @Override
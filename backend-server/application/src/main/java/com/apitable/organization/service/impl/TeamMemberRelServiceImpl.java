@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
@@ -34,6 +35,7 @@ import com.apitable.organization.enums.OrganizationException;
 import com.apitable.organization.mapper.TeamMapper;
 import com.apitable.organization.mapper.TeamMemberRelMapper;
 import com.apitable.organization.service.ITeamMemberRelService;
+import com.apitable.shared.cache.service.PermissionCacheService;
 import com.apitable.shared.util.ibatis.ExpandServiceImpl;
 import com.apitable.core.util.ExceptionUtil;
 import com.apitable.organization.entity.TeamMemberRelEntity;
@@ -46,6 +48,9 @@ public class TeamMemberRelServiceImpl extends ExpandServiceImpl<TeamMemberRelMap
     @Resource
     private TeamMapper teamMapper;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
     @Override
     public void addMemberTeams(List<Long> memberIds, List<Long> teamIds) {
         log.info("member associated team");
@@ -66,6 +71,7 @@ public class TeamMemberRelServiceImpl extends ExpandServiceImpl<TeamMemberRelMap
             boolean flag = SqlHelper.retBool(baseMapper.insertBatch(entities));
             ExceptionUtil.isTrue(flag, OrganizationException.UPDATE_MEMBER_TEAM_ERROR);
         }
+        permissionCacheService.invalidateMembers(memberIds);
     }
 
     @Override
@@ -74,6 +80,7 @@ public class TeamMemberRelServiceImpl extends ExpandServiceImpl<TeamMemberRelMap
             return;
         }
         saveBatch(entities);
+        permissionCacheService.invalidateMembers(entities.stream().map(TeamMemberRelEntity::getMemberId).collect(Collectors.toSet()));
     }
 
     @Override
@@ -89,11 +96,13 @@ public class TeamMemberRelServiceImpl extends ExpandServiceImpl<TeamMemberRelMap
     @Override
     public void removeByMemberId(Long memberId) {
         baseMapper.deleteByMemberId(Collections.singletonList(memberId));
+        permissionCacheService.invalidateMembers(Collections.singletonList(memberId));
     }
 
     @Override
     public void removeByMemberIds(List<Long> memberIds) {
         baseMapper.deleteByMemberId(memberIds);
+        permissionCacheService.invalidateMembers(memberIds);
     }
 
     @Override
@@ -101,17 +110,22 @@ public class TeamMemberRelServiceImpl extends ExpandServiceImpl<TeamMemberRelMap
         log.info("Delete the binding relationship between member and department");
         List<Long> subTeamIds = teamMapper.selectAllSubTeamIdsByParentId(teamId, true);
         subTeamIds.add(teamId);
+        List<Long> memberIds = baseMapper.selectMemberIdsByTeamIds(subTeamIds);
         baseMapper.deleteByTeamIds(subTeamIds);
+        permissionCacheService.invalidateMembers(memberIds);
     }
 
     @Override
     public void removeByTeamIds(Collection<Long> teamIds) {
         log.info("Delete the binding relationships between member and department");
+        List<Long> memberIds = baseMapper.selectMemberIdsByTeamIds(teamIds);
         baseMapper.deleteByTeamIds(teamIds);
+        permissionCacheService.invalidateMembers(memberIds);
     }
 
     @Override
     public void removeByTeamIdsAndMemberId(Long memberId, List<Long> teamIds) {
         baseMapper.deleteByTeamIdsAndMemberId(memberId, teamIds);
+        permissionCacheService.invalidateMembers(Collections.singletonList(memberId));
     }
 }
@@ -67,11 +67,15 @@ import com.apitable.space.mapper.SpaceMapper;
 import com.apitable.space.service.ISpaceInviteLinkService;
 import com.apitable.space.service.ISpaceRoleService;
 import com.apitable.space.service.ISpaceService;
+import com.apitable.space.service.ISpaceStatisticsService;
+import com.apitable.shared.cache.service.PermissionCacheService;
+import com.apitable.shared.cache.service.UnitSearchIndexCacheService;
 import com.apitable.organization.enums.OrganizationException;
 import com.apitable.core.support.tree.DefaultTreeBuildFactory;
 import com.apitable.core.util.ExceptionUtil;
 import com.apitable.core.util.SqlTool;
 import com.apitable.space.entity.SpaceEntity;
+import com.apitable.space.enums.SpaceCounter;
 import com.apitable.organization.entity.TeamEntity;
 import com.apitable.organization.entity.UnitEntity;
 
@@ -94,6 +98,9 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, TeamEntity> impleme
     @Resource
     private ITeamMemberRelService iTeamMemberRelService;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
     @Resource
     private ISpaceInviteLinkService iSpaceInviteLinkService;
 
@@ -115,6 +122,12 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, TeamEntity> impleme
     @Resource
     private IRoleMemberService iRoleMemberService;
 
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
+    @Resource
+    private UnitSearchIndexCacheService unitSearchIndexCacheService;
+
     @Override
     public Set<Long> getTeamIdsByMemberId(String spaceId, Long memberId) {
         log.info("query the member's team includes all parent team.");
@@ -269,6 +282,10 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, TeamEntity> impleme
             unitEntities.add(unit);
         });
         iUnitService.createBatch(unitEntities);
+        // the root team is not counted
+        long subTeamCount = entities.stream().filter(team -> team.getParentId() != null && team.getParentId() > 0).count();
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.TEAM, subTeamCount);
+        unitSearchIndexCacheService.invalidate(spaceId);
     }
 
     @Override
@@ -284,6 +301,8 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, TeamEntity> impleme
         boolean flag = save(team);
         ExceptionUtil.isTrue(flag, OrganizationException.CREATE_TEAM_ERROR);
         iUnitService.create(spaceId, UnitType.TEAM, team.getId());
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.TEAM, 1);
+        unitSearchIndexCacheService.invalidate(spaceId);
         return team.getId();
     }
 
@@ -421,6 +440,7 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, TeamEntity> impleme
         update.setTeamName(teamName);
         boolean flag = updateById(update);
         ExceptionUtil.isTrue(flag, OrganizationException.UPDATE_TEAM_NAME_ERROR);
+        unitSearchIndexCacheService.invalidate(baseMapper.selectSpaceIdById(teamId));
     }
 
     @Override
@@ -436,18 +456,24 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, TeamEntity> impleme
         update.setSequence(max + 1);
         boolean flag = updateById(update);
         ExceptionUtil.isTrue(flag, OrganizationException.UPDATE_TEAM_NAME_ERROR);
+        unitSearchIndexCacheService.invalidate(baseMapper.selectSpaceIdById(teamId));
+        // the parent teams of all members under the team changed
+        List<Long> teamIds = baseMapper.selectAllSubTeamIdsByParentId(teamId, true);
+        permissionCacheService.invalidateMembers(teamMemberRelMapper.selectMemberIdsByTeamIds(teamIds));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void deleteTeam(Long teamId) {
         log.info("delete team");
+        String spaceId = baseMapper.selectSpaceIdById(teamId);
         iRoleMemberService.removeByRoleMemberIds(CollUtil.newArrayList(teamId));
         boolean flag = removeById(teamId);
         ExceptionUtil.isTrue(flag, OrganizationException.DELETE_TEAM_ERROR);
         iUnitService.removeByTeamId(teamId);
         // delete the department and remove the public link
         iSpaceInviteLinkService.deleteByTeamId(teamId);
+        unitSearchIndexCacheService.invalidate(spaceId);
     }
 
     @Override
@@ -481,6 +507,8 @@ public class TeamServiceImpl extends ServiceImpl<TeamMapper, TeamEntity> impleme
         iUnitService.batchRemoveByTeamId(subTeamIds);
         // Delete departments in batches and delete public links
         iSpaceInviteLinkService.deleteByTeamIds(subTeamIds);
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.TEAM, -subTeamIds.size());
+        unitSearchIndexCacheService.invalidate(spaceId);
     }
 
     @Override
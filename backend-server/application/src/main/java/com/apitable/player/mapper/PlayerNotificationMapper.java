@@ -18,6 +18,7 @@
 
 package com.apitable.player.mapper;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
@@ -113,6 +114,22 @@ public interface PlayerNotificationMapper extends BaseMapper<PlayerNotificationE
      */
     boolean updateNotifyBodyById(@Param("id") Long id, @Param("body") String body);
 
+    /**
+     * Query notification bodies, the rows are locked until the transaction completes
+     *
+     * @param ids ID list
+     * @return id and notify body of notifications not deleted
+     */
+    List<PlayerNotificationEntity> selectNotifyBodyByIdsForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Update notification bodies in one statement
+     *
+     * @param entities id and notify body of notifications
+     * @return number of execution results
+     */
+    int updateNotifyBodyByIds(@Param("entities") List<PlayerNotificationEntity> entities);
+
     /**
      * Query total count by condition
      *
@@ -18,7 +18,6 @@
 
 package com.apitable.player.service;
 
-import java.io.IOException;
 import java.util.List;
 
 import cn.hutool.core.lang.Dict;
@@ -48,6 +47,14 @@ public interface IPlayerNotificationService extends IService<PlayerNotificationE
      */
     boolean batchCreateNotify(List<NotificationCreateRo> roList);
 
+    /**
+     * Create notification records of several messages, records are saved together
+     *
+     * @param roList messages
+     * @return messages failed to create
+     */
+    List<NotificationCreateRo> createNotifyInBatch(List<NotificationCreateRo> roList);
+
     /**
      * Create notification records, send notifications
      */
@@ -74,7 +81,7 @@ public interface IPlayerNotificationService extends IService<PlayerNotificationE
     /**
      * Create system notifications
      */
-    void createAllUserNotify(NotificationTemplate template, NotificationCreateRo ro) throws IOException;
+    void createAllUserNotify(NotificationTemplate template, NotificationCreateRo ro);
 
     /**
      * Create records and send notifications without any data validation
@@ -55,6 +55,7 @@ import com.apitable.shared.cache.bean.LoginUserDto;
 import com.apitable.shared.component.ClientEntryTemplateConfig;
 import com.apitable.shared.component.TaskManager;
 import com.apitable.shared.component.notification.*;
+import com.apitable.shared.component.notification.NotificationBroadcaster.BroadcastType;
 import com.apitable.shared.component.notification.NotifyMailFactory.MailWithLang;
 import com.apitable.shared.config.properties.ConstProperties;
 import com.apitable.shared.constants.NotificationConstants;
@@ -72,15 +73,22 @@ import com.apitable.workspace.service.INodeService;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.ibatis.cursor.Cursor;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
-import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -102,7 +110,9 @@ import static com.apitable.shared.constants.NotificationConstants.*;
 public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificationMapper, PlayerNotificationEntity>
         implements IPlayerNotificationService {
 
-    public static final Integer NOTIFY_LIMIT = 100;
+    private static final int MENTION_MERGE_BATCH_SIZE = 500;
+
+    private static final String FAN_OUT_METRIC = "notification.fanout";
 
     @Resource
     private ClientEntryTemplateConfig clientTemplateConfig;
@@ -140,6 +150,34 @@ public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificatio
     @Resource
     private IMemberService iMemberService;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private NotificationBroadcaster notificationBroadcaster;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * notification records and redis operations of the message handled by createNotifyInBatch,
+     * records are saved together at the end of the batch, redis operations run after the batch committed
+     */
+    private static final ThreadLocal<PendingNotifications> PENDING = new ThreadLocal<>();
+
+    private TransactionTemplate savepointTemplate;
+
+    private TransactionTemplate mergeTemplate;
+
+    @PostConstruct
+    public void init() {
+        // every message of a batch runs in a savepoint, a failed message does not roll back the others
+        savepointTemplate = new TransactionTemplate(transactionManager);
+        savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        mergeTemplate = new TransactionTemplate(transactionManager);
+        mergeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean batchCreateNotify(List<NotificationCreateRo> notificationCreateRoList) {
@@ -153,6 +191,36 @@ public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificatio
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<NotificationCreateRo> createNotifyInBatch(List<NotificationCreateRo> roList) {
+        List<NotificationCreateRo> failed = new ArrayList<>();
+        PendingNotifications batch = new PendingNotifications(null);
+        try {
+            for (NotificationCreateRo ro : roList) {
+                PendingNotifications message = new PendingNotifications(batch);
+                PENDING.set(message);
+                try {
+                    savepointTemplate.executeWithoutResult(status -> createNotify(ro));
+                    batch.merge(message);
+                }
+                catch (RuntimeException e) {
+                    // the records and redis operations of the failed message are discarded
+                    log.warn("Failed to create notification: {}:{}", ro.getSpaceId(), ro.getTemplateId(), e);
+                    message.rollbackActions.forEach(this::runQuietly);
+                    failed.add(ro);
+                }
+            }
+        }
+        finally {
+            PENDING.remove();
+        }
+        batch.rollbackActions.forEach(this::onRollback);
+        createBatch(batch.notifyEntities, batch.createEntities);
+        batch.afterCommitActions.forEach(this::afterCommit);
+        return failed;
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void createNotify(NotificationCreateRo ro) {
@@ -212,111 +280,128 @@ public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificatio
 
     /**
      * Create system notifications
-     * Curson cursor query is used to prevent each query from closing the connection, plus @Transactional control
+     * Broadcast to all users in background by a partitioned job, each chunk of users in its own transaction
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void createAllUserNotify(NotificationTemplate template, NotificationCreateRo ro) {
-        Cursor<Long> userIdCursor = null;
-        try {
-            userIdCursor = userMapper.selectAllUserIdByIgnoreDelete(false);
-            List<Long> userIds = CollUtil.newArrayList();
-            userIdCursor.forEach(userId -> {
-                if (userIds.size() < NOTIFY_LIMIT) {
-                    userIds.add(userId);
-                }
-                if (userIds.size() == NOTIFY_LIMIT) {
-                    createNotifyWithoutVerify(userIds, template, ro);
-                    userIds.clear();
-                }
-            });
-            if (CollUtil.isNotEmpty(userIds)) {
-                createNotifyWithoutVerify(userIds, template, ro);
-            }
-        }
-        catch (Exception e) {
-            log.error("Create notification exception", e);
-        }
-        finally {
-            if (ObjectUtil.isNotNull(userIdCursor)) {
-                try {
-                    userIdCursor.close();
-                }
-                catch (IOException e) {
-                    log.error("Create notification close cursor exception", e);
-                }
-            }
-        }
+        notificationBroadcaster.broadcast(BroadcastType.CREATE, template.getId(), ro);
     }
 
     @Override
     public boolean createNotifyWithoutVerify(List<Long> userIds, NotificationTemplate template, NotificationCreateRo ro) {
         // todo message middle key
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Long fromUserId = Convert.toLong(ro.getFromUserId());
+        List<Long> toUserIds = userIds.stream().filter(userId -> userId != null && !userId.equals(fromUserId))
+                .distinct().collect(Collectors.toList());
+        // the sending is counted as it is checked, and given back if the notifications are rolled back
+        String nonce = DigestUtil.md5Hex(StrUtil.blankToDefault(ro.getSpaceId(), "") + StrUtil.blankToDefault(ro.getNodeId(), ""));
+        Set<Long> limitedUserIds = notificationFactory.frequencyLimited(toUserIds, template, nonce);
+        List<Long> countedUserIds = toUserIds.stream().filter(userId -> !limitedUserIds.contains(userId)).collect(Collectors.toList());
+        if (template.getFrequency() != null && !countedUserIds.isEmpty()) {
+            onRollback(() -> notificationFactory.releaseFrequency(countedUserIds, template, nonce));
+        }
         List<PlayerNotificationEntity> creatEntities = new ArrayList<>();
         List<PlayerNotificationEntity> notifyEntities = new ArrayList<>();
         List<Long> mailUserIds = new ArrayList<>();
-        for (Long userId : userIds) {
-            // Record the sending frequency, and judge that it is recorded if it is not sent successfully because the data can be recovered --redis delete key
-            String nonce = StrUtil.blankToDefault(ro.getSpaceId(), "") + StrUtil.blankToDefault(ro.getNodeId(), "");
-            if (!notificationFactory.frequencyLimited(userId, template, DigestUtil.md5Hex(nonce))) {
-                if (ObjectUtil.isNotNull(userId) && !userId.equals(Convert.toLong(ro.getFromUserId()))) {
-                    PlayerNotificationEntity entity = getCreateEntity(userId, template, ro);
-                    // Send notifications and create records
-                    if (template.isNotification()) {
-                        creatEntities.add(entity);
-                    }
-                    // need to send mail
-                    if (template.isMail() && StrUtil.isNotBlank(template.getMailTemplateSubject())) {
-                        mailUserIds.add(userId);
-                    }
-                    notifyEntities.add(entity);
-                }
+        for (Long userId : countedUserIds) {
+            PlayerNotificationEntity entity = getCreateEntity(userId, template, ro);
+            // Send notifications and create records
+            if (template.isNotification()) {
+                creatEntities.add(entity);
+            }
+            // need to send mail
+            if (template.isMail() && StrUtil.isNotBlank(template.getMailTemplateSubject())) {
+                mailUserIds.add(userId);
             }
+            notifyEntities.add(entity);
         }
         // Send email notifications asynchronously
         if (!mailUserIds.isEmpty()) {
-            TaskManager.me().execute(() -> sendMailNotifyBatch(template, mailUserIds, formatEmailDetailVo(ro)));
+            afterCommit(() -> TaskManager.me().execute(() -> sendMailNotifyBatch(template, mailUserIds, formatEmailDetailVo(ro))));
         }
-        return createBatch(notifyEntities, creatEntities);
+        boolean result = createBatch(notifyEntities, creatEntities);
+        recordFanOut(template, notifyEntities.size(), sample);
+        return result;
     }
 
     @Override
     public void createMemberMentionedNotify(List<Long> toUserIds, NotificationTemplate template, NotificationCreateRo ro) {
-        List<PlayerNotificationEntity> notifyEntities = new ArrayList<>();
-        Map<Long, String> notifyIdMap = new HashMap<>(toUserIds.size());
-        List<Long> mailUserIds = new ArrayList<>();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, PlayerNotificationEntity> lockEntities = new LinkedHashMap<>(toUserIds.size());
         for (Long userId : toUserIds) {
             String delayKey = notificationFactory.getDelayLockKey(userId.toString(), ro);
             ExceptionUtil.isNotNull(delayKey, NotificationException.MEMBER_MENTIONED_ERROR);
+            lockEntities.putIfAbsent(delayKey, getCreateEntity(userId, template, ro));
+        }
+        // Within 15s, the number of times +1 does not notify update
+        PendingNotifications pending = PENDING.get();
+        Map<String, Long> reservedLocks = new LinkedHashMap<>();
+        lockEntities.forEach((key, entity) -> {
+            if (pending == null || pending.getDelayLock(key) == null) {
+                reservedLocks.put(key, entity.getId());
+            }
+        });
+        // the locks are acquired at once, and released if the notifications are rolled back
+        Map<String, Long> heldLocks = notificationFactory.delayLock(reservedLocks);
+        Map<String, Long> acquiredLocks = new LinkedHashMap<>(reservedLocks);
+        acquiredLocks.keySet().removeAll(heldLocks.keySet());
+        if (!acquiredLocks.isEmpty()) {
+            onRollback(() -> notificationFactory.releaseDelayLock(acquiredLocks));
+        }
+        List<PlayerNotificationEntity> notifyEntities = new ArrayList<>();
+        Map<Long, String> notifyIdMap = new HashMap<>(toUserIds.size());
+        List<Long> mailUserIds = new ArrayList<>();
+        for (Map.Entry<String, PlayerNotificationEntity> lockEntity : lockEntities.entrySet()) {
+            // the notifications of the batch are not saved yet
+            PlayerNotificationEntity pendingEntity = pending != null ? pending.getDelayLock(lockEntity.getKey()) : null;
+            if (pendingEntity != null) {
+                pending.mergeActions.add(() -> pendingEntity.setNotifyBody(
+                        NotificationHelper.getMentionBody(pendingEntity.getNotifyBody(), ro.getBody())));
+                continue;
+            }
+            if (heldLocks.containsKey(lockEntity.getKey())) {
+                continue;
+            }
             // meet the delay condition
-            PlayerNotificationEntity entity = getCreateEntity(userId, template, ro);
-            // Within 15s, the number of times +1 does not notify update
-            if (!notificationFactory.delayLock(delayKey, entity.getId())) {
-                Long notifyId = notificationFactory.getNotificationIdFromRedis(delayKey);
-                String notifyBody = NotificationHelper.getMentionBody(baseMapper.selectNotifyBodyById(notifyId), ro.getBody());
-                baseMapper.updateNotifyBodyById(notifyId, notifyBody);
+            PlayerNotificationEntity entity = lockEntity.getValue();
+            entity.setNotifyBody(NotificationHelper.getMentionBody(JSONUtil.toJsonStr(ro.getBody()), null));
+            notifyEntities.add(entity);
+            if (pending != null) {
+                pending.delayLocks.put(lockEntity.getKey(), entity);
             }
-            else {
-                entity.setNotifyBody(NotificationHelper.getMentionBody(JSONUtil.toJsonStr(ro.getBody()), null));
-                notifyEntities.add(entity);
-                notifyIdMap.put(userId, entity.getId().toString());
-                // send mail
-                if (template.isMail() && StrUtil.isNotBlank(template.getMailTemplateSubject())) {
-                    mailUserIds.add(userId);
-                }
+            notifyIdMap.put(entity.getToUser(), entity.getId().toString());
+            // send mail
+            if (template.isMail() && StrUtil.isNotBlank(template.getMailTemplateSubject())) {
+                mailUserIds.add(entity.getToUser());
             }
         }
+        // the mentions are kept for the notifications holding the locks, which may not be committed yet,
+        // every side merges the ones kept into the notifications committed
+        if (!heldLocks.isEmpty()) {
+            String body = JSONUtil.toJsonStr(ro.getBody());
+            afterCommit(() -> {
+                heldLocks.keySet().forEach(key -> notificationFactory.addDelayMerge(key, body));
+                mergeMentionBodies(heldLocks);
+            });
+        }
+        if (!acquiredLocks.isEmpty()) {
+            afterCommit(() -> mergeMentionBodies(acquiredLocks));
+        }
         // Need to associate the incoming ID with the ID in the database and put it in redis
         if (StrUtil.isNotBlank(ro.getNotifyId()) && !notifyIdMap.isEmpty()) {
             String key = RedisConstants.getNotifyTemporaryKey(ro.getNotifyId());
-            redisTemplate.opsForHash().putAll(key, notifyIdMap);
-            redisTemplate.expire(key, 7, TimeUnit.DAYS);
+            afterCommit(() -> {
+                redisTemplate.opsForHash().putAll(key, notifyIdMap);
+                redisTemplate.expire(key, 7, TimeUnit.DAYS);
+            });
         }
         // Send email notifications asynchronously
         if (!mailUserIds.isEmpty()) {
-            TaskManager.me().execute(() -> sendMailNotifyBatch(template, mailUserIds, formatEmailDetailVo(ro)));
+            afterCommit(() -> TaskManager.me().execute(() -> sendMailNotifyBatch(template, mailUserIds, formatEmailDetailVo(ro))));
         }
         createBatch(notifyEntities);
+        recordFanOut(template, lockEntities.size(), sample);
     }
 
     @Override
@@ -374,46 +459,12 @@ public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificatio
     }
 
     /**
-     * Because this operation is a non-concurrent operation, a cursor query is used,
-     * and a Cursor object is returned to prevent a large amount of data and memory oom.
+     * Revoke in background by a partitioned job, each chunk of users in its own transaction
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public boolean revokeAllUserNotification(NotificationTemplate template,
             NotificationRevokeRo ro) {
-        Cursor<Long> userIdCursor = null;
-        try {
-            userIdCursor = userMapper.selectAllUserIdByIgnoreDelete(true);
-            List<Long> userIds = CollUtil.newArrayList();
-            userIdCursor.forEach(userId -> {
-                if (userIds.size() < NOTIFY_LIMIT) {
-                    userIds.add(userId);
-                }
-                if (userIds.size() == NOTIFY_LIMIT) {
-                    baseMapper.updateBatchByUserIdsAndTemplateId(userIds,
-                            template.getNotificationsType(), ro.getTemplateId(), ro);
-                    userIds.clear();
-                }
-            });
-            if (CollUtil.isNotEmpty(userIds)) {
-                baseMapper.updateBatchByUserIdsAndTemplateId(userIds,
-                        template.getNotificationsType(), ro.getTemplateId(), ro);
-            }
-        }
-        catch (Exception e) {
-            log.error("Delete user notification exception", e);
-            return false;
-        }
-        finally {
-            if (userIdCursor != null) {
-                try {
-                    userIdCursor.close();
-                }
-                catch (IOException e) {
-                    log.error("Undo notification close cursor exception", e);
-                }
-            }
-        }
+        notificationBroadcaster.broadcast(BroadcastType.REVOKE, template.getId(), ro);
         return true;
     }
 
@@ -484,6 +535,12 @@ public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificatio
     @Override
     public boolean createBatch(List<PlayerNotificationEntity> notifyEntities,
             List<PlayerNotificationEntity> createEntities) {
+        PendingNotifications pending = PENDING.get();
+        if (pending != null) {
+            CollUtil.addAll(pending.notifyEntities, notifyEntities);
+            CollUtil.addAll(pending.createEntities, createEntities);
+            return true;
+        }
         if (CollUtil.isNotEmpty(notifyEntities)) {
             SpringContextHolder.getApplicationContext().publishEvent(new NotificationCreateEvent(this, notifyEntities));
             // Send first and then save. If there is a key, it will be updated, which will cause the number of messages to be inconsistent with the total number of messages.
@@ -528,6 +585,109 @@ public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificatio
     }
 
 
+    /**
+     * merge the mentions kept for the locks into the notifications holding them, one update per batch,
+     * the notifications are locked until the mentions taken are merged
+     */
+    private void mergeMentionBodies(Map<String, Long> locks) {
+        Map<Long, List<String>> lockKeys = locks.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+        for (List<Long> ids : CollUtil.split(lockKeys.keySet(), MENTION_MERGE_BATCH_SIZE)) {
+            mergeTemplate.executeWithoutResult(status -> {
+                List<PlayerNotificationEntity> notifications = baseMapper.selectNotifyBodyByIdsForUpdate(ids);
+                // the mentions of a notification not committed yet are kept, it merges them once committed
+                Map<String, List<String>> merges = notificationFactory.takeDelayMerges(notifications.stream()
+                        .flatMap(notification -> lockKeys.get(notification.getId()).stream()).collect(Collectors.toList()));
+                List<PlayerNotificationEntity> merged = new ArrayList<>();
+                for (PlayerNotificationEntity notification : notifications) {
+                    String body = notification.getNotifyBody();
+                    for (String key : lockKeys.get(notification.getId())) {
+                        for (String mention : merges.getOrDefault(key, Collections.emptyList())) {
+                            body = NotificationHelper.getMentionBody(body, JSONUtil.parseObj(mention));
+                        }
+                    }
+                    if (!body.equals(notification.getNotifyBody())) {
+                        merged.add(PlayerNotificationEntity.builder().id(notification.getId()).notifyBody(body).build());
+                    }
+                }
+                if (!merged.isEmpty()) {
+                    baseMapper.updateNotifyBodyByIds(merged);
+                }
+            });
+        }
+    }
+
+    /**
+     * run the redis operation or mail sending after the notifications are committed,
+     * the ones of a message handled in batch run after the batch committed, unless the message failed
+     */
+    private void afterCommit(Runnable action) {
+        PendingNotifications pending = PENDING.get();
+        if (pending != null) {
+            pending.afterCommitActions.add(action);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                }
+                catch (Exception e) {
+                    log.error("Failed to run the operation after notifications created", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * give back the redis operation once the notifications are rolled back,
+     * the ones of a message handled in batch run at once if the message failed
+     */
+    private void onRollback(Runnable action) {
+        PendingNotifications pending = PENDING.get();
+        if (pending != null) {
+            pending.rollbackActions.add(action);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    runQuietly(action);
+                }
+            }
+        });
+    }
+
+    private void runQuietly(Runnable action) {
+        try {
+            action.run();
+        }
+        catch (Exception e) {
+            log.error("Failed to give back the operation of notifications rolled back", e);
+        }
+    }
+
+    private void recordFanOut(NotificationTemplate template, int recipients, Timer.Sample sample) {
+        sample.stop(Timer.builder(FAN_OUT_METRIC + ".latency")
+                .description("time to fan out a notification to its recipients")
+                .tag("template", template.getId())
+                .register(meterRegistry));
+        DistributionSummary.builder(FAN_OUT_METRIC + ".recipients")
+                .description("recipients of a notification fan out")
+                .tag("template", template.getId())
+                .register(meterRegistry)
+                .record(recipients);
+    }
+
     private PlayerNotificationEntity getCreateEntity(Long toUserId,
             NotificationTemplate template, NotificationCreateRo ro) {
         return PlayerNotificationEntity.builder()
@@ -662,4 +822,45 @@ public class PlayerNotificationServiceImpl extends ServiceImpl<PlayerNotificatio
         }
         return dict;
     }
+
+    private static class PendingNotifications {
+
+        /**
+         * the batch the message belongs to, null for the batch itself
+         */
+        private final PendingNotifications batch;
+
+        private final List<PlayerNotificationEntity> notifyEntities = new ArrayList<>();
+
+        private final List<PlayerNotificationEntity> createEntities = new ArrayList<>();
+
+        private final List<Runnable> afterCommitActions = new ArrayList<>();
+
+        private final List<Runnable> rollbackActions = new ArrayList<>();
+
+        private final Map<String, PlayerNotificationEntity> delayLocks = new HashMap<>();
+
+        /**
+         * changes of the notifications of the batch, applied only if the message succeeded
+         */
+        private final List<Runnable> mergeActions = new ArrayList<>();
+
+        PendingNotifications(PendingNotifications batch) {
+            this.batch = batch;
+        }
+
+        PlayerNotificationEntity getDelayLock(String key) {
+            PlayerNotificationEntity entity = delayLocks.get(key);
+            return entity != null || batch == null ? entity : batch.getDelayLock(key);
+        }
+
+        void merge(PendingNotifications message) {
+            message.mergeActions.forEach(Runnable::run);
+            notifyEntities.addAll(message.notifyEntities);
+            createEntities.addAll(message.createEntities);
+            afterCommitActions.addAll(message.afterCommitActions);
+            rollbackActions.addAll(message.rollbackActions);
+            delayLocks.putAll(message.delayLocks);
+        }
+    }
 }
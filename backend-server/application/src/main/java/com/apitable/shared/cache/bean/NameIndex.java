@@ -0,0 +1,175 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.bean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * n-gram index of names, names are indexed by their characters and bigrams in lower case.
+ * the candidates of a keyword are the names having all its bigrams, then verified by containment.
+ * </p>
+ *
+ * @param <K> key of name
+ */
+public class NameIndex<K> {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * exact name, starting with, ending with, containing the keyword
+     */
+    private static final int RANK_COUNT = 4;
+
+    private final List<K> keys;
+
+    private final String[] names;
+
+    /**
+     * gram -> positions of the names having it, ascending
+     */
+    private final Map<String, int[]> postings;
+
+    /**
+     * @param keys keys, the earlier one comes first among the same matched
+     * @param names names of keys, not null
+     */
+    public NameIndex(List<K> keys, List<String> names) {
+        this.keys = keys;
+        this.names = new String[names.size()];
+        Map<String, Posting> building = new HashMap<>();
+        for (int i = 0; i < this.names.length; i++) {
+            this.names[i] = names.get(i).toLowerCase(Locale.ROOT);
+            for (String gram : grams(this.names[i])) {
+                building.computeIfAbsent(gram, k -> new Posting()).add(i);
+            }
+        }
+        this.postings = new HashMap<>(building.size() << 1);
+        building.forEach((gram, posting) -> postings.put(gram, posting.toArray()));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * search keys whose name contains the keyword, ignoring case.
+     * exact names come first, then names starting with, ending with, and containing the keyword.
+     *
+     * @param keyword keyword
+     * @param limit max number of keys
+     * @return keys, the better matched first
+     */
+    public List<K> search(String keyword, int limit) {
+        String target = keyword.toLowerCase(Locale.ROOT);
+        List<List<K>> ranked = new ArrayList<>(RANK_COUNT);
+        for (int i = 0; i < RANK_COUNT; i++) {
+            ranked.add(new ArrayList<>());
+        }
+        for (int position : candidates(target)) {
+            String name = names[position];
+            if (!name.contains(target)) {
+                continue;
+            }
+            int rank = name.equals(target) ? 0 : name.startsWith(target) ? 1 : name.endsWith(target) ? 2 : 3;
+            List<K> bucket = ranked.get(rank);
+            if (bucket.size() < limit) {
+                bucket.add(keys.get(position));
+            }
+            // nothing ranks before the exact names
+            if (rank == 0 && bucket.size() == limit) {
+                break;
+            }
+        }
+        List<K> result = new ArrayList<>(limit);
+        for (List<K> bucket : ranked) {
+            result.addAll(bucket.subList(0, Math.min(bucket.size(), limit - result.size())));
+        }
+        return result;
+    }
+
+    private int[] candidates(String target) {
+        if (target.length() == 1) {
+            return postings.getOrDefault(target, EMPTY);
+        }
+        List<int[]> lists = new ArrayList<>();
+        for (String gram : bigrams(target)) {
+            int[] list = postings.get(gram);
+            if (list == null) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] smallest = lists.get(0);
+        int[] result = new int[smallest.length];
+        int size = 0;
+        for (int position : smallest) {
+            boolean all = true;
+            for (int i = 1; i < lists.size() && all; i++) {
+                all = Arrays.binarySearch(lists.get(i), position) >= 0;
+            }
+            if (all) {
+                result[size++] = position;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static Set<String> grams(String name) {
+        Set<String> grams = bigrams(name);
+        for (int i = 0; i < name.length(); i++) {
+            grams.add(name.substring(i, i + 1));
+        }
+        return grams;
+    }
+
+    private static Set<String> bigrams(String text) {
+        Set<String> bigrams = new HashSet<>();
+        for (int i = 0; i + 1 < text.length(); i++) {
+            bigrams.add(text.substring(i, i + 2));
+        }
+        return bigrams;
+    }
+
+    private static final class Posting {
+
+        private int[] positions = new int[4];
+
+        private int size;
+
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size << 1);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
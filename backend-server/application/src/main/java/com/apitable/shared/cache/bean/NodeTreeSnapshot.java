@@ -0,0 +1,311 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.bean;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.apitable.workspace.dto.SimpleNodeInfo;
+import com.apitable.workspace.dto.SnapshotNodeInfo;
+import com.apitable.workspace.enums.NodeType;
+
+/**
+ * <p>
+ * immutable snapshot of the node tree structure and node names of a space.
+ * children of each node are kept in the order of the pre node chain.
+ * </p>
+ */
+public class NodeTreeSnapshot {
+
+    private static final String ROOT_PARENT_ID = "0";
+
+    private final String spaceId;
+
+    private final long createdAt;
+
+    private final String rootNodeId;
+
+    private final Map<String, SnapshotNodeInfo> nodes;
+
+    /**
+     * parent node id -> child node ids sorted by pre node chain
+     */
+    private final Map<String, List<String>> orderedChildren;
+
+    /**
+     * parent node id -> all child node ids, include the nodes which break the pre node chain
+     */
+    private final Map<String, List<String>> allChildren;
+
+    /**
+     * named nodes exclude root node and template nodes, in the loaded order
+     */
+    private final List<SnapshotNodeInfo> searchableNodes;
+
+    /**
+     * built by the first search, the snapshots never searched do not pay for it
+     */
+    private volatile NameIndex<String> nameIndex;
+
+    public NodeTreeSnapshot(String spaceId, List<SnapshotNodeInfo> nodeList) {
+        this.spaceId = spaceId;
+        this.createdAt = System.currentTimeMillis();
+        Map<String, SnapshotNodeInfo> nodeMap = new HashMap<>(nodeList.size() << 1);
+        Map<String, List<String>> childrenMap = new HashMap<>(nodeList.size());
+        List<SnapshotNodeInfo> searchable = new ArrayList<>(nodeList.size());
+        String root = null;
+        for (SnapshotNodeInfo node : nodeList) {
+            if (nodeMap.put(node.getNodeId(), node) != null) {
+                continue;
+            }
+            if (ROOT_PARENT_ID.equals(node.getParentId())) {
+                root = node.getNodeId();
+            }
+            else if (node.getNodeName() != null && !Boolean.TRUE.equals(node.getTemplate())) {
+                searchable.add(node);
+            }
+            childrenMap.computeIfAbsent(node.getParentId(), k -> new ArrayList<>()).add(node.getNodeId());
+        }
+        Map<String, List<String>> orderedMap = new HashMap<>(childrenMap.size() << 1);
+        childrenMap.forEach((parentId, children) -> orderedMap.put(parentId, sortByPreNode(nodeMap, children)));
+        this.rootNodeId = root;
+        this.nodes = nodeMap;
+        this.allChildren = childrenMap;
+        this.orderedChildren = orderedMap;
+        this.searchableNodes = searchable;
+    }
+
+    public String getSpaceId() {
+        return spaceId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getRootNodeId() {
+        return rootNodeId;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean contains(String nodeId) {
+        return nodes.containsKey(nodeId);
+    }
+
+    public String getNodeName(String nodeId) {
+        SnapshotNodeInfo node = nodes.get(nodeId);
+        return node != null ? node.getNodeName() : null;
+    }
+
+    /**
+     * search nodes whose name contains the keyword, ignoring case, exclude root node and template nodes.
+     * exact names come first, then names starting with, ending with, and containing the keyword.
+     *
+     * @param keyword keyword
+     * @param limit max number of nodes
+     * @return node ids
+     */
+    public List<String> searchNodeIdsByName(String keyword, int limit) {
+        return getNameIndex().search(keyword, limit);
+    }
+
+    private NameIndex<String> getNameIndex() {
+        NameIndex<String> index = nameIndex;
+        if (index != null) {
+            return index;
+        }
+        // concurrent first searches wait for one build
+        synchronized (searchableNodes) {
+            if (nameIndex == null) {
+                nameIndex = new NameIndex<>(searchableNodes.stream().map(SnapshotNodeInfo::getNodeId).collect(Collectors.toList()),
+                    searchableNodes.stream().map(SnapshotNodeInfo::getNodeName).collect(Collectors.toList()));
+            }
+            return nameIndex;
+        }
+    }
+
+    /**
+     * direct child node ids, no order guarantee
+     *
+     * @param parentId parent node id
+     * @return child node ids
+     */
+    public List<String> getSubNodeIds(String parentId) {
+        return new ArrayList<>(allChildren.getOrDefault(parentId, Collections.emptyList()));
+    }
+
+    /**
+     * direct child node ids in the pre node order,
+     * the siblings off the pre node chain follow it in the loaded order
+     *
+     * @param parentId parent node id
+     * @param nodeType node type, null means all
+     * @return child node ids
+     */
+    public List<String> getOrderedSubNodeIds(String parentId, NodeType nodeType) {
+        List<String> children = orderedChildren.getOrDefault(parentId, Collections.emptyList());
+        List<String> result = new ArrayList<>(children.size());
+        for (String child : children) {
+            if (nodeType == null || nodes.get(child).getType() == nodeType.getNodeType()) {
+                result.add(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * the node and its child nodes within depth, the children of each node are in pre node order.
+     * parent node is always in front of its children.
+     *
+     * @param nodeId node id
+     * @param depth recursive depth starting with 1, 0 means unlimited
+     * @return node ids
+     */
+    public List<String> getSubNodesByOrder(String nodeId, int depth) {
+        Set<String> result = new LinkedHashSet<>();
+        result.add(nodeId);
+        if (!nodes.containsKey(nodeId)) {
+            return new ArrayList<>(result);
+        }
+        Deque<String> queue = new ArrayDeque<>();
+        Map<String, Integer> levels = new HashMap<>();
+        queue.add(nodeId);
+        levels.put(nodeId, 1);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            int level = levels.get(current);
+            if (nodes.get(current).getType() == NodeType.DATASHEET.getNodeType()) {
+                continue;
+            }
+            for (String child : orderedChildren.getOrDefault(current, Collections.emptyList())) {
+                if (!result.add(child)) {
+                    continue;
+                }
+                if (depth == 0 || level < depth) {
+                    levels.put(child, level + 1);
+                    queue.add(child);
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * the path from the first level node to the node itself, exclude root node
+     *
+     * @param nodeId node id
+     * @return node ids, from top to bottom
+     */
+    public List<String> getParentNodePath(String nodeId) {
+        List<String> path = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        SnapshotNodeInfo node = nodes.get(nodeId);
+        while (node != null && visited.add(node.getNodeId()) && !ROOT_PARENT_ID.equals(node.getParentId())) {
+            path.add(node.getNodeId());
+            node = nodes.get(node.getParentId());
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * the nodes and all their parent nodes exclude root node, the upper node is in front.
+     *
+     * @param nodeIds node ids
+     * @return SimpleNodeInfo
+     */
+    public List<SimpleNodeInfo> getAllParentNodeInfos(Collection<String> nodeIds) {
+        // node id -> the max distance to the given nodes
+        Map<String, Integer> levels = new LinkedHashMap<>();
+        for (String nodeId : nodeIds) {
+            SnapshotNodeInfo node = nodes.get(nodeId);
+            if (node == null) {
+                continue;
+            }
+            levels.merge(nodeId, 0, Math::max);
+            int level = 1;
+            Set<String> visited = new HashSet<>();
+            visited.add(nodeId);
+            SnapshotNodeInfo parent = nodes.get(node.getParentId());
+            while (parent != null && !ROOT_PARENT_ID.equals(parent.getParentId()) && visited.add(parent.getNodeId())) {
+                levels.merge(parent.getNodeId(), level++, Math::max);
+                parent = nodes.get(parent.getParentId());
+            }
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(levels.entrySet());
+        // stable sort keeps the discovery order of nodes with the same level
+        entries.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<SimpleNodeInfo> result = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Integer> entry : entries) {
+            SnapshotNodeInfo node = nodes.get(entry.getKey());
+            SimpleNodeInfo info = new SimpleNodeInfo();
+            info.setNodeId(node.getNodeId());
+            info.setParentId(node.getParentId());
+            info.setExtend(node.getExtend());
+            result.add(info);
+        }
+        return result;
+    }
+
+    private static List<String> sortByPreNode(Map<String, SnapshotNodeInfo> nodeMap, List<String> siblings) {
+        String head = null;
+        Map<String, String> next = new HashMap<>(siblings.size() << 1);
+        for (String sibling : siblings) {
+            String preNodeId = nodeMap.get(sibling).getPreNodeId();
+            if (preNodeId == null) {
+                if (head == null) {
+                    head = sibling;
+                }
+            }
+            else {
+                next.putIfAbsent(preNodeId, sibling);
+            }
+        }
+        List<String> sorted = new ArrayList<>(siblings.size());
+        Set<String> visited = new HashSet<>();
+        appendChain(sorted, visited, next, head);
+        // a broken chain, keep the unchained siblings and their followers instead of losing them
+        for (String sibling : siblings) {
+            appendChain(sorted, visited, next, sibling);
+        }
+        return Collections.unmodifiableList(sorted);
+    }
+
+    private static void appendChain(List<String> sorted, Set<String> visited, Map<String, String> next, String start) {
+        String current = start;
+        while (current != null && visited.add(current)) {
+            sorted.add(current);
+            current = next.get(current);
+        }
+    }
+}
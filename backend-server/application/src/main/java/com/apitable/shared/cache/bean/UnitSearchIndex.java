@@ -0,0 +1,99 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.bean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.apitable.organization.dto.UnitNameDTO;
+import com.apitable.organization.enums.UnitType;
+
+/**
+ * <p>
+ * immutable name index of the teams and members of a space, used to search organization units.
+ * </p>
+ */
+public class UnitSearchIndex {
+
+    private final String spaceId;
+
+    private final long createdAt;
+
+    private final NameIndex<Long> teams;
+
+    private final NameIndex<Long> members;
+
+    public UnitSearchIndex(String spaceId, List<UnitNameDTO> units) {
+        this.spaceId = spaceId;
+        this.createdAt = System.currentTimeMillis();
+        List<Long> teamIds = new ArrayList<>();
+        List<String> teamNames = new ArrayList<>();
+        List<Long> memberIds = new ArrayList<>();
+        List<String> memberNames = new ArrayList<>();
+        for (UnitNameDTO unit : units) {
+            if (unit.getName() == null) {
+                continue;
+            }
+            if (UnitType.TEAM.getType().equals(unit.getUnitType())) {
+                teamIds.add(unit.getRefId());
+                teamNames.add(unit.getName());
+            }
+            else if (UnitType.MEMBER.getType().equals(unit.getUnitType())) {
+                memberIds.add(unit.getRefId());
+                memberNames.add(unit.getName());
+            }
+        }
+        this.teams = new NameIndex<>(teamIds, teamNames);
+        this.members = new NameIndex<>(memberIds, memberNames);
+    }
+
+    public String getSpaceId() {
+        return spaceId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int size() {
+        return teams.size() + members.size();
+    }
+
+    /**
+     * search teams whose name contains the keyword, exclude root team
+     *
+     * @param keyword keyword
+     * @param limit max number of teams
+     * @return team ids, the better matched first
+     */
+    public List<Long> searchTeamIds(String keyword, int limit) {
+        return teams.search(keyword, limit);
+    }
+
+    /**
+     * search members whose name contains the keyword, exclude members named by social platform
+     *
+     * @param keyword keyword
+     * @param limit max number of members
+     * @return member ids, the better matched first
+     */
+    public List<Long> searchMemberIds(String keyword, int limit) {
+        return members.search(keyword, limit);
+    }
+}
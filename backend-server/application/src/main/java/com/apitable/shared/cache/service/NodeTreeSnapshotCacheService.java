@@ -0,0 +1,52 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service;
+
+import com.apitable.shared.cache.bean.NodeTreeSnapshot;
+
+/**
+ * <p>
+ * node tree snapshot cache of space
+ * </p>
+ */
+public interface NodeTreeSnapshotCacheService {
+
+    /**
+     * get node tree snapshot of space, build it if absent
+     *
+     * @param spaceId space id
+     * @return node tree snapshot
+     */
+    NodeTreeSnapshot getSnapshot(String spaceId);
+
+    /**
+     * invalidate node tree snapshot of space on all instances.
+     * if called in a transaction, invalidate again after the transaction completed.
+     *
+     * @param spaceId space id
+     */
+    void invalidate(String spaceId);
+
+    /**
+     * invalidate node tree snapshot of space on current instance only
+     *
+     * @param spaceId space id
+     */
+    void evictLocal(String spaceId);
+}
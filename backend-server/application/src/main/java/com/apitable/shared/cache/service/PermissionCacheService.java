@@ -0,0 +1,80 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.apitable.shared.cache.bean.MemberUnitDto;
+import com.apitable.workspace.dto.ControlRoleInfo;
+
+/**
+ * <p>
+ * cache of the inputs resolved by control template on every permission check.
+ * invalidation is applied on all instances, if called in a transaction, it is applied again after the transaction completed.
+ * </p>
+ */
+public interface PermissionCacheService {
+
+    /**
+     * get organization units of member
+     *
+     * @param memberId member id
+     * @return member units, null if member does not exist
+     */
+    MemberUnitDto getMemberUnits(Long memberId);
+
+    /**
+     * get administrators with workbench permission of space, includes the main admin
+     *
+     * @param spaceId space id
+     * @return member ids
+     */
+    List<Long> getSpaceAdmins(String spaceId);
+
+    /**
+     * get role assignments of control units
+     *
+     * @param controlIds control ids
+     * @return control id -> role assignments, empty list if control unit has no role
+     */
+    Map<String, List<ControlRoleInfo>> getControlRoles(Collection<String> controlIds);
+
+    /**
+     * invalidate organization units of members
+     *
+     * @param memberIds member ids
+     */
+    void invalidateMembers(Collection<Long> memberIds);
+
+    /**
+     * invalidate administrators of space
+     *
+     * @param spaceId space id
+     */
+    void invalidateSpaceAdmins(String spaceId);
+
+    /**
+     * invalidate role assignments of control units
+     *
+     * @param controlIds control ids
+     */
+    void invalidateControlRoles(Collection<String> controlIds);
+}
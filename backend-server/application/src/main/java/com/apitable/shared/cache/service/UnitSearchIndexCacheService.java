@@ -0,0 +1,62 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service;
+
+import java.util.List;
+
+/**
+ * <p>
+ * name index cache of the teams and members of space
+ * </p>
+ */
+public interface UnitSearchIndexCacheService {
+
+    /**
+     * search teams whose name contains the keyword, ignoring case, exclude root team
+     *
+     * @param spaceId space id
+     * @param keyword keyword
+     * @return team ids, the better matched first
+     */
+    List<Long> searchTeamIds(String spaceId, String keyword);
+
+    /**
+     * search members whose name contains the keyword, ignoring case, exclude members named by social platform
+     *
+     * @param spaceId space id
+     * @param keyword keyword
+     * @return member ids, the better matched first
+     */
+    List<Long> searchMemberIds(String spaceId, String keyword);
+
+    /**
+     * invalidate unit search index of space on all instances.
+     * if called in a transaction, invalidate again after the transaction completed.
+     *
+     * @param spaceId space id
+     */
+    void invalidate(String spaceId);
+
+    /**
+     * invalidate unit search index of space on current instance only
+     *
+     * @param spaceId space id
+     */
+    void evictLocal(String spaceId);
+}
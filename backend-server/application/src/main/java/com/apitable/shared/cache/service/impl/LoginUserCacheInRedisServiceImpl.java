@@ -18,30 +18,42 @@
 
 package com.apitable.shared.cache.service.impl;
 
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 
 import com.apitable.shared.cache.bean.LoginUserDto;
 import com.apitable.shared.cache.service.LoginUserCacheService;
+import com.apitable.shared.config.properties.CacheProperties;
 import com.apitable.interfaces.social.enums.SocialNameModified;
 import com.apitable.user.mapper.UserMapper;
 import com.apitable.core.constants.RedisConstants;
 import com.apitable.user.entity.UserEntity;
 
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import static com.apitable.core.constants.RedisConstants.LOGIN_USER_CACHE_CHANNEL;
+
 @Service
 public class LoginUserCacheInRedisServiceImpl implements LoginUserCacheService {
 
     @Resource
-    private RedisTemplate<String, String> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private CacheProperties cacheProperties;
 
     @Resource
     private UserMapper userMapper;
@@ -51,15 +63,22 @@ public class LoginUserCacheInRedisServiceImpl implements LoginUserCacheService {
      */
     private static final int TIMEOUT = 30;
 
+    private RedisNearCache<LoginUserDto> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new RedisNearCache<>(LOGIN_USER_CACHE_CHANNEL, LoginUserDto.class, stringRedisTemplate, cacheProperties.getUserContext());
+        redisMessageListenerContainer.addMessageListener(cache, new ChannelTopic(cache.getChannel()));
+    }
+
     @Override
     public LoginUserDto getLoginUser(Long userId) {
-        String str = redisTemplate.opsForValue().get(RedisConstants.getLoginUserKey(userId));
-        if (str != null) {
-            LoginUserDto userDto = JSONUtil.toBean(str, LoginUserDto.class);
-            if (userDto != null && StrUtil.isNotBlank(userDto.getAreaCode()) && Objects.nonNull(userDto.getIsNickNameModified())) {
-                return userDto;
-            }
+        LoginUserDto userDto = cache.get(RedisConstants.getLoginUserKey(userId));
+        if (userDto != null && StrUtil.isNotBlank(userDto.getAreaCode()) && Objects.nonNull(userDto.getIsNickNameModified())) {
+            return userDto;
         }
+        String key = RedisConstants.getLoginUserKey(userId);
+        long stamp = cache.stamp(key);
         UserEntity user = userMapper.selectById(userId);
         LoginUserDto loginUserDto = new LoginUserDto();
         loginUserDto.setUserId(userId);
@@ -79,12 +98,13 @@ public class LoginUserCacheInRedisServiceImpl implements LoginUserCacheService {
         if (StrUtil.isBlank(user.getPassword())) {
             loginUserDto.setNeedPwd(true);
         }
-        redisTemplate.opsForValue().set(RedisConstants.getLoginUserKey(userId), JSONUtil.toJsonStr(loginUserDto), TIMEOUT, TimeUnit.MINUTES);
+        cache.put(key, loginUserDto, stamp, TIMEOUT, TimeUnit.MINUTES);
         return loginUserDto;
     }
 
     @Override
     public void delete(Long userId) {
-        redisTemplate.delete(RedisConstants.getLoginUserKey(userId));
+        // instances of the previous release still read the legacy key
+        cache.invalidate(Arrays.asList(RedisConstants.getLoginUserKey(userId), RedisConstants.getLegacyLoginUserKey(userId)));
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service.impl;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import com.apitable.shared.cache.bean.NodeTreeSnapshot;
+import com.apitable.shared.cache.service.NodeTreeSnapshotCacheService;
+import com.apitable.shared.config.properties.CacheProperties;
+import com.apitable.workspace.mapper.NodeMapper;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import static com.apitable.core.constants.RedisConstants.NODE_TREE_SNAPSHOT_CHANNEL;
+
+/**
+ * <p>
+ * node tree snapshot kept in local memory, invalidation is broadcast to other instances by redis pub/sub.
+ * </p>
+ */
+@Service
+public class NodeTreeSnapshotCacheInMemoryServiceImpl implements NodeTreeSnapshotCacheService {
+
+    @Resource
+    private NodeMapper nodeMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private CacheProperties cacheProperties;
+
+    private SpaceLocalCache<NodeTreeSnapshot> cache;
+
+    @PostConstruct
+    public void init() {
+        CacheProperties.NodeTree config = cacheProperties.getNodeTree();
+        cache = new SpaceLocalCache<>(NODE_TREE_SNAPSHOT_CHANNEL,
+            spaceId -> new NodeTreeSnapshot(spaceId, nodeMapper.selectSnapshotNodeInfoBySpaceId(spaceId)),
+            stringRedisTemplate, config.isEnabled(), config.getMaxSpaces(), config.getTtl());
+        redisMessageListenerContainer.addMessageListener(cache, new ChannelTopic(cache.getChannel()));
+    }
+
+    @Override
+    public NodeTreeSnapshot getSnapshot(String spaceId) {
+        return cache.get(spaceId);
+    }
+
+    @Override
+    public void invalidate(String spaceId) {
+        cache.invalidate(spaceId);
+    }
+
+    @Override
+    public void evictLocal(String spaceId) {
+        cache.evictLocal(spaceId);
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import com.apitable.control.mapper.ControlRoleMapper;
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.organization.service.IMemberService;
+import com.apitable.shared.cache.bean.MemberUnitDto;
+import com.apitable.shared.cache.service.PermissionCacheService;
+import com.apitable.shared.config.properties.CacheProperties;
+import com.apitable.space.service.ISpaceRoleService;
+import com.apitable.workspace.dto.ControlRoleInfo;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static com.apitable.core.constants.RedisConstants.PERMISSION_CACHE_CHANNEL;
+
+/**
+ * <p>
+ * permission cache kept in local memory in front of redis.
+ * an invalidation deletes the redis entries, bumps their versions kept in redis and broadcasts to other instances by redis pub/sub.
+ * a value loaded from database is written back only if the version of its key is unchanged since before loading,
+ * so a value loaded before an invalidation on any instance is never written back.
+ * </p>
+ */
+@Slf4j
+@Service
+public class PermissionCacheInRedisServiceImpl implements PermissionCacheService, MessageListener {
+
+    private static final String MESSAGE_SEPARATOR = "|";
+
+    private static final String TYPE_SEPARATOR = ":";
+
+    private static final String METRIC_NAME = "permission.cache.requests";
+
+    private static final String VERSION_SUFFIX = ":version";
+
+    private static final String ABSENT_VERSION = "0";
+
+    /**
+     * KEYS[1]: value key, KEYS[2]: version key, ARGV[1]: version read before loading, ARGV[2]: value, ARGV[3]: milliseconds to live.
+     * returns 1 if written
+     */
+    private static final RedisScript<Long> PUT_IF_VERSION_SCRIPT = new DefaultRedisScript<>(
+        "local version = redis.call('GET', KEYS[2]) or '0' "
+            + "if version ~= ARGV[1] then return 0 end "
+            + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) "
+            + "return 1", Long.class);
+
+    @Resource
+    private IMemberService iMemberService;
+
+    @Resource
+    private ISpaceRoleService iSpaceRoleService;
+
+    @Resource
+    private ControlRoleMapper controlRoleMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private CacheProperties cacheProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private final Map<String, NearCache<?, ?>> caches = new HashMap<>();
+
+    private NearCache<Long, MemberUnitDto> memberUnits;
+
+    private NearCache<String, List<Long>> spaceAdmins;
+
+    private NearCache<String, List<ControlRoleInfo>> controlRoles;
+
+    @PostConstruct
+    public void init() {
+        memberUnits = register(new NearCache<>("member_units", Long::valueOf, RedisConstants::getPermissionMemberUnitsKey,
+            str -> JSONUtil.toBean(str, MemberUnitDto.class)));
+        spaceAdmins = register(new NearCache<>("space_admins", Function.identity(), RedisConstants::getPermissionSpaceAdminsKey,
+            str -> JSONUtil.toList(JSONUtil.parseArray(str), Long.class)));
+        controlRoles = register(new NearCache<>("control_roles", Function.identity(), RedisConstants::getPermissionControlRolesKey,
+            str -> JSONUtil.toList(JSONUtil.parseArray(str), ControlRoleInfo.class)));
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(PERMISSION_CACHE_CHANNEL));
+    }
+
+    @Override
+    public MemberUnitDto getMemberUnits(Long memberId) {
+        if (memberId == null) {
+            return null;
+        }
+        return getAll(memberUnits, Collections.singletonList(memberId), this::loadMemberUnits).get(memberId);
+    }
+
+    @Override
+    public List<Long> getSpaceAdmins(String spaceId) {
+        return getAll(spaceAdmins, Collections.singletonList(spaceId), spaceIds -> spaceIds.stream()
+            .collect(Collectors.toMap(Function.identity(), iSpaceRoleService::getSpaceAdminsWithWorkbenchManage)))
+            .get(spaceId);
+    }
+
+    @Override
+    public Map<String, List<ControlRoleInfo>> getControlRoles(Collection<String> controlIds) {
+        return getAll(controlRoles, controlIds, this::loadControlRoles);
+    }
+
+    @Override
+    public void invalidateMembers(Collection<Long> memberIds) {
+        invalidate(memberUnits, memberIds);
+    }
+
+    @Override
+    public void invalidateSpaceAdmins(String spaceId) {
+        if (StrUtil.isNotBlank(spaceId)) {
+            invalidate(spaceAdmins, Collections.singletonList(spaceId));
+        }
+    }
+
+    @Override
+    public void invalidateControlRoles(Collection<String> controlIds) {
+        invalidate(controlRoles, controlIds);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String origin = StrUtil.subAfter(body, MESSAGE_SEPARATOR, true);
+        if (instanceId.equals(origin)) {
+            return;
+        }
+        String content = StrUtil.subBefore(body, MESSAGE_SEPARATOR, true);
+        NearCache<?, ?> cache = caches.get(StrUtil.subBefore(content, TYPE_SEPARATOR, false));
+        if (cache == null) {
+            return;
+        }
+        log.debug("Receive permission cache invalidation [{}]", content);
+        evictLocal(cache, StrUtil.split(StrUtil.subAfter(content, TYPE_SEPARATOR, false), ','));
+    }
+
+    private Map<Long, MemberUnitDto> loadMemberUnits(Collection<Long> memberIds) {
+        Map<Long, MemberUnitDto> result = new HashMap<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            String spaceId = iMemberService.getSpaceIdByMemberId(memberId);
+            if (StrUtil.isBlank(spaceId)) {
+                continue;
+            }
+            MemberUnitDto dto = new MemberUnitDto();
+            dto.setMemberId(memberId);
+            dto.setSpaceId(spaceId);
+            dto.setUnitIds(iMemberService.getUnitsByMember(memberId));
+            result.put(memberId, dto);
+        }
+        return result;
+    }
+
+    private Map<String, List<ControlRoleInfo>> loadControlRoles(Collection<String> controlIds) {
+        Map<String, List<ControlRoleInfo>> result = controlRoleMapper.selectControlRoleInfoByControlIds(controlIds)
+            .stream().collect(Collectors.groupingBy(ControlRoleInfo::getControlId));
+        // the control unit without role is cached as well, most nodes have none
+        controlIds.forEach(controlId -> result.putIfAbsent(controlId, Collections.emptyList()));
+        return result;
+    }
+
+    private <K, V> Map<K, V> getAll(NearCache<K, V> cache, Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+        if (CollUtil.isEmpty(keys)) {
+            return new HashMap<>(0);
+        }
+        CacheProperties.Permission config = cacheProperties.getPermission();
+        if (!config.isEnabled()) {
+            return loader.apply(keys);
+        }
+        Map<K, V> result = new LinkedHashMap<>(keys.size());
+        List<K> localMissed = new ArrayList<>();
+        for (K key : keys) {
+            V value = cache.local.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+            else {
+                localMissed.add(key);
+            }
+        }
+        cache.localHit.increment(result.size());
+        if (localMissed.isEmpty()) {
+            return result;
+        }
+        // capture the version before reading, the values read afterwards may be older than a concurrent invalidation
+        long version = cache.version.get();
+        List<String> values = stringRedisTemplate.opsForValue()
+            .multiGet(localMissed.stream().map(cache.redisKey).collect(Collectors.toList()));
+        List<K> missed = new ArrayList<>();
+        for (int i = 0; i < localMissed.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value == null) {
+                missed.add(localMissed.get(i));
+                continue;
+            }
+            V decoded = cache.decoder.apply(value);
+            result.put(localMissed.get(i), decoded);
+            cache.local.put(localMissed.get(i), decoded);
+        }
+        cache.redisHit.increment(localMissed.size() - missed.size());
+        if (missed.isEmpty()) {
+            return result;
+        }
+        cache.miss.increment(missed.size());
+        // the versions in redis are bumped by the invalidations of all instances
+        List<String> redisKeys = missed.stream().map(cache.redisKey).collect(Collectors.toList());
+        List<String> versions = stringRedisTemplate.opsForValue()
+            .multiGet(redisKeys.stream().map(key -> key + VERSION_SUFFIX).collect(Collectors.toList()));
+        Map<K, V> loaded = loader.apply(missed);
+        result.putAll(loaded);
+        byte[] ttl = String.valueOf(config.getRedisTtl().toMillis()).getBytes(StandardCharsets.UTF_8);
+        List<K> writeKeys = new ArrayList<>(missed.size());
+        List<byte[][]> writeArgs = new ArrayList<>(missed.size());
+        for (int i = 0; i < missed.size(); i++) {
+            V value = loaded.get(missed.get(i));
+            if (value == null) {
+                continue;
+            }
+            String redisKey = redisKeys.get(i);
+            String loadedVersion = versions != null && versions.get(i) != null ? versions.get(i) : ABSENT_VERSION;
+            writeKeys.add(missed.get(i));
+            writeArgs.add(new byte[][] { bytes(redisKey), bytes(redisKey + VERSION_SUFFIX), bytes(loadedVersion),
+                bytes(JSONUtil.toJsonStr(value)), ttl });
+        }
+        if (writeKeys.isEmpty()) {
+            return result;
+        }
+        // one round trip for the write-back of all missed keys
+        byte[] script = bytes(PUT_IF_VERSION_SCRIPT.getScriptAsString());
+        List<Object> written = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            writeArgs.forEach(args -> connection.scriptingCommands().eval(script, ReturnType.INTEGER, 2, args));
+            return null;
+        });
+        if (cache.version.get() != version) {
+            return result;
+        }
+        for (int i = 0; i < writeKeys.size(); i++) {
+            if (Long.valueOf(1).equals(written.get(i))) {
+                cache.local.put(writeKeys.get(i), result.get(writeKeys.get(i)));
+            }
+        }
+        return result;
+    }
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private <K> void invalidate(NearCache<K, ?> cache, Collection<K> keys) {
+        if (CollUtil.isEmpty(keys)) {
+            return;
+        }
+        List<K> evicted = new ArrayList<>(keys);
+        evict(cache, evicted);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // values loaded before the transaction committed still hold the old data
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(cache, evicted);
+                }
+            });
+        }
+    }
+
+    private <K> void evict(NearCache<K, ?> cache, List<K> keys) {
+        cache.version.incrementAndGet();
+        keys.forEach(cache.local::remove);
+        // the version outlives the value, a loader reading no version never sees a value written later
+        long versionTtl = cacheProperties.getPermission().getRedisTtl().toMillis() * 2;
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (K key : keys) {
+                byte[] redisKey = cache.redisKey.apply(key).getBytes(StandardCharsets.UTF_8);
+                byte[] versionKey = (cache.redisKey.apply(key) + VERSION_SUFFIX).getBytes(StandardCharsets.UTF_8);
+                connection.stringCommands().incr(versionKey);
+                connection.keyCommands().pExpire(versionKey, versionTtl);
+                connection.keyCommands().del(redisKey);
+            }
+            return null;
+        });
+        String content = cache.name + TYPE_SEPARATOR + CollUtil.join(keys, ",");
+        try {
+            stringRedisTemplate.convertAndSend(PERMISSION_CACHE_CHANNEL, content + MESSAGE_SEPARATOR + instanceId);
+        }
+        catch (Exception e) {
+            // the local entries of other instances will expire by ttl
+            log.error("Fail to broadcast permission cache invalidation [{}]", content, e);
+        }
+    }
+
+    private <K> void evictLocal(NearCache<K, ?> cache, List<String> keys) {
+        cache.version.incrementAndGet();
+        keys.forEach(key -> cache.local.remove(cache.keyParser.apply(key)));
+    }
+
+    private <K, V> NearCache<K, V> register(NearCache<K, V> cache) {
+        caches.put(cache.name, cache);
+        return cache;
+    }
+
+    private class NearCache<K, V> {
+
+        private final String name;
+
+        private final Function<String, K> keyParser;
+
+        private final Function<K, String> redisKey;
+
+        private final Function<String, V> decoder;
+
+        private final LRUCache<K, V> local;
+
+        private final AtomicLong version = new AtomicLong();
+
+        private final Counter localHit;
+
+        private final Counter redisHit;
+
+        private final Counter miss;
+
+        NearCache(String name, Function<String, K> keyParser, Function<K, String> redisKey, Function<String, V> decoder) {
+            CacheProperties.Permission config = cacheProperties.getPermission();
+            this.name = name;
+            this.keyParser = keyParser;
+            this.redisKey = redisKey;
+            this.decoder = decoder;
+            this.local = CacheUtil.newLRUCache(config.getLocalMaxSize(), config.getLocalTtl().toMillis());
+            this.localHit = counter("local_hit");
+            this.redisHit = counter("redis_hit");
+            this.miss = counter("miss");
+        }
+
+        private Counter counter(String result) {
+            return Counter.builder(METRIC_NAME)
+                .description("permission cache lookups of control template")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+        }
+    }
+}
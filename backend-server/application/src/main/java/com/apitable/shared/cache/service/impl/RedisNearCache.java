@@ -0,0 +1,238 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+import com.apitable.shared.config.properties.CacheProperties;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * <p>
+ * redis value cache with a short lived local tier in front of it.
+ * values are stored in redis as jackson json, the local tier keeps the decoded values.
+ * an invalidation unlinks the redis keys in batches and broadcasts them to other instances by redis pub/sub,
+ * a value read or loaded before an invalidation of the same key is never kept locally,
+ * and a loaded value is not written to redis either.
+ * invalidations are counted per stripe of keys, so churn of other keys rarely refuses a value.
+ * local values are shared by callers and must not be modified.
+ * </p>
+ */
+@Slf4j
+class RedisNearCache<V> implements MessageListener {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+        .addModule(new JavaTimeModule())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .serializationInclusion(JsonInclude.Include.NON_NULL)
+        .build();
+
+    private static final String MESSAGE_SEPARATOR = "|";
+
+    private static final String KEY_SEPARATOR = ",";
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final int STRIPES = 1024;
+
+    private final String channel;
+
+    private final Class<V> type;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final CacheProperties.UserContext config;
+
+    private final LRUCache<String, V> local;
+
+    /**
+     * invalidation count of each key stripe
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    RedisNearCache(String channel, Class<V> type, StringRedisTemplate stringRedisTemplate, CacheProperties.UserContext config) {
+        this.channel = channel;
+        this.type = type;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.config = config;
+        this.local = CacheUtil.newLRUCache(config.getLocalMaxSize(), config.getLocalTtl().toMillis());
+    }
+
+    String getChannel() {
+        return channel;
+    }
+
+    /**
+     * get the value of redis key, local tier first
+     *
+     * @param key redis key
+     * @return value, null if absent or not decodable
+     */
+    V get(String key) {
+        if (config.isEnabled()) {
+            V value = local.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        // capture the version before reading, the value read afterwards may be older than a concurrent invalidation
+        int stripe = stripe(key);
+        long current = versions.get(stripe);
+        String str = stringRedisTemplate.opsForValue().get(key);
+        if (str == null) {
+            return null;
+        }
+        V value = decode(key, str);
+        if (value != null && config.isEnabled() && versions.get(stripe) == current) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * get the invalidation stamp of redis key, taken before loading a value to put
+     *
+     * @param key redis key
+     * @return stamp
+     */
+    long stamp(String key) {
+        return versions.get(stripe(key));
+    }
+
+    /**
+     * store the value into redis and local tier, skipped when the key is invalidated since the stamp was taken
+     *
+     * @param key redis key
+     * @param value value
+     * @param stamp stamp taken before the value was loaded
+     * @param timeout redis time to live
+     * @param unit time unit
+     */
+    void put(String key, V value, long stamp, long timeout, TimeUnit unit) {
+        int stripe = stripe(key);
+        if (versions.get(stripe) != stamp) {
+            // the value may be loaded before the change invalidating it was committed
+            return;
+        }
+        stringRedisTemplate.opsForValue().set(key, encode(value), timeout, unit);
+        if (config.isEnabled() && versions.get(stripe) == stamp) {
+            local.put(key, value);
+        }
+    }
+
+    /**
+     * remove the redis keys from all instances, repeated when the current transaction completes
+     *
+     * @param keys redis keys
+     */
+    void invalidate(Collection<String> keys) {
+        if (CollUtil.isEmpty(keys)) {
+            return;
+        }
+        List<String> evicted = new ArrayList<>(keys);
+        evict(evicted);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // values loaded before the transaction committed still hold the old data
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(evicted);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (instanceId.equals(StrUtil.subAfter(body, MESSAGE_SEPARATOR, true))) {
+            return;
+        }
+        StrUtil.split(StrUtil.subBefore(body, MESSAGE_SEPARATOR, true), KEY_SEPARATOR).forEach(this::evictLocal);
+    }
+
+    private void evict(List<String> keys) {
+        keys.forEach(this::evictLocal);
+        for (List<String> batch : CollUtil.split(keys, BATCH_SIZE)) {
+            stringRedisTemplate.unlink(batch);
+            try {
+                stringRedisTemplate.convertAndSend(channel, CollUtil.join(batch, KEY_SEPARATOR) + MESSAGE_SEPARATOR + instanceId);
+            }
+            catch (Exception e) {
+                // the local entries of other instances will expire by ttl
+                log.error("Fail to broadcast cache invalidation of [{}]", channel, e);
+            }
+        }
+    }
+
+    private void evictLocal(String key) {
+        versions.incrementAndGet(stripe(key));
+        local.remove(key);
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private String encode(V value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException("Fail to encode cache value of " + type.getSimpleName(), e);
+        }
+    }
+
+    private V decode(String key, String str) {
+        try {
+            return MAPPER.readValue(str, type);
+        }
+        catch (JsonProcessingException e) {
+            // written by an older format, loaded again by the caller
+            log.warn("Fail to decode cache value of [{}]", key, e);
+            return null;
+        }
+    }
+}
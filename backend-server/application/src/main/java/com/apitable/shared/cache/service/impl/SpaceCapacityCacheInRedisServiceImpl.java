@@ -18,8 +18,6 @@
 
 package com.apitable.shared.cache.service.impl;
 
-import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
@@ -27,6 +25,7 @@ import javax.annotation.Resource;
 import cn.hutool.core.util.StrUtil;
 import lombok.extern.slf4j.Slf4j;
 
+import com.apitable.core.util.SqlTool;
 import com.apitable.shared.cache.service.SpaceCapacityCacheService;
 import com.apitable.space.mapper.SpaceAssetMapper;
 
@@ -54,8 +53,7 @@ public class SpaceCapacityCacheInRedisServiceImpl implements SpaceCapacityCacheS
         if (number != null) {
             return number.longValue();
         }
-        List<Integer> fileSizes = spaceAssetMapper.selectFileSizeBySpaceId(spaceId);
-        long statics = fileSizes.stream().filter(Objects::nonNull).mapToLong(Integer::intValue).sum();
+        long statics = SqlTool.retCount(spaceAssetMapper.sumFileSizeBySpaceId(spaceId));
         redisTemplate.opsForValue().set(key, statics, TIMEOUT, TimeUnit.MINUTES);
         return statics;
     }
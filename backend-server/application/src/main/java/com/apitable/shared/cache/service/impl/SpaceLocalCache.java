@@ -0,0 +1,274 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * <p>
+ * values loaded per space kept in local memory, invalidation is broadcast to other instances by redis pub/sub.
+ * concurrent misses of a space wait for the same load.
+ * each load holds its future until it is installed, an invalidation drops the future,
+ * so a value loaded before an invalidation is never installed.
+ * an invalidation in a transaction is repeated when it completes, the transaction loads its own values meanwhile.
+ * </p>
+ */
+@Slf4j
+class SpaceLocalCache<V> implements MessageListener {
+
+    private static final String MESSAGE_SEPARATOR = "|";
+
+    private final String channel;
+
+    private final Function<String, V> loader;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final boolean enabled;
+
+    private final int maxSpaces;
+
+    private final long ttlMillis;
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private final Object lock = new Object();
+
+    /**
+     * values in the order they were installed, the eldest comes first. guarded by lock
+     */
+    private final LinkedHashMap<String, Loaded<V>> values = new LinkedHashMap<>();
+
+    /**
+     * space id -> load not installed yet. guarded by lock
+     */
+    private final Map<String, CompletableFuture<V>> loading = new HashMap<>();
+
+    SpaceLocalCache(String channel, Function<String, V> loader, StringRedisTemplate stringRedisTemplate,
+        boolean enabled, int maxSpaces, Duration ttl) {
+        this.channel = channel;
+        this.loader = loader;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.maxSpaces = maxSpaces;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    String getChannel() {
+        return channel;
+    }
+
+    /**
+     * get the value of space, load it if absent or expired
+     *
+     * @param spaceId space id
+     * @return value
+     */
+    V get(String spaceId) {
+        if (!enabled || isPendingInCurrentTransaction(spaceId)) {
+            // the current transaction may see uncommitted data, only used by itself
+            return loader.apply(spaceId);
+        }
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> current;
+        synchronized (lock) {
+            Loaded<V> loaded = values.get(spaceId);
+            if (loaded != null && System.currentTimeMillis() - loaded.loadedAt < ttlMillis) {
+                return loaded.value;
+            }
+            current = loading.computeIfAbsent(spaceId, key -> created);
+        }
+        if (current != created) {
+            return await(current);
+        }
+        V value;
+        try {
+            value = loader.apply(spaceId);
+        }
+        catch (Throwable e) {
+            synchronized (lock) {
+                loading.remove(spaceId, created);
+            }
+            created.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (lock) {
+            if (loading.remove(spaceId, created)) {
+                // put at the tail, then drop the eldest from the head
+                values.remove(spaceId);
+                values.put(spaceId, new Loaded<>(value));
+                Iterator<Loaded<V>> eldest = values.values().iterator();
+                while (values.size() > maxSpaces && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        created.complete(value);
+        return value;
+    }
+
+    /**
+     * invalidate the value of space on all instances, repeated when the current transaction completes
+     *
+     * @param spaceId space id
+     */
+    void invalidate(String spaceId) {
+        if (StrUtil.isBlank(spaceId)) {
+            return;
+        }
+        evictLocal(spaceId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(spaceId);
+            return;
+        }
+        // invalidate again when the transaction completed, the value loaded in the meantime may read the old data
+        Set<String> pending = getPendingSpaceIds();
+        if (pending == null) {
+            Set<String> spaceIds = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, spaceIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SpaceLocalCache.this);
+                    for (String id : spaceIds) {
+                        evictLocal(id);
+                        publish(id);
+                    }
+                }
+            });
+            pending = spaceIds;
+        }
+        pending.add(spaceId);
+    }
+
+    /**
+     * invalidate the value of space on current instance only
+     *
+     * @param spaceId space id
+     */
+    void evictLocal(String spaceId) {
+        synchronized (lock) {
+            loading.remove(spaceId);
+            values.remove(spaceId);
+        }
+    }
+
+    /**
+     * the values kept in memory, expired ones included
+     *
+     * @return values
+     */
+    List<V> values() {
+        synchronized (lock) {
+            List<V> result = new ArrayList<>(values.size());
+            values.values().forEach(loaded -> result.add(loaded.value));
+            return result;
+        }
+    }
+
+    int size() {
+        synchronized (lock) {
+            return values.size();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String spaceId = StrUtil.subBefore(body, MESSAGE_SEPARATOR, false);
+        String origin = StrUtil.subAfter(body, MESSAGE_SEPARATOR, false);
+        if (instanceId.equals(origin)) {
+            return;
+        }
+        log.debug("Receive invalidation of [{}] of space [{}]", channel, spaceId);
+        evictLocal(spaceId);
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void publish(String spaceId) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, spaceId + MESSAGE_SEPARATOR + instanceId);
+        }
+        catch (Exception e) {
+            // the values of other instances will expire by ttl
+            log.error("Fail to broadcast invalidation of [{}] of space [{}]", channel, spaceId, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> getPendingSpaceIds() {
+        return (Set<String>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private boolean isPendingInCurrentTransaction(String spaceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        Set<String> pending = getPendingSpaceIds();
+        return pending != null && pending.contains(spaceId);
+    }
+
+    private static class Loaded<V> {
+
+        private final V value;
+
+        private final long loadedAt = System.currentTimeMillis();
+
+        Loaded(V value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service.impl;
+
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.apitable.organization.mapper.UnitMapper;
+import com.apitable.shared.cache.bean.UnitSearchIndex;
+import com.apitable.shared.cache.service.UnitSearchIndexCacheService;
+import com.apitable.shared.config.properties.CacheProperties;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import static com.apitable.core.constants.RedisConstants.UNIT_SEARCH_INDEX_CHANNEL;
+
+/**
+ * <p>
+ * unit search index kept in local memory, invalidation is broadcast to other instances by redis pub/sub.
+ * </p>
+ */
+@Service
+public class UnitSearchIndexCacheInMemoryServiceImpl implements UnitSearchIndexCacheService {
+
+    private static final String METRIC_NAME = "unit.search";
+
+    @Resource
+    private UnitMapper unitMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private CacheProperties cacheProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private SpaceLocalCache<UnitSearchIndex> cache;
+
+    private Timer teamSearches;
+
+    private Timer memberSearches;
+
+    private Timer builds;
+
+    @PostConstruct
+    public void init() {
+        CacheProperties.UnitSearch config = cacheProperties.getUnitSearch();
+        cache = new SpaceLocalCache<>(UNIT_SEARCH_INDEX_CHANNEL,
+            spaceId -> builds.record(() -> new UnitSearchIndex(spaceId, unitMapper.selectSearchableUnitNameBySpaceId(spaceId))),
+            stringRedisTemplate, config.isEnabled(), config.getMaxSpaces(), config.getTtl());
+        redisMessageListenerContainer.addMessageListener(cache, new ChannelTopic(cache.getChannel()));
+        teamSearches = searchTimer("team");
+        memberSearches = searchTimer("member");
+        builds = Timer.builder(METRIC_NAME + ".index.build")
+            .description("time to load and build the unit search index of a space")
+            .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".index.size", cache, c -> c.values().stream().mapToInt(UnitSearchIndex::size).sum())
+            .description("number of teams and members indexed in memory")
+            .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".index.spaces", cache, SpaceLocalCache::size)
+            .description("number of spaces indexed in memory")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public List<Long> searchTeamIds(String spaceId, String keyword) {
+        return teamSearches.record(() -> search(spaceId, keyword, UnitSearchIndex::searchTeamIds));
+    }
+
+    @Override
+    public List<Long> searchMemberIds(String spaceId, String keyword) {
+        return memberSearches.record(() -> search(spaceId, keyword, UnitSearchIndex::searchMemberIds));
+    }
+
+    @Override
+    public void invalidate(String spaceId) {
+        cache.invalidate(spaceId);
+    }
+
+    @Override
+    public void evictLocal(String spaceId) {
+        cache.evictLocal(spaceId);
+    }
+
+    private List<Long> search(String spaceId, String keyword, SearchFunction function) {
+        return function.apply(cache.get(spaceId), keyword, cacheProperties.getUnitSearch().getMaxResults());
+    }
+
+    private Timer searchTimer(String type) {
+        return Timer.builder(METRIC_NAME)
+            .description("time to search organization units by name")
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface SearchFunction {
+
+        List<Long> apply(UnitSearchIndex index, String keyword, int limit);
+    }
+}
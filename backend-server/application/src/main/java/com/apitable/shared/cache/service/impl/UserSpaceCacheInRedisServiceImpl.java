@@ -19,23 +19,27 @@
 package com.apitable.shared.cache.service.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.json.JSONUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import com.apitable.shared.cache.bean.SpaceResourceDto;
 import com.apitable.shared.cache.bean.UserSpaceDto;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
+import com.apitable.shared.config.properties.CacheProperties;
 import com.apitable.space.enums.SpaceException;
 import com.apitable.organization.mapper.MemberMapper;
 import com.apitable.organization.mapper.UnitMapper;
@@ -51,10 +55,12 @@ import com.apitable.organization.entity.MemberEntity;
 import com.apitable.space.entity.SpaceEntity;
 import com.apitable.organization.entity.UnitEntity;
 
-import org.springframework.data.redis.core.BoundValueOperations;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import static com.apitable.core.constants.RedisConstants.USER_SPACE_CACHE_CHANNEL;
 import static com.apitable.space.enums.SpaceException.NOT_IN_SPACE;
 
 @Service
@@ -62,7 +68,13 @@ import static com.apitable.space.enums.SpaceException.NOT_IN_SPACE;
 public class UserSpaceCacheInRedisServiceImpl implements UserSpaceCacheService {
 
     @Resource
-    private RedisTemplate<String, String> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private CacheProperties cacheProperties;
 
     @Resource
     private SpaceMapper spaceMapper;
@@ -81,8 +93,18 @@ public class UserSpaceCacheInRedisServiceImpl implements UserSpaceCacheService {
 
     private static final int TIMEOUT = 2;
 
+    private RedisNearCache<UserSpaceDto> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new RedisNearCache<>(USER_SPACE_CACHE_CHANNEL, UserSpaceDto.class, stringRedisTemplate, cacheProperties.getUserContext());
+        redisMessageListenerContainer.addMessageListener(cache, new ChannelTopic(cache.getChannel()));
+    }
+
     @Override
     public UserSpaceDto saveUserSpace(Long userId, String spaceId, Long memberId) {
+        String key = RedisConstants.getUserSpaceKey(userId, spaceId);
+        long stamp = cache.stamp(key);
         MemberEntity memberEntity = memberMapper.selectMemberIdAndSpaceId(spaceId, memberId);
         ExceptionUtil.isNotNull(memberEntity, NOT_IN_SPACE);
         UnitEntity unitEntity = unitMapper.selectByRefId(memberId);
@@ -122,17 +144,15 @@ public class UserSpaceCacheInRedisServiceImpl implements UserSpaceCacheService {
             userSpaceDto.setResourceCodes(resourceCodes);
             userSpaceDto.setResourceGroupCodes(resourceGroupCodes);
         }
-        BoundValueOperations<String, String> opts = redisTemplate.boundValueOps(RedisConstants.getUserSpaceKey(userId, spaceId));
-        opts.set(JSONUtil.toJsonStr(userSpaceDto), TIMEOUT, TimeUnit.HOURS);
+        cache.put(key, userSpaceDto, stamp, TIMEOUT, TimeUnit.HOURS);
         return userSpaceDto;
     }
 
     @Override
     public Long getMemberId(Long userId, String spaceId) {
-        BoundValueOperations<String, String> opts = redisTemplate.boundValueOps(RedisConstants.getUserSpaceKey(userId, spaceId));
-        String str = opts.get();
-        if (str != null) {
-            return Optional.ofNullable(JSONUtil.toBean(str, UserSpaceDto.class).getMemberId())
+        UserSpaceDto cached = cache.get(RedisConstants.getUserSpaceKey(userId, spaceId));
+        if (cached != null) {
+            return Optional.ofNullable(cached.getMemberId())
                     .orElseThrow(() -> new BusinessException(NOT_IN_SPACE));
         }
         Long memberId = memberMapper.selectIdByUserIdAndSpaceId(userId, spaceId);
@@ -143,15 +163,13 @@ public class UserSpaceCacheInRedisServiceImpl implements UserSpaceCacheService {
 
     @Override
     public void delete(Long userId, String spaceId) {
-        redisTemplate.delete(RedisConstants.getUserSpaceKey(userId, spaceId));
+        invalidate(spaceId, Collections.singletonList(userId));
     }
 
     @Override
     public UserSpaceDto getUserSpace(Long userId, String spaceId) {
-        BoundValueOperations<String, String> opts = redisTemplate.boundValueOps(RedisConstants.getUserSpaceKey(userId, spaceId));
-        String str = opts.get();
-        if (str != null) {
-            UserSpaceDto userSpaceDto = JSONUtil.toBean(str, UserSpaceDto.class);
+        UserSpaceDto userSpaceDto = cache.get(RedisConstants.getUserSpaceKey(userId, spaceId));
+        if (userSpaceDto != null) {
             if (Objects.isNull(userSpaceDto.getIsMemberNameModified())) {
                 return this.saveUserSpace(userId, spaceId, userSpaceDto.getMemberId());
             }
@@ -172,20 +190,22 @@ public class UserSpaceCacheInRedisServiceImpl implements UserSpaceCacheService {
     @Override
     public void delete(String spaceId, List<Long> memberIds) {
         if (CollUtil.isNotEmpty(memberIds)) {
-            List<Long> userIds = memberMapper.selectUserIdsByMemberIds(memberIds);
-            if (CollUtil.isNotEmpty(userIds)) {
-                for (Long userId : userIds) {
-                    if (userId != null) {
-                        redisTemplate.delete(RedisConstants.getUserSpaceKey(userId, spaceId));
-                    }
-                }
-            }
+            invalidate(spaceId, memberMapper.selectUserIdsByMemberIds(memberIds));
         }
     }
 
     @Override
     public void delete(String spaceId) {
-        List<Long> userIds = memberMapper.selectUserIdBySpaceId(spaceId);
-        userIds.forEach(userId -> redisTemplate.delete(RedisConstants.getUserSpaceKey(userId, spaceId)));
+        invalidate(spaceId, memberMapper.selectUserIdBySpaceId(spaceId));
+    }
+
+    private void invalidate(String spaceId, List<Long> userIds) {
+        if (CollUtil.isEmpty(userIds)) {
+            return;
+        }
+        // instances of the previous release still read the legacy keys
+        cache.invalidate(userIds.stream().filter(Objects::nonNull)
+                .flatMap(userId -> Stream.of(RedisConstants.getUserSpaceKey(userId, spaceId), RedisConstants.getLegacyUserSpaceKey(userId, spaceId)))
+                .collect(Collectors.toList()));
     }
 }
@@ -18,13 +18,15 @@
 
 package com.apitable.shared.component.adapter;
 
+import java.util.Collection;
 import java.util.List;
 
+import com.apitable.workspace.entity.NodeVisitRecordEntity;
 import com.apitable.workspace.enums.NodeType;
 
 
 public interface DatasourceAdapter {
     List<String> getRecentlyVisitNodeIds(Long memberId, NodeType nodeType);
 
-    void saveOrUpdateNodeVisitRecord(String spaceId, Long memberId, String nodeId, NodeType nodeType);
+    void saveNodeVisitRecords(Collection<NodeVisitRecordEntity> records);
 }
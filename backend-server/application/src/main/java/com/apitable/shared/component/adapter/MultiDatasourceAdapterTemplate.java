@@ -18,26 +18,141 @@
 
 package com.apitable.shared.component.adapter;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import com.apitable.workspace.enums.NodeType;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import static com.apitable.core.constants.RedisConstants.NODE_VISIT_FLUSH_OWNER;
+
 @Slf4j
 @Component
 public class MultiDatasourceAdapterTemplate {
 
+    private static final long FLUSH_PERIOD_SECONDS = 10;
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * batches saved by one flush at most, the rest are left to the next flush
+     */
+    private static final int MAX_FLUSH_BATCHES = 20;
+
+    private static final Duration OWNER_TTL = Duration.ofMinutes(1);
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: instance id, ARGV[2]: milliseconds to live.
+     * extend the owner key only if it is still held by this instance, returns 1 if extended
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0", Long.class);
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: instance id.
+     * delete the owner key only if it is still held by this instance
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    @Resource
+    private NodeVisitRecordBuffer nodeVisitRecordBuffer;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(ThreadUtil.newNamedThreadFactory("node-visit-flush-", true));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flusher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlusher() {
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_PERIOD_SECONDS, FLUSH_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
     public List<String> getRecentlyVisitNodeIds(Long memberId, NodeType nodeType) {
+        List<String> nodeIds = nodeVisitRecordBuffer.getRecentlyVisitNodeIds(memberId, nodeType);
+        if (nodeIds != null) {
+            return nodeIds;
+        }
         DatasourceAdapter adapter = this.getDatasourceAdapter();
         return adapter.getRecentlyVisitNodeIds(memberId, nodeType);
     }
 
     public void saveOrUpdateNodeVisitRecord(String spaceId, Long memberId, String nodeId, NodeType nodeType) {
+        if (nodeVisitRecordBuffer.record(spaceId, memberId, nodeId, nodeType, null)) {
+            return;
+        }
+        // visits are not kept, load the saved ones along
         DatasourceAdapter adapter = this.getDatasourceAdapter();
-        adapter.saveOrUpdateNodeVisitRecord(spaceId, memberId, nodeId, nodeType);
+        List<String> savedNodeIds = CollUtil.reverse(adapter.getRecentlyVisitNodeIds(memberId, nodeType));
+        nodeVisitRecordBuffer.record(spaceId, memberId, nodeId, nodeType, savedNodeIds);
+    }
+
+    /**
+     * save the buffered visits to datasource, one instance saves at a time.
+     * the owner key is extended before each batch, the flush stops once it is held by another instance.
+     */
+    private void flush() {
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(NODE_VISIT_FLUSH_OWNER, instanceId, OWNER_TTL))) {
+                return;
+            }
+            try {
+                DatasourceAdapter adapter = this.getDatasourceAdapter();
+                int batches = 0;
+                int read;
+                do {
+                    read = nodeVisitRecordBuffer.flush(FLUSH_BATCH_SIZE, adapter::saveNodeVisitRecords);
+                }
+                while (read == FLUSH_BATCH_SIZE && ++batches < MAX_FLUSH_BATCHES && renewOwner());
+            }
+            finally {
+                stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(NODE_VISIT_FLUSH_OWNER), instanceId);
+            }
+        }
+        catch (Exception e) {
+            log.error("Save node visit records failed", e);
+        }
+    }
+
+    private boolean renewOwner() {
+        Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(NODE_VISIT_FLUSH_OWNER),
+            instanceId, String.valueOf(OWNER_TTL.toMillis()));
+        if (renewed == null || renewed != 1) {
+            log.warn("Lost the owner of node visit flush, stop saving");
+            return false;
+        }
+        return true;
     }
 
     private DatasourceAdapter getDatasourceAdapter() {
@@ -19,7 +19,12 @@
 package com.apitable.shared.component.adapter;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import cn.hutool.core.collection.CollUtil;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
@@ -43,21 +48,22 @@ public class MysqlAdapter extends AbstractDatasourceAdapter {
     }
 
     @Override
-    public void saveOrUpdateNodeVisitRecord(String spaceId, Long memberId, String nodeId, NodeType nodeType) {
+    public void saveNodeVisitRecords(Collection<NodeVisitRecordEntity> records) {
         NodeVisitRecordMapper nodeVisitRecordMapper = SpringContextHolder.getBean(NodeVisitRecordMapper.class);
-        String nodeIdsStr = nodeVisitRecordMapper.selectNodeIdsByMemberIdAndNodeType(memberId, nodeType.getNodeType());
-        if (nodeIdsStr == null) {
-            NodeVisitRecordEntity entity = NodeVisitRecordEntity.builder()
-                    .id(IdWorker.getId())
-                    .spaceId(spaceId)
-                    .memberId(memberId)
-                    .nodeType(nodeType.getNodeType())
-                    .nodeIds(nodeId)
-                    .build();
-            nodeVisitRecordMapper.insert(entity);
-            return;
-        }
-        List<String> nodeIds = super.getTheLatestVisitedNodeIds(CollUtil.toList(nodeIdsStr.split(COMMA)), nodeId);
-        nodeVisitRecordMapper.updateNodeIdsByMemberIdAndNodeType(String.join(COMMA, nodeIds), memberId, nodeType.getNodeType());
+        Map<Integer, List<NodeVisitRecordEntity>> nodeTypeToRecords = records.stream()
+                .collect(Collectors.groupingBy(NodeVisitRecordEntity::getNodeType));
+        nodeTypeToRecords.forEach((nodeType, entities) -> {
+            Set<Long> savedMemberIds = new HashSet<>(nodeVisitRecordMapper.selectMemberIdsByMemberIdsAndNodeType(
+                    entities.stream().map(NodeVisitRecordEntity::getMemberId).collect(Collectors.toList()), nodeType));
+            Map<Boolean, List<NodeVisitRecordEntity>> savedToEntities = entities.stream()
+                    .collect(Collectors.partitioningBy(entity -> savedMemberIds.contains(entity.getMemberId())));
+            if (!savedToEntities.get(true).isEmpty()) {
+                nodeVisitRecordMapper.updateNodeIdsByMemberIdsAndNodeType(savedToEntities.get(true), nodeType);
+            }
+            if (!savedToEntities.get(false).isEmpty()) {
+                savedToEntities.get(false).forEach(entity -> entity.setId(IdWorker.getId()));
+                nodeVisitRecordMapper.insertBatch(savedToEntities.get(false));
+            }
+        });
     }
 }
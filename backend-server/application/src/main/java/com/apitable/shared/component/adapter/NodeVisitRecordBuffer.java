@@ -0,0 +1,177 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.adapter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.annotation.Resource;
+
+import cn.hutool.core.collection.CollUtil;
+
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.workspace.entity.NodeVisitRecordEntity;
+import com.apitable.workspace.enums.NodeType;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import static com.apitable.core.constants.RedisConstants.NODE_VISIT_DIRTY;
+
+/**
+ * <p>
+ * recently visited nodes of members kept as redis sorted sets, and saved to the datasource in batches.
+ * the visits of a member are dropped when they are not changed for a day, and loaded from the datasource again.
+ * </p>
+ */
+@Component
+public class NodeVisitRecordBuffer {
+
+    static final int RECENTLY_NODE_ID_LENGTH = 10;
+
+    private static final Duration VISIT_TTL = Duration.ofDays(1);
+
+    private static final String SEPARATOR = ":";
+
+    private static final String COMMA = ",";
+
+    /**
+     * KEYS[1]: visits key, KEYS[2]: dirty visits key, ARGV[1]: node id, ARGV[2]: visited time,
+     * ARGV[3]: max visits kept, ARGV[4]: seconds to live, ARGV[5]: dirty member, ARGV[6]: '1' if saved visits are given,
+     * ARGV[7...]: saved node ids from the earliest visited.
+     * the visit is recorded only if the visits are kept or given, returns 1 if recorded
+     */
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+        "if ARGV[6] ~= '1' and redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+            + "for i = 7, #ARGV do redis.call('ZADD', KEYS[1], 'NX', i - 6, ARGV[i]) end "
+            + "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) "
+            + "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -tonumber(ARGV[3]) - 1) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+            + "redis.call('ZADD', KEYS[2], ARGV[2], ARGV[5]) "
+            + "return 1", Long.class);
+
+    /**
+     * KEYS[1]: dirty visits key, ARGV: dirty member and visited time in pairs.
+     * members visited again since they were read stay dirty, returns the number of members removed
+     */
+    private static final RedisScript<Long> CLEAN_SCRIPT = new DefaultRedisScript<>(
+        "local removed = 0 "
+            + "for i = 1, #ARGV, 2 do "
+            + "if tonumber(redis.call('ZSCORE', KEYS[1], ARGV[i])) == tonumber(ARGV[i + 1]) then "
+            + "removed = removed + redis.call('ZREM', KEYS[1], ARGV[i]) end "
+            + "end "
+            + "return removed", Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * get the kept visits of member
+     *
+     * @param memberId member id
+     * @param nodeType node type
+     * @return node ids from the latest visited, null if not kept
+     */
+    public List<String> getRecentlyVisitNodeIds(Long memberId, NodeType nodeType) {
+        Set<String> nodeIds = stringRedisTemplate.opsForZSet()
+                .reverseRange(RedisConstants.getNodeVisitKey(memberId, nodeType.getNodeType()), 0, -1);
+        return CollUtil.isEmpty(nodeIds) ? null : new ArrayList<>(nodeIds);
+    }
+
+    /**
+     * record a visit
+     *
+     * @param spaceId      space id
+     * @param memberId     member id
+     * @param nodeId       node id
+     * @param nodeType     node type
+     * @param savedNodeIds node ids saved in datasource from the earliest visited, null if not loaded
+     * @return false if the visits are not kept and saved node ids are not given
+     */
+    public boolean record(String spaceId, Long memberId, String nodeId, NodeType nodeType, List<String> savedNodeIds) {
+        List<String> args = CollUtil.newArrayList(nodeId, String.valueOf(System.currentTimeMillis()),
+                String.valueOf(RECENTLY_NODE_ID_LENGTH), String.valueOf(VISIT_TTL.getSeconds()),
+                memberId + SEPARATOR + nodeType.getNodeType() + SEPARATOR + spaceId, savedNodeIds != null ? "1" : "0");
+        if (savedNodeIds != null) {
+            args.addAll(savedNodeIds);
+        }
+        Long recorded = stringRedisTemplate.execute(RECORD_SCRIPT,
+                CollUtil.newArrayList(RedisConstants.getNodeVisitKey(memberId, nodeType.getNodeType()), NODE_VISIT_DIRTY),
+                args.toArray());
+        return recorded != null && recorded == 1;
+    }
+
+    /**
+     * save the visits changed since last saved, the earliest changed first
+     *
+     * @param count max number of visits read
+     * @param saver saves the visits to datasource
+     * @return number of visits read
+     */
+    public int flush(int count, Consumer<Collection<NodeVisitRecordEntity>> saver) {
+        Set<TypedTuple<String>> dirty = stringRedisTemplate.opsForZSet().rangeWithScores(NODE_VISIT_DIRTY, 0, count - 1);
+        if (CollUtil.isEmpty(dirty)) {
+            return 0;
+        }
+        List<String[]> members = new ArrayList<>(dirty.size());
+        List<String> cleanArgs = new ArrayList<>(dirty.size() * 2);
+        for (TypedTuple<String> tuple : dirty) {
+            cleanArgs.add(tuple.getValue());
+            cleanArgs.add(String.valueOf(tuple.getScore().longValue()));
+            members.add(tuple.getValue().split(SEPARATOR, 3));
+        }
+        List<Object> visits = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            members.forEach(member -> connection.zSetCommands().zRange(
+                RedisConstants.getNodeVisitKey(Long.valueOf(member[0]), Integer.valueOf(member[1]))
+                    .getBytes(StandardCharsets.UTF_8), 0, -1));
+            return null;
+        });
+        List<NodeVisitRecordEntity> records = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            @SuppressWarnings("unchecked")
+            Collection<String> nodeIds = (Collection<String>) visits.get(i);
+            // dropped visits have nothing newer than saved
+            if (CollUtil.isEmpty(nodeIds)) {
+                continue;
+            }
+            String[] member = members.get(i);
+            records.add(NodeVisitRecordEntity.builder()
+                    .memberId(Long.valueOf(member[0]))
+                    .nodeType(Integer.valueOf(member[1]))
+                    .spaceId(member[2])
+                    .nodeIds(String.join(COMMA, nodeIds))
+                    .build());
+        }
+        if (!records.isEmpty()) {
+            saver.accept(records);
+        }
+        stringRedisTemplate.execute(CLEAN_SCRIPT, Collections.singletonList(NODE_VISIT_DIRTY), cleanArgs.toArray());
+        return dirty.size();
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.apitable.shared.component.asset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import com.apitable.starter.oss.core.OssClientTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import com.apitable.asset.entity.AssetEntity;
+import com.apitable.asset.mapper.AssetMapper;
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.core.util.InputStreamCache;
+import com.apitable.shared.util.PdfToImageUtil;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static com.apitable.core.constants.RedisConstants.ASSET_PREVIEW_JOBS;
+import static com.apitable.shared.constants.AssetsPublicConstants.SPACE_PREFIX;
+
+/**
+ * <p>
+ * asset preview job queue.
+ * previews of uploaded assets are rendered in background by a bounded worker pool,
+ * jobs are deduplicated by checksum and kept in redis until the preview is saved,
+ * pending jobs are picked up again by any started instance.
+ * the preview key is derived from the checksum, so it is saved and returned by the upload before the preview is rendered.
+ * </p>
+ */
+@Slf4j
+@Component
+public class AssetPreviewQueue {
+
+    private static final int PARALLELISM = 2;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final Duration JOB_TTL = Duration.ofDays(3);
+
+    private static final Duration OWNER_TTL = Duration.ofMinutes(10);
+
+    private static final long SCAN_INTERVAL_SECONDS = 30;
+
+    private static final String FIELD_ASSET_ID = "assetId";
+
+    private static final String FIELD_BUCKET_NAME = "bucketName";
+
+    private static final String FIELD_KEY = "key";
+
+    private static final String FIELD_ATTEMPTS = "attempts";
+
+    private static final String PREVIEW_PATH = "preview";
+
+    /**
+     * KEYS[1]: pending jobs key, KEYS[2]: job key, ARGV[1]: checksum, ARGV[2]: seconds to live,
+     * ARGV[3...]: job fields and values in pairs.
+     * the job is written together with its pending mark, returns 0 if the job is pending already
+     */
+    private static final RedisScript<Long> SUBMIT_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('SADD', KEYS[1], ARGV[1]) == 0 then return 0 end "
+            + "redis.call('DEL', KEYS[2]) "
+            + "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1]) end "
+            + "redis.call('EXPIRE', KEYS[2], ARGV[2]) "
+            + "return 1", Long.class);
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: instance id.
+     * the key is deleted only if it is still owned by the instance
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+            + "return 0", Long.class);
+
+    @Resource
+    private AssetMapper assetMapper;
+
+    @Autowired(required = false)
+    private OssClientTemplate ossTemplate;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final Semaphore permits = new Semaphore(PARALLELISM);
+
+    private final BlockingQueue<Boolean> wakeup = new ArrayBlockingQueue<>(1);
+
+    private ExecutorService dispatcher;
+
+    private ExecutorService workers;
+
+    private Timer timer;
+
+    @PostConstruct
+    public void init() {
+        dispatcher = Executors.newSingleThreadExecutor(ThreadUtil.newNamedThreadFactory("asset-preview-", true));
+        workers = Executors.newFixedThreadPool(PARALLELISM, ThreadUtil.newNamedThreadFactory("asset-preview-worker-", true));
+        timer = Timer.builder("asset.preview")
+            .description("time to render and save an asset preview")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // unfinished jobs are kept, picked up by the next started instance
+        dispatcher.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (ossTemplate == null) {
+            log.warn("Object storage is not configured, asset previews are not rendered");
+            return;
+        }
+        dispatcher.execute(this::dispatch);
+    }
+
+    /**
+     * key of the pdf preview of the asset, the same for every upload of the file
+     *
+     * @param checksum asset checksum
+     * @return preview key
+     */
+    public String previewKey(String checksum) {
+        // checksums are base64, hashed again to be safe in a path
+        return StrUtil.join("/", SPACE_PREFIX, PREVIEW_PATH, SecureUtil.md5(checksum));
+    }
+
+    /**
+     * render the pdf preview of asset in background to its preview key, submitted after the current transaction committed.
+     * the preview of asset is cleared if nothing could be rendered.
+     *
+     * @param assetId asset id
+     * @param checksum asset checksum
+     * @param bucketName bucket of the asset file
+     * @param key key of the asset file
+     */
+    public void submit(Long assetId, String checksum, String bucketName, String key) {
+        Runnable submit = () -> {
+            // a job is never seen pending without its fields
+            Long added = stringRedisTemplate.execute(SUBMIT_SCRIPT,
+                Arrays.asList(ASSET_PREVIEW_JOBS, RedisConstants.getAssetPreviewJobKey(checksum)),
+                checksum, String.valueOf(JOB_TTL.getSeconds()),
+                FIELD_ASSET_ID, assetId.toString(), FIELD_BUCKET_NAME, bucketName, FIELD_KEY, key, FIELD_ATTEMPTS, "0");
+            if (added == null || added == 0) {
+                log.info("Asset preview job [{}] is pending", checksum);
+                return;
+            }
+            wakeup.offer(Boolean.TRUE);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit.run();
+            }
+        });
+    }
+
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> checksums = stringRedisTemplate.opsForSet().members(ASSET_PREVIEW_JOBS);
+                if (CollUtil.isNotEmpty(checksums)) {
+                    for (String checksum : checksums) {
+                        if (!running.add(checksum)) {
+                            continue;
+                        }
+                        // wait for an idle worker, jobs are not queued in memory
+                        permits.acquire();
+                        workers.execute(() -> {
+                            try {
+                                timer.record(() -> run(checksum));
+                            }
+                            finally {
+                                running.remove(checksum);
+                                permits.release();
+                            }
+                        });
+                    }
+                }
+                wakeup.poll(SCAN_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception e) {
+            log.error("Asset preview dispatcher stopped", e);
+        }
+    }
+
+    private void run(String checksum) {
+        String ownerKey = RedisConstants.getAssetPreviewOwnerKey(checksum);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(ownerKey, instanceId, OWNER_TTL))) {
+            return;
+        }
+        try {
+            runOwned(checksum);
+        }
+        catch (Exception e) {
+            log.error("Asset preview job [{}] failed", checksum, e);
+        }
+        finally {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(ownerKey), instanceId);
+        }
+    }
+
+    private void runOwned(String checksum) {
+        String jobKey = RedisConstants.getAssetPreviewJobKey(checksum);
+        Map<Object, Object> job = stringRedisTemplate.opsForHash().entries(jobKey);
+        if (job.isEmpty()) {
+            finish(checksum, jobKey);
+            return;
+        }
+        Long assetId = Long.valueOf(job.get(FIELD_ASSET_ID).toString());
+        AssetEntity asset = assetMapper.selectById(assetId);
+        String preview = previewKey(checksum);
+        if (asset == null || (StrUtil.isNotBlank(asset.getPreview()) && !preview.equals(asset.getPreview()))) {
+            // rendered before the preview key was derived from the checksum
+            finish(checksum, jobKey);
+            return;
+        }
+        String bucketName = job.get(FIELD_BUCKET_NAME).toString();
+        try {
+            if (!renderPdfPreview(bucketName, job.get(FIELD_KEY).toString(), preview)) {
+                // nothing to show, submitted again by the next upload of the file
+                assetMapper.clearPreviewByIdAndPreview(assetId, preview);
+            }
+            else if (StrUtil.isBlank(asset.getPreview())) {
+                AssetEntity update = new AssetEntity();
+                update.setId(assetId);
+                update.setPreview(preview);
+                assetMapper.updateById(update);
+            }
+            finish(checksum, jobKey);
+        }
+        catch (Exception e) {
+            Long attempts = stringRedisTemplate.opsForHash().increment(jobKey, FIELD_ATTEMPTS, 1);
+            if (attempts >= MAX_ATTEMPTS) {
+                log.error("Asset preview job [{}] of asset {} given up after {} attempts", checksum, assetId, attempts, e);
+                assetMapper.clearPreviewByIdAndPreview(assetId, preview);
+                finish(checksum, jobKey);
+                return;
+            }
+            log.warn("Asset preview job [{}] of asset {} failed, retry later", checksum, assetId, e);
+        }
+    }
+
+    private void finish(String checksum, String jobKey) {
+        stringRedisTemplate.delete(jobKey);
+        stringRedisTemplate.opsForSet().remove(ASSET_PREVIEW_JOBS, checksum);
+    }
+
+    private boolean renderPdfPreview(String bucketName, String key, String preview) {
+        AtomicBoolean uploaded = new AtomicBoolean();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        ossTemplate.executeStreamFunction(bucketName, key,
+            in -> {
+                log.info("PDF to generate pictures");
+                InputStream imageIn = PdfToImageUtil.convert(in);
+                if (imageIn == null) {
+                    return;
+                }
+                try (InputStreamCache pdfImgStreamCache = new InputStreamCache(imageIn, imageIn.available())) {
+                    ossTemplate.upload(bucketName, pdfImgStreamCache.getInputStream(), preview, MediaType.IMAGE_JPEG_VALUE, pdfImgStreamCache.getChecksum());
+                    uploaded.set(true);
+                }
+                catch (IOException e) {
+                    failure.set(e);
+                }
+            });
+        if (failure.get() != null) {
+            throw new IllegalStateException("Failed to upload PDF preview resource", failure.get());
+        }
+        return uploaded.get();
+    }
+}
@@ -18,8 +18,10 @@
 
 package com.apitable.shared.component.notification;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import cn.hutool.json.JSONObject;
 
@@ -75,13 +77,35 @@ public interface INotificationFactory {
     NotificationDetailVo.Space formatSpace(BaseSpaceInfoDTO space);
 
     /**
-     * whether the locks that need to be counted for message sending exist
+     * acquire the locks that count the message sending, in one redis call
      *
-     * @param key redis key
-     * @param notificationId notification id
-     * @return true | false
+     * @param lockKeys redis lock key -> id of the notification to be created
+     * @return redis lock key -> id of the notification holding the lock, only for the keys already locked
      */
-    boolean delayLock(String key, Long notificationId);
+    Map<String, Long> delayLock(Map<String, Long> lockKeys);
+
+    /**
+     * release the locks still held by the notifications, once their creation is rolled back
+     *
+     * @param lockKeys redis lock key -> id of the notification holding the lock
+     */
+    void releaseDelayLock(Map<String, Long> lockKeys);
+
+    /**
+     * keep a mention merged into the notification holding the lock, until it is committed
+     *
+     * @param lockKey redis lock key
+     * @param body message body of the mention
+     */
+    void addDelayMerge(String lockKey, String body);
+
+    /**
+     * take the mentions kept for the locks in one redis call, they are removed
+     *
+     * @param lockKeys redis lock keys
+     * @return redis lock key -> message bodies, only for the keys with mentions kept
+     */
+    Map<String, List<String>> takeDelayMerges(Collection<String> lockKeys);
 
     /**
      * Get the key to count the number of times the message is sent
@@ -92,14 +116,6 @@ public interface INotificationFactory {
      */
     String getDelayLockKey(String toUserId, NotificationCreateRo ro);
 
-    /**
-     * get notification id from redis
-     *
-     * @param key cache key
-     * @return notification id
-     */
-    Long getNotificationIdFromRedis(String key);
-
     /**
      * get all user id in space
      *
@@ -184,19 +200,20 @@ public interface INotificationFactory {
     Map<Long, PlayerBaseVo> getPlayerBaseInfo(List<Long> memberIds, List<Long> userIds);
 
     /**
-     * check notification frequency
-     * @param userId user id
+     * check notification frequency of users in one redis call(users/every day),
+     * the sending is counted for every user not limited
+     * @param userIds user ids
      * @param template template
      * @param nonce random string
-     * @return true | false
+     * @return user ids limited
      */
-    Boolean frequencyLimited(Long userId, NotificationTemplate template, String nonce);
+    Set<Long> frequencyLimited(Collection<Long> userIds, NotificationTemplate template, String nonce);
 
     /**
-     * Number of times the mark has been sent(users/every day)
-     * @param userId user id
+     * give back the sending counted for users in one redis call, once the notifications are rolled back
+     * @param userIds user ids
      * @param template template
      * @param nonce random string
      */
-    void addUserNotifyFrequency(Long userId, NotificationTemplate template, String nonce);
+    void releaseFrequency(Collection<Long> userIds, NotificationTemplate template, String nonce);
 }
@@ -0,0 +1,403 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.notification;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.player.mapper.PlayerNotificationMapper;
+import com.apitable.player.ro.NotificationCreateRo;
+import com.apitable.player.ro.NotificationRevokeRo;
+import com.apitable.player.service.IPlayerNotificationService;
+import com.apitable.shared.sysconfig.notification.NotificationTemplate;
+import com.apitable.user.mapper.UserMapper;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.apitable.core.constants.RedisConstants.NOTIFY_BROADCAST_DEAD_JOBS;
+import static com.apitable.core.constants.RedisConstants.NOTIFY_BROADCAST_JOBS;
+
+/**
+ * <p>
+ * notification broadcast to all users as a partitioned job.
+ * user ids are paged by keyset, each page is split into chunks run by a bounded worker pool,
+ * every chunk in its own short transaction, and the next page is read once the chunks of a page finished.
+ * the job, the last user id of the finished pages and the finished chunks of the current page are kept in redis.
+ * a failed chunk is retried, a job stopped by failures is run again later until it is given up,
+ * and an interrupted broadcast is resumed by the next started instance.
+ * </p>
+ */
+@Slf4j
+@Component
+public class NotificationBroadcaster {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final int CHUNK_SIZE = 100;
+
+    private static final int PARALLELISM = 4;
+
+    private static final Duration JOB_TTL = Duration.ofDays(3);
+
+    private static final Duration OWNER_TTL = Duration.ofMinutes(5);
+
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private static final Duration CHUNK_RETRY_BACKOFF = Duration.ofSeconds(1);
+
+    private static final Duration JOB_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private static final int MAX_JOB_ATTEMPTS = 5;
+
+    private static final String RANGE_SEPARATOR = "-";
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: instance id, ARGV[2]: milliseconds to live.
+     * returns 1 if the key is still owned by the instance and extended
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+            + "return 0", Long.class);
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: instance id.
+     * the key is deleted only if it is still owned by the instance
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+            + "return 0", Long.class);
+
+    private static final String FIELD_TYPE = "type";
+
+    private static final String FIELD_TEMPLATE_ID = "templateId";
+
+    private static final String FIELD_PAYLOAD = "payload";
+
+    private static final String FIELD_CREATED_BEFORE = "createdBefore";
+
+    private static final String FIELD_CHECKPOINT = "checkpoint";
+
+    private static final String FIELD_ATTEMPTS = "attempts";
+
+    private static final String METRIC_NAME = "notification.broadcast";
+
+    public enum BroadcastType {
+
+        /**
+         * create notification of all users
+         */
+        CREATE,
+
+        /**
+         * revoke notification of all users, deleted users included
+         */
+        REVOKE
+    }
+
+    @Resource
+    private IPlayerNotificationService iPlayerNotificationService;
+
+    @Resource
+    private PlayerNotificationMapper playerNotificationMapper;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private INotificationFactory notificationFactory;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private ExecutorService coordinator;
+
+    private ExecutorService workers;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        // jobs run one after another, the chunks of a job share the workers
+        coordinator = Executors.newSingleThreadExecutor(ThreadUtil.newNamedThreadFactory("notify-broadcast-", true));
+        workers = Executors.newFixedThreadPool(PARALLELISM, ThreadUtil.newNamedThreadFactory("notify-broadcast-worker-", true));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // the checkpoint of a running job is kept, resumed by the next started instance
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        Set<String> jobIds = stringRedisTemplate.opsForSet().members(NOTIFY_BROADCAST_JOBS);
+        if (CollUtil.isNotEmpty(jobIds)) {
+            log.info("Resume notification broadcast jobs {}", jobIds);
+            jobIds.forEach(jobId -> coordinator.execute(() -> run(jobId)));
+        }
+    }
+
+    /**
+     * broadcast the notification to all users in background, started after the current transaction committed
+     *
+     * @param type broadcast type
+     * @param templateId notification template id
+     * @param ro NotificationCreateRo for create, NotificationRevokeRo for revoke
+     */
+    public void broadcast(BroadcastType type, String templateId, Object ro) {
+        String jobId = IdUtil.fastSimpleUUID();
+        Map<String, String> job = new HashMap<>(8);
+        job.put(FIELD_TYPE, type.name());
+        job.put(FIELD_TEMPLATE_ID, templateId);
+        job.put(FIELD_PAYLOAD, JSONUtil.toJsonStr(ro));
+        // compared with the created time of users written by the database
+        job.put(FIELD_CREATED_BEFORE, userMapper.selectCurrentTime().toString());
+        job.put(FIELD_CHECKPOINT, "0");
+        Runnable submit = () -> {
+            String jobKey = RedisConstants.getNotifyBroadcastJobKey(jobId);
+            stringRedisTemplate.opsForHash().putAll(jobKey, job);
+            stringRedisTemplate.expire(jobKey, JOB_TTL);
+            stringRedisTemplate.opsForSet().add(NOTIFY_BROADCAST_JOBS, jobId);
+            coordinator.execute(() -> run(jobId));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit.run();
+            }
+        });
+    }
+
+    private void run(String jobId) {
+        String ownerKey = RedisConstants.getNotifyBroadcastOwnerKey(jobId);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(ownerKey, instanceId, OWNER_TTL))) {
+            log.info("Notification broadcast job [{}] is running on another instance", jobId);
+            return;
+        }
+        boolean retry = false;
+        try {
+            runOwned(jobId, ownerKey);
+        }
+        catch (Exception e) {
+            retry = failed(jobId, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        }
+        finally {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(ownerKey), instanceId);
+        }
+        if (retry && !coordinator.isShutdown()) {
+            CompletableFuture.delayedExecutor(JOB_RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS, coordinator)
+                .execute(() -> run(jobId));
+        }
+    }
+
+    /**
+     * count the failed attempt of the job, the job failed too many times is moved to the dead jobs,
+     * whose data is kept until it expires.
+     *
+     * @return true if the job is run again later
+     */
+    private boolean failed(String jobId, Throwable e) {
+        if (e instanceof OwnerLostException) {
+            log.warn("Notification broadcast job [{}] stopped, {}", jobId, e.getMessage());
+            return false;
+        }
+        String jobKey = RedisConstants.getNotifyBroadcastJobKey(jobId);
+        Long attempts = Boolean.TRUE.equals(stringRedisTemplate.hasKey(jobKey))
+            ? stringRedisTemplate.opsForHash().increment(jobKey, FIELD_ATTEMPTS, 1) : null;
+        if (attempts == null || attempts >= MAX_JOB_ATTEMPTS) {
+            stringRedisTemplate.opsForSet().move(NOTIFY_BROADCAST_JOBS, jobId, NOTIFY_BROADCAST_DEAD_JOBS);
+            stringRedisTemplate.expire(RedisConstants.getNotifyBroadcastChunksKey(jobId), JOB_TTL);
+            log.error("Notification broadcast job [{}] given up after {} attempts", jobId, attempts, e);
+            return false;
+        }
+        log.error("Notification broadcast job [{}] stopped, attempt: {}, run again in {}", jobId, attempts, JOB_RETRY_DELAY, e);
+        return true;
+    }
+
+    private void runOwned(String jobId, String ownerKey) {
+        String jobKey = RedisConstants.getNotifyBroadcastJobKey(jobId);
+        Map<Object, Object> job = stringRedisTemplate.opsForHash().entries(jobKey);
+        if (job.isEmpty()) {
+            stringRedisTemplate.opsForSet().remove(NOTIFY_BROADCAST_JOBS, jobId);
+            return;
+        }
+        BroadcastType type = BroadcastType.valueOf(job.get(FIELD_TYPE).toString());
+        Consumer<List<Long>> action = chunkAction(type, job.get(FIELD_TEMPLATE_ID).toString(), job.get(FIELD_PAYLOAD).toString());
+        LocalDateTime createdBefore = LocalDateTime.parse(job.get(FIELD_CREATED_BEFORE).toString());
+        long lastId = Long.parseLong(job.get(FIELD_CHECKPOINT).toString());
+        String chunksKey = RedisConstants.getNotifyBroadcastChunksKey(jobId);
+        String typeTag = type.name().toLowerCase();
+        Counter users = Counter.builder(METRIC_NAME + ".users")
+            .description("users reached by notification broadcast")
+            .tag("type", typeTag)
+            .register(meterRegistry);
+        Timer chunks = Timer.builder(METRIC_NAME + ".chunk")
+            .description("time to process a chunk of notification broadcast")
+            .tag("type", typeTag)
+            .register(meterRegistry);
+        log.info("Notification broadcast job [{}] {} starts after user {}", jobId, type, lastId);
+        long processed = 0;
+        while (true) {
+            List<Long> userIds = userMapper.selectIdsAfterId(lastId, createdBefore, PAGE_SIZE, type == BroadcastType.REVOKE);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            // the chunks finished before the job was stopped are skipped
+            List<long[]> finished = parseRanges(stringRedisTemplate.opsForSet().members(chunksKey));
+            List<Long> pending = userIds.stream().filter(userId -> !inRanges(finished, userId)).collect(Collectors.toList());
+            List<CompletableFuture<Void>> futures = CollUtil.split(pending, CHUNK_SIZE).stream()
+                .map(chunk -> CompletableFuture.runAsync(() -> chunks.record(() -> runChunk(jobId, ownerKey, action, chunk)), workers))
+                .collect(Collectors.toList());
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            if (workers.isShutdown()) {
+                // chunks of this page may be interrupted, the page is run again when resumed
+                return;
+            }
+            lastId = userIds.get(userIds.size() - 1);
+            stringRedisTemplate.opsForHash().put(jobKey, FIELD_CHECKPOINT, String.valueOf(lastId));
+            // the job lives and is retried as long as it makes progress
+            stringRedisTemplate.opsForHash().delete(jobKey, FIELD_ATTEMPTS);
+            stringRedisTemplate.delete(chunksKey);
+            stringRedisTemplate.expire(jobKey, JOB_TTL);
+            users.increment(userIds.size());
+            processed += userIds.size();
+            log.debug("Notification broadcast job [{}] reached {} users, checkpoint {}", jobId, processed, lastId);
+        }
+        stringRedisTemplate.delete(jobKey);
+        stringRedisTemplate.delete(chunksKey);
+        stringRedisTemplate.opsForSet().remove(NOTIFY_BROADCAST_JOBS, jobId);
+        log.info("Notification broadcast job [{}] {} finished, {} users reached", jobId, type, processed);
+    }
+
+    private void runChunk(String jobId, String ownerKey, Consumer<List<Long>> action, List<Long> userIds) {
+        String range = userIds.get(0) + RANGE_SEPARATOR + userIds.get(userIds.size() - 1);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> action.accept(userIds));
+                break;
+            }
+            catch (RuntimeException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    log.error("Notification broadcast job [{}] fail to process users {}", jobId, range, e);
+                    throw e;
+                }
+                log.warn("Notification broadcast job [{}] fail to process users {}, attempt: {}", jobId, range, attempt, e);
+                ThreadUtil.sleep(CHUNK_RETRY_BACKOFF.toMillis() * attempt);
+            }
+        }
+        stringRedisTemplate.opsForSet().add(RedisConstants.getNotifyBroadcastChunksKey(jobId), range);
+        Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(ownerKey), instanceId,
+            String.valueOf(OWNER_TTL.toMillis()));
+        if (renewed == null || renewed == 0) {
+            throw new OwnerLostException("taken over by another instance");
+        }
+    }
+
+    private static List<long[]> parseRanges(Set<String> ranges) {
+        List<long[]> result = new ArrayList<>();
+        if (ranges != null) {
+            for (String range : ranges) {
+                result.add(new long[] { Long.parseLong(StrUtil.subBefore(range, RANGE_SEPARATOR, false)),
+                    Long.parseLong(StrUtil.subAfter(range, RANGE_SEPARATOR, false)) });
+            }
+        }
+        return result;
+    }
+
+    private static boolean inRanges(List<long[]> ranges, long userId) {
+        for (long[] range : ranges) {
+            if (userId >= range[0] && userId <= range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Consumer<List<Long>> chunkAction(BroadcastType type, String templateId, String payload) {
+        NotificationTemplate template = notificationFactory.getTemplateById(templateId);
+        if (type == BroadcastType.REVOKE) {
+            NotificationRevokeRo ro = JSONUtil.toBean(payload, NotificationRevokeRo.class);
+            return userIds -> playerNotificationMapper.updateBatchByUserIdsAndTemplateId(userIds,
+                template.getNotificationsType(), ro.getTemplateId(), ro);
+        }
+        NotificationCreateRo ro = JSONUtil.toBean(payload, NotificationCreateRo.class);
+        return userIds -> iPlayerNotificationService.createNotifyWithoutVerify(userIds, template, ro);
+    }
+
+    /**
+     * the job is run by another instance, not a failure of the job
+     */
+    private static class OwnerLostException extends IllegalStateException {
+
+        OwnerLostException(String message) {
+            super(message);
+        }
+    }
+}
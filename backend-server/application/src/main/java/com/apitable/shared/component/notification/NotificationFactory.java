@@ -21,10 +21,15 @@ package com.apitable.shared.component.notification;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -63,7 +68,9 @@ import com.apitable.workspace.dto.NodeBaseInfoDTO;
 import com.apitable.workspace.mapper.NodeMapper;
 import com.apitable.core.constants.RedisConstants;
 
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import static com.apitable.shared.constants.NotificationConstants.BODY_EXTRAS;
@@ -73,8 +80,77 @@ import static com.apitable.shared.constants.NotificationConstants.INVOLVE_MEMBER
 @Slf4j
 public class NotificationFactory implements INotificationFactory {
 
+    private static final long DELAY_LOCK_MILLIS = 15000;
+
+    /**
+     * mentions merged into a notification not committed yet are kept until it is
+     */
+    private static final long DELAY_MERGE_MILLIS = 600000;
+
+    private static final String DELAY_MERGE_SUFFIX = ":merges";
+
+    /**
+     * KEYS: frequency keys, ARGV[1]: frequency, ARGV[2]: seconds to live of a new key.
+     * returns 1 for a limited key, otherwise the sending is counted and returns 0
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> FREQUENCY_LIMIT_SCRIPT = new DefaultRedisScript<>(
+        "local result = {} "
+            + "for i, key in ipairs(KEYS) do "
+            + "local count = redis.call('GET', key) "
+            + "if count and tonumber(count) <= tonumber(ARGV[1]) then result[i] = 1 "
+            + "else result[i] = 0 "
+            + "if count then redis.call('INCR', key) else redis.call('SET', key, 1, 'EX', ARGV[2]) end "
+            + "end "
+            + "end "
+            + "return result", List.class);
+
+    /**
+     * KEYS: frequency keys. the counted sending is given back, a key counted down to nothing is deleted
+     */
+    private static final RedisScript<Long> FREQUENCY_RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "for i, key in ipairs(KEYS) do "
+            + "if redis.call('EXISTS', key) == 1 and redis.call('DECR', key) <= 0 then redis.call('DEL', key) end "
+            + "end "
+            + "return #KEYS", Long.class);
+
+    /**
+     * KEYS: lock keys, ARGV[i]: notification id of KEYS[i]. a lock is deleted only if it is still held by the notification
+     */
+    private static final RedisScript<Long> DELAY_RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "local released = 0 "
+            + "for i, key in ipairs(KEYS) do "
+            + "if redis.call('GET', key) == ARGV[i] then released = released + redis.call('DEL', key) end "
+            + "end "
+            + "return released", Long.class);
+
+    /**
+     * KEYS: merge keys. returns the mentions kept by every key, which are removed
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DELAY_MERGE_TAKE_SCRIPT = new DefaultRedisScript<>(
+        "local result = {} "
+            + "for i, key in ipairs(KEYS) do "
+            + "result[i] = redis.call('LRANGE', key, 0, -1) "
+            + "redis.call('DEL', key) "
+            + "end "
+            + "return result", List.class);
+
+    /**
+     * KEYS: lock keys, ARGV[1]: milliseconds to live, ARGV[i + 1]: notification id of KEYS[i].
+     * returns '' for an acquired lock, otherwise the notification id holding the lock
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DELAY_LOCK_SCRIPT = new DefaultRedisScript<>(
+        "local result = {} "
+            + "for i, key in ipairs(KEYS) do "
+            + "if redis.call('SET', key, ARGV[i + 1], 'NX', 'PX', ARGV[1]) then result[i] = '' "
+            + "else result[i] = redis.call('GET', key) or '' end "
+            + "end "
+            + "return result", List.class);
+
     @Resource
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
 
     @Resource
     private UserMapper userMapper;
@@ -124,9 +200,57 @@ public class NotificationFactory implements INotificationFactory {
     }
 
     @Override
-    public boolean delayLock(String key, Long notificationId) {
-        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, notificationId,
-                15000, TimeUnit.MILLISECONDS));
+    public Map<String, Long> delayLock(Map<String, Long> lockKeys) {
+        if (MapUtil.isEmpty(lockKeys)) {
+            return new HashMap<>(0);
+        }
+        List<String> keys = new ArrayList<>(lockKeys.keySet());
+        List<String> args = new ArrayList<>(keys.size() + 1);
+        args.add(String.valueOf(DELAY_LOCK_MILLIS));
+        keys.forEach(key -> args.add(lockKeys.get(key).toString()));
+        List<?> results = stringRedisTemplate.execute(DELAY_LOCK_SCRIPT, keys, args.toArray());
+        Map<String, Long> locked = new HashMap<>();
+        for (int i = 0; results != null && i < results.size(); i++) {
+            String notificationId = StrUtil.toString(results.get(i));
+            if (StrUtil.isNotEmpty(notificationId)) {
+                locked.put(keys.get(i), Long.valueOf(notificationId));
+            }
+        }
+        return locked;
+    }
+
+    @Override
+    public void releaseDelayLock(Map<String, Long> lockKeys) {
+        if (MapUtil.isEmpty(lockKeys)) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(lockKeys.keySet());
+        Object[] notificationIds = keys.stream().map(key -> lockKeys.get(key).toString()).toArray();
+        stringRedisTemplate.execute(DELAY_RELEASE_SCRIPT, keys, notificationIds);
+    }
+
+    @Override
+    public void addDelayMerge(String lockKey, String body) {
+        String key = lockKey + DELAY_MERGE_SUFFIX;
+        stringRedisTemplate.opsForList().rightPush(key, body);
+        stringRedisTemplate.expire(key, DELAY_MERGE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Map<String, List<String>> takeDelayMerges(Collection<String> lockKeys) {
+        if (CollUtil.isEmpty(lockKeys)) {
+            return new HashMap<>(0);
+        }
+        List<String> keys = new ArrayList<>(lockKeys);
+        List<String> mergeKeys = keys.stream().map(key -> key + DELAY_MERGE_SUFFIX).collect(Collectors.toList());
+        List<?> results = stringRedisTemplate.execute(DELAY_MERGE_TAKE_SCRIPT, mergeKeys);
+        Map<String, List<String>> merges = new HashMap<>();
+        for (int i = 0; results != null && i < results.size(); i++) {
+            if (results.get(i) instanceof List && !((List<?>) results.get(i)).isEmpty()) {
+                merges.put(keys.get(i), ((List<?>) results.get(i)).stream().map(StrUtil::toString).collect(Collectors.toList()));
+            }
+        }
+        return merges;
     }
 
     @Override
@@ -146,15 +270,6 @@ public class NotificationFactory implements INotificationFactory {
         return null;
     }
 
-    @Override
-    public Long getNotificationIdFromRedis(String key) {
-        Object value = redisTemplate.opsForValue().get(key);
-        if (value != null) {
-            return Long.valueOf(value.toString());
-        }
-        return null;
-    }
-
     @Override
     public List<Long> getSpaceAllUserId(String spaceId) {
         return memberMapper.selectUserIdBySpaceId(spaceId);
@@ -284,36 +399,36 @@ public class NotificationFactory implements INotificationFactory {
     }
 
     @Override
-    public Boolean frequencyLimited(Long userId, NotificationTemplate template, String nonce) {
-        if (template.getFrequency() != null) {
-            String key = RedisConstants.getUserNotifyFrequencyKey(userId, template.getId(), nonce);
-            if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
-                Object frequency = redisTemplate.opsForValue().get(key);
-                if (frequency != null && Long.parseLong(frequency.toString()) <= template.getFrequency()) {
-                    return true;
-                }
-                else {
-                    addUserNotifyFrequency(userId, template, nonce);
-                }
-            }
-            else {
-                addUserNotifyFrequency(userId, template, nonce);
+    public Set<Long> frequencyLimited(Collection<Long> userIds, NotificationTemplate template, String nonce) {
+        if (template.getFrequency() == null || CollUtil.isEmpty(userIds)) {
+            return Collections.emptySet();
+        }
+        List<Long> distinctUserIds = userIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        LocalDateTime now = DateUtil.toLocalDateTime(new Date());
+        long secondsToEndOfDay = LocalDateTimeUtil.between(now, LocalDateTimeUtil.endOfDay(now), ChronoUnit.SECONDS);
+        List<?> results = stringRedisTemplate.execute(FREQUENCY_LIMIT_SCRIPT, frequencyKeys(distinctUserIds, template, nonce),
+                template.getFrequency().toString(), String.valueOf(Math.max(secondsToEndOfDay, 1)));
+        Set<Long> limited = new HashSet<>();
+        for (int i = 0; results != null && i < results.size(); i++) {
+            if (Long.valueOf(1).equals(results.get(i))) {
+                limited.add(distinctUserIds.get(i));
             }
         }
-        return false;
+        return limited;
     }
 
     @Override
-    public void addUserNotifyFrequency(Long userId, NotificationTemplate template, String nonce) {
-        String key = RedisConstants.getUserNotifyFrequencyKey(userId, template.getId(), nonce);
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
-            redisTemplate.opsForValue().increment(key);
-        }
-        else {
-            LocalDateTime now = DateUtil.toLocalDateTime(new Date());
-            LocalDateTime endOfDay = LocalDateTimeUtil.endOfDay(now);
-            long between = LocalDateTimeUtil.between(now, endOfDay, ChronoUnit.SECONDS);
-            redisTemplate.opsForValue().set(key, Long.valueOf("1"), between, TimeUnit.SECONDS);
+    public void releaseFrequency(Collection<Long> userIds, NotificationTemplate template, String nonce) {
+        if (template.getFrequency() == null || CollUtil.isEmpty(userIds)) {
+            return;
         }
+        List<Long> distinctUserIds = userIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        stringRedisTemplate.execute(FREQUENCY_RELEASE_SCRIPT, frequencyKeys(distinctUserIds, template, nonce));
+    }
+
+    private static List<String> frequencyKeys(List<Long> userIds, NotificationTemplate template, String nonce) {
+        return userIds.stream()
+                .map(userId -> RedisConstants.getUserNotifyFrequencyKey(userId, template.getId(), nonce))
+                .collect(Collectors.toList());
     }
 }
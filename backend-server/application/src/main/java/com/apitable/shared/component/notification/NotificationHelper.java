@@ -77,6 +77,8 @@ public class NotificationHelper {
     /**
      * The interface path of the operation node, which is used to determine whether to send space notifications
      */
+    private static final AntPathMatcher NODE_OPERATION_PATH_MATCHER = new AntPathMatcher();
+
     private static final String[] NODE_OPERATION_PATHS = new String[] {
             "/internal/spaces/*/datasheets", "/internal/spaces/*/nodes/*/delete"
     };
@@ -269,9 +271,8 @@ public class NotificationHelper {
                 return true;
             }
         }
-        AntPathMatcher antPathMatcher = new AntPathMatcher();
         return Arrays.stream(NODE_OPERATION_PATHS)
-                .anyMatch(e -> antPathMatcher.match(e, servletPath));
+                .anyMatch(e -> NODE_OPERATION_PATH_MATCHER.match(e, servletPath));
     }
 
     /**
@@ -136,9 +136,33 @@ public class NotificationManager {
         }
     }
 
+    /**
+     * push the progress of background job to the space
+     *
+     * @param spaceId space id
+     * @param type    progress type
+     * @param data    progress
+     */
+    public void spaceProgressNotify(String spaceId, String type, Object data) {
+        SpaceNotificationInfo info = SpaceNotificationInfo.builder().spaceId(spaceId).type(type).data(data).build();
+        socketClientTemplate.emit(EventType.NODE_CHANGE.name(), JSONUtil.parseObj(info));
+    }
+
     public void centerNotify(NotificationCreateRo ro) {
         CenterNotifySubject centerSub = new CenterNotifySubject();
         centerSub.addObserver(messagingCenterNotifyObserver);
         centerSub.send(ro);
     }
+
+    /**
+     * send messages of notification center in batch
+     *
+     * @param roList messages
+     * @return messages failed to send
+     */
+    public List<NotificationCreateRo> centerNotify(List<NotificationCreateRo> roList) {
+        CenterNotifySubject centerSub = new CenterNotifySubject();
+        centerSub.addObserver(messagingCenterNotifyObserver);
+        return centerSub.send(roList);
+    }
 }
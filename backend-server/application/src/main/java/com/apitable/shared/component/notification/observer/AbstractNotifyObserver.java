@@ -34,6 +34,7 @@ import javax.annotation.Resource;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -107,4 +108,18 @@ public abstract class AbstractNotifyObserver<M, T> implements NotifyObserver<M,
     public void notify(T context, List<NotificationCreateRo> roList) {
         roList.forEach(i -> notify(context, i));
     }
+
+    @Override
+    public List<NotificationCreateRo> notifyInBatch(T context, List<NotificationCreateRo> roList) {
+        List<NotificationCreateRo> failed = new ArrayList<>();
+        for (NotificationCreateRo ro : roList) {
+            try {
+                notify(context, ro);
+            }
+            catch (Exception e) {
+                failed.add(ro);
+            }
+        }
+        return failed;
+    }
 }
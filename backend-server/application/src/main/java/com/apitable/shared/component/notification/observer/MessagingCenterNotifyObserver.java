@@ -20,6 +20,7 @@ package com.apitable.shared.component.notification.observer;
 
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
@@ -69,4 +70,16 @@ public class MessagingCenterNotifyObserver extends AbstractNotifyObserver<Notifi
     public void notify(String context, List<NotificationCreateRo> roList) {
         iPlayerNotificationService.batchCreateNotify(roList);
     }
+
+    @Override
+    public List<NotificationCreateRo> notifyInBatch(String context, List<NotificationCreateRo> roList) {
+        // the same as notify one by one, the notifications of unknown template are skipped
+        List<NotificationCreateRo> known = roList.stream()
+                .filter(ro -> getTemplate(ro.getTemplateId()) != null)
+                .collect(Collectors.toList());
+        if (known.isEmpty()) {
+            return known;
+        }
+        return iPlayerNotificationService.createNotifyInBatch(known);
+    }
 }
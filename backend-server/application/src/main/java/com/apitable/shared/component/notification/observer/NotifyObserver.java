@@ -38,4 +38,13 @@ public interface NotifyObserver<M, T> {
     void notify(T context, NotificationCreateRo ro);
 
     void notify(T context, List<NotificationCreateRo> roList);
+
+    /**
+     * notify in batch, a failed notification does not stop the others
+     *
+     * @param context context
+     * @param roList notification parameters
+     * @return notifications failed
+     */
+    List<NotificationCreateRo> notifyInBatch(T context, List<NotificationCreateRo> roList);
 }
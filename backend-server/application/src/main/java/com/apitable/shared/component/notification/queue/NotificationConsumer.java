@@ -19,6 +19,14 @@
 package com.apitable.shared.component.notification.queue;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
@@ -32,11 +40,13 @@ import com.apitable.player.ro.NotificationCreateRo;
 import com.apitable.shared.component.notification.NotificationManager;
 import com.apitable.shared.component.notification.NotificationTemplateId;
 
-import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
 import static com.apitable.shared.component.notification.NotificationTemplateId.SINGLE_RECORD_MEMBER_MENTION;
+import static com.apitable.shared.component.notification.queue.QueueConfig.NOTIFICATION_CONTAINER_FACTORY;
 import static com.apitable.shared.component.notification.queue.QueueConfig.NOTIFICATION_QUEUE;
 
 @Slf4j
@@ -46,21 +56,51 @@ public class NotificationConsumer {
     @Resource
     private SocialServiceFacade socialServiceFacade;
 
-    @RabbitListener(queues = NOTIFICATION_QUEUE)
-    public void onMessageReceived(NotificationCreateRo event, Message message, Channel channel) throws IOException {
-        long deliveryTag = message.getMessageProperties().getDeliveryTag();
-
-        log.info("notification received message:{}; deliveryTag:{}", event.getTemplateId(), deliveryTag);
-        if (SINGLE_RECORD_MEMBER_MENTION.equals(NotificationTemplateId.getValue(event.getTemplateId()))) {
-            event.setNotifyId(IdUtil.simpleUUID());
+    @RabbitListener(queues = NOTIFICATION_QUEUE, containerFactory = NOTIFICATION_CONTAINER_FACTORY)
+    public void onMessagesReceived(List<Message<NotificationCreateRo>> messages, Channel channel) throws IOException {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Long deliveryTag = messages.get(messages.size() - 1).getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
+        log.info("notification received {} messages; last deliveryTag:{}", messages.size(), deliveryTag);
+        // messages of the same template and space are handled next to each other
+        Map<String, List<NotificationCreateRo>> groups = new LinkedHashMap<>();
+        for (Message<NotificationCreateRo> message : messages) {
+            NotificationCreateRo event = message.getPayload();
+            if (SINGLE_RECORD_MEMBER_MENTION.equals(NotificationTemplateId.getValue(event.getTemplateId()))) {
+                event.setNotifyId(IdUtil.simpleUUID());
+            }
+            groups.computeIfAbsent(event.getTemplateId() + ":" + event.getSpaceId(), key -> new ArrayList<>()).add(event);
         }
+        List<NotificationCreateRo> events = groups.values().stream().flatMap(List::stream).collect(Collectors.toList());
+        Set<NotificationCreateRo> failed = Collections.newSetFromMap(new IdentityHashMap<>());
         try {
-            NotificationManager.me().centerNotify(event);
-            socialServiceFacade.eventCall(new NotificationEvent(event));
+            failed.addAll(NotificationManager.me().centerNotify(events));
         }
         catch (Exception e) {
-            log.warn("Failed to send notification: {}:{}", event.getSpaceId(), event.getTemplateId(), e);
+            log.warn("Failed to send notifications in batch, send one by one", e);
+            failed.clear();
+            events.forEach(event -> {
+                try {
+                    NotificationManager.me().centerNotify(event);
+                }
+                catch (Exception ex) {
+                    failed.add(event);
+                }
+            });
+        }
+        for (NotificationCreateRo event : events) {
+            if (failed.contains(event)) {
+                log.warn("Failed to send notification: {}:{}", event.getSpaceId(), event.getTemplateId());
+                continue;
+            }
+            try {
+                socialServiceFacade.eventCall(new NotificationEvent(event));
+            }
+            catch (Exception e) {
+                log.warn("Failed to send notification: {}:{}", event.getSpaceId(), event.getTemplateId(), e);
+            }
         }
-        channel.basicAck(deliveryTag, false);
+        channel.basicAck(deliveryTag, true);
     }
 }
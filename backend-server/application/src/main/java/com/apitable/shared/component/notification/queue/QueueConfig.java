@@ -1,9 +1,14 @@
 package com.apitable.shared.component.notification.queue;
 
+import com.apitable.shared.config.properties.NotificationQueueProperties;
+
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,6 +20,11 @@ public class QueueConfig {
      */
     public static final String NOTIFICATION_QUEUE = "apitable.notification.queue";
 
+    /**
+     * batch listener container factory of notification queue
+     */
+    public static final String NOTIFICATION_CONTAINER_FACTORY = "notificationContainerFactory";
+
     /**
      * notification route key
      */
@@ -52,4 +62,24 @@ public class QueueConfig {
                 .with(NOTIFICATION_ROUTING_KEY);
 
     }
+
+    /**
+     * notification consumers receive messages in batches,
+     * a batch is handled when it is full or no message arrives within the receive timeout
+     */
+    @Bean(NOTIFICATION_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory notificationContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory, NotificationQueueProperties properties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(properties.getBatchSize());
+        factory.setReceiveTimeout(properties.getReceiveTimeout().toMillis());
+        // a batch can only fill up when enough messages are prefetched
+        factory.setPrefetchCount(properties.getBatchSize());
+        factory.setConcurrentConsumers(properties.getConcurrency());
+        factory.setMaxConcurrentConsumers(Math.max(properties.getConcurrency(), properties.getMaxConcurrency()));
+        return factory;
+    }
 }
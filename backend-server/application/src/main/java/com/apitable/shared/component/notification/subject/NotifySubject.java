@@ -18,7 +18,12 @@
 
 package com.apitable.shared.component.notification.subject;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.Vector;
+import java.util.stream.Collectors;
 
 import com.apitable.shared.component.notification.observer.NotifyObserver;
 import com.apitable.player.ro.NotificationCreateRo;
@@ -30,6 +35,16 @@ public abstract class NotifySubject<T> {
      */
     public abstract void send(NotificationCreateRo ro);
 
+    /**
+     * send notifications in batch
+     *
+     * @param roList notification parameters
+     * @return notifications failed to send
+     */
+    public List<NotificationCreateRo> send(List<NotificationCreateRo> roList) {
+        return notifyObserver(roList);
+    }
+
     public abstract void setContext(T context);
 
     protected T context;
@@ -57,4 +72,20 @@ public abstract class NotifySubject<T> {
             }
         }
     }
+
+    /**
+     * notify observer processing in batch
+     * @param roList notification parameters
+     * @return notifications failed by any observer
+     */
+    @SuppressWarnings("unchecked")
+    protected List<NotificationCreateRo> notifyObserver(List<NotificationCreateRo> roList) {
+        Set<NotificationCreateRo> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (NotifyObserver observer : observers) {
+            if (observer.isNotify(context)) {
+                failed.addAll(observer.notifyInBatch(context, roList));
+            }
+        }
+        return roList.stream().filter(failed::contains).collect(Collectors.toList());
+    }
 }
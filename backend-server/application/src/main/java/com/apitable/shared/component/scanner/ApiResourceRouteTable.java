@@ -0,0 +1,215 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.scanner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.hutool.core.util.StrUtil;
+
+import com.apitable.shared.component.ResourceDefinition;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+/**
+ * <p>
+ * compiled url route table of api resources.
+ * literal urls resolve with a hash lookup, templated urls walk a path segment trie that prefers
+ * literal segments over variables, and patterns the trie can not express fall back to ant matching.
+ * resolved templated urls are kept in a bounded cache.
+ * </p>
+ */
+public class ApiResourceRouteTable {
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private static final String SEPARATOR = "/";
+
+    private static final String WILDCARD = "*";
+
+    private final Map<String, ResourceDefinition> exactRoutes = new HashMap<>();
+
+    private final RouteNode root = new RouteNode();
+
+    private final List<ResourceDefinition> fallbackRoutes = new ArrayList<>();
+
+    private final Map<String, ResourceDefinition> resolvedRoutes = new ConcurrentHashMap<>();
+
+    private final int cacheCapacity;
+
+    public ApiResourceRouteTable(Collection<ResourceDefinition> definitions, int cacheCapacity) {
+        this.cacheCapacity = cacheCapacity;
+        for (ResourceDefinition definition : definitions) {
+            addRoute(definition);
+        }
+    }
+
+    /**
+     * resolve the resource whose url pattern matches the request path
+     *
+     * @param path request path
+     * @return ResourceDefinition, null if no pattern matches
+     */
+    public ResourceDefinition match(String path) {
+        if (path == null) {
+            return null;
+        }
+        ResourceDefinition definition = exactRoutes.get(path);
+        if (definition != null) {
+            return definition;
+        }
+        definition = resolvedRoutes.get(path);
+        if (definition != null) {
+            return definition;
+        }
+        definition = resolve(path);
+        if (definition != null && cacheCapacity > 0) {
+            // request paths carry ids, so the cache is bounded by starting over once it is full
+            if (resolvedRoutes.size() >= cacheCapacity) {
+                resolvedRoutes.clear();
+            }
+            resolvedRoutes.put(path, definition);
+        }
+        return definition;
+    }
+
+    private ResourceDefinition resolve(String path) {
+        if (path.startsWith(SEPARATOR) && !path.endsWith(SEPARATOR)) {
+            ResourceDefinition definition = root.match(tokenize(path), 0);
+            if (definition != null) {
+                return definition;
+            }
+        }
+        for (ResourceDefinition definition : fallbackRoutes) {
+            if (PATH_MATCHER.match(definition.getResourceUrl(), path)) {
+                return definition;
+            }
+        }
+        return null;
+    }
+
+    private void addRoute(ResourceDefinition definition) {
+        String pattern = definition.getResourceUrl();
+        if (StrUtil.isEmpty(pattern)) {
+            return;
+        }
+        if (!PATH_MATCHER.isPattern(pattern)) {
+            exactRoutes.putIfAbsent(pattern, definition);
+        }
+        if (!isSegmentPattern(pattern)) {
+            fallbackRoutes.add(definition);
+            return;
+        }
+        RouteNode node = root;
+        for (String segment : tokenize(pattern)) {
+            node = node.child(segment);
+        }
+        if (node.definition == null) {
+            node.definition = definition;
+        }
+    }
+
+    /**
+     * whether every segment of the pattern can be matched on its own,
+     * which excludes '**', regular expressions spanning separators and trailing separators.
+     */
+    private static boolean isSegmentPattern(String pattern) {
+        if (!pattern.startsWith(SEPARATOR) || pattern.endsWith(SEPARATOR) || pattern.contains("**")) {
+            return false;
+        }
+        for (String segment : tokenize(pattern)) {
+            if (StrUtil.count(segment, '{') != StrUtil.count(segment, '}')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVariable(String segment) {
+        if (WILDCARD.equals(segment)) {
+            return true;
+        }
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.indexOf('}') == segment.length() - 1
+                && segment.indexOf('{', 1) < 0 && segment.indexOf(':') < 0;
+    }
+
+    /**
+     * split like AntPathMatcher does, dropping empty segments without trimming
+     */
+    private static List<String> tokenize(String path) {
+        return StrUtil.split(path, '/', false, true);
+    }
+
+    private static final class RouteNode {
+
+        private final Map<String, RouteNode> literals = new HashMap<>();
+
+        private final Map<String, RouteNode> patterns = new LinkedHashMap<>();
+
+        private RouteNode variable;
+
+        private ResourceDefinition definition;
+
+        private RouteNode child(String segment) {
+            if (isVariable(segment)) {
+                if (variable == null) {
+                    variable = new RouteNode();
+                }
+                return variable;
+            }
+            Map<String, RouteNode> children = PATH_MATCHER.isPattern(segment) ? patterns : literals;
+            return children.computeIfAbsent(segment, key -> new RouteNode());
+        }
+
+        private ResourceDefinition match(List<String> segments, int index) {
+            if (index == segments.size()) {
+                return definition;
+            }
+            String segment = segments.get(index);
+            RouteNode literal = literals.get(segment);
+            if (literal != null) {
+                ResourceDefinition matched = literal.match(segments, index + 1);
+                if (matched != null) {
+                    return matched;
+                }
+            }
+            if (variable != null) {
+                ResourceDefinition matched = variable.match(segments, index + 1);
+                if (matched != null) {
+                    return matched;
+                }
+            }
+            for (Map.Entry<String, RouteNode> entry : patterns.entrySet()) {
+                if (PATH_MATCHER.match(entry.getKey(), segment)) {
+                    ResourceDefinition matched = entry.getValue().match(segments, index + 1);
+                    if (matched != null) {
+                        return matched;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -20,7 +20,6 @@ package com.apitable.shared.component.scanner;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import cn.hutool.core.collection.CollUtil;
@@ -30,8 +29,6 @@ import lombok.extern.slf4j.Slf4j;
 import com.apitable.shared.component.ResourceDefinition;
 
 import org.springframework.stereotype.Service;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.PathMatcher;
 
 /**
  * <p>
@@ -44,12 +41,19 @@ import org.springframework.util.PathMatcher;
 @Service
 public class DefaultApiResourceFactory implements ApiResourceFactory {
 
+    private static final int ROUTE_CACHE_CAPACITY = 4096;
+
     private final Map<String, ResourceDefinition> resourceDefinitions = new ConcurrentHashMap<>();
 
     private final Map<String, Map<String, ResourceDefinition>> modularResourceDefinitions = new ConcurrentHashMap<>();
 
     private final Map<String, ResourceDefinition> urlDefineResources = new ConcurrentHashMap<>();
 
+    /**
+     * compiled from urlDefineResources on first lookup, dropped whenever definitions change
+     */
+    private volatile ApiResourceRouteTable routeTable;
+
     @Override
     public synchronized void registerDefinition(List<ResourceDefinition> apiResource) {
         if (CollUtil.isNotEmpty(apiResource)) {
@@ -70,19 +74,32 @@ public class DefaultApiResourceFactory implements ApiResourceFactory {
                     modularResources.put(resourceDefinition.getResourceCode(), resourceDefinition);
                 }
             }
+            routeTable = null;
         }
     }
 
     @Override
     public ResourceDefinition getResourceByUrl(String resourceUrl) {
-        PathMatcher matcher = new AntPathMatcher();
-        Set<String> keys = this.urlDefineResources.keySet();
-        String url = CollUtil.findOne(keys, key -> matcher.match(key, resourceUrl));
-        return StrUtil.isNotEmpty(url) ? this.urlDefineResources.get(url) : null;
+        return getRouteTable().match(resourceUrl);
+    }
+
+    private ApiResourceRouteTable getRouteTable() {
+        ApiResourceRouteTable table = routeTable;
+        if (table == null) {
+            synchronized (this) {
+                table = routeTable;
+                if (table == null) {
+                    table = new ApiResourceRouteTable(urlDefineResources.values(), ROUTE_CACHE_CAPACITY);
+                    routeTable = table;
+                }
+            }
+        }
+        return table;
     }
 
     @Override
-    public void clear() {
+    public synchronized void clear() {
+        routeTable = null;
         resourceDefinitions.clear();
         modularResourceDefinitions.clear();
         urlDefineResources.clear();
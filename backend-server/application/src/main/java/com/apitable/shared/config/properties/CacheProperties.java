@@ -0,0 +1,145 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.config.properties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import static com.apitable.shared.config.properties.CacheProperties.PREFIX;
+
+/**
+ * <p>
+ * local cache properties
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = PREFIX)
+public class CacheProperties {
+
+    public static final String PREFIX = "cache";
+
+    /**
+     * node tree snapshot of space
+     */
+    private NodeTree nodeTree = new NodeTree();
+
+    /**
+     * resolved permission inputs of control template
+     */
+    private Permission permission = new Permission();
+
+    /**
+     * login user and member of space resolved on every request
+     */
+    private UserContext userContext = new UserContext();
+
+    /**
+     * name index of teams and members of space
+     */
+    private UnitSearch unitSearch = new UnitSearch();
+
+    @Data
+    public static class NodeTree {
+
+        /**
+         * whether to serve node tree reads from snapshot
+         */
+        private boolean enabled = true;
+
+        /**
+         * maximum number of space snapshots kept in memory
+         */
+        private int maxSpaces = 1000;
+
+        /**
+         * the longest time a snapshot lives, protect from missing invalidation message
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Permission {
+
+        /**
+         * whether to cache member units, space admins and node roles
+         */
+        private boolean enabled = true;
+
+        /**
+         * maximum number of entries of each local cache
+         */
+        private int localMaxSize = 10000;
+
+        /**
+         * time to live of local entries, bounds the staleness when an invalidation message is lost
+         */
+        private Duration localTtl = Duration.ofSeconds(30);
+
+        /**
+         * time to live of redis entries
+         */
+        private Duration redisTtl = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class UserContext {
+
+        /**
+         * whether to keep decoded values in local memory in front of redis
+         */
+        private boolean enabled = true;
+
+        /**
+         * maximum number of entries of each local cache
+         */
+        private int localMaxSize = 10000;
+
+        /**
+         * time to live of local entries, bounds the staleness when an invalidation message is lost
+         */
+        private Duration localTtl = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class UnitSearch {
+
+        /**
+         * whether to keep the index in memory between searches
+         */
+        private boolean enabled = true;
+
+        /**
+         * maximum number of space indexes kept in memory
+         */
+        private int maxSpaces = 1000;
+
+        /**
+         * the longest time an index lives, bounds the staleness of changes made outside this service
+         */
+        private Duration ttl = Duration.ofMinutes(2);
+
+        /**
+         * maximum number of teams and of members returned by a search
+         */
+        private int maxResults = 100;
+    }
+}
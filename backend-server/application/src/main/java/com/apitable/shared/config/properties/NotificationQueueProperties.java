@@ -0,0 +1,59 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.config.properties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import static com.apitable.shared.config.properties.NotificationQueueProperties.PREFIX;
+
+/**
+ * <p>
+ * notification queue consumer properties
+ * </p>
+ */
+@Data
+@ConfigurationProperties(prefix = PREFIX)
+public class NotificationQueueProperties {
+
+    public static final String PREFIX = "notification.queue";
+
+    /**
+     * number of consumers started
+     */
+    private int concurrency = 1;
+
+    /**
+     * maximum number of consumers when messages back up
+     */
+    private int maxConcurrency = 4;
+
+    /**
+     * maximum number of messages handled in one batch
+     */
+    private int batchSize = 50;
+
+    /**
+     * the longest wait for the next message before a partial batch is handled
+     */
+    private Duration receiveTimeout = Duration.ofMillis(200);
+}
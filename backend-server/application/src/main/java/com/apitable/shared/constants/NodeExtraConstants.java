@@ -45,4 +45,9 @@ public class NodeExtraConstants {
      * source template id
      */
     public static final String SOURCE_TEMPLATE_ID = "sourceTemplateId";
+
+    /**
+     * the content of the node failed to be copied
+     */
+    public static final String COPY_FAILED = "copyFailed";
 }
@@ -29,6 +29,8 @@ import com.apitable.core.util.ExceptionUtil;
 import com.apitable.integration.grpc.ApiServingServiceGrpc;
 import com.apitable.integration.grpc.BasicResult;
 import com.apitable.integration.grpc.NodeBrowsingRo;
+import com.apitable.organization.dto.SpaceMemberIdDTO;
+import com.apitable.organization.mapper.MemberMapper;
 import com.apitable.organization.service.IMemberService;
 import com.apitable.shared.component.adapter.MultiDatasourceAdapterTemplate;
 import com.apitable.user.enums.UserException;
@@ -59,17 +61,27 @@ public class BackendServingServiceImpl extends ApiServingServiceGrpc.ApiServingS
     @Resource
     private IMemberService iMemberService;
 
+    @Resource
+    private MemberMapper memberMapper;
+
     @SneakyThrows
     @Override
     public void recordNodeBrowsing(NodeBrowsingRo req, StreamObserver<BasicResult> responseObserver) {
-        String spaceId = iNodeService.getSpaceIdByNodeId(req.getNodeId());
         // only for folder
         if (req.getNodeId().startsWith(IdRulePrefixEnum.FOD.getIdRulePrefixEnum())) {
-            Long userId = iUserService.getUserIdByUuid(req.getUuid());
-            ExceptionUtil.isNotNull(userId, UserException.USER_NOT_EXIST);
-            Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(userId, spaceId);
-            ExceptionUtil.isNotNull(memberId, PermissionException.MEMBER_NOT_IN_SPACE);
-            multiDatasourceAdapterTemplate.saveOrUpdateNodeVisitRecord(spaceId, memberId, req.getNodeId(), NodeType.FOLDER);
+            SpaceMemberIdDTO member = memberMapper.selectSpaceMemberIdByUuidAndNodeId(req.getUuid(), req.getNodeId());
+            if (member == null) {
+                // look up one by one to tell what is missing
+                String spaceId = iNodeService.getSpaceIdByNodeId(req.getNodeId());
+                Long userId = iUserService.getUserIdByUuid(req.getUuid());
+                ExceptionUtil.isNotNull(userId, UserException.USER_NOT_EXIST);
+                Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(userId, spaceId);
+                ExceptionUtil.isNotNull(memberId, PermissionException.MEMBER_NOT_IN_SPACE);
+                member = new SpaceMemberIdDTO();
+                member.setId(memberId);
+                member.setSpaceId(spaceId);
+            }
+            multiDatasourceAdapterTemplate.saveOrUpdateNodeVisitRecord(member.getSpaceId(), member.getId(), req.getNodeId(), NodeType.FOLDER);
         }
         BasicResult result = BasicResult.newBuilder()
                 .setCode(DEFAULT_SUCCESS_CODE)
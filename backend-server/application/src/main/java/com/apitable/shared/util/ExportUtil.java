@@ -54,4 +54,24 @@ public class ExportUtil {
             }
         }
     }
+
+    /**
+     * set the headers of attachment and get the stream of response
+     *
+     * @param filename file name
+     * @param contentType content type
+     * @return stream of response, null if there is no response
+     * @throws IOException io exception
+     */
+    public static OutputStream exportStream(String filename, String contentType) throws IOException {
+        HttpServletResponse response = HttpContextUtil.getResponse();
+        if (response == null) {
+            return null;
+        }
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        response.setHeader("content-disposition", "attachment;filename=" + filename);
+        return response.getOutputStream();
+    }
 }
@@ -0,0 +1,65 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.apitable.shared.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import com.apitable.asset.dto.ImageDto;
+
+/**
+ * <p>
+ * Image size util
+ * Read the width and height from the image header, the pixels are not decoded
+ * </p>
+ */
+public class ImageSizeUtil {
+
+    /**
+     * read the size of image
+     *
+     * @param in input stream
+     * @return image size, null if it is not a readable image
+     * @throws IOException io exception
+     */
+    public static ImageDto read(InputStream in) throws IOException {
+        try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                ImageDto imageDto = new ImageDto();
+                imageDto.setHeight(reader.getHeight(0));
+                imageDto.setWidth(reader.getWidth(0));
+                return imageDto;
+            }
+            finally {
+                reader.dispose();
+            }
+        }
+    }
+}
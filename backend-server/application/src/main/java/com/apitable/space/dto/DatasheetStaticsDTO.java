@@ -18,8 +18,12 @@
 
 package com.apitable.space.dto;
 
+import java.util.Map;
+
 import lombok.Data;
 
+import com.apitable.workspace.enums.ViewType;
+
 /**
  * Datasheet Statistics Vo
  */
@@ -33,4 +37,17 @@ public class DatasheetStaticsDTO {
     private long galleryViews;
 
     private long ganttViews;
+
+    /**
+     * @param viewTypeCounts view type to count
+     * @return DatasheetStaticsDTO
+     */
+    public static DatasheetStaticsDTO of(Map<Integer, Long> viewTypeCounts) {
+        DatasheetStaticsDTO dto = new DatasheetStaticsDTO();
+        dto.setKanbanViews(viewTypeCounts.getOrDefault(ViewType.KANBAN.getType(), 0L));
+        dto.setGalleryViews(viewTypeCounts.getOrDefault(ViewType.GALLERY.getType(), 0L));
+        dto.setCalendarViews(viewTypeCounts.getOrDefault(ViewType.CALENDAR.getType(), 0L));
+        dto.setGanttViews(viewTypeCounts.getOrDefault(ViewType.GANTT.getType(), 0L));
+        return dto;
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.space.dto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * <p>
+ * Space Statistics, kept by counters
+ * </p>
+ */
+@Data
+public class SpaceStatisticsDTO {
+
+    private long memberCount;
+
+    private long teamCount;
+
+    private long adminCount;
+
+    private long recordCount;
+
+    private long nodeRoleCount;
+
+    private long fieldRoleCount;
+
+    /**
+     * node type to count, nodes in rubbish are excluded
+     */
+    private Map<Integer, Long> nodeTypeCounts = new HashMap<>();
+
+    /**
+     * view type to count
+     */
+    private Map<Integer, Long> viewTypeCounts = new HashMap<>();
+
+    public long getNodeCount(int type) {
+        return nodeTypeCounts.getOrDefault(type, 0L);
+    }
+}
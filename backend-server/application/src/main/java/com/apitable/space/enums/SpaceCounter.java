@@ -0,0 +1,56 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.space.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <p>
+ * counters of space statistics
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public enum SpaceCounter {
+
+    MEMBER("member"),
+
+    TEAM("team"),
+
+    ADMIN("admin"),
+
+    RECORD("record"),
+
+    NODE_ROLE("nodeRole"),
+
+    FIELD_ROLE("fieldRole");
+
+    /**
+     * prefix of the counters by node type
+     */
+    public static final String NODE_TYPE_PREFIX = "node:";
+
+    /**
+     * prefix of the counters by view type
+     */
+    public static final String VIEW_TYPE_PREFIX = "view:";
+
+    private final String field;
+}
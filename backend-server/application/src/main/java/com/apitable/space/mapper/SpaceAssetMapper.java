@@ -102,9 +102,9 @@ public interface SpaceAssetMapper extends BaseMapper<SpaceAssetEntity> {
 
     /**
      * @param spaceId space id
-     * @return file sizes
+     * @return total file size, an asset is counted once, null if there is no asset
      */
-    List<Integer> selectFileSizeBySpaceId(@Param("spaceId") String spaceId);
+    Long sumFileSizeBySpaceId(@Param("spaceId") String spaceId);
 
     /**
      * @param ids id
@@ -100,12 +100,12 @@ public interface StaticsMapper {
     Long selectMaxId();
 
     /**
-     * File size collection of query space reference resources
+     * Total file size of query space reference resources, an asset is counted once
      *
      * @param spaceId space id
-     * @return file size
+     * @return file size, null if there is no resource
      */
-    List<Integer> selectFileSizeBySpaceId(@Param("spaceId") String spaceId);
+    Long sumFileSizeBySpaceId(@Param("spaceId") String spaceId);
 
     /**
      * The column permission size set in the query space
@@ -0,0 +1,91 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.space.service;
+
+import java.util.Map;
+
+import com.apitable.space.dto.SpaceStatisticsDTO;
+import com.apitable.space.enums.SpaceCounter;
+import com.apitable.workspace.support.DatasheetMeta;
+
+/**
+ * <p>
+ * space statistics, kept as counters which are changed by the write paths
+ * and reconciled with the database periodically.
+ * counters are changed after the current transaction committed, and only while the statistics of the space are kept.
+ * </p>
+ */
+public interface ISpaceStatisticsService {
+
+    /**
+     * get the statistics of the space, computed on the read until they are kept
+     *
+     * @param spaceId space id
+     * @return SpaceStatisticsDTO
+     */
+    SpaceStatisticsDTO getStatistics(String spaceId);
+
+    /**
+     * change a counter
+     *
+     * @param spaceId space id
+     * @param counter counter
+     * @param delta   delta, negative to decrease
+     */
+    void increment(String spaceId, SpaceCounter counter, long delta);
+
+    /**
+     * change the counters of node types
+     *
+     * @param spaceId space id
+     * @param deltas  node type to delta
+     */
+    void incrementNodes(String spaceId, Map<Integer, Long> deltas);
+
+    /**
+     * change the counters of view types
+     *
+     * @param spaceId space id
+     * @param deltas  view type to delta
+     */
+    void incrementViews(String spaceId, Map<Integer, Long> deltas);
+
+    /**
+     * count the records and views of a created datasheet, records are the rows of the first view
+     *
+     * @param spaceId space id
+     * @param meta    meta of the datasheet
+     */
+    void incrementDatasheet(String spaceId, DatasheetMeta meta);
+
+    /**
+     * reconcile the statistics soon, for changes whose delta is unknown
+     *
+     * @param spaceId space id
+     */
+    void markStale(String spaceId);
+
+    /**
+     * recompute the statistics of the space from the database, kept as the counters if no increment was made meanwhile
+     *
+     * @param spaceId space id
+     * @return SpaceStatisticsDTO
+     */
+    SpaceStatisticsDTO reconcile(String spaceId);
+}
@@ -19,6 +19,7 @@
 package com.apitable.space.service;
 
 import java.util.List;
+import java.util.Map;
 
 import com.apitable.space.dto.ControlStaticsDTO;
 import com.apitable.space.dto.DatasheetStaticsDTO;
@@ -120,6 +121,14 @@ public interface IStaticsService {
      */
     List<NodeTypeStaticsDTO> getNodeTypeStaticsBySpaceId(String spaceId);
 
+    /**
+     * Get the number of views of each type in the datasheets of the space
+     *
+     * @param spaceId space id
+     * @return view type to count
+     */
+    Map<Integer, Long> getViewTypeStaticsBySpaceId(String spaceId);
+
     /**
      * Get the statistics view of the space table
      *
@@ -265,7 +265,7 @@ public class SpaceInviteLinkServiceImpl extends ServiceImpl<SpaceInviteLinkMappe
             }
             // When joining other departments, unbind from the root department
             if (teamIds.contains(rootTeamId)) {
-                teamMemberRelMapper.deleteByTeamIdsAndMemberId(memberId, Collections.singletonList(rootTeamId));
+                iTeamMemberRelService.removeByTeamIdsAndMemberId(memberId, Collections.singletonList(rootTeamId));
             }
             iTeamMemberRelService.addMemberTeams(Collections.singletonList(memberId), Collections.singletonList(teamId));
             return true;
@@ -41,6 +41,7 @@ import com.apitable.organization.entity.MemberEntity;
 import com.apitable.organization.mapper.MemberMapper;
 import com.apitable.shared.cache.bean.SpaceMenuResourceGroupDto;
 import com.apitable.shared.cache.bean.SpaceResourceGroupDto;
+import com.apitable.shared.cache.service.PermissionCacheService;
 import com.apitable.shared.cache.service.SpaceResourceCacheService;
 import com.apitable.shared.component.notification.NotificationRenderField;
 import com.apitable.shared.context.LoginContext;
@@ -51,6 +52,7 @@ import com.apitable.shared.util.page.PageInfo;
 import com.apitable.space.dto.SpaceGroupResourceDto;
 import com.apitable.space.entity.SpaceMemberRoleRelEntity;
 import com.apitable.space.entity.SpaceRoleEntity;
+import com.apitable.space.enums.SpaceCounter;
 import com.apitable.space.enums.SpaceException;
 import com.apitable.space.enums.SpaceResourceGroupCode;
 import com.apitable.space.mapper.SpaceMapper;
@@ -66,6 +68,7 @@ import com.apitable.space.service.ISpaceResourceService;
 import com.apitable.space.service.ISpaceRoleResourceRelService;
 import com.apitable.space.service.ISpaceRoleService;
 import com.apitable.space.service.ISpaceService;
+import com.apitable.space.service.ISpaceStatisticsService;
 import com.apitable.space.vo.RoleResourceVo;
 import com.apitable.space.vo.SpaceRoleDetailVo;
 import com.apitable.space.vo.SpaceRoleVo;
@@ -121,6 +124,12 @@ public class SpaceRoleServiceImpl extends ServiceImpl<SpaceRoleMapper, SpaceRole
     @Resource
     private SocialServiceFacade socialServiceFacade;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
     @Override
     public List<Long> getSpaceAdminsWithWorkbenchManage(String spaceId) {
         log.info("Queries all space administrators who have workbench permission，including the main admin.");
@@ -219,6 +228,8 @@ public class SpaceRoleServiceImpl extends ServiceImpl<SpaceRoleMapper, SpaceRole
         ExceptionUtil.isTrue(relFlag, CREATE_SUB_ADMIN_ERROR);
         // save the ref space role and resource code.
         iSpaceRoleResourceRelService.createBatch(roleCodes, CollUtil.distinct(resourceCodes));
+        permissionCacheService.invalidateSpaceAdmins(spaceId);
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.ADMIN, spaceMemberRoleRelEntities.size());
         NotificationRenderFieldHolder.set(NotificationRenderField.builder().playerIds(data.getMemberIds()).build());
     }
 
@@ -301,6 +312,9 @@ public class SpaceRoleServiceImpl extends ServiceImpl<SpaceRoleMapper, SpaceRole
         if (CollUtil.isNotEmpty(removeList)) {
             iSpaceRoleResourceRelService.deleteBatch(memberRole.getRoleCode(), removeList);
         }
+        if (replace || CollUtil.isNotEmpty(addList) || CollUtil.isNotEmpty(removeList)) {
+            permissionCacheService.invalidateSpaceAdmins(spaceId);
+        }
         // When the function of inviting all members of the space is turned off,
         // all public invitation links generated by the original main administrator become invalid.
         String tag = "INVITE_MEMBER";
@@ -332,6 +346,8 @@ public class SpaceRoleServiceImpl extends ServiceImpl<SpaceRoleMapper, SpaceRole
 
         boolean memberRoleFlag = SqlHelper.retBool(spaceMemberRoleRelMapper.deleteBySpaceIdAndMemberId(spaceId, memberId));
         ExceptionUtil.isTrue(memberRoleFlag, DELETE_ROLE_ERROR);
+        permissionCacheService.invalidateSpaceAdmins(spaceId);
+        iSpaceStatisticsService.increment(spaceId, SpaceCounter.ADMIN, -1);
     }
 
     @Override
@@ -339,7 +355,9 @@ public class SpaceRoleServiceImpl extends ServiceImpl<SpaceRoleMapper, SpaceRole
     public void batchRemoveByMemberIds(String spaceId, List<Long> memberIds) {
         List<String> roleCodes = spaceMemberRoleRelMapper.selectRoleCodeByMemberIds(spaceId, memberIds);
         spaceMemberRoleRelMapper.batchDeleteByMemberIds(memberIds);
+        permissionCacheService.invalidateSpaceAdmins(spaceId);
         if (CollUtil.isNotEmpty(roleCodes)) {
+            iSpaceStatisticsService.increment(spaceId, SpaceCounter.ADMIN, -roleCodes.size());
             // Query for role codes that still exist. If a role is bound to someone else, you cannot delete the role
             List<String> existRoleCodes = spaceMemberRoleRelMapper.selectRoleCodesBySpaceIdAndRoleCodes(spaceId, roleCodes);
             if (roleCodes.size() == existRoleCodes.size()) {
@@ -362,7 +380,7 @@ public class SpaceRoleServiceImpl extends ServiceImpl<SpaceRoleMapper, SpaceRole
             spaceRoleResourceRelMapper.batchDeleteByRoleCodes(roleCodes);
         }
         spaceMemberRoleRelMapper.deleteBySpaceId(spaceId);
-
+        permissionCacheService.invalidateSpaceAdmins(spaceId);
     }
 
     @Override
@@ -49,6 +49,7 @@ import com.apitable.organization.service.ITeamMemberRelService;
 import com.apitable.organization.service.ITeamService;
 import com.apitable.organization.service.IUnitService;
 import com.apitable.shared.cache.bean.UserSpaceDto;
+import com.apitable.shared.cache.service.PermissionCacheService;
 import com.apitable.shared.cache.service.SpaceCapacityCacheService;
 import com.apitable.shared.cache.service.UserActiveSpaceCacheService;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
@@ -173,6 +174,9 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, SpaceEntity> impl
     @Resource
     private IStaticsService iStaticsService;
 
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
     @Resource
     private SocialServiceFacade socialServiceFacade;
 
@@ -185,6 +189,9 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, SpaceEntity> impl
     @Resource
     private IInvitationService iInvitationService;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
     @Override
     public SpaceEntity getBySpaceId(String spaceId) {
         SpaceEntity entity = baseMapper.selectBySpaceId(spaceId);
@@ -268,7 +275,7 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, SpaceEntity> impl
         String templateNodeId = iTemplateService.getDefaultTemplateNodeId();
         if (StrUtil.isNotBlank(templateNodeId)) {
             // the dump node method, contains grpc calls, placing the last.
-            iNodeService.copyNodeToSpace(userId, spaceId, rootNodeId, templateNodeId, NodeCopyOptions.create());
+            iNodeService.copyNodeToSpace(userId, spaceId, rootNodeId, templateNodeId, NodeCopyOptions.builder().copyData(true).async(true).build());
         }
         return spaceId;
     }
@@ -423,48 +430,33 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, SpaceEntity> impl
     @Override
     public SpaceInfoVO getSpaceInfo(String spaceId) {
         SpaceEntity entity = getBySpaceId(spaceId);
-        // numbers statistics
-        long memberNumber = iStaticsService.getMemberTotalCountBySpaceId(spaceId);
-        // teams statistics
-        long teamCount = iStaticsService.getTeamTotalCountBySpaceId(spaceId);
-        // admin statistics
-        long adminCount = iStaticsService.getAdminTotalCountBySpaceId(spaceId);
-        // record statistics
-        long recordCount = iStaticsService.getDatasheetRecordTotalCountBySpaceId(spaceId);
+        // counters of the space, computed on the request only until they are kept
+        SpaceStatisticsDTO statistics = iSpaceStatisticsService.getStatistics(spaceId);
         // used space statistics
         long capacityUsedSize = spaceCapacityCacheService.getSpaceCapacity(spaceId);
         // API usage statistics
         long apiUsage = iStaticsService.getCurrentMonthApiUsage(spaceId);
-        // file control amount
-        ControlStaticsDTO controlStaticsDTO = iStaticsService.getFieldRoleTotalCountBySpaceId(spaceId);
-        long nodeRoleNums = controlStaticsDTO != null ? controlStaticsDTO.getNodeRoleCount() : 0L;
-        long fieldRoleNums = controlStaticsDTO != null ? controlStaticsDTO.getFieldRoleCount() : 0L;
         // node statistics
-        List<NodeTypeStaticsDTO> nodeTypeStaticDTOS = iStaticsService.getNodeTypeStaticsBySpaceId(spaceId);
-        long sheetNums = nodeTypeStaticDTOS.stream()
-                .filter(condition -> NodeType.toEnum(condition.getType()).isFileNode())
-                .mapToLong(NodeTypeStaticsDTO::getTotal).sum();
-        long mirrorNums = nodeTypeStaticDTOS.stream()
-                .filter(condition -> NodeType.MIRROR == NodeType.toEnum(condition.getType()))
-                .mapToLong(NodeTypeStaticsDTO::getTotal).sum();
-
-        Map<Integer, Integer> typeStaticsMap = nodeTypeStaticDTOS.stream().collect(Collectors.toMap(NodeTypeStaticsDTO::getType, NodeTypeStaticsDTO::getTotal));
-        long formViewNums = typeStaticsMap.containsKey(NodeType.FORM.getNodeType()) ? typeStaticsMap.get(NodeType.FORM.getNodeType()) : 0L;
+        long sheetNums = statistics.getNodeTypeCounts().entrySet().stream()
+                .filter(entry -> NodeType.toEnum(entry.getKey()).isFileNode())
+                .mapToLong(Map.Entry::getValue).sum();
+        long mirrorNums = statistics.getNodeCount(NodeType.MIRROR.getNodeType());
+        long formViewNums = statistics.getNodeCount(NodeType.FORM.getNodeType());
         // table view statistics
-        DatasheetStaticsDTO viewVO = iStaticsService.getDatasheetStaticsBySpaceId(spaceId);
+        DatasheetStaticsDTO viewVO = DatasheetStaticsDTO.of(statistics.getViewTypeCounts());
         SpaceInfoVO vo = SpaceInfoVO.builder()
                 .spaceName(entity.getName())
                 .spaceLogo(entity.getLogo())
                 .createTime(entity.getCreatedAt())
-                .deptNumber(teamCount)
-                .seats(memberNumber)
+                .deptNumber(statistics.getTeamCount())
+                .seats(statistics.getMemberCount())
                 .sheetNums(sheetNums)
-                .recordNums(recordCount)
-                .adminNums(adminCount)
+                .recordNums(statistics.getRecordCount())
+                .adminNums(statistics.getAdminCount())
                 .apiRequestCountUsage(apiUsage)
                 .capacityUsedSizes(capacityUsedSize)
-                .nodeRoleNums(nodeRoleNums)
-                .fieldRoleNums(fieldRoleNums)
+                .nodeRoleNums(statistics.getNodeRoleCount())
+                .fieldRoleNums(statistics.getFieldRoleCount())
                 .formViewNums(formViewNums)
                 .kanbanViewNums(viewVO.getKanbanViews())
                 .calendarViewNums(viewVO.getCalendarViews())
@@ -552,11 +544,11 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, SpaceEntity> impl
     public InternalSpaceUsageVo getInternalSpaceUsageVo(String spaceId) {
         log.info("Get the usage information of the space {}", spaceId);
         InternalSpaceUsageVo vo = new InternalSpaceUsageVo();
+        SpaceStatisticsDTO statistics = iSpaceStatisticsService.getStatistics(spaceId);
         // statistics of total records
-        long recordNums = iStaticsService.getDatasheetRecordTotalCountBySpaceId(spaceId);
-        vo.setRecordNums(recordNums);
+        vo.setRecordNums(statistics.getRecordCount());
         // table view statistics
-        DatasheetStaticsDTO viewVO = iStaticsService.getDatasheetStaticsBySpaceId(spaceId);
+        DatasheetStaticsDTO viewVO = DatasheetStaticsDTO.of(statistics.getViewTypeCounts());
         vo.setGalleryViewNums(viewVO.getGalleryViews());
         vo.setKanbanViewNums(viewVO.getKanbanViews());
         vo.setGanttViewNums(viewVO.getGanttViews());
@@ -608,6 +600,7 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, SpaceEntity> impl
         // Update space and member information
         boolean flag = SqlHelper.retBool(baseMapper.updateSpaceOwnerId(spaceId, memberId, SessionContext.getUserId()));
         ExceptionUtil.isTrue(flag, SET_MAIN_ADMIN_FAIL);
+        permissionCacheService.invalidateSpaceAdmins(spaceId);
         iMemberService.cancelMemberMainAdmin(dto.getMemberId());
         iMemberService.setMemberMainAdmin(memberId);
         // If the new administrator is a sub-administrator, delete the original permission
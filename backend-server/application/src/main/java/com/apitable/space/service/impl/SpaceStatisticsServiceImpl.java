@@ -0,0 +1,490 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.space.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.NumberUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.core.util.SqlTool;
+import com.apitable.space.dto.ControlStaticsDTO;
+import com.apitable.space.dto.SpaceStatisticsDTO;
+import com.apitable.space.enums.SpaceCounter;
+import com.apitable.space.service.ISpaceStatisticsService;
+import com.apitable.space.service.IStaticsService;
+import com.apitable.workspace.support.DatasheetMeta;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static com.apitable.core.constants.RedisConstants.SPACE_STATISTICS_RECONCILE;
+import static com.apitable.space.enums.SpaceCounter.NODE_TYPE_PREFIX;
+import static com.apitable.space.enums.SpaceCounter.VIEW_TYPE_PREFIX;
+
+/**
+ * <p>
+ * space statistics kept as a redis hash, the statistics of a space are dropped when they are not read for a day.
+ * the first read computes the statistics and stores them, later reads take the counters.
+ * a space is reconciled when it is marked dirty: on changes whose delta is unknown,
+ * and on a read after a while, which brings in the changes made outside, like the records and views edited by the room server.
+ * a transaction changing the counters is fenced from its commit until its increment is applied,
+ * the reconciliation stores the computed counts only if no increment was fenced or applied since it read the counters.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SpaceStatisticsServiceImpl implements ISpaceStatisticsService {
+
+    private static final Duration STATISTICS_TTL = Duration.ofDays(1);
+
+    private static final Duration RECONCILE_INTERVAL = Duration.ofMinutes(10);
+
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    private static final long SCAN_PERIOD_SECONDS = 60;
+
+    private static final int RECONCILE_BATCH_SIZE = 20;
+
+    private static final Duration OWNER_TTL = Duration.ofMinutes(5);
+
+    /**
+     * a fence older than this is taken as left by a stopped instance
+     */
+    private static final Duration PENDING_TIMEOUT = Duration.ofMinutes(5);
+
+    /**
+     * present until the computed counts are stored for the first time, the counters are incomplete meanwhile
+     */
+    private static final String RECONCILING_FIELD = "reconciling";
+
+    private static final String RECONCILED_AT_FIELD = "reconciledAt";
+
+    /**
+     * changed by every fence and increment
+     */
+    private static final String SEQUENCE_FIELD = "seq";
+
+    /**
+     * transactions committing with their increments not applied yet
+     */
+    private static final String PENDING_FIELD = "pending";
+
+    private static final String PENDING_AT_FIELD = "pendingAt";
+
+    /**
+     * KEYS[1]: statistics key, ARGV[1]: current time, ARGV[2]: seconds to live.
+     * fence a committing transaction, absent statistics are created as reconciling ones to hold the fence
+     */
+    private static final RedisScript<Long> FENCE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then "
+            + "redis.call('HSET', KEYS[1], '" + RECONCILING_FIELD + "', 1) redis.call('EXPIRE', KEYS[1], ARGV[2]) end "
+            + "redis.call('HINCRBY', KEYS[1], '" + PENDING_FIELD + "', 1) "
+            + "redis.call('HINCRBY', KEYS[1], '" + SEQUENCE_FIELD + "', 1) "
+            + "redis.call('HSET', KEYS[1], '" + PENDING_AT_FIELD + "', ARGV[1]) "
+            + "return 1", Long.class);
+
+    /**
+     * KEYS[1]: statistics key, ARGV[1]: 1 to apply the increment, ARGV[2]: 1 to lift a fence, ARGV[3...]: counter and delta in pairs.
+     * counters are changed only if the statistics are kept, returns 1 if changed
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+            + "if ARGV[1] == '1' then for i = 3, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end end "
+            + "if ARGV[2] == '1' and tonumber(redis.call('HGET', KEYS[1], '" + PENDING_FIELD + "') or '0') > 0 then "
+            + "redis.call('HINCRBY', KEYS[1], '" + PENDING_FIELD + "', -1) end "
+            + "redis.call('HINCRBY', KEYS[1], '" + SEQUENCE_FIELD + "', 1) "
+            + "return 1", Long.class);
+
+    /**
+     * KEYS[1]: statistics key, ARGV[1]: seconds to live.
+     * absent statistics are created as reconciling ones, counters are incremented from now on, returns 1 if created
+     */
+    private static final RedisScript<Long> CREATE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+            + "redis.call('HSET', KEYS[1], '" + RECONCILING_FIELD + "', 1) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+            + "return 1", Long.class);
+
+    /**
+     * KEYS[1]: statistics key, ARGV[1]: sequence read before computing, ARGV[2]: reconciled time,
+     * ARGV[3]: fences set before this time are ignored, ARGV[4...]: counter and count in pairs.
+     * the computed counts are stored if the statistics are kept and no increment was fenced or applied since they were read,
+     * returns 1 if stored, 0 if the statistics are not kept, -1 if changed meanwhile
+     */
+    private static final RedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+            + "if (redis.call('HGET', KEYS[1], '" + SEQUENCE_FIELD + "') or '0') ~= ARGV[1] then return -1 end "
+            + "if tonumber(redis.call('HGET', KEYS[1], '" + PENDING_FIELD + "') or '0') > 0 "
+            + "and tonumber(redis.call('HGET', KEYS[1], '" + PENDING_AT_FIELD + "') or '0') >= tonumber(ARGV[3]) then return -1 end "
+            + "for i = 4, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+            + "redis.call('HDEL', KEYS[1], '" + RECONCILING_FIELD + "', '" + PENDING_AT_FIELD + "') "
+            + "redis.call('HSET', KEYS[1], '" + PENDING_FIELD + "', 0) "
+            + "redis.call('HSET', KEYS[1], '" + RECONCILED_AT_FIELD + "', ARGV[2]) "
+            + "return 1", Long.class);
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: owner. the key is deleted only by its owner
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    @Resource
+    private IStaticsService iStaticsService;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private ScheduledExecutorService reconciler;
+
+    @PostConstruct
+    public void init() {
+        reconciler = Executors.newSingleThreadScheduledExecutor(ThreadUtil.newNamedThreadFactory("space-statistics-", true));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        reconciler.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReconciler() {
+        reconciler.scheduleWithFixedDelay(this::reconcileDue, SCAN_PERIOD_SECONDS, SCAN_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public SpaceStatisticsDTO getStatistics(String spaceId) {
+        String key = RedisConstants.getSpaceStatisticsKey(spaceId);
+        Map<String, String> counters = stringRedisTemplate.<String, String>opsForHash().entries(key);
+        if (counters.isEmpty() || counters.containsKey(RECONCILING_FIELD)) {
+            // the counts are not kept yet, computed on the request and stored for the next reads
+            return this.reconcile(spaceId, true);
+        }
+        // kept while being read
+        stringRedisTemplate.expire(key, STATISTICS_TTL);
+        long reconciledAt = NumberUtil.parseLong(counters.get(RECONCILED_AT_FIELD));
+        if (reconciledAt > 0 && reconciledAt + RECONCILE_INTERVAL.toMillis() < System.currentTimeMillis()) {
+            this.markDirty(spaceId, System.currentTimeMillis());
+        }
+        return toStatistics(counters);
+    }
+
+    @Override
+    public void increment(String spaceId, SpaceCounter counter, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        this.increment(spaceId, CollUtil.newArrayList(counter.getField(), String.valueOf(delta)));
+    }
+
+    @Override
+    public void incrementNodes(String spaceId, Map<Integer, Long> deltas) {
+        this.increment(spaceId, toArgs(NODE_TYPE_PREFIX, deltas));
+    }
+
+    @Override
+    public void incrementViews(String spaceId, Map<Integer, Long> deltas) {
+        this.increment(spaceId, toArgs(VIEW_TYPE_PREFIX, deltas));
+    }
+
+    @Override
+    public void incrementDatasheet(String spaceId, DatasheetMeta meta) {
+        List<ObjectNode> views = meta.getViews();
+        if (CollUtil.isEmpty(views)) {
+            return;
+        }
+        JsonNode rows = views.get(0).get("rows");
+        Map<Integer, Long> viewDeltas = views.stream()
+                .map(view -> view.get("type"))
+                .filter(type -> type != null && type.canConvertToInt())
+                .collect(Collectors.groupingBy(JsonNode::asInt, Collectors.counting()));
+        List<String> args = toArgs(VIEW_TYPE_PREFIX, viewDeltas);
+        if (rows != null && rows.size() > 0) {
+            args.add(SpaceCounter.RECORD.getField());
+            args.add(String.valueOf(rows.size()));
+        }
+        this.increment(spaceId, args);
+    }
+
+    @Override
+    public void markStale(String spaceId) {
+        afterCommit(() -> {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(RedisConstants.getSpaceStatisticsKey(spaceId)))) {
+                this.markDirty(spaceId, 0);
+            }
+        });
+    }
+
+    @Override
+    public SpaceStatisticsDTO reconcile(String spaceId) {
+        return this.reconcile(spaceId, false);
+    }
+
+    /**
+     * compute the statistics, stored if nothing changed the counters meanwhile, otherwise reconciled again later
+     *
+     * @param create create the statistics if they are not kept
+     */
+    private SpaceStatisticsDTO reconcile(String spaceId, boolean create) {
+        String key = RedisConstants.getSpaceStatisticsKey(spaceId);
+        if (create) {
+            stringRedisTemplate.execute(CREATE_SCRIPT, Collections.singletonList(key), String.valueOf(STATISTICS_TTL.getSeconds()));
+        }
+        // the sequence is read before the database, a transaction committed after it changes the sequence
+        Map<String, String> counters = stringRedisTemplate.<String, String>opsForHash().entries(key);
+        SpaceStatisticsDTO statistics = this.compute(spaceId);
+        if (counters.isEmpty()) {
+            return statistics;
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        // counters no longer found in the database are cleared
+        counters.keySet().stream().filter(SpaceStatisticsServiceImpl::isCounter).forEach(field -> counts.put(field, 0L));
+        counts.putAll(toCounters(statistics));
+        long now = System.currentTimeMillis();
+        List<String> args = new ArrayList<>(counts.size() * 2 + 3);
+        args.add(counters.getOrDefault(SEQUENCE_FIELD, "0"));
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(now - PENDING_TIMEOUT.toMillis()));
+        counts.forEach((field, count) -> {
+            args.add(field);
+            args.add(String.valueOf(count));
+        });
+        Long stored = stringRedisTemplate.execute(RECONCILE_SCRIPT, Collections.singletonList(key), args.toArray());
+        if (stored != null && stored < 0) {
+            log.info("Statistics of space {} changed while being reconciled, reconcile again later", spaceId);
+            this.markDirty(spaceId, now + RETRY_DELAY.toMillis());
+        }
+        return statistics;
+    }
+
+    private SpaceStatisticsDTO compute(String spaceId) {
+        SpaceStatisticsDTO statistics = new SpaceStatisticsDTO();
+        statistics.setMemberCount(iStaticsService.getMemberTotalCountBySpaceId(spaceId));
+        statistics.setTeamCount(iStaticsService.getTeamTotalCountBySpaceId(spaceId));
+        statistics.setAdminCount(iStaticsService.getAdminTotalCountBySpaceId(spaceId));
+        statistics.setRecordCount(iStaticsService.getDatasheetRecordTotalCountBySpaceId(spaceId));
+        ControlStaticsDTO controlStatics = iStaticsService.getFieldRoleTotalCountBySpaceId(spaceId);
+        if (controlStatics != null) {
+            statistics.setNodeRoleCount(SqlTool.retCount(controlStatics.getNodeRoleCount()));
+            statistics.setFieldRoleCount(SqlTool.retCount(controlStatics.getFieldRoleCount()));
+        }
+        iStaticsService.getNodeTypeStaticsBySpaceId(spaceId)
+                .forEach(statics -> statistics.getNodeTypeCounts().put(statics.getType(), statics.getTotal().longValue()));
+        statistics.getViewTypeCounts().putAll(iStaticsService.getViewTypeStaticsBySpaceId(spaceId));
+        return statistics;
+    }
+
+    /**
+     * queue the space for reconciliation, an earlier due time is kept
+     */
+    private void markDirty(String spaceId, long dueTime) {
+        stringRedisTemplate.opsForZSet().addIfAbsent(SPACE_STATISTICS_RECONCILE, spaceId, dueTime);
+    }
+
+    /**
+     * reconcile the dirty spaces whose time has come, one instance reconciles a space at a time
+     */
+    private void reconcileDue() {
+        try {
+            Set<String> spaceIds = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(SPACE_STATISTICS_RECONCILE, 0, System.currentTimeMillis(), 0, RECONCILE_BATCH_SIZE);
+            if (CollUtil.isEmpty(spaceIds)) {
+                return;
+            }
+            for (String spaceId : spaceIds) {
+                String ownerKey = RedisConstants.getSpaceStatisticsOwnerKey(spaceId);
+                if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(ownerKey, instanceId, OWNER_TTL))) {
+                    continue;
+                }
+                try {
+                    // a space marked again while being reconciled is queued again
+                    stringRedisTemplate.opsForZSet().remove(SPACE_STATISTICS_RECONCILE, spaceId);
+                    this.reconcile(spaceId);
+                }
+                catch (Exception e) {
+                    log.error("Reconcile statistics of space {} failed", spaceId, e);
+                    this.markDirty(spaceId, System.currentTimeMillis() + RETRY_DELAY.toMillis());
+                }
+                finally {
+                    stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(ownerKey), instanceId);
+                }
+            }
+        }
+        catch (Exception e) {
+            log.error("Reconcile space statistics failed", e);
+        }
+    }
+
+    private void increment(String spaceId, List<String> args) {
+        if (args.isEmpty()) {
+            return;
+        }
+        List<String> keys = Collections.singletonList(RedisConstants.getSpaceStatisticsKey(spaceId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // committed already, a reconciliation reading the database in between counts it twice until the next one
+            guarded(() -> this.applyIncrement(keys, true, false, args));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            private boolean fenced;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // a reconciliation reading the database from now on sees the change, it is refused until the increment is applied
+                guarded(() -> {
+                    stringRedisTemplate.execute(FENCE_SCRIPT, keys,
+                            String.valueOf(System.currentTimeMillis()), String.valueOf(STATISTICS_TTL.getSeconds()));
+                    fenced = true;
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                if (committed || fenced) {
+                    guarded(() -> applyIncrement(keys, committed, fenced, args));
+                }
+            }
+        });
+    }
+
+    private void applyIncrement(List<String> keys, boolean apply, boolean fenced, List<String> deltas) {
+        List<String> args = new ArrayList<>(deltas.size() + 2);
+        args.add(apply ? "1" : "0");
+        args.add(fenced ? "1" : "0");
+        args.addAll(deltas);
+        stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, args.toArray());
+    }
+
+    /**
+     * counters follow the committed data, a failure is left to the reconciliation
+     */
+    private static void afterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            guarded(runnable);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                guarded(runnable);
+            }
+        });
+    }
+
+    private static void guarded(Runnable runnable) {
+        try {
+            runnable.run();
+        }
+        catch (Exception e) {
+            log.warn("Change space statistics failed", e);
+        }
+    }
+
+    private static boolean isCounter(String field) {
+        return field.startsWith(NODE_TYPE_PREFIX) || field.startsWith(VIEW_TYPE_PREFIX)
+                || Arrays.stream(SpaceCounter.values()).anyMatch(counter -> counter.getField().equals(field));
+    }
+
+    private static Map<String, Long> toCounters(SpaceStatisticsDTO statistics) {
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put(SpaceCounter.MEMBER.getField(), statistics.getMemberCount());
+        counters.put(SpaceCounter.TEAM.getField(), statistics.getTeamCount());
+        counters.put(SpaceCounter.ADMIN.getField(), statistics.getAdminCount());
+        counters.put(SpaceCounter.RECORD.getField(), statistics.getRecordCount());
+        counters.put(SpaceCounter.NODE_ROLE.getField(), statistics.getNodeRoleCount());
+        counters.put(SpaceCounter.FIELD_ROLE.getField(), statistics.getFieldRoleCount());
+        statistics.getNodeTypeCounts().forEach((type, count) -> counters.put(NODE_TYPE_PREFIX + type, count));
+        statistics.getViewTypeCounts().forEach((type, count) -> counters.put(VIEW_TYPE_PREFIX + type, count));
+        return counters;
+    }
+
+    private static List<String> toArgs(String prefix, Map<Integer, Long> counts) {
+        List<String> args = new ArrayList<>(counts.size() * 2);
+        counts.forEach((type, count) -> {
+            if (type != null && count != null) {
+                args.add(prefix + type);
+                args.add(String.valueOf(count));
+            }
+        });
+        return args;
+    }
+
+    private static SpaceStatisticsDTO toStatistics(Map<String, String> counters) {
+        SpaceStatisticsDTO statistics = new SpaceStatisticsDTO();
+        counters.forEach((field, value) -> {
+            long count = NumberUtil.parseLong(value);
+            if (field.startsWith(NODE_TYPE_PREFIX)) {
+                statistics.getNodeTypeCounts().put(NumberUtil.parseInt(field.substring(NODE_TYPE_PREFIX.length())), count);
+            }
+            else if (field.startsWith(VIEW_TYPE_PREFIX)) {
+                statistics.getViewTypeCounts().put(NumberUtil.parseInt(field.substring(VIEW_TYPE_PREFIX.length())), count);
+            }
+            else if (SpaceCounter.MEMBER.getField().equals(field)) {
+                statistics.setMemberCount(count);
+            }
+            else if (SpaceCounter.TEAM.getField().equals(field)) {
+                statistics.setTeamCount(count);
+            }
+            else if (SpaceCounter.ADMIN.getField().equals(field)) {
+                statistics.setAdminCount(count);
+            }
+            else if (SpaceCounter.RECORD.getField().equals(field)) {
+                statistics.setRecordCount(count);
+            }
+            else if (SpaceCounter.NODE_ROLE.getField().equals(field)) {
+                statistics.setNodeRoleCount(count);
+            }
+            else if (SpaceCounter.FIELD_ROLE.getField().equals(field)) {
+                statistics.setFieldRoleCount(count);
+            }
+        });
+        return statistics;
+    }
+}
@@ -180,8 +180,7 @@ public class StaticsServiceImpl implements IStaticsService {
 
     @Override
     public long getTotalFileSizeBySpaceId(String spaceId) {
-        List<Integer> fileSizes = staticsMapper.selectFileSizeBySpaceId(spaceId);
-        return fileSizes.stream().filter(Objects::nonNull).mapToLong(Integer::intValue).sum();
+        return SqlTool.retCount(staticsMapper.sumFileSizeBySpaceId(spaceId));
     }
 
     @Override
@@ -247,30 +246,20 @@ public class StaticsServiceImpl implements IStaticsService {
     }
 
     @Override
-    public DatasheetStaticsDTO getDatasheetStaticsBySpaceId(String spaceId) {
-        DatasheetStaticsDTO viewVO = new DatasheetStaticsDTO();
+    public Map<Integer, Long> getViewTypeStaticsBySpaceId(String spaceId) {
         List<String> objects = staticsMapper.selectDstViewStaticsBySpaceId(spaceId);
-        if (CollUtil.isNotEmpty(objects)) {
-            objects.stream()
-                    .flatMap(o -> JSONUtil.parseArray(o).stream())
-                    .collect(Collectors.groupingBy(Object::toString, Collectors.counting()))
-                    .forEach((k, v) -> {
-                        switch (k) {
-                            case "2":
-                                viewVO.setKanbanViews(v);
-                                break;
-                            case "3":
-                                viewVO.setGalleryViews(v);
-                                break;
-                            case "5":
-                                viewVO.setCalendarViews(v);
-                                break;
-                            case "6":
-                                viewVO.setGanttViews(v);
-                                break;
-                        }
-                    });
+        if (CollUtil.isEmpty(objects)) {
+            return new HashMap<>(0);
         }
-        return viewVO;
+        return objects.stream()
+                .filter(Objects::nonNull)
+                .flatMap(o -> JSONUtil.parseArray(o).stream())
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(o -> Integer.valueOf(o.toString()), Collectors.counting()));
+    }
+
+    @Override
+    public DatasheetStaticsDTO getDatasheetStaticsBySpaceId(String spaceId) {
+        return DatasheetStaticsDTO.of(this.getViewTypeStaticsBySpaceId(spaceId));
     }
 }
@@ -218,7 +218,7 @@ public class TemplateController {
                 constProperties.getTemplateSpace().equals(info.getTypeId())), TemplateException.TEMPLATE_INFO_ERROR);
         // Copy the node to the specified space directory
         String nodeId = iNodeService.copyNodeToSpace(userId, spaceId, ro.getParentId(), info.getNodeId(),
-                NodeCopyOptions.builder().copyData(BooleanUtil.isTrue(ro.getData())).verifyNodeCount(true).sourceTemplateId(ro.getTemplateId()).build());
+                NodeCopyOptions.builder().copyData(BooleanUtil.isTrue(ro.getData())).verifyNodeCount(true).sourceTemplateId(ro.getTemplateId()).async(true).build());
         // Cumulative template usage times
         TaskManager.me().execute(() -> templateMapper.updateUsedTimesByTempId(ro.getTemplateId(), 1));
         // DingTalk template application creation
@@ -18,13 +18,12 @@
 
 package com.apitable.user.mapper;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
-import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Param;
-import org.apache.ibatis.cursor.Cursor;
 
 import com.apitable.space.vo.InviteUserInfo;
 import com.apitable.user.entity.UserEntity;
@@ -151,14 +150,23 @@ public interface UserMapper extends BaseMapper<UserEntity> {
     List<UserEntity> selectByUuIds(@Param("uuids") List<String> uuids);
 
     /**
-     * todo Want to add created at as an index, and then partition according to time when there is a large amount of data
-     * The cursor queries all user IDs of the current time
+     * Query the current time of the database, compared with the created time of users
      *
-     * @param ignoreDelete Ignore Delete
-     * @return Cursor<Long>
+     * @return current time
      */
-    @InterceptorIgnore(illegalSql = "true")
-    Cursor<Long> selectAllUserIdByIgnoreDelete(@Param("ignoreDelete") boolean ignoreDelete);
+    LocalDateTime selectCurrentTime();
+
+    /**
+     * Query a page of user IDs ordered by ID, keyset paging
+     *
+     * @param lastId        the last ID of previous page, exclusive
+     * @param createdBefore users created no later than
+     * @param limit         page size
+     * @param ignoreDelete  Ignore Delete
+     * @return user ids
+     */
+    List<Long> selectIdsAfterId(@Param("lastId") Long lastId, @Param("createdBefore") LocalDateTime createdBefore,
+            @Param("limit") int limit, @Param("ignoreDelete") boolean ignoreDelete);
 
     /**
      * Modify user's mobile number
@@ -50,6 +50,7 @@ import com.apitable.shared.cache.bean.OpenedSheet;
 import com.apitable.shared.cache.bean.UserLinkInfo;
 import com.apitable.shared.cache.bean.UserSpaceDto;
 import com.apitable.shared.cache.service.LoginUserCacheService;
+import com.apitable.shared.cache.service.PermissionCacheService;
 import com.apitable.shared.cache.service.UserActiveSpaceCacheService;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
 import com.apitable.shared.cache.service.UserSpaceOpenedSheetCacheService;
@@ -144,6 +145,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, UserEntity> impleme
     @Resource
     private UserSpaceOpenedSheetCacheService userSpaceOpenedSheetCacheService;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
     @Resource
     private INodeShareService nodeShareService;
 
@@ -865,6 +869,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, UserEntity> impleme
         if (CollUtil.isNotEmpty(delMember)) {
             iMemberService.removeByMemberIds(delMember);
         }
+        // the activated and deleted members are written directly, drop their cached units
+        permissionCacheService.invalidateMembers(inactiveMembers.stream().map(MemberDTO::getId).collect(Collectors.toList()));
         return true;
     }
 
@@ -18,9 +18,10 @@
 
 package com.apitable.workspace.controller;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +41,7 @@ import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ReaderInputStream;
 
 import com.apitable.base.enums.ActionException;
 import com.apitable.base.enums.ParameterException;
@@ -83,6 +84,7 @@ import com.apitable.workspace.ro.NodeMoveOpRo;
 import com.apitable.workspace.ro.NodeOpRo;
 import com.apitable.workspace.ro.NodeUpdateOpRo;
 import com.apitable.workspace.ro.NodeBundleOpRo;
+import com.apitable.workspace.vo.NodeCopyJobVo;
 import com.apitable.workspace.vo.NodeInfo;
 import com.apitable.workspace.vo.NodeInfoTreeVo;
 import com.apitable.workspace.vo.NodeInfoVo;
@@ -103,6 +105,7 @@ import com.apitable.workspace.mapper.NodeFavoriteMapper;
 import com.apitable.workspace.mapper.NodeShareSettingMapper;
 import com.apitable.workspace.dto.NodeCopyEffectDTO;
 import com.apitable.workspace.service.IDatasheetService;
+import com.apitable.workspace.service.INodeCopyJobService;
 import com.apitable.workspace.service.INodeDescService;
 import com.apitable.workspace.service.INodeRelService;
 import com.apitable.workspace.service.INodeService;
@@ -151,6 +154,9 @@ public class NodeController {
     @Resource
     private NodeBundleService nodeBundleService;
 
+    @Resource
+    private INodeCopyJobService iNodeCopyJobService;
+
     @Resource
     private IUnitService unitService;
 
@@ -537,6 +543,35 @@ public class NodeController {
         return ResponseData.success(iNodeService.getNodeInfoByNodeId(spaceId, copyEffect.getCopyNodeId(), role));
     }
 
+    @GetResource(path = "/copy/{nodeId}/job", requiredPermission = false)
+    @ApiOperation(value = "Get node copy job", notes = "datasheets of a copied folder are filled in background, the progress is also pushed to the space")
+    @ApiImplicitParam(name = "nodeId", value = "copied node id", required = true, dataTypeClass = String.class, paramType = "path", example = "fod8mXUeiXyVo")
+    public ResponseData<NodeCopyJobVo> copyJob(@PathVariable("nodeId") String nodeId) {
+        // The method includes determining whether a node exists.
+        String spaceId = iNodeService.getSpaceIdByNodeId(nodeId);
+        // The method includes determining whether the user is in this space.
+        Long memberId = LoginContext.me().getUserSpaceDto(spaceId).getMemberId();
+        // check node permissions
+        controlTemplate.checkNodePermission(memberId, nodeId, NodePermission.READ_NODE,
+                status -> ExceptionUtil.isTrue(status, PermissionException.NODE_OPERATION_DENIED));
+        return ResponseData.success(iNodeCopyJobService.getJob(nodeId));
+    }
+
+    @PostResource(path = "/copy/{nodeId}/job/retry", requiredPermission = false)
+    @ApiOperation(value = "Retry node copy job", notes = "copy the datasheets failed in the job again, return false if nothing to retry")
+    @ApiImplicitParam(name = "nodeId", value = "copied node id", required = true, dataTypeClass = String.class, paramType = "path", example = "fod8mXUeiXyVo")
+    public ResponseData<Boolean> retryCopyJob(@PathVariable("nodeId") String nodeId) {
+        Long userId = SessionContext.getUserId();
+        // The method includes determining whether a node exists.
+        String spaceId = iNodeService.getSpaceIdByNodeId(nodeId);
+        // The method includes determining whether the user is in this space.
+        Long memberId = LoginContext.me().getMemberId(userId, spaceId);
+        // check whether the node has the specified operation permission
+        controlTemplate.checkNodePermission(memberId, nodeId, NodePermission.MANAGE_NODE,
+                status -> ExceptionUtil.isTrue(status, PermissionException.NODE_OPERATION_DENIED));
+        return ResponseData.success(iNodeCopyJobService.retry(nodeId));
+    }
+
     @GetResource(path = "/exportBundle", requiredPermission = false)
     @ApiOperation(value = "Export Bundle")
     @ApiImplicitParams({
@@ -615,9 +650,9 @@ public class NodeController {
         if (FileSuffixConstants.CSV.equals(fileSuffix)) {
             // identification file code
             String encoding = FileTool.identifyCoding(data.getFile().getInputStream());
-            // Regenerate the byte stream according to the identification file encoding
-            InputStream targetInputStream =
-                    new ByteArrayInputStream(IOUtils.toString(data.getFile().getInputStream(), encoding).getBytes());
+            // Transcode the byte stream according to the identification file encoding, without reading the whole file into memory
+            InputStream targetInputStream = new ReaderInputStream(
+                    new InputStreamReader(data.getFile().getInputStream(), encoding), Charset.defaultCharset());
             createNodeId = iNodeService.parseCsv(userId, uuid, spaceId, memberId, data.getParentId(), mainName, targetInputStream);
         }
         else {
@@ -24,14 +24,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import com.apitable.workspace.ro.MetaMapRo;
+import com.apitable.workspace.support.DatasheetMeta;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class NodeCopyDTO {
 
-    private MetaMapRo metaMapRo;
+    private DatasheetMeta meta;
 
     private List<String> delFieldIds;
 
@@ -0,0 +1,66 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.apitable.workspace.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * node copy job, datasheets of the copied folder to be filled
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NodeCopyJobDTO {
+
+    private Long userId;
+
+    private String spaceId;
+
+    /**
+     * id of the copied node, also the id of the job
+     */
+    private String nodeId;
+
+    private NodeCopyOptions options;
+
+    /**
+     * original node id -> new node id
+     */
+    private Map<String, String> newNodeMap;
+
+    private List<Datasheet> datasheets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Datasheet {
+
+        private String sourceDstId;
+
+        private String dstId;
+
+        private String dstName;
+    }
+}
@@ -79,6 +79,11 @@ public class NodeCopyOptions implements Serializable {
      */
     private Map<String, List<String>> dstPermissionFieldsMap;
 
+    /**
+     * whether the datasheets of a folder are copied by a background job after the node tree is saved
+     */
+    private boolean async;
+
     /**
      * node id generated in advance for asynchronous tasks
      */
@@ -37,7 +37,9 @@ public enum ViewType {
 
     FORM(4),
 
-    CALENDAR(5);
+    CALENDAR(5),
+
+    GANTT(6);
 
     private int type;
 
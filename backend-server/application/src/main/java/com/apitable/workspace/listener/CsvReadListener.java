@@ -27,30 +27,25 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
 
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
-import cn.hutool.json.JSONUtil;
 import com.alibaba.excel.context.AnalysisContext;
 import com.alibaba.excel.event.AnalysisEventListener;
-import com.alibaba.excel.util.ListUtils;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
-import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.transaction.support.TransactionOperations;
+
 import com.apitable.workspace.dto.NodeData;
-import com.apitable.workspace.enums.FieldType;
-import com.apitable.workspace.enums.ViewType;
-import com.apitable.workspace.ro.FieldMapRo;
-import com.apitable.workspace.ro.RecordDataRo;
 import com.apitable.workspace.service.INodeService;
 import com.apitable.shared.util.IdUtil;
 import com.apitable.shared.sysconfig.i18n.I18nStringsUtil;
 import com.apitable.workspace.enums.NodeType;
 import com.apitable.workspace.entity.DatasheetEntity;
 import com.apitable.workspace.entity.DatasheetMetaEntity;
-import com.apitable.workspace.entity.DatasheetRecordEntity;
 import com.apitable.workspace.entity.NodeEntity;
 
 /**
@@ -59,18 +54,11 @@ import com.apitable.workspace.entity.NodeEntity;
 @Slf4j
 public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>> {
 
-    /**
-     * Store the database every 100, and then clean it up to facilitate memory recovery.
-     */
-    private static final int BATCH_COUNT = 100;
-
-    private List<DatasheetRecordEntity> recordEntities = ListUtils.newArrayListWithExpectedSize(BATCH_COUNT);
+    private final RecordImportPipeline importPipeline;
 
     private Map<Integer, String> sheetHeadMap;
 
-    private Meta meta;
-
-    private JSONObject fieldUpdatedInfo = new JSONObject();
+    private DatasheetImportMeta meta;
 
     private String retNodeId;
 
@@ -86,7 +74,7 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
 
     private final String fileName;
 
-    public CsvReadListener(INodeService iNodeService, Long userId, String uuid, String spaceId, Long memberId, String parentNodeId, String fileName) {
+    public CsvReadListener(INodeService iNodeService, Executor executor, TransactionOperations cleanupTransaction, Long userId, String uuid, String spaceId, Long memberId, String parentNodeId, String fileName) {
         this.iNodeService = iNodeService;
         this.userId = userId;
         this.spaceId = spaceId;
@@ -96,8 +84,10 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
 
         this.retNodeId = IdUtil.createDstId();
 
+        JSONObject fieldUpdatedInfo = new JSONObject();
         fieldUpdatedInfo.set("createdAt", Instant.now(Clock.system(ZoneId.of("+8"))).toEpochMilli());
         fieldUpdatedInfo.set("createdBy", uuid);
+        this.importPipeline = new RecordImportPipeline(iNodeService, executor, cleanupTransaction, userId, fieldUpdatedInfo.toString());
     }
 
     @Override
@@ -109,40 +99,13 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
     private void initHead(Map<Integer, String> headMap, AnalysisContext context) {
         // Column length, possibly 0
         int headSize = headMap.size();
-        meta = new Meta(headSize);
+        // The sequence definition order for the first default view,
+        meta = new DatasheetImportMeta(headSize, I18nStringsUtil.t("default_view"), false);
 
         sheetHeadMap = new LinkedHashMap<>(headSize);
 
-        // The sequence definition order for the first default view,
-        View view = new View(headSize, 0);
-        view.id = IdUtil.createViewId();
-        view.name = I18nStringsUtil.t("default_view");
-        view.type = ViewType.GRID.getType();
-        view.frozenColumnCount = 1;
-
-        // traverse columns in order
-        headMap.forEach((index, cellValue) -> {
-            String fieldName = StrUtil.isBlank(cellValue) ? String.format("the %d col", index + 1) : cellValue;
-            String fieldId = IdUtil.createFieldId();
-            // storage column id
-            sheetHeadMap.put(index, fieldId);
-            meta.fieldMap.putOnce(fieldId,
-                    FieldMapRo.builder()
-                            .id(fieldId)
-                            .name(fieldName)
-                            .type(FieldType.TEXT.getFieldType())
-                            .build()
-            );
-            // view column
-            Column column = new Column(fieldId);
-            if (index == 0) {
-                // Add the total number of statistical records in the first column
-                column.statType = 1;
-            }
-            view.columns.add(column);
-        });
-
-        meta.views.add(view);
+        // traverse columns in order, storage column id
+        headMap.forEach((index, cellValue) -> sheetHeadMap.put(index, meta.addField(index, cellValue)));
     }
 
     @Override
@@ -152,23 +115,7 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
             if (!data.isEmpty()) {
                 sheetHeadMap = new LinkedHashMap<>(data.size());
                 for (int index = 0; index < data.size(); index++) {
-                    String fieldName = String.format("the %d col", index + 1);
-                    String fieldId = IdUtil.createFieldId();
-                    sheetHeadMap.put(index, fieldId);
-                    meta.fieldMap.putOnce(fieldId,
-                            FieldMapRo.builder()
-                                    .id(fieldId)
-                                    .name(fieldName)
-                                    .type(FieldType.TEXT.getFieldType())
-                                    .build()
-                    );
-                    // view column
-                    Column column = new Column(fieldId);
-                    if (index == 0) {
-                        // Add the total number of statistical records in the first column
-                        column.statType = 1;
-                    }
-                    meta.views.get(0).columns.add(column);
+                    sheetHeadMap.put(index, meta.addField(index, null));
                 }
             }
         }
@@ -180,53 +127,23 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
                     // such as: 0 -> the first column, 1-> the second column, 2 -> the third column.
                     // then the following columns need to be complete，
                     for (int index = sheetHeadMap.size(); index < data.size(); index++) {
-                        String fieldName = String.format("the %d col", index + 1);
-                        String fieldId = IdUtil.createFieldId();
-                        sheetHeadMap.put(index, fieldId);
-                        meta.fieldMap.putOnce(fieldId,
-                                FieldMapRo.builder()
-                                        .id(fieldId)
-                                        .name(fieldName)
-                                        .type(FieldType.TEXT.getFieldType())
-                                        .build()
-                        );
-                        // view column
-                        meta.views.get(0).columns.add(new Column(fieldId));
+                        sheetHeadMap.put(index, meta.addField(index, null));
                     }
                 }
             }
         }
 
         String recordId = IdUtil.createRecordId();
-        meta.views.get(0).rows.add(new Row(recordId));
-
-        JSONObject recordData = new JSONObject();
+        meta.addRow(recordId);
 
+        // the cell text is encoded into record data by the import pipeline
+        Map<String, String> cells = new LinkedHashMap<>(data.size());
         for (Entry<Integer, String> entry : data.entrySet()) {
             if ((StrUtil.isNotBlank(entry.getValue()))) {
-                recordData.putOnce(sheetHeadMap.get(entry.getKey()), JSONUtil.createArray().set(RecordDataRo.builder().text(entry.getValue()).type(FieldType.TEXT.getFieldType()).build()));
+                cells.putIfAbsent(sheetHeadMap.get(entry.getKey()), entry.getValue());
             }
         }
-
-        recordEntities.add(DatasheetRecordEntity.builder()
-                .id(IdWorker.getId())
-                .dstId(retNodeId)
-                .recordId(recordId)
-                .data(recordData.toString())
-                .fieldUpdatedInfo(fieldUpdatedInfo.toString())
-                .createdBy(userId)
-                .updatedBy(userId)
-                .build());
-
-        if (recordEntities.size() >= BATCH_COUNT) {
-            saveRecords();
-            recordEntities = ListUtils.newArrayListWithExpectedSize(BATCH_COUNT);
-        }
-    }
-
-    public void saveRecords() {
-        log.info("save line records in batches");
-        iNodeService.batchSaveDstRecords(recordEntities);
+        importPipeline.add(retNodeId, recordId, cells);
     }
 
     @Override
@@ -237,6 +154,9 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
             initHead(MapUtil.of(0, "标题"), context);
         }
 
+        // wait for all records to be saved
+        importPipeline.finish();
+
         List<NodeEntity> nodeEntities = new ArrayList<>();
         nodeEntities.add(NodeEntity.builder()
                 .id(IdWorker.getId())
@@ -266,7 +186,7 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
         metaEntities.add(DatasheetMetaEntity.builder()
                 .id(IdWorker.getId())
                 .dstId(retNodeId)
-                .metaData(JSONUtil.toJsonStr(meta))
+                .metaData(meta.toJson())
                 .revision(0L)
                 .createdBy(userId)
                 .updatedBy(userId)
@@ -276,91 +196,29 @@ public class CsvReadListener extends AnalysisEventListener<Map<Integer, String>>
         long begin = System.currentTimeMillis();
         iNodeService.batchCreateDataSheet(
                 new NodeData(null, retNodeId, null, null, parentNodeId),
-                nodeEntities, datasheetEntities, metaEntities, recordEntities
+                nodeEntities, datasheetEntities, metaEntities, new ArrayList<>()
         );
         long end = System.currentTimeMillis();
         log.info("insert complete: {}", Duration.ofMillis(end - begin).getSeconds());
     }
 
-    public String getRetNodeId() {
-        return retNodeId;
-    }
-
-    @Data
-    static class Meta {
-
-        Views views;
-
-        JSONObject fieldMap;
-
-        Meta(int fieldSize) {
-            views = new Views();
-            fieldMap = new JSONObject(fieldSize, true);
-        }
-    }
-
-    static class Views extends ArrayList<View> {
-
-        public Views() {
-            super(1);
-        }
-    }
-
-    @Data
-    static class View {
-
-        String id;
-
-        String name;
-
-        Integer type;
-
-        Integer frozenColumnCount;
-
-        Boolean authSave = false;
-
-        Columns columns;
-
-        Rows rows;
-
-        public View(int columnSize, int rowSize) {
-            columns = new Columns(columnSize);
-            rows = new Rows(rowSize);
-        }
-    }
-
-    static class Columns extends ArrayList<Column> {
-
-        public Columns(int initialCapacity) {
-            super(initialCapacity);
-        }
-    }
-
-    @Data
-    static class Column {
-
-        public Column(String fieldId) {
-            this.fieldId = fieldId;
-        }
-
-        String fieldId;
-
-        Integer statType;
+    /**
+     * stop the import after a failure, the records have been saved are deleted
+     */
+    public void abort() {
+        importPipeline.abort();
     }
 
-    static class Rows extends ArrayList<Row> {
-
-        public Rows(int initialCapacity) {
-            super(initialCapacity);
+    /**
+     * release the temporary resources of the import
+     */
+    public void close() {
+        if (meta != null) {
+            meta.close();
         }
     }
 
-    @Data
-    static class Row {
-        String recordId;
-
-        public Row(String recordId) {
-            this.recordId = recordId;
-        }
+    public String getRetNodeId() {
+        return retNodeId;
     }
 }
@@ -0,0 +1,231 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.listener;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.hutool.core.io.IORuntimeException;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONObject;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import com.apitable.shared.util.IdUtil;
+import com.apitable.workspace.enums.FieldType;
+import com.apitable.workspace.enums.ViewType;
+import com.apitable.workspace.ro.FieldMapRo;
+
+/**
+ * <p>
+ * meta of an imported datasheet, with the text fields and the default grid view.
+ * the row order is spilled to a temporary file when it exceeds the memory threshold,
+ * and the meta is written as json in a streaming way.
+ * </p>
+ */
+@Slf4j
+public class DatasheetImportMeta implements Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * the number of record ids kept in memory before spilling to disk
+     */
+    private static final int DEFAULT_ROW_MEMORY_THRESHOLD = 10000;
+
+    private final JSONObject fieldMap;
+
+    private final List<String> columnFieldIds;
+
+    private final String viewId;
+
+    private final String viewName;
+
+    private final Boolean authSave;
+
+    private final int rowMemoryThreshold;
+
+    private final List<String> rows;
+
+    private int rowCount;
+
+    private Path spillFile;
+
+    private BufferedWriter spillWriter;
+
+    public DatasheetImportMeta(int fieldSize, String viewName, Boolean authSave) {
+        this(fieldSize, viewName, authSave, DEFAULT_ROW_MEMORY_THRESHOLD);
+    }
+
+    DatasheetImportMeta(int fieldSize, String viewName, Boolean authSave, int rowMemoryThreshold) {
+        this.fieldMap = new JSONObject(fieldSize, true);
+        this.columnFieldIds = new ArrayList<>(fieldSize);
+        this.viewId = IdUtil.createViewId();
+        this.viewName = viewName;
+        this.authSave = authSave;
+        this.rowMemoryThreshold = rowMemoryThreshold;
+        this.rows = new ArrayList<>(Math.min(rowMemoryThreshold, 1024));
+    }
+
+    /**
+     * add a text field and its view column
+     *
+     * @param index     column index
+     * @param fieldName field name, blank will be named by the column index
+     * @return field id
+     */
+    public String addField(int index, String fieldName) {
+        String fieldId = IdUtil.createFieldId();
+        fieldMap.putOnce(fieldId,
+                FieldMapRo.builder()
+                        .id(fieldId)
+                        .name(StrUtil.isBlank(fieldName) ? String.format("the %d col", index + 1) : fieldName)
+                        .type(FieldType.TEXT.getFieldType())
+                        .build()
+        );
+        columnFieldIds.add(fieldId);
+        return fieldId;
+    }
+
+    public int getFieldCount() {
+        return columnFieldIds.size();
+    }
+
+    /**
+     * append a record to the row order of the default view
+     *
+     * @param recordId record id
+     */
+    public void addRow(String recordId) {
+        rowCount++;
+        rows.add(recordId);
+        if (rows.size() >= rowMemoryThreshold) {
+            spillRows();
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * write the meta as json, the spilled rows are read back in order
+     *
+     * @return meta json
+     */
+    public String toJson() {
+        StringWriter writer = new StringWriter(256 + rowCount * 32);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            gen.writeStartObject();
+            gen.writeFieldName("fieldMap");
+            gen.writeRawValue(fieldMap.toString());
+            gen.writeArrayFieldStart("views");
+            gen.writeStartObject();
+            gen.writeStringField("id", viewId);
+            gen.writeStringField("name", viewName);
+            gen.writeNumberField("type", ViewType.GRID.getType());
+            gen.writeNumberField("frozenColumnCount", 1);
+            if (authSave != null) {
+                gen.writeBooleanField("authSave", authSave);
+            }
+            gen.writeArrayFieldStart("columns");
+            for (int i = 0; i < columnFieldIds.size(); i++) {
+                gen.writeStartObject();
+                gen.writeStringField("fieldId", columnFieldIds.get(i));
+                if (i == 0) {
+                    // Add the total number of statistical records in the first column
+                    gen.writeNumberField("statType", 1);
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("rows");
+            if (spillWriter != null) {
+                spillWriter.flush();
+                try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                    String recordId;
+                    while ((recordId = reader.readLine()) != null) {
+                        writeRow(gen, recordId);
+                    }
+                }
+            }
+            for (String recordId : rows) {
+                writeRow(gen, recordId);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        return writer.toString();
+    }
+
+    @Override
+    public void close() {
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+            Files.deleteIfExists(spillFile);
+        }
+        catch (IOException e) {
+            log.warn("Failed to delete row order spill file: {}", spillFile, e);
+        }
+        finally {
+            spillWriter = null;
+            spillFile = null;
+        }
+    }
+
+    private void spillRows() {
+        try {
+            if (spillWriter == null) {
+                spillFile = Files.createTempFile("datasheet-import-", ".rows");
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+            }
+            for (String recordId : rows) {
+                spillWriter.write(recordId);
+                spillWriter.newLine();
+            }
+        }
+        catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        rows.clear();
+    }
+
+    private static void writeRow(JsonGenerator gen, String recordId) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("recordId", recordId);
+        gen.writeEndObject();
+    }
+}
@@ -26,26 +26,20 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executor;
 
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
-import cn.hutool.json.JSONUtil;
 import com.alibaba.excel.context.AnalysisContext;
 import com.alibaba.excel.event.AnalysisEventListener;
 import com.alibaba.excel.read.metadata.ReadSheet;
-import com.alibaba.excel.util.ListUtils;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
-import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import com.apitable.base.enums.ActionException;
 import com.apitable.shared.config.properties.LimitProperties;
 import com.apitable.workspace.dto.NodeData;
-import com.apitable.workspace.enums.FieldType;
-import com.apitable.workspace.enums.ViewType;
-import com.apitable.workspace.ro.FieldMapRo;
-import com.apitable.workspace.ro.RecordDataRo;
 import com.apitable.workspace.service.INodeService;
 import com.apitable.shared.util.IdUtil;
 import com.apitable.shared.sysconfig.i18n.I18nStringsUtil;
@@ -53,9 +47,9 @@ import com.apitable.workspace.enums.NodeType;
 import com.apitable.core.util.ExceptionUtil;
 import com.apitable.workspace.entity.DatasheetEntity;
 import com.apitable.workspace.entity.DatasheetMetaEntity;
-import com.apitable.workspace.entity.DatasheetRecordEntity;
 import com.apitable.workspace.entity.NodeEntity;
 
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.util.StopWatch;
 
 /**
@@ -64,12 +58,7 @@ import org.springframework.util.StopWatch;
 @Slf4j
 public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, String>> {
 
-    /**
-     * Store the database every 100, and then clean it up to facilitate memory recovery.
-     */
-    private static final int BATCH_COUNT = 100;
-
-    private List<DatasheetRecordEntity> recordEntities = ListUtils.newArrayListWithExpectedSize(BATCH_COUNT);
+    private final RecordImportPipeline importPipeline;
 
     /**
      * sheet[index] -> index head
@@ -78,9 +67,7 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
 
     private Map<String, NodeData> nodeMap = new LinkedHashMap<>();
 
-    private Map<String, Meta> metaMap = new LinkedHashMap<>();
-
-    private JSONObject fieldUpdatedInfo = new JSONObject();
+    private Map<String, DatasheetImportMeta> metaMap = new LinkedHashMap<>();
 
     private INodeService iNodeService;
 
@@ -98,7 +85,7 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
 
     private NodeData retNodeData = null;
 
-    public MultiSheetReadListener(INodeService iNodeService, Long userId, String uuid, String spaceId, Long memberId, String parentNodeId, String fileName) {
+    public MultiSheetReadListener(INodeService iNodeService, Executor executor, TransactionOperations cleanupTransaction, Long userId, String uuid, String spaceId, Long memberId, String parentNodeId, String fileName) {
         this.iNodeService = iNodeService;
         this.userId = userId;
         this.spaceId = spaceId;
@@ -106,8 +93,10 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
         this.parentNodeId = parentNodeId;
         this.fileName = fileName;
 
+        JSONObject fieldUpdatedInfo = new JSONObject();
         fieldUpdatedInfo.set("createdAt", Instant.now(Clock.system(ZoneId.of("+8"))).toEpochMilli());
         fieldUpdatedInfo.set("createdBy", uuid);
+        this.importPipeline = new RecordImportPipeline(iNodeService, executor, cleanupTransaction, userId, fieldUpdatedInfo.toString());
     }
 
     @Override
@@ -141,42 +130,15 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
 
         // Consider deleting, consuming memory
         Map<Integer, String> headerMap = new LinkedHashMap<>(headSize);
-        Meta meta = new Meta(headSize);
-
         // The sequence definition order for the first default view,
-        int totalRow = context.readSheetHolder().getApproximateTotalRowNumber() != null ? context.readSheetHolder().getApproximateTotalRowNumber() : 0;
-        View view = new View(headSize, totalRow);
-        view.id = IdUtil.createViewId();
-        view.name = I18nStringsUtil.t("default_view");
-        view.type = ViewType.GRID.getType();
-        view.frozenColumnCount = 1;
-
-        // traverse columns in order
-        headMap.forEach((index, cellValue) -> {
-            String fieldName = StrUtil.isBlank(cellValue) ? String.format("the %d col", index + 1) : cellValue;
-            String fieldId = IdUtil.createFieldId();
-            // storage column id
-            headerMap.put(index, fieldId);
-            meta.fieldMap.putOnce(fieldId,
-                    FieldMapRo.builder()
-                            .id(fieldId)
-                            .name(fieldName)
-                            .type(FieldType.TEXT.getFieldType())
-                            .build()
-            );
-            // view column
-            Column column = new Column(fieldId);
-            if (index == 0) {
-                // Add the total number of statistical records in the first column
-                column.statType = 1;
-            }
-            view.columns.add(column);
-        });
+        DatasheetImportMeta meta = new DatasheetImportMeta(headSize, I18nStringsUtil.t("default_view"), null);
 
-        sheetHeadMap.put(sheetName, headerMap);
+        // traverse columns in order, storage column id
+        headMap.forEach((index, cellValue) -> headerMap.put(index, meta.addField(index, cellValue)));
 
-        meta.views.add(view);
+        sheetHeadMap.put(sheetName, headerMap);
         metaMap.put(sheetName, meta);
+        log.info("Actual total number of rows (including header): {}", context.readSheetHolder().getApproximateTotalRowNumber());
     }
 
     @Override
@@ -184,11 +146,10 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
         // 2. One line parsing data (if it is a blank sheet, it will not be called here)
         String sheetName = context.readSheetHolder().getSheetName();
         Map<Integer, String> headerMap = sheetHeadMap.get(sheetName);
-        Meta meta = metaMap.get(sheetName);
+        DatasheetImportMeta meta = metaMap.get(sheetName);
 
         // More than 50,000 rows are not allowed to write to the number table.
         Integer totalRowsIncludingHeader = context.readSheetHolder().getApproximateTotalRowNumber();
-        log.info("Actual total number of rows (including header): {}", totalRowsIncludingHeader);
         if (totalRowsIncludingHeader != null) {
             ExceptionUtil.isTrue(totalRowsIncludingHeader - 1 <= limitProperties.getMaxRowCount(), ActionException.ROW_EXCEED_LIMIT);
         }
@@ -201,23 +162,7 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
             // The column header is empty, and all columns are filled according to the current number of rows.
             headerMap = new LinkedHashMap<>(data.size());
             for (int index = 0; index < data.size(); index++) {
-                String fieldName = String.format("the %d col", index + 1);
-                String fieldId = IdUtil.createFieldId();
-                headerMap.put(index, fieldId);
-                meta.fieldMap.putOnce(fieldId,
-                        FieldMapRo.builder()
-                                .id(fieldId)
-                                .name(fieldName)
-                                .type(FieldType.TEXT.getFieldType())
-                                .build()
-                );
-                // view column
-                Column column = new Column(fieldId);
-                if (index == 0) {
-                    // Add the total number of statistical records in the first column
-                    column.statType = 1;
-                }
-                meta.views.get(0).columns.add(column);
+                headerMap.put(index, meta.addField(index, null));
             }
             sheetHeadMap.put(sheetName, headerMap);
         }
@@ -232,48 +177,23 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
                 // such as: 0 -> the first column, 1-> the second column, 2 -> the third column.
                 // then the following columns need to be complete，
                 for (int index = headerMap.size(); index < data.size(); index++) {
-                    String fieldName = String.format("the %d col", index + 1);
-                    String fieldId = IdUtil.createFieldId();
-                    headerMap.put(index, fieldId);
-                    meta.fieldMap.putOnce(fieldId,
-                            FieldMapRo.builder()
-                                    .id(fieldId)
-                                    .name(fieldName)
-                                    .type(FieldType.TEXT.getFieldType())
-                                    .build()
-                    );
-                    // view column
-                    meta.views.get(0).columns.add(new Column(fieldId));
+                    headerMap.put(index, meta.addField(index, null));
                 }
                 sheetHeadMap.put(sheetName, headerMap);
             }
         }
 
         String recordId = IdUtil.createRecordId();
-        meta.views.get(0).rows.add(new Row(recordId));
-
-        JSONObject recordData = new JSONObject();
+        meta.addRow(recordId);
 
+        // the cell text is encoded into record data by the import pipeline
+        Map<String, String> cells = new LinkedHashMap<>(data.size());
         for (Entry<Integer, String> entry : data.entrySet()) {
             if ((StrUtil.isNotBlank(entry.getValue()))) {
-                recordData.putOnce(headerMap.get(entry.getKey()), JSONUtil.createArray().set(RecordDataRo.builder().text(entry.getValue()).type(FieldType.TEXT.getFieldType()).build()));
+                cells.putIfAbsent(headerMap.get(entry.getKey()), entry.getValue());
             }
         }
-
-        recordEntities.add(DatasheetRecordEntity.builder()
-                .id(IdWorker.getId())
-                .dstId(nodeMap.get(sheetName).getNodeId())
-                .recordId(recordId)
-                .data(recordData.toString())
-                .fieldUpdatedInfo(fieldUpdatedInfo.toString())
-                .createdBy(userId)
-                .updatedBy(userId)
-                .build());
-
-        if (recordEntities.size() >= BATCH_COUNT) {
-            saveRecords();
-            recordEntities = ListUtils.newArrayListWithExpectedSize(BATCH_COUNT);
-        }
+        importPipeline.add(nodeMap.get(sheetName).getNodeId(), recordId, cells);
     }
 
     @Override
@@ -298,6 +218,8 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
         if (currentSheetIndex == totalSheetSize) {
             // All parsing has been completed, and batch data insertion is performed.
             log.info("Complete parsing and insert data ");
+            // wait for all records to be saved
+            importPipeline.finish();
             saveData(context.readWorkbookHolder().getParameterSheetDataList());
         }
     }
@@ -350,11 +272,10 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
 
             datasheetEntities.add(datasheet);
 
-            Meta meta = metaMap.get(readSheet.getSheetName());
             DatasheetMetaEntity metaEntity = DatasheetMetaEntity.builder()
                     .id(IdWorker.getId())
                     .dstId(nodeData.getNodeId())
-                    .metaData(JSONUtil.toJsonStr(meta))
+                    .metaData(metaMap.get(readSheet.getSheetName()).toJson())
                     .revision(0L)
                     .createdBy(userId)
                     .updatedBy(userId)
@@ -367,95 +288,27 @@ public class MultiSheetReadListener extends AnalysisEventListener<Map<Integer, S
         stopWatch.start();
         iNodeService.batchCreateDataSheet(
                 new NodeData(null, retNodeData.getNodeId(), null, null, retNodeData.getParentId()),
-                nodeEntities, datasheetEntities, metaEntities, recordEntities
+                nodeEntities, datasheetEntities, metaEntities, new ArrayList<>()
         );
         stopWatch.stop();
         log.info("Insert complete: {}", stopWatch.prettyPrint());
     }
 
-    public void saveRecords() {
-        log.info("save line records in batches");
-        iNodeService.batchSaveDstRecords(recordEntities);
-        log.info("storage successfully");
-    }
-
-    public NodeData getRetNodeData() {
-        return retNodeData;
-    }
-
-    @Data
-    static class Meta {
-
-        Views views;
-
-        JSONObject fieldMap;
-
-        Meta(int fieldSize) {
-            views = new Views();
-            fieldMap = new JSONObject(fieldSize, true);
-        }
-    }
-
-    static class Views extends ArrayList<View> {
-
-        public Views() {
-            super(1);
-        }
-    }
-
-    @Data
-    static class View {
-
-        String id;
-
-        String name;
-
-        Integer type;
-
-        Integer frozenColumnCount;
-
-        Columns columns;
-
-        Rows rows;
-
-        public View(int columnSize, int rowSize) {
-            columns = new Columns(columnSize);
-            rows = new Rows(rowSize);
-        }
-    }
-
-    static class Columns extends ArrayList<Column> {
-
-        public Columns(int initialCapacity) {
-            super(initialCapacity);
-        }
-    }
-
-    @Data
-    static class Column {
-
-        public Column(String fieldId) {
-            this.fieldId = fieldId;
-        }
-
-        String fieldId;
-
-        Integer statType;
+    /**
+     * stop the import after a failure, the records have been saved are deleted
+     */
+    public void abort() {
+        importPipeline.abort();
     }
 
-    static class Rows extends ArrayList<Row> {
-
-        public Rows(int initialCapacity) {
-            super(initialCapacity);
-        }
+    /**
+     * release the temporary resources of the import
+     */
+    public void close() {
+        metaMap.values().forEach(DatasheetImportMeta::close);
     }
 
-    @Data
-    static class Row {
-        String recordId;
-
-        public Row(String recordId) {
-            this.recordId = recordId;
-        }
+    public NodeData getRetNodeData() {
+        return retNodeData;
     }
 }
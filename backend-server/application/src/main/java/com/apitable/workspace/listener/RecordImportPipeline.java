@@ -0,0 +1,325 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.listener;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.hutool.core.io.IORuntimeException;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.apitable.core.exception.BusinessException;
+import com.apitable.workspace.entity.DatasheetRecordEntity;
+import com.apitable.workspace.enums.FieldType;
+import com.apitable.workspace.service.INodeService;
+
+/**
+ * <p>
+ * record import pipeline.
+ * the reading thread only collects the cell text of rows, every batch of rows is encoded into records
+ * and inserted by the task executor, and the number of batches waiting to be saved is bounded,
+ * so the memory of an import does not grow with the number of rows.
+ * the batches are committed on their own, when the import runs in a transaction, the saved records
+ * are deleted in a new transaction after that transaction rolls back, whenever the failure happens.
+ * </p>
+ */
+@Slf4j
+public class RecordImportPipeline {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * the number of rows of a batch, a batch is encoded and inserted by one task
+     */
+    private static final int BATCH_COUNT = 500;
+
+    /**
+     * the number of batches that are read but not saved yet
+     */
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    /**
+     * the attempts to insert a batch, a failed batch is retried before failing the import
+     */
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+
+    private final INodeService iNodeService;
+
+    private final Executor executor;
+
+    private final TransactionOperations cleanupTransaction;
+
+    private final Long userId;
+
+    private final String fieldUpdatedInfo;
+
+    private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+
+    private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private final AtomicInteger savedCount = new AtomicInteger();
+
+    private final Set<String> dstIds = new LinkedHashSet<>();
+
+    private List<PendingRecord> batch = new ArrayList<>(BATCH_COUNT);
+
+    private int readCount;
+
+    private boolean aborted;
+
+    private boolean cleanupDeferred;
+
+    /**
+     * @param cleanupTransaction the transaction to delete the saved records in, it must not join the transaction of the import
+     */
+    public RecordImportPipeline(INodeService iNodeService, Executor executor, TransactionOperations cleanupTransaction, Long userId, String fieldUpdatedInfo) {
+        this.iNodeService = iNodeService;
+        this.executor = executor;
+        this.cleanupTransaction = cleanupTransaction;
+        this.userId = userId;
+        this.fieldUpdatedInfo = fieldUpdatedInfo;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // the records are committed apart from the datasheets, so they are deleted when the import is not committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK || aborted) {
+                        deleteSavedRecords();
+                    }
+                    else if (status == STATUS_UNKNOWN) {
+                        log.warn("Import records completed with unknown status, keep the saved records of datasheets: {}", dstIds);
+                    }
+                }
+            });
+            cleanupDeferred = true;
+        }
+    }
+
+    /**
+     * add a record of a datasheet
+     *
+     * @param dstId    datasheet id
+     * @param recordId record id
+     * @param cells    field id -> cell text, only the cells which is not blank
+     */
+    public void add(String dstId, String recordId, Map<String, String> cells) {
+        throwIfFailed();
+        dstIds.add(dstId);
+        batch.add(new PendingRecord(dstId, recordId, cells));
+        readCount++;
+        if (batch.size() >= BATCH_COUNT) {
+            flush();
+        }
+    }
+
+    /**
+     * save the rest records and wait for all batches to be saved
+     */
+    public void finish() {
+        flush();
+        awaitAll();
+        throwIfFailed();
+        log.info("Import records complete, total: {}", savedCount.get());
+    }
+
+    /**
+     * stop the import and wait for the submitted batches.
+     * the records have been saved are deleted after the transaction of the import completes,
+     * or right now when the import does not run in a transaction.
+     */
+    public void abort() {
+        aborted = true;
+        batch = new ArrayList<>(0);
+        awaitAll();
+        if (!cleanupDeferred) {
+            deleteSavedRecords();
+        }
+    }
+
+    public int getReadCount() {
+        return readCount;
+    }
+
+    public int getSavedCount() {
+        return savedCount.get();
+    }
+
+    public Collection<String> getDstIds() {
+        return Collections.unmodifiableSet(dstIds);
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PendingRecord> records = batch;
+        batch = new ArrayList<>(BATCH_COUNT);
+        try {
+            // wait for the previous batches when reading is faster than saving
+            pendingBatches.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Import is interrupted");
+        }
+        CompletableFuture<Void> future;
+        try {
+            future = CompletableFuture.runAsync(() -> save(encode(records)), executor);
+        }
+        catch (RuntimeException e) {
+            pendingBatches.release();
+            throw e;
+        }
+        futures.add(future.whenComplete((result, e) -> {
+            pendingBatches.release();
+            if (e != null) {
+                failure.compareAndSet(null, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        }));
+        futures.removeIf(CompletableFuture::isDone);
+    }
+
+    private List<DatasheetRecordEntity> encode(List<PendingRecord> records) {
+        List<DatasheetRecordEntity> entities = new ArrayList<>(records.size());
+        for (PendingRecord record : records) {
+            entities.add(DatasheetRecordEntity.builder()
+                    .id(IdWorker.getId())
+                    .dstId(record.dstId)
+                    .recordId(record.recordId)
+                    .data(encodeData(record.cells))
+                    .fieldUpdatedInfo(fieldUpdatedInfo)
+                    .createdBy(userId)
+                    .updatedBy(userId)
+                    .build());
+        }
+        return entities;
+    }
+
+    private void save(List<DatasheetRecordEntity> entities) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                iNodeService.batchSaveDstRecords(entities);
+                break;
+            }
+            catch (RuntimeException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS || failure.get() != null) {
+                    throw e;
+                }
+                log.warn("Failed to save imported records, attempt: {}", attempt, e);
+            }
+        }
+        log.info("Import records progress, saved: {}, read: {}", savedCount.addAndGet(entities.size()), readCount);
+    }
+
+    private void deleteSavedRecords() {
+        // the batches may be still running when the transaction fails outside the pipeline
+        awaitAll();
+        if (dstIds.isEmpty()) {
+            return;
+        }
+        log.info("Import records aborted, delete the saved records of datasheets: {}", dstIds);
+        try {
+            cleanupTransaction.executeWithoutResult(status -> iNodeService.deleteDstRecords(dstIds));
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to delete the saved records of datasheets: {}", dstIds, e);
+        }
+    }
+
+    private void awaitAll() {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+        catch (CompletionException ignored) {
+            // the failure of a batch has been recorded
+        }
+        finally {
+            futures.clear();
+        }
+    }
+
+    private void throwIfFailed() {
+        Throwable e = failure.get();
+        if (e == null) {
+            return;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        throw new BusinessException(e.getMessage());
+    }
+
+    static String encodeData(Map<String, String> cells) {
+        StringWriter writer = new StringWriter(cells.size() * 48 + 2);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            gen.writeStartObject();
+            for (Entry<String, String> cell : cells.entrySet()) {
+                gen.writeArrayFieldStart(cell.getKey());
+                gen.writeStartObject();
+                gen.writeStringField("text", cell.getValue());
+                gen.writeNumberField("type", FieldType.TEXT.getFieldType());
+                gen.writeEndObject();
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        return writer.toString();
+    }
+
+    private static class PendingRecord {
+
+        private final String dstId;
+
+        private final String recordId;
+
+        private final Map<String, String> cells;
+
+        PendingRecord(String dstId, String recordId, Map<String, String> cells) {
+            this.dstId = dstId;
+            this.recordId = recordId;
+            this.cells = cells;
+        }
+    }
+}
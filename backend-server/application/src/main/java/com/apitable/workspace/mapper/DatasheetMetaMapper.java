@@ -56,6 +56,12 @@ public interface DatasheetMetaMapper extends BaseMapper<DatasheetMetaEntity> {
      */
     List<DatasheetMetaDTO> selectDtoByDstIds(@Param("list") List<String> dstIdList);
 
+    /**
+     * @param dstIds datasheet ids
+     * @return ids of the datasheets having meta
+     */
+    List<String> selectDstIdsByDstIds(@Param("dstIds") Collection<String> dstIds);
+
     /**
      * @param entity datasheet meta
      * @return affected rows
@@ -63,6 +63,24 @@ public interface DatasheetRecordMapper extends BaseMapper<DatasheetRecordEntity>
      */
     int insertBatch(@Param("entities") List<DatasheetRecordEntity> entities);
 
+    /**
+     * query the records of a datasheet by keyset pagination, the data is not parsed
+     *
+     * @param dstId datasheet id
+     * @param lastId the last id of the previous chunk, null for the first chunk
+     * @param limit chunk size
+     * @return DatasheetRecordEntity (id, record id, data, field updated info)
+     */
+    List<DatasheetRecordEntity> selectRawByDstIdAfterId(@Param("dstId") String dstId, @Param("lastId") Long lastId, @Param("limit") int limit);
+
+    /**
+     * physically delete the records of datasheets
+     *
+     * @param dstIds datasheet ids
+     * @return affected rows
+     */
+    int deleteByDstIds(@Param("dstIds") Collection<String> dstIds);
+
     /**
      * it can query deleted record
      * Scenario: used to restore record data after deleting records.
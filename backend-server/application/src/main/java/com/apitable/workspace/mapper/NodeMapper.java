@@ -25,6 +25,7 @@ import java.util.List;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Param;
 
+import com.apitable.space.dto.NodeTypeStaticsDTO;
 import com.apitable.workspace.dto.NodeBaseInfoDTO;
 import com.apitable.workspace.dto.UrlNodeInfoDTO;
 import com.apitable.workspace.vo.BaseNodeInfo;
@@ -36,6 +37,7 @@ import com.apitable.workspace.vo.NodeShareTree;
 import com.apitable.workspace.vo.RubbishNodeVo;
 import com.apitable.workspace.vo.SimpleSortableNodeInfo;
 import com.apitable.workspace.dto.SimpleNodeInfo;
+import com.apitable.workspace.dto.SnapshotNodeInfo;
 import com.apitable.workspace.enums.NodeType;
 import com.apitable.workspace.entity.NodeEntity;
 
@@ -47,6 +49,23 @@ public interface NodeMapper extends BaseMapper<NodeEntity> {
      */
     int insertBatch(@Param("entities") List<NodeEntity> entities);
 
+    /**
+     * insert nodes as deleted ones, they are not seen until they are restored
+     *
+     * @param entities nodes
+     * @return affected rows
+     */
+    int insertBatchDeleted(@Param("entities") List<NodeEntity> entities);
+
+    /**
+     * restore the nodes inserted as deleted ones
+     *
+     * @param userId user id
+     * @param nodeIds node ids
+     * @return affected rows
+     */
+    int updateIsDeletedFalseByNodeIdIn(@Param("userId") Long userId, @Param("nodeIds") List<String> nodeIds);
+
     /**
      * get the space id by the node id
      *
@@ -88,16 +107,6 @@ public interface NodeMapper extends BaseMapper<NodeEntity> {
      */
     String selectRootNodeIdBySpaceId(@Param("spaceId") String spaceId);
 
-    /**
-     * Fuzzy search node, return node ID
-     * the root node cannot be searched
-     *
-     * @param spaceId space id
-     * @param likeName keyword
-     * @return node ids
-     */
-    List<String> selectLikeNodeName(@Param("spaceId") String spaceId, @Param("likeName") String likeName);
-
     /**
      * Fuzzy search node
      * does not contain root node and template node
@@ -267,6 +276,14 @@ public interface NodeMapper extends BaseMapper<NodeEntity> {
      */
     Long countByNodeIds(@Param("nodeIds") List<String> nodeIds);
 
+    /**
+     * Query the number of nodes of each type, deleted nodes are excluded
+     *
+     * @param nodeIds node ids
+     * @return node type statistics
+     */
+    List<NodeTypeStaticsDTO> selectTypeStaticsByNodeIds(@Param("nodeIds") List<String> nodeIds);
+
     /**
      * @param nodeId node id
      * @return space id
@@ -322,16 +339,6 @@ public interface NodeMapper extends BaseMapper<NodeEntity> {
      */
     List<NodePathVo> selectParentNodeListByNodeId(@Param("spaceId") String spaceId, @Param("nodeId") String nodeId);
 
-    /**
-     * all parent node paths of the query node
-     * Contains its own node, but does not include the root node
-     *
-     * @param spaceId space id
-     * @param nodeIds node ids
-     * @return BaseNodeInfoDto
-     */
-    List<NodeBaseInfoDTO> selectParentNodeByNodeIds(@Param("spaceId") String spaceId, @Param("list") List<String> nodeIds);
-
     /**
      *
      * @param nodeId node id
@@ -505,6 +512,15 @@ public interface NodeMapper extends BaseMapper<NodeEntity> {
      */
     int updateExtraByNodeId(@Param("nodeId") String nodeId, @Param("extra") String extra);
 
+    /**
+     * mark the nodes whose content failed to be copied, or clear the mark
+     *
+     * @param nodeIds node ids
+     * @param copyFailed whether the copy failed
+     * @return affected rows
+     */
+    int updateExtraCopyFailedByNodeIdIn(@Param("nodeIds") Collection<String> nodeIds, @Param("copyFailed") boolean copyFailed);
+
     /**
      * modify node --The DingTalk status of the template transfer
      *
@@ -555,4 +571,12 @@ public interface NodeMapper extends BaseMapper<NodeEntity> {
      * @return creator
      */
     Long selectCreatedByByNodeId(@Param("nodeId") String nodeId);
+
+    /**
+     * query the tree structure and names of all nodes in the space, used to build node tree snapshot
+     *
+     * @param spaceId space id
+     * @return SnapshotNodeInfo
+     */
+    List<SnapshotNodeInfo> selectSnapshotNodeInfoBySpaceId(@Param("spaceId") String spaceId);
 }
@@ -18,6 +18,9 @@
 
 package com.apitable.workspace.mapper;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.ibatis.annotations.Param;
 
 import com.apitable.workspace.entity.NodeVisitRecordEntity;
@@ -30,4 +33,10 @@ public interface NodeVisitRecordMapper {
 
     int updateNodeIdsByMemberIdAndNodeType(@Param("nodeIdsStr") String nodeIdsStr, @Param("memberId") Long memberId, @Param("nodeType") Integer nodeType);
 
+    List<Long> selectMemberIdsByMemberIdsAndNodeType(@Param("memberIds") Collection<Long> memberIds, @Param("nodeType") Integer nodeType);
+
+    int insertBatch(@Param("entities") Collection<NodeVisitRecordEntity> entities);
+
+    int updateNodeIdsByMemberIdsAndNodeType(@Param("entities") Collection<NodeVisitRecordEntity> entities, @Param("nodeType") Integer nodeType);
+
 }
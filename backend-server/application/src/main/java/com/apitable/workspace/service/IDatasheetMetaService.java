@@ -19,6 +19,7 @@
 package com.apitable.workspace.service;
 
 import java.util.List;
+import java.util.Map;
 
 import cn.hutool.json.JSONObject;
 import org.apache.ibatis.annotations.Param;
@@ -28,6 +29,7 @@ import com.apitable.workspace.dto.DatasheetMetaDTO;
 import com.apitable.workspace.dto.DatasheetSnapshot;
 import com.apitable.workspace.entity.DatasheetMetaEntity;
 import com.apitable.workspace.ro.MetaOpRo;
+import com.apitable.workspace.support.DatasheetMeta;
 
 public interface IDatasheetMetaService {
 
@@ -48,6 +50,18 @@ public interface IDatasheetMetaService {
      */
     List<DatasheetMetaDTO> findMetaDtoByDstIds(@Param("list") List<String> dstIds);
 
+    /**
+     * @param dstId datasheet id
+     * @return parsed datasheet meta
+     */
+    DatasheetMeta findMetaByDstId(String dstId);
+
+    /**
+     * @param dstIds datasheet ids
+     * @return dstId -> parsed datasheet meta
+     */
+    Map<String, DatasheetMeta> findMetaMapByDstIds(List<String> dstIds);
+
     /**
      * @param userId user id
      * @param dstId datasheet id
@@ -62,6 +76,13 @@ public interface IDatasheetMetaService {
      */
     void edit(Long userId, String dstId, MetaOpRo meta);
 
+    /**
+     * @param userId   user id
+     * @param dstId    datasheet id
+     * @param metaData meta json
+     */
+    void edit(Long userId, String dstId, String metaData);
+
     /**
      * Check whether the specified view of the number table exists.
      *
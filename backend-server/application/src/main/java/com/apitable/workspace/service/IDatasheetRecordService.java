@@ -18,11 +18,14 @@
 
 package com.apitable.workspace.service;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 
 import cn.hutool.json.JSONObject;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 
 import com.apitable.workspace.vo.DatasheetRecordMapVo;
 import com.apitable.workspace.dto.NodeCopyDTO;
@@ -35,6 +38,13 @@ public interface IDatasheetRecordService extends IService<DatasheetRecordEntity>
      */
     void batchSave(List<DatasheetRecordEntity> entities);
 
+    /**
+     * physically delete the records of datasheets
+     *
+     * @param dstIds datasheet ids
+     */
+    void deleteByDstIds(Collection<String> dstIds);
+
     /**
      * @param userId user id
      * @param recordMap json format: record - field
@@ -42,6 +52,17 @@ public interface IDatasheetRecordService extends IService<DatasheetRecordEntity>
      */
     void saveBatch(Long userId, JSONObject recordMap, String dstId);
 
+    /**
+     * read the recordMap from the parser record by record and insert them in batches
+     *
+     * @param userId      user id
+     * @param dstId       datasheet id
+     * @param parser      parser positioned at the start of the recordMap
+     * @param delFieldIds fields left out of the record data
+     * @throws IOException if reading fails
+     */
+    void saveBatch(Long userId, String dstId, JsonParser parser, Collection<String> delFieldIds) throws IOException;
+
     /**
      * copy datasheet records
      *
@@ -77,4 +98,13 @@ public interface IDatasheetRecordService extends IService<DatasheetRecordEntity>
      * @return recordMapVo
      */
     List<DatasheetRecordMapVo> findMapByDstIds(Collection<String> dstIds);
+
+    /**
+     * write the recordMap of a datasheet as json, record data is copied as stored without parsing
+     *
+     * @param dstId     datasheet id
+     * @param generator json generator
+     * @throws IOException if writing fails
+     */
+    void writeRecordMap(String dstId, JsonGenerator generator) throws IOException;
 }
@@ -18,17 +18,22 @@
 
 package com.apitable.workspace.service;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.fasterxml.jackson.core.JsonParser;
 
 import com.apitable.workspace.enums.FieldType;
 import com.apitable.workspace.ro.MetaMapRo;
 import com.apitable.workspace.ro.RemindMemberRo;
 import com.apitable.workspace.ro.SnapshotMapRo;
+import com.apitable.workspace.support.DatasheetMeta;
 import com.apitable.workspace.dto.NodeCopyOptions;
 import com.apitable.workspace.entity.DatasheetEntity;
 
@@ -59,6 +64,33 @@ public interface IDatasheetService extends IService<DatasheetEntity> {
      */
     void create(Long userId, String spaceId, String nodeId, String name, MetaMapRo metaMapRo, JSONObject recordMap);
 
+    /**
+     * create datasheet
+     *
+     * @param userId user id
+     * @param spaceId space id
+     * @param nodeId    node id
+     * @param name      node name
+     * @param meta      meta data
+     * @param recordMap record map
+     */
+    void create(Long userId, String spaceId, String nodeId, String name, DatasheetMeta meta, JSONObject recordMap);
+
+    /**
+     * create datasheet, the records are read from the parser and inserted in batches.
+     * the datasheet is not counted in the space statistics, the caller counts it once it is published
+     *
+     * @param userId      user id
+     * @param spaceId     space id
+     * @param nodeId      node id
+     * @param name        node name
+     * @param meta        meta data
+     * @param recordMap   parser positioned at the start of the record map
+     * @param delFieldIds fields left out of the record data
+     * @throws IOException if reading fails
+     */
+    void create(Long userId, String spaceId, String nodeId, String name, DatasheetMeta meta, JsonParser recordMap, Collection<String> delFieldIds) throws IOException;
+
     /**
      * update the datasheet name according to node id
      *
@@ -119,24 +151,28 @@ public interface IDatasheetService extends IService<DatasheetEntity> {
     SnapshotMapRo delFieldIfLinkDstId(Long userId, String dstId, List<String> linkDstIds, boolean saveDb);
 
     /**
-     * get multiple tables and corresponding snapshot
+     * write the snapshot of a datasheet as json, for callers that only forward it.
+     * meta and record data are copied as stored without being parsed
      *
-     * @param dstIds datasheet ids
+     * @param dstId datasheet id
      * @param hasRecordMap whether record map is included
-     * @return dstId - snapshot map
+     * @param writer target writer, it is not closed
+     * @return false if the datasheet meta does not exist
+     * @throws IOException if writing fails
      */
-    Map<String, SnapshotMapRo> findSnapshotMapByDstIds(List<String> dstIds, boolean hasRecordMap);
+    boolean writeSnapshot(String dstId, boolean hasRecordMap, Writer writer) throws IOException;
 
     /**
      * Replace the number table ID in the field attribute.
      *
      * @param userId user id
      * @param sameSpace    is it the same space
-     * @param metaMapRo    meta data
+     * @param meta         meta data
      * @param newNodeIdMap original node id - new node id map
-     * @return delFieldIds
+     * @param delFieldIds  collects the ids of the fields whose data should be deleted
+     * @return meta data after replacement
      */
-    List<String> replaceFieldDstId(Long userId, boolean sameSpace, MetaMapRo metaMapRo, Map<String, String> newNodeIdMap);
+    DatasheetMeta replaceFieldDstId(Long userId, boolean sameSpace, DatasheetMeta meta, Map<String, String> newNodeIdMap, List<String> delFieldIds);
 
     /**
      * Member field mentions other people's record operation
@@ -18,6 +18,7 @@
 
 package com.apitable.workspace.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -119,6 +120,16 @@ public interface IFieldRoleService {
      */
     FieldPermissionView getFieldPermissionView(Long memberId, String nodeId, String shareId);
 
+    /**
+     * get field permission view information of multiple nodes, the field controls are loaded at one time
+     *
+     * @param memberId member id
+     * @param nodeIds node ids
+     * @param shareId       shareId
+     * @return node id -> FieldPermissionView, the node which is not datasheet, form or mirror is absent
+     */
+    Map<String, FieldPermissionView> getFieldPermissionViews(Long memberId, List<String> nodeIds, String shareId);
+
     /**
      * get permissions for all fields in a table
      *
@@ -137,6 +148,14 @@ public interface IFieldRoleService {
      */
     List<String> getPermissionFieldIds(String datasheetId);
 
+    /**
+     * obtain the field ids of the column permission in batch
+     *
+     * @param datasheetIds datasheetIds
+     * @return datasheetId -> fieldIds, datasheets without column permission are absent
+     */
+    Map<String, List<String>> getPermissionFieldIds(Collection<String> datasheetIds);
+
     /**
      * @param controlId     controlId
      * @param unitIds        unitIds
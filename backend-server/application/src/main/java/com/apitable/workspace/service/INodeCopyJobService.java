@@ -0,0 +1,53 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.apitable.workspace.service;
+
+import com.apitable.workspace.dto.NodeCopyJobDTO;
+import com.apitable.workspace.vo.NodeCopyJobVo;
+
+/**
+ * <p>
+ * node copy job service.
+ * datasheets of a copied folder are filled in background, each in its own transaction.
+ * </p>
+ */
+public interface INodeCopyJobService {
+
+    /**
+     * submit node copy job, started after the current transaction committed
+     *
+     * @param job node copy job
+     */
+    void submit(NodeCopyJobDTO job);
+
+    /**
+     * get the progress of node copy job
+     *
+     * @param nodeId id of the copied node
+     * @return NodeCopyJobVo, null if the job does not exist or expired
+     */
+    NodeCopyJobVo getJob(String nodeId);
+
+    /**
+     * copy the failed datasheets of node copy job again
+     *
+     * @param nodeId id of the copied node
+     * @return whether the job is retried
+     */
+    boolean retry(String nodeId);
+}
@@ -97,6 +97,12 @@ public interface INodeService extends IService<NodeEntity> {
      */
     NodeType getTypeByNodeId(String nodeId);
 
+    /**
+     * @param nodeIds node ids
+     * @return node id -> NodeType, nonexistent node is absent
+     */
+    Map<String, NodeType> getTypeByNodeIds(Collection<String> nodeIds);
+
     /**
      * @param nodeId node id
      * @return space ids
@@ -453,6 +459,13 @@ public interface INodeService extends IService<NodeEntity> {
      */
     void batchSaveDstRecords(List<DatasheetRecordEntity> recordEntities);
 
+    /**
+     * delete the records of datasheets which are imported but not created
+     *
+     * @param dstIds datasheet ids
+     */
+    void deleteDstRecords(Collection<String> dstIds);
+
     /**
      * @param nodeId node id
      * @param spaceId space id
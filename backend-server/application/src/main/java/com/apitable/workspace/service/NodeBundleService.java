@@ -18,6 +18,9 @@
 
 package com.apitable.workspace.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import org.springframework.web.multipart.MultipartFile;
 
 public interface NodeBundleService {
@@ -29,6 +32,17 @@ public interface NodeBundleService {
      */
     void generate(String nodeId, boolean saveData, String password);
 
+    /**
+     * write the bundle as zip to the stream, e.g. a servlet response or an oss upload
+     *
+     * @param nodeId node id
+     * @param saveData whether to save data
+     * @param password file parsing password
+     * @param out target stream, it is not closed
+     * @throws IOException if writing fails
+     */
+    void generate(String nodeId, boolean saveData, String password, OutputStream out) throws IOException;
+
     /**
      * @param file      file
      * @param password  password
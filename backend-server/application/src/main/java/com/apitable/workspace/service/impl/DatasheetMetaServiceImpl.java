@@ -19,7 +19,10 @@
 package com.apitable.workspace.service.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -40,6 +43,8 @@ import com.apitable.workspace.enums.DataSheetException;
 import com.apitable.workspace.mapper.DatasheetMetaMapper;
 import com.apitable.workspace.ro.MetaOpRo;
 import com.apitable.workspace.service.IDatasheetMetaService;
+import com.apitable.workspace.support.DatasheetMeta;
+import com.apitable.workspace.support.DatasheetMetaCodec;
 import com.apitable.core.util.ExceptionUtil;
 import com.apitable.workspace.entity.DatasheetMetaEntity;
 
@@ -80,6 +85,21 @@ public class DatasheetMetaServiceImpl implements IDatasheetMetaService {
         return dtoList;
     }
 
+    @Override
+    public DatasheetMeta findMetaByDstId(String dstId) {
+        List<DatasheetMetaDTO> metaList = datasheetMetaMapper.selectDtoByDstIds(Collections.singletonList(dstId));
+        ExceptionUtil.isNotEmpty(metaList, DatabaseException.QUERY_EMPTY_BY_ID);
+        return DatasheetMetaCodec.parse(metaList.get(0).getMetaData());
+    }
+
+    @Override
+    public Map<String, DatasheetMeta> findMetaMapByDstIds(List<String> dstIds) {
+        List<DatasheetMetaDTO> metaList = this.findMetaDtoByDstIds(dstIds);
+        Map<String, DatasheetMeta> metaMap = new LinkedHashMap<>(metaList.size());
+        metaList.forEach(meta -> metaMap.put(meta.getDstId(), DatasheetMetaCodec.parse(meta.getMetaData())));
+        return metaMap;
+    }
+
     @Override
     public void create(Long userId, String dstId, String metaData) {
         DatasheetMetaEntity metaEntity = DatasheetMetaEntity.builder()
@@ -96,8 +116,13 @@ public class DatasheetMetaServiceImpl implements IDatasheetMetaService {
 
     @Override
     public void edit(Long userId, String dstId, MetaOpRo meta) {
+        this.edit(userId, dstId, StrUtil.toString(meta.getMeta()));
+    }
+
+    @Override
+    public void edit(Long userId, String dstId, String metaData) {
         ExceptionUtil.isNotNull(this.getMetaByDstId(dstId), DatabaseException.QUERY_EMPTY_BY_ID);
-        boolean flag = SqlHelper.retBool(datasheetMetaMapper.updateByDstId(userId, StrUtil.toString(meta.getMeta()), dstId));
+        boolean flag = SqlHelper.retBool(datasheetMetaMapper.updateByDstId(userId, metaData, dstId));
         ExceptionUtil.isTrue(flag, DatabaseException.EDIT_ERROR);
     }
 
@@ -18,29 +18,40 @@
 
 package com.apitable.workspace.service.impl;
 
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.map.MapUtil;
-import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import lombok.extern.slf4j.Slf4j;
 
 import com.apitable.workspace.dto.DataSheetRecordDTO;
@@ -54,17 +65,60 @@ import com.apitable.workspace.dto.NodeCopyDTO;
 import com.apitable.workspace.service.IDatasheetRecordService;
 import com.apitable.shared.util.IdUtil;
 import com.apitable.workspace.entity.DatasheetRecordEntity;
+import com.apitable.workspace.support.RecordDataJson;
+import com.apitable.core.exception.BusinessException;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Slf4j
 @Service
 public class DatasheetRecordServiceImpl extends ServiceImpl<DatasheetRecordMapper, DatasheetRecordEntity> implements IDatasheetRecordService {
 
+    /**
+     * the number of records read and written at a time when traversing a datasheet
+     */
+    private static final int RECORD_CHUNK_SIZE = 1000;
+
+    /**
+     * the number of datasheets queried at a time when loading record maps
+     */
+    private static final int DST_GROUP_SIZE = 5;
+
+    /**
+     * the maximum number of concurrent queries when loading record maps
+     */
+    private static final int LOAD_PARALLELISM = 4;
+
+    /**
+     * the threads loading record maps for all requests, each of them holds a connection while querying
+     */
+    private static final int LOAD_THREADS = 8;
+
+    /**
+     * the groups waiting for a loading thread, more groups are queried by the requesting thread
+     */
+    private static final int LOAD_QUEUE_CAPACITY = 64;
+
     @Resource
     private UserMapper userMapper;
 
+    private ThreadPoolExecutor loadExecutor;
+
+    @PostConstruct
+    public void init() {
+        loadExecutor = new ThreadPoolExecutor(LOAD_THREADS, LOAD_THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(LOAD_QUEUE_CAPACITY), ThreadUtil.newNamedThreadFactory("record-load-", true),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        loadExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        loadExecutor.shutdownNow();
+    }
+
     @Override
     public void batchSave(List<DatasheetRecordEntity> entities) {
         if (CollUtil.isEmpty(entities)) {
@@ -76,6 +130,14 @@ public class DatasheetRecordServiceImpl extends ServiceImpl<DatasheetRecordMappe
         }
     }
 
+    @Override
+    public void deleteByDstIds(Collection<String> dstIds) {
+        if (CollUtil.isEmpty(dstIds)) {
+            return;
+        }
+        baseMapper.deleteByDstIds(dstIds);
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void saveBatch(Long userId, JSONObject recordMap, String dstId) {
@@ -106,69 +168,114 @@ public class DatasheetRecordServiceImpl extends ServiceImpl<DatasheetRecordMappe
     }
 
     @Override
-    public void copyRecords(Long userId, String oDstId, String nDstId, NodeCopyDTO nodeCopyDTO, boolean retain) {
-        log.info("Copy records");
-        List<DatasheetRecordVo> voList = baseMapper.selectListByDstId(oDstId);
-        if (CollUtil.isEmpty(voList)) {
+    public void saveBatch(Long userId, String dstId, JsonParser parser, Collection<String> delFieldIds) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
             return;
         }
+        String initRecordMeta = this.getInitRecordMeta(userId).toString();
+        List<DatasheetRecordEntity> chunk = new ArrayList<>(RECORD_CHUNK_SIZE);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            DatasheetRecordEntity recordEntity = DatasheetRecordEntity.builder()
+                    .id(IdWorker.getId())
+                    .dstId(dstId)
+                    .createdBy(userId)
+                    .updatedBy(userId)
+                    .fieldUpdatedInfo(initRecordMeta)
+                    .build();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("id".equals(name) && token == JsonToken.VALUE_STRING) {
+                    recordEntity.setRecordId(parser.getText());
+                }
+                else if ("data".equals(name) && token != JsonToken.VALUE_NULL) {
+                    String data = RecordDataJson.read(parser, delFieldIds);
+                    recordEntity.setData("\"\"".equals(data) ? null : data);
+                }
+                else if ("fieldUpdatedMap".equals(name) && token == JsonToken.START_OBJECT) {
+                    String fieldUpdatedMap = RecordDataJson.read(parser, null);
+                    if (!"{}".equals(fieldUpdatedMap)) {
+                        recordEntity.setFieldUpdatedInfo(JSONUtil.parseObj(initRecordMeta)
+                                .set("fieldUpdatedMap", JSONUtil.parseObj(fieldUpdatedMap)).toString());
+                    }
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+            if (recordEntity.getRecordId() == null) {
+                recordEntity.setRecordId(IdUtil.createRecordId());
+            }
+            chunk.add(recordEntity);
+            if (chunk.size() == RECORD_CHUNK_SIZE) {
+                baseMapper.insertBatch(chunk);
+                chunk = new ArrayList<>(RECORD_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            baseMapper.insertBatch(chunk);
+        }
+    }
+
+    @Override
+    public void copyRecords(Long userId, String oDstId, String nDstId, NodeCopyDTO nodeCopyDTO, boolean retain) {
+        log.info("Copy records");
         Set<String> delFieldIds = CollUtil.unionDistinct(nodeCopyDTO.getDelFieldIds(),
                 nodeCopyDTO.getLinkFieldIds());
         List<String> autoNumberFieldIds = nodeCopyDTO.getAutoNumberFieldIds();
         JSONObject recordMeta = this.getInitRecordMeta(userId);
-        List<DatasheetRecordEntity> list = new ArrayList<>(voList.size());
-        voList.forEach(vo -> {
-            JSONObject data = vo.getData();
-            // delete specified field data
-            if (CollUtil.isNotEmpty(delFieldIds) && !data.isEmpty()) {
-                data.keySet().removeIf(delFieldIds::contains);
-            }
-            DatasheetRecordEntity entity = new DatasheetRecordEntity();
-            entity.setId(IdWorker.getId());
-            entity.setDstId(nDstId);
-            entity.setRecordId(vo.getId());
-            entity.setData(StrUtil.toString(data));
-            String fieldUpdatedInfo;
-            if (retain) {
-                fieldUpdatedInfo = vo.getRecordMeta();
-            }
-            else if (autoNumberFieldIds.isEmpty()) {
-                fieldUpdatedInfo = recordMeta.toString();
-            }
-            else {
-                // Keep the value of the self-increasing number without keeping all recordMeta.
-                JSONObject fieldUpdatedMap = this.copyFieldUpdatedMap(vo.getRecordMeta(), autoNumberFieldIds);
-                fieldUpdatedInfo = recordMeta.set("fieldUpdatedMap", fieldUpdatedMap).toString();
+        String initRecordMeta = recordMeta.toString();
+        // read, transform and write the records chunk by chunk, the data is kept as raw json
+        this.forEachRecordChunk(oDstId, chunk -> {
+            List<DatasheetRecordEntity> list = new ArrayList<>(chunk.size());
+            for (DatasheetRecordEntity record : chunk) {
+                DatasheetRecordEntity entity = new DatasheetRecordEntity();
+                entity.setId(IdWorker.getId());
+                entity.setDstId(nDstId);
+                entity.setRecordId(record.getRecordId());
+                // delete specified field data
+                entity.setData(RecordDataJson.removeFields(record.getData(), delFieldIds));
+                String fieldUpdatedInfo;
+                if (retain) {
+                    fieldUpdatedInfo = record.getFieldUpdatedInfo();
+                }
+                else if (autoNumberFieldIds.isEmpty()) {
+                    fieldUpdatedInfo = initRecordMeta;
+                }
+                else {
+                    // Keep the value of the self-increasing number without keeping all recordMeta.
+                    JSONObject fieldUpdatedMap = this.copyFieldUpdatedMap(record.getFieldUpdatedInfo(), autoNumberFieldIds);
+                    fieldUpdatedInfo = recordMeta.set("fieldUpdatedMap", fieldUpdatedMap).toString();
+                }
+                entity.setFieldUpdatedInfo(fieldUpdatedInfo);
+                entity.setCreatedBy(userId);
+                entity.setUpdatedBy(userId);
+                list.add(entity);
             }
-            entity.setFieldUpdatedInfo(fieldUpdatedInfo);
-            entity.setCreatedBy(userId);
-            entity.setUpdatedBy(userId);
-            list.add(entity);
+            baseMapper.insertBatch(list);
         });
-        List<List<DatasheetRecordEntity>> split = CollUtil.split(list, 1000);
-        for (List<DatasheetRecordEntity> entities : split) {
-            baseMapper.insertBatch(entities);
-        }
     }
 
     @Override
     public void copyFieldData(String dstId, String oFieldId, String nFieldId) {
         log.info("Copy data from a column to a new column");
-        List<DataSheetRecordDTO> voList = baseMapper.selectDtoByDstId(dstId);
-        List<DatasheetRecordEntity> list = new ArrayList<>();
-        voList.forEach(vo -> {
-            JSONObject data = vo.getData();
-            Object fieldData = data.get(oFieldId);
-            if (ObjectUtil.isNotNull(fieldData)) {
-                data.set(nFieldId, fieldData);
-                DatasheetRecordEntity entity = DatasheetRecordEntity.builder()
-                        .id(vo.getId()).data(StrUtil.toString(data)).build();
-                list.add(entity);
+        this.forEachRecordChunk(dstId, chunk -> {
+            List<DatasheetRecordEntity> list = new ArrayList<>();
+            for (DatasheetRecordEntity record : chunk) {
+                String data = RecordDataJson.copyField(record.getData(), oFieldId, nFieldId);
+                if (data != null) {
+                    list.add(DatasheetRecordEntity.builder().id(record.getId()).data(data).build());
+                }
+            }
+            if (CollUtil.isNotEmpty(list)) {
+                this.updateBatchById(list, list.size());
             }
         });
-        if (CollUtil.isNotEmpty(list)) {
-            this.updateBatchById(list, list.size());
-        }
     }
 
     @Override
@@ -176,20 +283,23 @@ public class DatasheetRecordServiceImpl extends ServiceImpl<DatasheetRecordMappe
     public DatasheetRecordMapVo delFieldData(String dstId, List<String> delFieldIds, boolean saveDb) {
         log.info("Deletes the data of the specified field in the datasheet record.");
         if (CollUtil.isNotEmpty(delFieldIds)) {
-            List<DataSheetRecordDTO> voList = baseMapper.selectDtoByDstId(dstId);
-            List<DatasheetRecordEntity> list = new ArrayList<>();
+            Set<String> fieldIds = new HashSet<>(delFieldIds);
             Map<String, DatasheetRecordVo> map = MapUtil.newHashMap();
-            voList.forEach(vo -> {
-                JSONObject data = vo.getData();
-                delFieldIds.forEach(data::remove);
-                DatasheetRecordEntity entity = DatasheetRecordEntity.builder()
-                        .id(vo.getId()).data(StrUtil.toString(data)).build();
-                list.add(entity);
-                map.put(vo.getRecordId(), DatasheetRecordVo.builder().id(vo.getRecordId()).data(data).build());
+            this.forEachRecordChunk(dstId, chunk -> {
+                List<DatasheetRecordEntity> list = new ArrayList<>();
+                for (DatasheetRecordEntity record : chunk) {
+                    String data = RecordDataJson.removeFields(record.getData(), fieldIds);
+                    // only the records contain the fields are written back
+                    if (data != null && !data.equals(record.getData())) {
+                        list.add(DatasheetRecordEntity.builder().id(record.getId()).data(data).build());
+                    }
+                    map.put(record.getRecordId(), DatasheetRecordVo.builder().id(record.getRecordId())
+                            .data(data != null ? JSONUtil.parseObj(data, true) : null).build());
+                }
+                if (saveDb && CollUtil.isNotEmpty(list)) {
+                    this.updateBatchById(list, list.size());
+                }
             });
-            if (saveDb) {
-                this.updateBatchById(list, list.size());
-            }
             return DatasheetRecordMapVo.builder().recordMap(JSONUtil.parseObj(map)).build();
         }
         return null;
@@ -198,36 +308,77 @@ public class DatasheetRecordServiceImpl extends ServiceImpl<DatasheetRecordMappe
     @Override
     public List<DatasheetRecordMapVo> findMapByDstIds(Collection<String> dstIds) {
         log.info("Get the recordMap of multiple datasheet.");
-        List<DatasheetRecordMapVo> recordMapVos = new ArrayList<>();
-        List<DataSheetRecordGroupDTO> dtoList = new ArrayList<>();
-        double size = 5.0;
-        for (int i = 0; i < Math.ceil(dstIds.size() / size); i++) {
-            List<String> split = dstIds.stream().skip((long) (i * size)).limit((long) size).collect(Collectors.toList());
-            dtoList.addAll(baseMapper.selectGroupDtoByDstIds(split));
+        List<List<String>> groups = CollUtil.split(new ArrayList<>(dstIds), DST_GROUP_SIZE);
+        if (groups.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            // the other threads can not see the uncommitted changes of the transaction, query in it
+            List<DatasheetRecordMapVo> recordMapVos = new ArrayList<>(dstIds.size());
+            groups.forEach(group -> recordMapVos.addAll(this.loadRecordMaps(group)));
+            return recordMapVos;
         }
-        if (CollUtil.isNotEmpty(dtoList)) {
-            dtoList.forEach(dto -> {
-                DatasheetRecordMapVo vo = this.processRecordMapVo(dto.getRecordVoList());
-                vo.setDstId(dto.getDstId());
-                recordMapVos.add(vo);
-            });
+        // query the groups concurrently, but never occupy more than a few connections at the same time
+        Semaphore permits = new Semaphore(LOAD_PARALLELISM);
+        List<CompletableFuture<List<DatasheetRecordMapVo>>> futures = new ArrayList<>(groups.size());
+        try {
+            for (List<String> group : groups) {
+                permits.acquire();
+                futures.add(CompletableFuture.supplyAsync(() -> this.loadRecordMaps(group), loadExecutor)
+                        .whenComplete((result, e) -> permits.release()));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrupted while loading datasheet records");
         }
+        List<DatasheetRecordMapVo> recordMapVos = new ArrayList<>(dstIds.size());
+        futures.forEach(future -> recordMapVos.addAll(future.join()));
         return recordMapVos;
     }
 
+    @Override
+    public void writeRecordMap(String dstId, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        Long lastId = null;
+        List<DatasheetRecordEntity> chunk;
+        do {
+            chunk = baseMapper.selectRawByDstIdAfterId(dstId, lastId, RECORD_CHUNK_SIZE);
+            for (DatasheetRecordEntity record : chunk) {
+                generator.writeObjectFieldStart(record.getRecordId());
+                generator.writeStringField("id", record.getRecordId());
+                if (record.getData() != null) {
+                    // the data is forwarded as stored, without being parsed
+                    generator.writeFieldName("data");
+                    generator.writeRawValue(record.getData());
+                }
+                generator.writeEndObject();
+            }
+            if (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == RECORD_CHUNK_SIZE);
+        generator.writeEndObject();
+    }
+
     /**
-     * processing records
+     * query the records of a group of datasheets and build the recordMap of each in one pass
      */
-    private DatasheetRecordMapVo processRecordMapVo(List<DatasheetRecordVo> list) {
-        log.info("handle large records begin：{}", DateUtil.now());
-        if (CollUtil.isEmpty(list)) {
-            return new DatasheetRecordMapVo();
+    private List<DatasheetRecordMapVo> loadRecordMaps(List<String> dstIds) {
+        List<DataSheetRecordGroupDTO> dtoList = baseMapper.selectGroupDtoByDstIds(dstIds);
+        List<DatasheetRecordMapVo> recordMapVos = new ArrayList<>(dtoList.size());
+        for (DataSheetRecordGroupDTO dto : dtoList) {
+            JSONObject recordMap = JSONUtil.createObj();
+            if (dto.getRecordVoList() != null) {
+                for (DatasheetRecordVo record : dto.getRecordVoList()) {
+                    // null values are omitted, same as a bean converted by JSONUtil
+                    recordMap.set(record.getId(), JSONUtil.createObj()
+                            .set("id", record.getId())
+                            .set("data", record.getData())
+                            .set("revisionHistory", record.getRevisionHistory())
+                            .set("revision", record.getRevision()));
+                }
+            }
+            recordMapVos.add(DatasheetRecordMapVo.builder().dstId(dto.getDstId()).recordMap(recordMap).build());
         }
-        Map<String, DatasheetRecordVo> map = list.stream()
-                .collect(Collectors.toMap(DatasheetRecordVo::getId, record -> record));
-        JSONObject recordMap = JSONUtil.parseObj(map);
-        log.info("handle large records end：{}", DateUtil.now());
-        return DatasheetRecordMapVo.builder().recordMap(recordMap).build();
+        return recordMapVos;
     }
 
     /**
@@ -242,6 +393,22 @@ public class DatasheetRecordServiceImpl extends ServiceImpl<DatasheetRecordMappe
         return recordMeta;
     }
 
+    /**
+     * traverse the records of a datasheet chunk by chunk with keyset pagination
+     */
+    private void forEachRecordChunk(String dstId, Consumer<List<DatasheetRecordEntity>> consumer) {
+        Long lastId = null;
+        List<DatasheetRecordEntity> chunk;
+        do {
+            chunk = baseMapper.selectRawByDstIdAfterId(dstId, lastId, RECORD_CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            consumer.accept(chunk);
+            lastId = chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == RECORD_CHUNK_SIZE);
+    }
+
     private JSONObject copyFieldUpdatedMap(String recordMeta, List<String> autoNumberFieldIds) {
         JSONObject fieldUpdatedMap = JSONUtil.createObj();
         JSONObject originFieldUpdatedMap = JSONUtil.parseObj(recordMeta).getJSONObject("fieldUpdatedMap");
@@ -18,17 +18,20 @@
 
 package com.apitable.workspace.service.impl;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -74,6 +77,7 @@ import com.apitable.shared.component.notification.NotificationTemplateId;
 import com.apitable.shared.config.properties.LimitProperties;
 import com.apitable.shared.sysconfig.i18n.I18nStringsUtil;
 import com.apitable.shared.util.IdUtil;
+import com.apitable.space.service.ISpaceStatisticsService;
 import com.apitable.starter.beetl.autoconfigure.BeetlTemplate;
 import com.apitable.user.mapper.UserMapper;
 import com.apitable.widget.service.IWidgetService;
@@ -82,7 +86,6 @@ import com.apitable.workspace.dto.DatasheetMetaDTO;
 import com.apitable.workspace.dto.DatasheetWidgetDTO;
 import com.apitable.workspace.dto.NodeCopyDTO;
 import com.apitable.workspace.dto.NodeCopyOptions;
-import com.apitable.workspace.dto.SnapshotDTO;
 import com.apitable.workspace.entity.DatasheetEntity;
 import com.apitable.workspace.entity.DatasheetRecordEntity;
 import com.apitable.workspace.enums.CellType;
@@ -101,21 +104,23 @@ import com.apitable.workspace.observer.remind.MailRemind;
 import com.apitable.workspace.observer.remind.NotifyDataSheetMeta;
 import com.apitable.workspace.observer.remind.RemindType;
 import com.apitable.workspace.ro.DateFieldProperty;
-import com.apitable.workspace.ro.FieldMapRo;
-import com.apitable.workspace.ro.LinkFieldProperty;
 import com.apitable.workspace.ro.MetaMapRo;
 import com.apitable.workspace.ro.MetaOpRo;
 import com.apitable.workspace.ro.RecordMapRo;
 import com.apitable.workspace.ro.RemindMemberRo;
 import com.apitable.workspace.ro.SnapshotMapRo;
-import com.apitable.workspace.ro.ViewMapRo;
 import com.apitable.workspace.service.IDatasheetMetaService;
 import com.apitable.workspace.service.IDatasheetRecordService;
 import com.apitable.workspace.service.IDatasheetService;
+import com.apitable.workspace.support.DatasheetMeta;
+import com.apitable.workspace.support.DatasheetMetaCodec;
 import com.apitable.workspace.vo.DatasheetRecordMapVo;
-import com.apitable.workspace.vo.DatasheetRecordVo;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.StreamWriteFeature;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.context.i18n.LocaleContextHolder;
@@ -129,6 +134,9 @@ import static java.util.stream.Collectors.toList;
 @Slf4j
 public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, DatasheetEntity> implements IDatasheetService {
 
+    private static final JsonFactory SNAPSHOT_JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+
     @Resource
     private IDatasheetMetaService datasheetMetaService;
 
@@ -186,6 +194,9 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
     @Resource
     private IWidgetService iWidgetService;
 
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
     @Override
     public void batchSave(List<DatasheetEntity> entities) {
         if (CollUtil.isEmpty(entities)) {
@@ -211,14 +222,43 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         // Initialize datasheet information
         SnapshotMapRo snapshot = initialize();
         // Save Meta information
-        datasheetMetaService.create(creator, datasheet.getDstId(), JSONUtil.parseObj(snapshot.getMeta()).toString());
+        String metaData = JSONUtil.parseObj(snapshot.getMeta()).toString();
+        datasheetMetaService.create(creator, datasheet.getDstId(), metaData);
         // Save record information
         datasheetRecordService.saveBatch(creator, snapshot.getRecordMap(), datasheet.getDstId());
+        iSpaceStatisticsService.incrementDatasheet(spaceId, DatasheetMetaCodec.parse(metaData));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void create(Long userId, String spaceId, String nodeId, String name, MetaMapRo metaMapRo, JSONObject recordMap) {
+        String metaData = JSONUtil.parseObj(metaMapRo).toString();
+        this.create(userId, spaceId, nodeId, name, metaData, recordMap);
+        iSpaceStatisticsService.incrementDatasheet(spaceId, DatasheetMetaCodec.parse(metaData));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void create(Long userId, String spaceId, String nodeId, String name, DatasheetMeta meta, JSONObject recordMap) {
+        this.create(userId, spaceId, nodeId, name, DatasheetMetaCodec.write(meta), recordMap);
+        iSpaceStatisticsService.incrementDatasheet(spaceId, meta);
+    }
+
+    @Override
+    public void create(Long userId, String spaceId, String nodeId, String name, DatasheetMeta meta, JsonParser recordMap, Collection<String> delFieldIds) throws IOException {
+        datasheetMetaService.create(userId, nodeId, DatasheetMetaCodec.write(meta));
+        datasheetRecordService.saveBatch(userId, nodeId, recordMap, delFieldIds);
+        DatasheetEntity datasheet = DatasheetEntity.builder()
+                .dstName(name)
+                .dstId(nodeId)
+                .nodeId(nodeId)
+                .spaceId(spaceId)
+                .build();
+        boolean flag = this.save(datasheet);
+        ExceptionUtil.isTrue(flag, DatabaseException.INSERT_ERROR);
+    }
+
+    private void create(Long userId, String spaceId, String nodeId, String name, String metaData, JSONObject recordMap) {
         DatasheetEntity datasheet = DatasheetEntity.builder()
                 .dstName(name)
                 .dstId(nodeId)
@@ -226,7 +266,7 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
                 .spaceId(spaceId)
                 .build();
         // Save Meta information
-        datasheetMetaService.create(userId, datasheet.getDstId(), JSONUtil.parseObj(metaMapRo).toString());
+        datasheetMetaService.create(userId, datasheet.getDstId(), metaData);
         if (recordMap.size() > 0) {
             // Save record information
             datasheetRecordService.saveBatch(userId, recordMap, datasheet.getDstId());
@@ -300,25 +340,15 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         this.save(datasheet);
         // handle metaData
         NodeCopyDTO nodeCopyDTO = this.processMeta(userId, spaceId, sourceDstId, destDstId, options, newNodeMap);
-        MetaMapRo metaMapRo = nodeCopyDTO.getMetaMapRo();
+        DatasheetMeta meta = nodeCopyDTO.getMeta();
         // save record
         if (ObjectUtil.isNotNull(options) && options.isCopyData()) {
             datasheetRecordService.copyRecords(userId, sourceDstId, datasheet.getDstId(), nodeCopyDTO, options.isRetainRecordMeta());
         }
         else {
             // Remove the original record id in each view rows and fill in a blank line.
-            JSONArray rows = JSONUtil.createArray();
             String recordId = IdUtil.createRecordId();
-            JSONObject recordJson = JSONUtil.createObj();
-            recordJson.set("recordId", recordId);
-            rows.add(recordJson);
-            JSONArray views = new JSONArray();
-            metaMapRo.getViews().jsonIter().forEach(json -> {
-                ViewMapRo viewMapRo = JSONUtil.toBean(json, ViewMapRo.class);
-                viewMapRo.setRows(rows);
-                views.add(viewMapRo);
-            });
-            metaMapRo.setViews(views);
+            meta = meta.withViewRows(Collections.singletonList(recordId));
             // save record information
             JSONObject recordMap = JSONUtil.createObj();
             // Supplement the self-increasing field data in this row.
@@ -336,7 +366,8 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
             datasheetRecordService.saveBatch(userId, recordMap, datasheet.getDstId());
         }
         // Save Meta information
-        datasheetMetaService.create(userId, datasheet.getDstId(), JSONUtil.parseObj(metaMapRo).toString());
+        datasheetMetaService.create(userId, datasheet.getDstId(), DatasheetMetaCodec.write(meta));
+        iSpaceStatisticsService.incrementDatasheet(spaceId, meta);
         return nodeCopyDTO.getLinkFieldIds();
     }
 
@@ -344,8 +375,7 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         List<String> delFieldIds = new ArrayList<>();
         List<String> autoNumberFieldIds = new ArrayList<>();
         // Obtain the information of the original node correspondence datasheet.
-        SimpleDatasheetMetaDTO metaVo = datasheetMetaService.findByDstId(sourceDstId);
-        MetaMapRo metaMapRo = metaVo.getMeta().toBean(MetaMapRo.class);
+        DatasheetMeta meta = datasheetMetaService.findMetaByDstId(sourceDstId);
         // gets the space id of the original node.
         // If it is inconsistent with the space after replication and storage, you need to clear the data related to the member field.
         String sourceSpaceId = nodeMapper.selectSpaceIdByNodeId(sourceDstId);
@@ -354,204 +384,112 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         List<String> delFieldIdsInView = new ArrayList<>();
         List<String> linkFieldIds = new ArrayList<>();
         boolean filterPermissionField = options.isFilterPermissionField() && MapUtil.isNotEmpty(options.getDstPermissionFieldsMap());
-        JSONObject fieldMap = JSONUtil.createObj();
+        Map<String, DatasheetMeta.Field> fieldMap = new LinkedHashMap<>(meta.getFieldMap().size());
         String uuid = userMapper.selectUuidById(userId);
-        for (Object field : metaMapRo.getFieldMap().values()) {
-            FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
+        for (DatasheetMeta.Field field : meta.getFieldMap().values()) {
             // Determine whether column permissions are enabled for a field in this datasheet.
             if (filterPermissionField) {
                 List<String> permissionFieldIds = options.getDstPermissionFieldsMap().get(sourceDstId);
-                if (permissionFieldIds != null && permissionFieldIds.contains(fieldMapRo.getId())) {
-                    delFieldIds.add(fieldMapRo.getId());
-                    delFieldIdsInView.add(fieldMapRo.getId());
+                if (permissionFieldIds != null && permissionFieldIds.contains(field.getId())) {
+                    delFieldIds.add(field.getId());
+                    delFieldIdsInView.add(field.getId());
                     continue;
                 }
             }
-            FieldType type = FieldType.create(fieldMapRo.getType());
-            switch (type) {
+            switch (field.getFieldType()) {
                 case LINK:
-                    LinkFieldProperty property = fieldMapRo.getProperty().toBean(LinkFieldProperty.class);
-                    String foreignDstId = property.getForeignDatasheetId();
+                    String foreignDstId = field.getPropertyText("foreignDatasheetId");
                     if (ObjectUtil.isNotNull(newNodeMap) && ObjectUtil.isNotNull(newNodeMap.get(foreignDstId))) {
                         // Determine whether column permissions are enabled for the associated field corresponding to the associated datasheet.
                         if (filterPermissionField) {
                             List<String> permissionFieldIds = options.getDstPermissionFieldsMap().get(foreignDstId);
-                            if (permissionFieldIds != null && permissionFieldIds.contains(property.getBrotherFieldId())) {
-                                delFieldIds.add(fieldMapRo.getId());
-                                delFieldIdsInView.add(fieldMapRo.getId());
+                            if (permissionFieldIds != null && permissionFieldIds.contains(field.getPropertyText("brotherFieldId"))) {
+                                delFieldIds.add(field.getId());
+                                delFieldIdsInView.add(field.getId());
                                 continue;
                             }
                         }
                         // The associated datasheet is stored together, and the associated datasheet ID is replaced with the copied associated datasheet ID.
-                        property.setForeignDatasheetId(newNodeMap.get(foreignDstId));
+                        field = field.withPropertyValue("foreignDatasheetId", newNodeMap.get(foreignDstId));
                     }
                     else if (ObjectUtil.isNotNull(options) && options.isAddColumn()) {
                         // Determine whether the columns of the associated datasheet exceed the limit.
-                        SimpleDatasheetMetaDTO meta = datasheetMetaService.findByDstId(foreignDstId);
-                        MetaMapRo mapRo = meta.getMeta().toBean(MetaMapRo.class);
+                        DatasheetMeta foreignMeta = datasheetMetaService.findMetaByDstId(foreignDstId);
                         // Check whether the number of columns in the associated datasheet exceeds the 200 column limit
-                        ExceptionUtil.isTrue(mapRo.getFieldMap().size() < limitProperties.getMaxColumnCount(), NodeException.LINK_DATASHEET_COLUMN_EXCEED_LIMIT);
+                        ExceptionUtil.isTrue(foreignMeta.getFieldMap().size() < limitProperties.getMaxColumnCount(), NodeException.LINK_DATASHEET_COLUMN_EXCEED_LIMIT);
                         // Convert to text, put room-server to modify columns, and fill in data
-                        fieldMapRo.setType(FieldType.TEXT.getFieldType());
-                        linkFieldIds.add(fieldMapRo.getId());
-                        property = null;
+                        linkFieldIds.add(field.getId());
+                        field = field.withType(FieldType.TEXT.getFieldType()).withProperty(DatasheetMetaCodec.createObjectNode());
                     }
                     else {
                         // The associated datasheet is not saved together. Delete the associated column.
-                        delFieldIds.add(fieldMapRo.getId());
-                        delFieldIdsInView.add(fieldMapRo.getId());
+                        delFieldIds.add(field.getId());
+                        delFieldIdsInView.add(field.getId());
                         continue;
                     }
-                    fieldMapRo.setProperty(JSONUtil.parseObj(property));
                     break;
                 case LOOKUP:
                 case FORMULA:
                 case CREATED_TIME:
                 case LAST_MODIFIED_TIME:
-                    Object originDstId = fieldMapRo.getProperty().get("datasheetId");
-                    if (originDstId != null) {
-                        fieldMapRo.getProperty().set("datasheetId", newNodeMap.get(originDstId.toString()));
-                    }
+                    field = this.replacePropertyDstId(field, newNodeMap);
                     break;
                 case AUTO_NUMBER:
-                    autoNumberFieldIds.add(fieldMapRo.getId());
-                    originDstId = fieldMapRo.getProperty().get("datasheetId");
-                    if (originDstId != null) {
-                        fieldMapRo.getProperty().set("datasheetId", newNodeMap.get(originDstId.toString()));
-                    }
+                    autoNumberFieldIds.add(field.getId());
+                    field = this.replacePropertyDstId(field, newNodeMap);
                     if (!options.isCopyData()) {
                         // When the record data is not copied, a blank line is automatically filled, so the next value of the self-increment field is 2.
-                        fieldMapRo.getProperty().set("nextId", 2);
+                        field = field.withPropertyValue("nextId", 2);
                     }
                     break;
                 case MEMBER:
                     if (!sameSpace) {
-                        fieldMapRo.getProperty().set("unitIds", new ArrayList<>());
-                        delFieldIds.add(fieldMapRo.getId());
+                        field = field.withPropertyValue("unitIds", new ArrayList<>());
+                        delFieldIds.add(field.getId());
                     }
                     break;
                 case CREATED_BY:
                 case LAST_MODIFIED_BY:
-                    originDstId = fieldMapRo.getProperty().get("datasheetId");
-                    if (originDstId != null) {
-                        fieldMapRo.getProperty().set("datasheetId", newNodeMap.get(originDstId.toString()));
-                    }
+                    field = this.replacePropertyDstId(field, newNodeMap);
                     if (!options.isRetainRecordMeta()) {
-                        fieldMapRo.getProperty().set("uuids", Collections.singletonList(uuid));
+                        field = field.withPropertyValue("uuids", Collections.singletonList(uuid));
                     }
                     break;
                 default:
                     break;
             }
-            FieldMapRo fieldMapRo1 = FieldMapRo.builder()
-                    .id(fieldMapRo.getId())
-                    .name(fieldMapRo.getName())
-                    .desc(fieldMapRo.getDesc())
-                    .type(fieldMapRo.getType())
-                    .property(fieldMapRo.getProperty())
-                    .required(fieldMapRo.getRequired())
-                    .build();
-            fieldMap.set(fieldMapRo.getId(), JSONUtil.parseObj(fieldMapRo1));
+            fieldMap.put(field.getId(), field);
         }
-        metaMapRo.setFieldMap(fieldMap);
         // If there is a delete column, the corresponding to delete processing is columns in the view.
-        this.delViewFieldId(metaMapRo, delFieldIdsInView, delFieldIds);
+        meta = meta.withFieldMap(fieldMap).withoutViewFieldIds(delFieldIdsInView, delFieldIds);
         // copy panel
-        this.copyWidgetPanels(userId, spaceId, destDstId, metaMapRo, newNodeMap);
-        return new NodeCopyDTO(metaMapRo, delFieldIds, autoNumberFieldIds, linkFieldIds);
-    }
-
-    /**
-     * Deletes the view that contains the attribute information of the specified field id
-     */
-    private void delViewFieldId(MetaMapRo metaMapRo, List<String> delFieldIds, List<String> delFieldIdsInFilter) {
-        if (CollUtil.isNotEmpty(delFieldIds) || CollUtil.isNotEmpty(delFieldIdsInFilter)) {
-            JSONArray views = JSONUtil.createArray();
-            metaMapRo.getViews().jsonIter().forEach(view -> {
-                ViewMapRo viewMapRo = JSONUtil.toBean(view, ViewMapRo.class);
-                // columns processing
-                JSONArray columns = delInfoIfExistFieldId(delFieldIds, viewMapRo.getColumns());
-                viewMapRo.setColumns(columns);
-                // filterInfo processing
-                JSONObject filterInfo = viewMapRo.getFilterInfo();
-                if (!JSONUtil.isNull(filterInfo)) {
-                    JSONArray array = JSONUtil.parseArray(filterInfo.get("conditions").toString());
-                    JSONArray conditions = delInfoIfExistFieldId(delFieldIdsInFilter, array);
-                    if (conditions.size() > 0) {
-                        filterInfo.set("conditions", conditions);
-                        viewMapRo.setFilterInfo(filterInfo);
-                    }
-                    else {
-                        viewMapRo.setFilterInfo(null);
-                    }
-                }
-                // sortInfo processing
-                JSONArray sortInfo = delInfoIfExistFieldId(delFieldIds, viewMapRo.getSortInfo());
-                viewMapRo.setSortInfo(sortInfo);
-                // groupInfo processing
-                JSONArray groupInfo = delInfoIfExistFieldId(delFieldIds, viewMapRo.getGroupInfo());
-                viewMapRo.setGroupInfo(groupInfo);
-                //style processing
-                JSONObject style = viewMapRo.getStyle();
-                if (!JSONUtil.isNull(style)) {
-                    Object object = style.get("coverFieldId");
-                    if (object != null && delFieldIds.contains(object.toString())) {
-                        style.set("coverFieldId", null);
-                        viewMapRo.setStyle(style);
-                    }
-                    Object object1 = style.get("kanbanFieldId");
-                    if (object1 != null && delFieldIds.contains(object1.toString())) {
-                        style.set("kanbanFieldId", null);
-                        viewMapRo.setStyle(style);
-                    }
-                    Object object2 = style.get("startFieldId");
-                    if (object2 != null && delFieldIds.contains(object2.toString())) {
-                        style.set("startFieldId", null);
-                        viewMapRo.setStyle(style);
-                    }
-                    Object object3 = style.get("endFieldId");
-                    if (object3 != null && delFieldIds.contains(object3.toString())) {
-                        style.set("endFieldId", null);
-                        viewMapRo.setStyle(style);
-                    }
-                    Object object4 = style.get("linkFieldId");
-                    if (object4 != null && delFieldIds.contains(object4.toString())) {
-                        style.set("linkFieldId", null);
-                        viewMapRo.setStyle(style);
-                    }
-                }
-                views.add(viewMapRo);
-            });
-            metaMapRo.setViews(views);
-        }
+        meta = this.copyWidgetPanels(userId, spaceId, destDstId, meta, newNodeMap);
+        return new NodeCopyDTO(meta, delFieldIds, autoNumberFieldIds, linkFieldIds);
     }
 
     /**
-     * Deletes the object containing the specified field id from the object array
+     * Replace the datasheet id in the field property with the id of the copied datasheet
      */
-    private JSONArray delInfoIfExistFieldId(List<String> delFieldIds, JSONArray filterInfo) {
-        if (!JSONUtil.isNull(filterInfo)) {
-            JSONArray array = JSONUtil.createArray();
-            filterInfo.jsonIter().forEach(info -> {
-                Object fieldId = info.get("fieldId");
-                if (fieldId != null && !delFieldIds.contains(fieldId.toString())) {
-                    array.add(info);
-                }
-            });
-            return array;
+    private DatasheetMeta.Field replacePropertyDstId(DatasheetMeta.Field field, Map<String, String> newNodeMap) {
+        String originDstId = field.getPropertyText("datasheetId");
+        if (originDstId == null) {
+            return field;
         }
-        return filterInfo;
+        return field.withPropertyValue("datasheetId", newNodeMap.get(originDstId));
     }
 
     /**
      * copy panel
      */
-    private void copyWidgetPanels(Long userId, String spaceId, String destDstId, MetaMapRo metaMapRo, Map<String, String> newNodeMap) {
+    private DatasheetMeta copyWidgetPanels(Long userId, String spaceId, String destDstId, DatasheetMeta meta, Map<String, String> newNodeMap) {
+        if (meta.getWidgetPanels() == null || meta.getWidgetPanels().isEmpty()) {
+            return meta;
+        }
         // construct a new component panel
         Map<String, String> newWidgetIdMap = new HashMap<>(8);
-        JSONArray newWidgetPanels = this.generateWidgetPanels(metaMapRo.getWidgetPanels(), newWidgetIdMap);
+        JSONArray newWidgetPanels = this.generateWidgetPanels(JSONUtil.parseArray(meta.getWidgetPanels().toString()), newWidgetIdMap);
         if (newWidgetIdMap.isEmpty()) {
-            return;
+            return meta;
         }
 
         // Newly Created Component ID-Data Source datasheet ID MAP
@@ -559,9 +497,9 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         Map<String, DatasheetWidgetDTO> newWidgetIdToDstMap = newWidgetIdMap.values().stream()
                 .collect(Collectors.toMap(id -> id, id -> datasheetWidgetDTO));
 
-        metaMapRo.setWidgetPanels(newWidgetPanels);
         // batch generation of new components
         iWidgetService.copyBatch(userId, spaceId, newNodeMap, newWidgetIdMap, newWidgetIdToDstMap);
+        return meta.withWidgetPanels(DatasheetMetaCodec.parseArray(newWidgetPanels.toString()));
     }
 
     @Override
@@ -600,29 +538,22 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
     @Override
     public Map<String, List<String>> getForeignDstIds(List<String> dstIdList, boolean filter) {
         log.info("Query the associated datasheet ID ");
-        List<DatasheetMetaDTO> metaList = iDatasheetMetaService.findMetaDtoByDstIds(dstIdList);
-        if (CollUtil.isNotEmpty(metaList)) {
-            Map<String, List<String>> map = new HashMap<>(metaList.size());
-            metaList.forEach(meta -> {
-                MetaMapRo metaMapRo = JSONUtil.parseObj(meta.getMetaData()).toBean(MetaMapRo.class);
+        Map<String, DatasheetMeta> metaMap = iDatasheetMetaService.findMetaMapByDstIds(dstIdList);
+        if (MapUtil.isNotEmpty(metaMap)) {
+            Map<String, List<String>> map = new HashMap<>(metaMap.size());
+            metaMap.forEach((dstId, meta) -> {
                 List<String> dstIds = new ArrayList<>();
-                metaMapRo.getFieldMap().values().forEach(field -> {
-                    FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
-                    if (fieldMapRo.getType().equals(FieldType.LINK.getFieldType())) {
-                        LinkFieldProperty property = fieldMapRo.getProperty().toBean(LinkFieldProperty.class);
+                meta.getFieldMap().values().forEach(field -> {
+                    if (field.isType(FieldType.LINK)) {
+                        String foreignDstId = field.getPropertyText("foreignDatasheetId");
                         // whether to filter dst id list
-                        if (filter) {
-                            if (!dstIdList.contains(property.getForeignDatasheetId())) {
-                                dstIds.add(property.getForeignDatasheetId());
-                            }
-                        }
-                        else {
-                            dstIds.add(property.getForeignDatasheetId());
+                        if (!filter || !dstIdList.contains(foreignDstId)) {
+                            dstIds.add(foreignDstId);
                         }
                     }
                 });
                 if (CollUtil.isNotEmpty(dstIds)) {
-                    map.put(meta.getDstId(), dstIds);
+                    map.put(dstId, dstIds);
                 }
             });
             return map;
@@ -636,117 +567,93 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         log.info("Delete the field of the specified association datasheet ");
         if (CollUtil.isNotEmpty(linkDstIds)) {
             // get datasheet information
-            SimpleDatasheetMetaDTO meta = datasheetMetaService.findByDstId(dstId);
-            MetaMapRo metaMapRo = meta.getMeta().toBean(MetaMapRo.class);
+            DatasheetMeta meta = datasheetMetaService.findMetaByDstId(dstId);
             List<String> delFieldIds = new ArrayList<>();
             // find the field id of the associated datasheet
-            metaMapRo.getFieldMap().values().forEach(field -> {
-                FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
-                if (fieldMapRo.getType().equals(FieldType.LINK.getFieldType())) {
-                    LinkFieldProperty property = fieldMapRo.getProperty().toBean(LinkFieldProperty.class);
-                    String foreignDstId = property.getForeignDatasheetId();
-                    if (linkDstIds.contains(foreignDstId)) {
-                        delFieldIds.add(fieldMapRo.getId());
-                    }
+            meta.getFieldMap().values().forEach(field -> {
+                if (field.isType(FieldType.LINK) && linkDstIds.contains(field.getPropertyText("foreignDatasheetId"))) {
+                    delFieldIds.add(field.getId());
                 }
             });
-            // fieldMap processing
-            delFieldIds.forEach(fieldId -> metaMapRo.getFieldMap().remove(fieldId));
-            // view attribute processing
-            this.delViewFieldId(metaMapRo, delFieldIds, delFieldIds);
+            // fieldMap and view attribute processing
+            meta = meta.withoutFields(delFieldIds).withoutViewFieldIds(delFieldIds, delFieldIds);
+            String metaData = DatasheetMetaCodec.write(meta);
             if (saveDb && CollUtil.isNotEmpty(delFieldIds)) {
                 // save changes
-                datasheetMetaService.edit(userId, dstId, MetaOpRo.builder().meta(JSONUtil.parseObj(metaMapRo)).build());
+                datasheetMetaService.edit(userId, dstId, metaData);
             }
             // record processing
             DatasheetRecordMapVo recordMapVo = datasheetRecordService.delFieldData(dstId, delFieldIds, saveDb);
-            return SnapshotMapRo.builder().meta(JSONUtil.parseObj(metaMapRo)).recordMap(recordMapVo.getRecordMap()).build();
+            return SnapshotMapRo.builder().meta(JSONUtil.parseObj(metaData)).recordMap(recordMapVo.getRecordMap()).build();
         }
         return null;
     }
 
     @Override
-    public Map<String, SnapshotMapRo> findSnapshotMapByDstIds(List<String> dstIds, boolean hasRecordMap) {
-        log.info("Get multiple datasheets and corresponding snapshot ");
-        List<SnapshotDTO> dtoList = new ArrayList<>();
-        List<DatasheetMetaDTO> metaList = iDatasheetMetaService.findMetaDtoByDstIds(dstIds);
-        if (CollUtil.isNotEmpty(metaList)) {
-            Map<String, String> dstIdToMetaMap = metaList.stream().collect(Collectors.toMap(DatasheetMetaDTO::getDstId, com.apitable.workspace.dto.DatasheetMetaDTO::getMetaData));
-            Map<String, JSONObject> dstIdToRecordMapMap = new HashMap<>(dstIdToMetaMap.size());
+    public boolean writeSnapshot(String dstId, boolean hasRecordMap, Writer writer) throws IOException {
+        List<DatasheetMetaDTO> metaList = iDatasheetMetaService.findMetaDtoByDstIds(Collections.singletonList(dstId));
+        if (CollUtil.isEmpty(metaList)) {
+            return false;
+        }
+        try (JsonGenerator generator = SNAPSHOT_JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeFieldName("meta");
+            generator.writeRawValue(metaList.get(0).getMetaData());
+            generator.writeFieldName("recordMap");
             if (hasRecordMap) {
-                List<DatasheetRecordMapVo> mapByDstIds = datasheetRecordService.findMapByDstIds(dstIdToMetaMap.keySet());
-                dstIdToRecordMapMap = mapByDstIds.stream().collect(Collectors.toMap(DatasheetRecordMapVo::getDstId, DatasheetRecordMapVo::getRecordMap));
+                datasheetRecordService.writeRecordMap(dstId, generator);
             }
-            Map<String, JSONObject> finalDstIdToRecordMapMap = dstIdToRecordMapMap;
-            dstIdToMetaMap.keySet().forEach(dstId -> {
-                // get snapshot
-                JSONObject recordMap = finalDstIdToRecordMapMap.get(dstId);
-                SnapshotMapRo snapshotMapRo = SnapshotMapRo.builder()
-                        .meta(JSONUtil.parseObj(dstIdToMetaMap.get(dstId)))
-                        .recordMap(Optional.ofNullable(recordMap).orElse(JSONUtil.createObj()))
-                        .build();
-                dtoList.add(new SnapshotDTO(dstId, snapshotMapRo));
-            });
+            else {
+                generator.writeStartObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
         }
-        return dtoList.stream().collect(Collectors.toMap(SnapshotDTO::getDstId, SnapshotDTO::getSnapshot));
+        return true;
     }
 
     @Override
-    public List<String> replaceFieldDstId(Long userId, boolean sameSpace, MetaMapRo metaMapRo, Map<String, String> newNodeIdMap) {
+    public DatasheetMeta replaceFieldDstId(Long userId, boolean sameSpace, DatasheetMeta meta, Map<String, String> newNodeIdMap, List<String> delFieldIds) {
         log.info("Replace the datasheet ID in the field attribute ");
-        JSONObject fieldMap = JSONUtil.createObj();
-        List<String> delFieldIds = new ArrayList<>();
+        Map<String, DatasheetMeta.Field> fieldMap = new LinkedHashMap<>(meta.getFieldMap().size());
         List<String> delFieldIdsInView = new ArrayList<>();
         String uuid = userMapper.selectUuidById(userId);
-        for (Object field : metaMapRo.getFieldMap().values()) {
-            FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
-            FieldType type = FieldType.create(fieldMapRo.getType());
-            switch (type) {
+        for (DatasheetMeta.Field field : meta.getFieldMap().values()) {
+            switch (field.getFieldType()) {
                 case LINK:
-                    LinkFieldProperty property = fieldMapRo.getProperty().toBean(LinkFieldProperty.class);
-                    String foreignDstId = property.getForeignDatasheetId();
-                    String nodeId = newNodeIdMap.get(foreignDstId);
+                    String nodeId = newNodeIdMap.get(field.getPropertyText("foreignDatasheetId"));
                     if (nodeId == null) {
                         // cannot find replaceable delete column
-                        delFieldIds.add(fieldMapRo.getId());
-                        delFieldIdsInView.add(fieldMapRo.getId());
+                        delFieldIds.add(field.getId());
+                        delFieldIdsInView.add(field.getId());
                         continue;
                     }
-                    property.setForeignDatasheetId(nodeId);
-                    fieldMapRo.setProperty(JSONUtil.parseObj(property));
+                    field = field.withPropertyValue("foreignDatasheetId", nodeId);
                     break;
                 case LOOKUP:
                 case FORMULA:
                 case CREATED_TIME:
                 case LAST_MODIFIED_TIME:
-                    Object originDstId = fieldMapRo.getProperty().get("datasheetId");
-                    if (originDstId != null) {
-                        fieldMapRo.getProperty().set("datasheetId", newNodeIdMap.get(originDstId.toString()));
-                    }
+                    field = this.replacePropertyDstId(field, newNodeIdMap);
                     break;
                 case MEMBER:
                     if (!sameSpace) {
-                        fieldMapRo.getProperty().set("unitIds", new ArrayList<>());
-                        delFieldIds.add(fieldMapRo.getId());
+                        field = field.withPropertyValue("unitIds", new ArrayList<>());
+                        delFieldIds.add(field.getId());
                     }
                     break;
                 case CREATED_BY:
                 case LAST_MODIFIED_BY:
-                    originDstId = fieldMapRo.getProperty().get("datasheetId");
-                    if (originDstId != null) {
-                        fieldMapRo.getProperty().set("datasheetId", newNodeIdMap.get(originDstId.toString()));
-                    }
-                    fieldMapRo.getProperty().set("uuids", Collections.singletonList(uuid));
+                    field = this.replacePropertyDstId(field, newNodeIdMap)
+                            .withPropertyValue("uuids", Collections.singletonList(uuid));
                     break;
                 default:
                     break;
             }
-            fieldMap.set(fieldMapRo.getId(), JSONUtil.parseObj(fieldMapRo));
+            fieldMap.put(field.getId(), field);
         }
-        metaMapRo.setFieldMap(fieldMap);
         // If there is a delete column, the corresponding to delete processing is columns in the view.
-        this.delViewFieldId(metaMapRo, delFieldIdsInView, delFieldIds);
-        return delFieldIds;
+        return meta.withFieldMap(fieldMap).withoutViewFieldIds(delFieldIdsInView, delFieldIds);
     }
 
     @Override
@@ -932,7 +839,7 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         if (MapUtil.isNotEmpty(dstIdToDelDstIdsMap)) {
             // gets the snapshot of all datasheets
             List<String> nodeIds = CollUtil.newArrayList(dstIdToDelDstIdsMap.keySet());
-            Map<String, SnapshotMapRo> snapshotMap = this.findSnapshotMapByDstIds(nodeIds, false);
+            Map<String, DatasheetMeta> metaMap = iDatasheetMetaService.findMetaMapByDstIds(nodeIds);
             // The snapshot recordMap does not have the record datasheet ID, and the change needs to be obtained separately.
             List<DataSheetRecordDTO> dataSheetRecordDTOList = datasheetRecordMapper.selectDtoByDstIds(nodeIds);
             Map<String, List<DataSheetRecordDTO>> recordDtoMap = dataSheetRecordDTOList.stream().collect(Collectors.groupingBy(DataSheetRecordDTO::getDstId));
@@ -946,33 +853,27 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
             for (Map.Entry<String, List<String>> entry : dstIdToDelDstIdsMap.entrySet()) {
                 String dstId = entry.getKey();
                 List<String> linkDstIds = entry.getValue();
-                SnapshotMapRo snapshotMapRo = snapshotMap.get(dstId);
+                DatasheetMeta meta = metaMap.get(dstId);
                 // prevent dirty data and delete failure
-                if (snapshotMapRo == null) {
+                if (meta == null) {
                     continue;
                 }
-                MetaMapRo metaMapRo = JSONUtil.parseObj(snapshotMapRo.getMeta()).toBean(MetaMapRo.class);
                 Map<String, String> fldIdToLinkDstIdMap = MapUtil.newHashMap();
+                Map<String, DatasheetMeta.Field> fieldMap = new LinkedHashMap<>(meta.getFieldMap());
                 // find the field id of the associated datasheet
-                metaMapRo.getFieldMap().values().forEach(field -> {
-                    FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
-                    if (fieldMapRo.getType().equals(FieldType.LINK.getFieldType())) {
-                        LinkFieldProperty property = fieldMapRo.getProperty().toBean(LinkFieldProperty.class);
-                        String foreignDstId = property.getForeignDatasheetId();
+                meta.getFieldMap().values().forEach(field -> {
+                    if (field.isType(FieldType.LINK)) {
+                        String foreignDstId = field.getPropertyText("foreignDatasheetId");
                         if (linkDstIds.contains(foreignDstId)) {
                             // Record the associated number table corresponding to the column and convert the column to a text field.
-                            fldIdToLinkDstIdMap.put(fieldMapRo.getId(), foreignDstId);
-                            FieldMapRo fieldMapRo1 = FieldMapRo.builder()
-                                    .id(fieldMapRo.getId())
-                                    .name(fieldMapRo.getName())
-                                    .desc(fieldMapRo.getDesc())
-                                    .type(FieldType.TEXT.getFieldType()).build();
-                            metaMapRo.getFieldMap().set(fieldMapRo.getId(), JSONUtil.parseObj(fieldMapRo1));
+                            fldIdToLinkDstIdMap.put(field.getId(), foreignDstId);
+                            fieldMap.put(field.getId(), new DatasheetMeta.Field(field.getId(), field.getName(),
+                                    field.getDesc(), FieldType.TEXT.getFieldType(), null, null));
                         }
                     }
                 });
                 // save changes
-                datasheetMetaService.edit(userId, dstId, MetaOpRo.builder().meta(JSONUtil.parseObj(metaMapRo)).build());
+                datasheetMetaService.edit(userId, dstId, DatasheetMetaCodec.write(meta.withFieldMap(fieldMap)));
                 // traversal record map.
                 // The record datasheet corresponds to the set of recordId that needs to be modified, and the associated datasheet corresponds to the set of recordId that is used.
                 Set<String> updateRecIds = new HashSet<>();
@@ -1021,30 +922,30 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
         // The associated field has associated data, and the processing obtains the relationship between the corresponding record mapping data used by each associated datasheet.
         Map<String, Map<String, String>> linkDstIdToRecValMap = new HashMap<>(linkDstIdToRecIdsMap.size());
         List<String> linkDstIds = CollUtil.newArrayList(linkDstIdToRecIdsMap.keySet());
-        Map<String, SnapshotMapRo> linkSnapshotMap = this.findSnapshotMapByDstIds(linkDstIds, true);
+        Map<String, DatasheetMeta> linkMetaMap = iDatasheetMetaService.findMetaMapByDstIds(linkDstIds);
+        Map<String, JSONObject> linkRecordMap = new HashMap<>(linkDstIds.size());
+        datasheetRecordService.findMapByDstIds(linkDstIds).forEach(vo -> linkRecordMap.put(vo.getDstId(), vo.getRecordMap()));
         for (Map.Entry<String, Set<String>> linkDstIdToRecIds : linkDstIdToRecIdsMap.entrySet()) {
             String linkDstId = linkDstIdToRecIds.getKey();
             Set<String> recIds = linkDstIdToRecIds.getValue();
-            SnapshotMapRo snapshotMapRo = linkSnapshotMap.get(linkDstId);
-            if (snapshotMapRo == null) {
+            DatasheetMeta meta = linkMetaMap.get(linkDstId);
+            if (meta == null) {
                 continue;
             }
             // Find the field ID of the first column from the properties of the view.
-            MetaMapRo metaMapRo = JSONUtil.parseObj(snapshotMapRo.getMeta()).toBean(MetaMapRo.class);
-            ViewMapRo viewMapRo = JSONUtil.parseObj(metaMapRo.getViews().get(0)).toBean(ViewMapRo.class);
-            String firstColumnId = JSONUtil.parseObj(viewMapRo.getColumns().get(0)).get("fieldId").toString();
+            String firstColumnId = meta.getFirstColumnFieldId();
             // Gets the properties of the first column field
-            FieldMapRo fieldMapRo = JSONUtil.parseObj(metaMapRo.getFieldMap().get(firstColumnId)).toBean(FieldMapRo.class);
-            FieldType fieldType = FieldType.create(fieldMapRo.getType());
+            DatasheetMeta.Field field = meta.getField(firstColumnId);
+            FieldType fieldType = field.getFieldType();
+            JSONObject property = field.getProperty() == null ? null : JSONUtil.parseObj(field.getProperty().toString());
             // Traversing the set of recordId used to make up the MAP of the record ID and data.
             Map<String, String> recIdToValMap = MapUtil.newHashMap();
-            JSONObject recordMap = snapshotMapRo.getRecordMap();
+            JSONObject recordMap = linkRecordMap.getOrDefault(linkDstId, JSONUtil.createObj());
             recIds.forEach(recId -> {
-                Object recordVo = recordMap.get(recId);
-                if (recordVo != null) {
-                    DatasheetRecordVo vo = JSONUtil.parseObj(recordVo).toBean(DatasheetRecordVo.class);
-                    Object cellVal = vo.getData().get(firstColumnId);
-                    String val = this.parseCellData(fieldType, fieldMapRo.getProperty(), cellVal);
+                JSONObject record = recordMap.getJSONObject(recId);
+                if (record != null) {
+                    Object cellVal = record.getJSONObject("data").get(firstColumnId);
+                    String val = this.parseCellData(fieldType, property, cellVal);
                     recIdToValMap.put(recId, val);
                 }
             });
@@ -1143,30 +1044,23 @@ public class DatasheetServiceImpl extends ServiceImpl<DatasheetMapper, Datasheet
     @Override
     public Map<String, List<String>> getForeignFieldNames(List<String> dstIdList) {
         // batch acquisition of datasheet metadata
-        List<DatasheetMetaDTO> metaList = iDatasheetMetaService.findMetaDtoByDstIds(dstIdList);
-        if (CollUtil.isNotEmpty(metaList)) {
-            // traversal datasheet metadata
-            for (DatasheetMetaDTO meta : metaList) {
-                // Build the return body, node ID, and associated field name.
-                Map<String, List<String>> map = new HashMap<>();
-                List<String> foreignFieldNames = new ArrayList<>();
-                MetaMapRo metaMapRo = JSONUtil.parseObj(meta.getMetaData()).toBean(MetaMapRo.class);
-                for (Object field : metaMapRo.getFieldMap().values()) {
-                    FieldMapRo fieldMapRo = JSONUtil.parseObj(field).toBean(FieldMapRo.class);
-                    // determine if there is an associated field
-                    if (fieldMapRo.getType().equals(FieldType.LINK.getFieldType())) {
-                        LinkFieldProperty property = fieldMapRo.getProperty().toBean(LinkFieldProperty.class);
-                        // Determine whether the associated field is associated with the appearance.
-                        if (!dstIdList.contains(property.getForeignDatasheetId())) {
-                            foreignFieldNames.add(fieldMapRo.getName());
-                        }
-                    }
-                }
-                if (CollUtil.isNotEmpty(foreignFieldNames)) {
-                    map.put(meta.getDstId(), foreignFieldNames);
-                    return map;
+        Map<String, DatasheetMeta> metaMap = iDatasheetMetaService.findMetaMapByDstIds(dstIdList);
+        // traversal datasheet metadata
+        for (Map.Entry<String, DatasheetMeta> entry : metaMap.entrySet()) {
+            // Build the return body, node ID, and associated field name.
+            Map<String, List<String>> map = new HashMap<>();
+            List<String> foreignFieldNames = new ArrayList<>();
+            for (DatasheetMeta.Field field : entry.getValue().getFieldMap().values()) {
+                // determine if there is an associated field
+                // and whether the associated field is associated with the appearance.
+                if (field.isType(FieldType.LINK) && !dstIdList.contains(field.getPropertyText("foreignDatasheetId"))) {
+                    foreignFieldNames.add(field.getName());
                 }
             }
+            if (CollUtil.isNotEmpty(foreignFieldNames)) {
+                map.put(entry.getKey(), foreignFieldNames);
+                return map;
+            }
         }
         return null;
     }
@@ -37,7 +37,6 @@ import javax.annotation.Resource;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.ListUtil;
-import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
@@ -439,74 +438,112 @@ public class FieldRoleServiceImpl implements IFieldRoleService {
 
     @Override
     public FieldPermissionView getFieldPermissionView(Long memberId, String nodeId, String shareId) {
-        log.info("The member [{}] obtains the field permission of the node [{}] and shares the ID: [{}]", memberId, nodeId, shareId);
-        NodeType type = iNodeService.getTypeByNodeId(nodeId);
-        String datasheetId;
-        switch (type) {
-            case DATASHEET:
-                datasheetId = nodeId;
-                break;
-            case FORM:
-            case MIRROR:
-                Map<String, String> formToDatasheetMap = iNodeRelService.getRelNodeToMainNodeMap(Collections.singletonList(nodeId));
-                if (MapUtil.isEmpty(formToDatasheetMap) || !formToDatasheetMap.containsKey(nodeId)) {
-                    return null;
-                }
-                datasheetId = formToDatasheetMap.get(nodeId);
-                break;
-            default:
-                return null;
+        return getFieldPermissionViews(memberId, Collections.singletonList(nodeId), shareId).get(nodeId);
+    }
+
+    @Override
+    public Map<String, FieldPermissionView> getFieldPermissionViews(Long memberId, List<String> nodeIds, String shareId) {
+        log.info("The member [{}] obtains the field permission of the nodes [{}] and shares the ID: [{}]", memberId, nodeIds, shareId);
+        Map<String, FieldPermissionView> views = new LinkedHashMap<>(nodeIds.size());
+        if (nodeIds.isEmpty()) {
+            return views;
         }
-        List<String> controlIds = iControlService.getControlIdByControlIdPrefixAndType(datasheetId, ControlType.DATASHEET_FIELD.getVal());
-        if (controlIds == null || controlIds.isEmpty()) {
-            return new FieldPermissionView(nodeId, datasheetId, null);
+        Map<String, NodeType> nodeTypes = iNodeService.getTypeByNodeIds(nodeIds);
+        List<String> relNodeIds = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            NodeType type = nodeTypes.get(nodeId);
+            ExceptionUtil.isNotNull(type, PermissionException.NODE_NOT_EXIST);
+            if (type == NodeType.FORM || type == NodeType.MIRROR) {
+                relNodeIds.add(nodeId);
+            }
         }
-        Map<String, String> controlIdToFieldIdMap = controlIds.stream()
-                .collect(Collectors.toMap(String::toString, controlId -> controlId.substring(controlId.indexOf(ControlIdBuilder.SYMBOL) + 1)));
-        // load field permissions in sharing
-        if (StrUtil.isNotBlank(shareId)) {
-            // If the datasheet is not collected, directly return the field with the permission set.
-            if (type != NodeType.FORM) {
-                Map<String, FieldPermissionInfo> permissionInfoMap = controlIdToFieldIdMap.values().stream()
-                        .collect(Collectors.toMap(String::toString, fieldId -> FieldPermissionInfo.builder()
-                                .fieldId(fieldId)
-                                .permission(new FieldPermission())
-                                .build()));
-                return new FieldPermissionView(nodeId, datasheetId, permissionInfoMap);
+        Map<String, String> relNodeToDatasheetMap = relNodeIds.isEmpty() ? new HashMap<>(0) : iNodeRelService.getRelNodeToMainNodeMap(relNodeIds);
+        // node id -> datasheet id, the node which is not datasheet or its datasheet is missing has no view
+        Map<String, String> nodeToDatasheetMap = new LinkedHashMap<>(nodeIds.size());
+        for (String nodeId : nodeIds) {
+            if (nodeTypes.get(nodeId) == NodeType.DATASHEET) {
+                nodeToDatasheetMap.put(nodeId, nodeId);
             }
-            // collect the datasheet and add the permission configuration attribute of the returned field.
-            List<ControlSettingEntity> controlSettingEntities = iControlSettingService.getBatchByControlIds(controlIds);
-            Map<String, ControlSettingEntity> controlSettingEntityMap = controlSettingEntities.stream()
-                    .collect(Collectors.toMap(ControlSettingEntity::getControlId, Function.identity()));
-            Map<String, FieldPermissionInfo> permissionInfoMap = controlIdToFieldIdMap.entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getValue, entry -> FieldPermissionInfo.builder()
-                            .fieldId(entry.getValue())
-                            .setting(JSONUtil.toBean(controlSettingEntityMap.get(entry.getKey()).getProps(), FieldRoleSetting.class))
+            else if (relNodeToDatasheetMap.containsKey(nodeId)) {
+                nodeToDatasheetMap.put(nodeId, relNodeToDatasheetMap.get(nodeId));
+            }
+        }
+        if (nodeToDatasheetMap.isEmpty()) {
+            return views;
+        }
+        // load the field controls of all datasheets at one time
+        List<String> controlIds = iControlService.getControlIdByControlIdPrefixesAndType(new HashSet<>(nodeToDatasheetMap.values()),
+                ControlType.DATASHEET_FIELD.getVal());
+        Map<String, Map<String, String>> datasheetToControlIdToFieldIdMap = new HashMap<>(nodeToDatasheetMap.size());
+        for (String controlId : controlIds) {
+            int index = controlId.indexOf(ControlIdBuilder.SYMBOL);
+            datasheetToControlIdToFieldIdMap.computeIfAbsent(controlId.substring(0, index), k -> new LinkedHashMap<>())
+                    .put(controlId, controlId.substring(index + 1));
+        }
+        boolean inStation = StrUtil.isBlank(shareId);
+        boolean settingRequired = inStation || nodeToDatasheetMap.keySet().stream().anyMatch(nodeId -> nodeTypes.get(nodeId) == NodeType.FORM);
+        Map<String, ControlSettingEntity> controlSettingEntityMap = controlIds.isEmpty() || !settingRequired ? new HashMap<>(0) :
+                iControlSettingService.getBatchByControlIds(controlIds).stream()
+                        .collect(Collectors.toMap(ControlSettingEntity::getControlId, Function.identity(), (k1, k2) -> k1));
+        Map<String, ControlRoleDict> datasheetToRoleDict = new HashMap<>(0);
+        Long userId = null;
+        if (inStation && !controlIds.isEmpty()) {
+            // get the permission role set of all datasheets
+            Map<String, List<String>> datasheetToFieldIds = new LinkedHashMap<>(datasheetToControlIdToFieldIdMap.size());
+            datasheetToControlIdToFieldIdMap.forEach((datasheetId, controlIdToFieldIdMap) ->
+                    datasheetToFieldIds.put(datasheetId, new ArrayList<>(controlIdToFieldIdMap.values())));
+            datasheetToRoleDict = controlTemplate.fetchFieldRoles(memberId, datasheetToFieldIds);
+            userId = memberMapper.selectUserIdByMemberId(memberId);
+        }
+        for (Entry<String, String> entry : nodeToDatasheetMap.entrySet()) {
+            String nodeId = entry.getKey();
+            String datasheetId = entry.getValue();
+            Map<String, String> controlIdToFieldIdMap = datasheetToControlIdToFieldIdMap.get(datasheetId);
+            if (controlIdToFieldIdMap == null) {
+                views.put(nodeId, new FieldPermissionView(nodeId, datasheetId, null));
+                continue;
+            }
+            Map<String, FieldPermissionInfo> permissionInfoMap = inStation
+                    ? buildFieldPermissionInfoMap(controlIdToFieldIdMap, controlSettingEntityMap, datasheetToRoleDict.get(datasheetId), userId)
+                    : buildSharedFieldPermissionInfoMap(controlIdToFieldIdMap, controlSettingEntityMap, nodeTypes.get(nodeId));
+            views.put(nodeId, new FieldPermissionView(nodeId, datasheetId, permissionInfoMap));
+        }
+        return views;
+    }
+
+    private Map<String, FieldPermissionInfo> buildSharedFieldPermissionInfoMap(Map<String, String> controlIdToFieldIdMap,
+            Map<String, ControlSettingEntity> controlSettingEntityMap, NodeType type) {
+        // If the datasheet is not collected, directly return the field with the permission set.
+        if (type != NodeType.FORM) {
+            return controlIdToFieldIdMap.values().stream()
+                    .collect(Collectors.toMap(String::toString, fieldId -> FieldPermissionInfo.builder()
+                            .fieldId(fieldId)
                             .permission(new FieldPermission())
                             .build()));
-            return new FieldPermissionView(nodeId, datasheetId, permissionInfoMap);
         }
-        // in station loading
-        // get the permission role set
-        ControlRoleDict roleDict = controlTemplate.fetchFieldRole(memberId, datasheetId, ListUtil.list(true, controlIdToFieldIdMap.values()));
-        // get permission configuration properties
-        List<ControlSettingEntity> controlSettingEntities = iControlSettingService.getBatchByControlIds(controlIds);
-        Map<String, String> controlIdToPropsMap = controlSettingEntities.stream()
-                .collect(Collectors.toMap(ControlSettingEntity::getControlId, ControlSettingEntity::getProps));
-        Map<String, Long> controlId2Creator = controlSettingEntities.stream()
-                .collect(Collectors.toMap(ControlSettingEntity::getControlId, ControlSettingEntity::getUpdatedBy));
-        Long userId = memberMapper.selectUserIdByMemberId(memberId);
-        Map<String, FieldPermissionInfo> permissionInfoMap = controlIdToFieldIdMap.entrySet().stream()
+        // collect the datasheet and add the permission configuration attribute of the returned field.
+        return controlIdToFieldIdMap.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getValue, entry -> FieldPermissionInfo.builder()
+                        .fieldId(entry.getValue())
+                        .setting(JSONUtil.toBean(controlSettingEntityMap.get(entry.getKey()).getProps(), FieldRoleSetting.class))
+                        .permission(new FieldPermission())
+                        .build()));
+    }
+
+    private Map<String, FieldPermissionInfo> buildFieldPermissionInfoMap(Map<String, String> controlIdToFieldIdMap,
+            Map<String, ControlSettingEntity> controlSettingEntityMap, ControlRoleDict roleDict, Long userId) {
+        return controlIdToFieldIdMap.entrySet().stream()
                 .collect(Collectors.toMap(Map.Entry::getValue, entry -> {
+                    ControlSettingEntity controlSetting = controlSettingEntityMap.get(entry.getKey());
                     FieldPermissionInfo fieldPermissionInfo = new FieldPermissionInfo();
                     fieldPermissionInfo.setFieldId(entry.getValue());
-                    fieldPermissionInfo.setSetting(JSONUtil.toBean(controlIdToPropsMap.get(entry.getKey()), FieldRoleSetting.class));
+                    fieldPermissionInfo.setSetting(JSONUtil.toBean(controlSetting != null ? controlSetting.getProps() : null, FieldRoleSetting.class));
                     if (roleDict.containsKey(entry.getValue())) {
                         ControlRole role = roleDict.get(entry.getValue());
                         fieldPermissionInfo.setHasRole(true);
                         fieldPermissionInfo.setRole(role.getRoleTag());
                         // Add whether the current user can manage this permission
-                        fieldPermissionInfo.setManageable(role.isAdmin() || controlId2Creator.get(entry.getKey()).equals(userId));
+                        fieldPermissionInfo.setManageable(role.isAdmin() || controlSetting.getUpdatedBy().equals(userId));
                         fieldPermissionInfo.setPermission(role.permissionToBean(FieldPermission.class));
                     }
                     else {
@@ -514,8 +551,6 @@ public class FieldRoleServiceImpl implements IFieldRoleService {
                     }
                     return fieldPermissionInfo;
                 }));
-
-        return new FieldPermissionView(nodeId, datasheetId, permissionInfoMap);
     }
 
     @Override
@@ -538,6 +573,19 @@ public class FieldRoleServiceImpl implements IFieldRoleService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Map<String, List<String>> getPermissionFieldIds(Collection<String> datasheetIds) {
+        List<String> controlIds = iControlService.getControlIdByControlIdPrefixesAndType(datasheetIds, ControlType.DATASHEET_FIELD.getVal());
+        if (CollUtil.isEmpty(controlIds)) {
+            return new HashMap<>(0);
+        }
+        // the prefix match may also hit other datasheets whose id starts with a requested one
+        return controlIds.stream()
+                .filter(controlId -> datasheetIds.contains(controlId.substring(0, controlId.indexOf(ControlIdBuilder.SYMBOL))))
+                .collect(Collectors.groupingBy(controlId -> controlId.substring(0, controlId.indexOf(ControlIdBuilder.SYMBOL)),
+                        Collectors.mapping(controlId -> controlId.substring(controlId.indexOf(ControlIdBuilder.SYMBOL) + 1), Collectors.toList())));
+    }
+
     @Override
     public Map<String, List<Long>> deleteFieldRoles(String controlId, List<Long> unitIds) {
         if (CollUtil.isEmpty(unitIds)) {
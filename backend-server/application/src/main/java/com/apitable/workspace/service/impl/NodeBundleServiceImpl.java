@@ -18,24 +18,39 @@
 
 package com.apitable.workspace.service.impl;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
 import cn.hutool.core.codec.Base64;
@@ -43,35 +58,47 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DatePattern;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.crypto.digest.DigestAlgorithm;
 import cn.hutool.crypto.digest.Digester;
 import cn.hutool.json.JSONException;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import lombok.extern.slf4j.Slf4j;
 
 import com.apitable.base.enums.ActionException;
+import com.apitable.base.enums.DatabaseException;
 import com.apitable.base.enums.ParameterException;
+import com.apitable.shared.cache.service.NodeTreeSnapshotCacheService;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
 import com.apitable.shared.security.PasswordService;
 import com.apitable.shared.util.ExportUtil;
 import com.apitable.shared.util.IdUtil;
-import com.apitable.shared.util.RandomExtendUtil;
 import com.apitable.space.dto.NodeAssetDTO;
 import com.apitable.space.mapper.SpaceAssetMapper;
 import com.apitable.space.service.ISpaceAssetService;
+import com.apitable.space.service.ISpaceStatisticsService;
 import com.apitable.workspace.dto.Manifest;
-import com.apitable.workspace.dto.NodeDataFile;
 import com.apitable.workspace.dto.NodeFileTree;
 import com.apitable.workspace.enums.NodeType;
 import com.apitable.workspace.enums.PermissionException;
+import com.apitable.workspace.mapper.DatasheetMetaMapper;
 import com.apitable.workspace.mapper.NodeMapper;
 import com.apitable.workspace.ro.DataSheetCreateRo;
-import com.apitable.workspace.ro.MetaMapRo;
+import com.apitable.workspace.support.DatasheetMeta;
+import com.apitable.workspace.support.DatasheetMetaCodec;
+import com.apitable.workspace.support.RecordDataJson;
 import com.apitable.workspace.ro.SnapshotMapRo;
+import com.apitable.workspace.service.IDatasheetRecordService;
 import com.apitable.workspace.service.IDatasheetService;
 import com.apitable.workspace.service.INodeDescService;
 import com.apitable.workspace.service.INodeService;
@@ -83,8 +110,11 @@ import com.apitable.core.util.ExceptionUtil;
 import com.apitable.workspace.entity.NodeDescEntity;
 import com.apitable.workspace.entity.NodeEntity;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 @Slf4j
@@ -103,6 +133,9 @@ public class NodeBundleServiceImpl implements NodeBundleService {
     @Resource
     private IDatasheetService iDatasheetService;
 
+    @Resource
+    private DatasheetMetaMapper datasheetMetaMapper;
+
     @Resource
     private ISpaceAssetService iSpaceAssetService;
 
@@ -115,61 +148,163 @@ public class NodeBundleServiceImpl implements NodeBundleService {
     @Resource
     private UserSpaceCacheService userSpaceCacheService;
 
+    @Resource
+    private IDatasheetRecordService iDatasheetRecordService;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
+    @Resource
+    private NodeTreeSnapshotCacheService nodeTreeSnapshotCacheService;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
     private static final String MANIFEST = "manifest.json";
 
     private static final String DATA_DIR = "data";
 
     private static final String ASSET_DIR = "assets";
 
+    /**
+     * datasheets of all imports are created by these threads, each one takes a connection
+     */
+    private static final int IMPORT_PARALLELISM = 4;
+
+    private static final JsonFactory DATA_FILE_JSON_FACTORY = new JsonFactory();
+
+    private ExecutorService importExecutor;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        // at most a quarter of the connection pool is taken by imports, the rest is left to requests
+        int parallelism = Math.max(1, Math.min(IMPORT_PARALLELISM, connectionPoolSize / 4));
+        importExecutor = Executors.newFixedThreadPool(parallelism, ThreadUtil.newNamedThreadFactory("bundle-import-", true));
+        // datasheets are committed on their own, the import is published once they are all created
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        importExecutor.shutdownNow();
+    }
+
     @Override
     public void generate(String nodeId, boolean saveData, String password) {
         log.info("generate bundle file");
         // check whether the node exists
         NodeEntity node = nodeMapper.selectByNodeId(nodeId);
         ExceptionUtil.isNotNull(node, PermissionException.NODE_ACCESS_DENIED);
-        // Create random temporary directories to avoid simultaneous use of the same node.
-        String dir = RandomExtendUtil.randomString(6);
-        Digester md5 = new Digester(DigestAlgorithm.MD5);
-        List<File> files = new ArrayList<>();
+        // the bundle is spooled to a file, a failure is reported before anything is sent instead of as a truncated zip
+        File bundle = FileUtil.createTempFile("bundle", ".apitable", null, true);
+        try {
+            try (OutputStream out = FileUtil.getOutputStream(bundle)) {
+                generate(node, saveData, password, out);
+            }
+            catch (IOException e) {
+                log.error("generation bundle failed", e);
+                throw new IORuntimeException(e);
+            }
+            try (OutputStream out = ExportUtil.exportStream(URLEncoder.encode(node.getNodeName() + ".apitable", StandardCharsets.UTF_8.name()), "application/zip")) {
+                if (out != null) {
+                    Files.copy(bundle.toPath(), out);
+                }
+            }
+            catch (IOException e) {
+                log.error("sending bundle failed", e);
+            }
+        }
+        finally {
+            FileUtil.del(bundle);
+        }
+    }
+
+    @Override
+    public void generate(String nodeId, boolean saveData, String password, OutputStream out) throws IOException {
+        NodeEntity node = nodeMapper.selectByNodeId(nodeId);
+        ExceptionUtil.isNotNull(node, PermissionException.NODE_ACCESS_DENIED);
+        generate(node, saveData, password, out);
+    }
+
+    private void generate(NodeEntity node, boolean saveData, String password, OutputStream out) throws IOException {
+        String nodeId = node.getNodeId();
         // traverse all nodes down
         List<String> nodeIds = CollUtil.newArrayList(nodeId);
-        Map<String, String> nodeIdToFileNameMap = CollUtil.newHashMap();
+        Map<String, Integer> nodeIdToTypeMap = CollUtil.newHashMap();
+        nodeIdToTypeMap.put(nodeId, node.getType());
         List<NodeShareTree> childrenList = new ArrayList<>();
         if (node.getType() < NodeType.DATASHEET.getNodeType()) {
             childrenList = nodeMapper.selectShareTreeByNodeId(node.getSpaceId(), nodeId);
             if (CollUtil.isNotEmpty(childrenList)) {
-                List<String> ids = childrenList.stream().map(NodeShareTree::getNodeId).collect(Collectors.toList());
-                nodeIds.addAll(ids);
+                childrenList.forEach(child -> {
+                    nodeIds.add(child.getNodeId());
+                    nodeIdToTypeMap.put(child.getNodeId(), child.getType());
+                });
             }
         }
+        // data files are named by node, datasheets and nodes with description have one
+        Map<String, String> nodeIdToDescMap = iNodeDescService.getNodeIdToDescMap(nodeIds);
+        // datasheets without meta have no snapshot, the manifest is written before any snapshot
+        List<String> dstIds = nodeIds.stream()
+                .filter(id -> nodeIdToTypeMap.get(id) == NodeType.DATASHEET.getNodeType())
+                .collect(Collectors.toList());
+        Set<String> snapshotDstIds = dstIds.isEmpty() ? Collections.emptySet() : new HashSet<>(datasheetMetaMapper.selectDstIdsByDstIds(dstIds));
+        Map<String, String> nodeIdToFileNameMap = CollUtil.newHashMap();
+        nodeIds.stream()
+                .filter(id -> snapshotDstIds.contains(id) || nodeIdToDescMap.get(id) != null)
+                .forEach(id -> nodeIdToFileNameMap.put(id, StrUtil.join(".", id, "apitable")));
+        Manifest manifest = buildManifest(node, childrenList, nodeIdToFileNameMap, password);
+        // entries are written straight into the zip, the manifest goes first
+        ZipOutputStream zip = new ZipOutputStream(out);
+        writeEntry(zip, MANIFEST, JSONUtil.parseObj(manifest).toString());
         // build resource files
         List<NodeAssetDTO> nodeAssetDTOList = spaceAssetMapper.selectNodeAssetDto(nodeIds);
         if (CollUtil.isNotEmpty(nodeAssetDTOList)) {
             String jsonArrStrEncode = Base64.encode(JSONUtil.parseArray(nodeAssetDTOList).toString());
-            File assets = FileUtil.writeUtf8String(jsonArrStrEncode, StrUtil.format("{}/{}--{}", dir, ASSET_DIR, md5.digestHex(jsonArrStrEncode)));
-            files.add(assets);
+            Digester md5 = new Digester(DigestAlgorithm.MD5);
+            writeEntry(zip, StrUtil.format("{}/{}", ASSET_DIR, md5.digestHex(jsonArrStrEncode)), jsonArrStrEncode);
         }
-        // build data files
-        Map<String, String> nodeIdToDescMap = iNodeDescService.getNodeIdToDescMap(nodeIds);
+        // build data files, snapshots are written one by one
         Map<String, List<String>> foreignDstIdsMap = iDatasheetService.getForeignDstIds(nodeIds, true);
-        if (MapUtil.isNotEmpty(foreignDstIdsMap)) {
-            nodeIds = (List<String>) CollUtil.subtract(nodeIds, foreignDstIdsMap.keySet());
-            // processing correlation table
-            foreignDstIdsMap.forEach((dstId, foreignDstIds) -> {
-                SnapshotMapRo snapshotMapRo = iDatasheetService.delFieldIfLinkDstId(null, dstId, foreignDstIds, false);
-                if (!saveData) {
-                    snapshotMapRo.setRecordMap(JSONUtil.createObj());
-                }
-                createDataFile(dir, md5, nodeIdToFileNameMap, files, dstId, snapshotMapRo, nodeIdToDescMap.get(dstId));
-            });
-        }
-        if (CollUtil.isNotEmpty(nodeIds)) {
-            // get snapshot
-            Map<String, SnapshotMapRo> snapshotMap = iDatasheetService.findSnapshotMapByDstIds(nodeIds, saveData);
-            nodeIds.stream().filter(id -> snapshotMap.get(id) != null || nodeIdToDescMap.get(id) != null).forEach(
-                    id -> createDataFile(dir, md5, nodeIdToFileNameMap, files, id, snapshotMap.get(id), nodeIdToDescMap.get(id)));
+        for (String id : nodeIds) {
+            String fileName = nodeIdToFileNameMap.get(id);
+            if (fileName == null) {
+                continue;
+            }
+            // a node without snapshot exports its description only
+            SnapshotWriter snapshotWriter = null;
+            if (snapshotDstIds.contains(id) && foreignDstIdsMap.containsKey(id)) {
+                // processing correlation table
+                snapshotWriter = writer -> {
+                    SnapshotMapRo snapshotMapRo = iDatasheetService.delFieldIfLinkDstId(null, id, foreignDstIdsMap.get(id), false);
+                    if (snapshotMapRo == null) {
+                        return false;
+                    }
+                    if (!saveData) {
+                        snapshotMapRo.setRecordMap(JSONUtil.createObj());
+                    }
+                    JSONUtil.parseObj(snapshotMapRo).write(writer);
+                    return true;
+                };
+            }
+            else if (snapshotDstIds.contains(id)) {
+                snapshotWriter = writer -> iDatasheetService.writeSnapshot(id, saveData, writer);
+            }
+            writeDataEntry(zip, StrUtil.format("{}/{}", DATA_DIR, fileName), nodeIdToDescMap.get(id), snapshotWriter);
         }
+        zip.finish();
+        zip.flush();
+    }
+
+    private Manifest buildManifest(NodeEntity node, List<NodeShareTree> childrenList, Map<String, String> nodeIdToFileNameMap, String password) {
         // build a file tree and generate manifest
+        String nodeId = node.getNodeId();
         NodeFileTree root = new NodeFileTree(null, nodeId, node.getNodeName(), node.getIcon(), node.getType(), node.getCover(), nodeIdToFileNameMap.get(nodeId));
         if (CollUtil.isNotEmpty(childrenList)) {
             List<NodeFileTree> childList = new ArrayList<>();
@@ -188,29 +323,40 @@ public class NodeBundleServiceImpl implements NodeBundleService {
             manifest.setEncryption("password");
             manifest.setPassword(pwdEncode);
         }
-        File manifestFile = FileUtil.writeUtf8String(JSONUtil.parseObj(manifest).toString(), StrUtil.format("{}/{}", dir, MANIFEST));
-        files.add(manifestFile);
-        String zipFileName = StrUtil.format("{}/{}.apitable", dir, node.getNodeName());
-        File zipFile = FileUtil.file(zipFileName);
-        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipFile))) {
-            for (File file : files) {
-                zip.putNextEntry(new ZipEntry(file.getName().replace("--", "/")));
-                zip.write(Files.readAllBytes(file.toPath()));
-                zip.closeEntry();
+        return manifest;
+    }
+
+    private void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private void writeDataEntry(ZipOutputStream zip, String name, String description, SnapshotWriter snapshotWriter) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        // the data file is encoded in base64 on the stream
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                java.util.Base64.getEncoder().wrap(new EntryOutputStream(zip)), StandardCharsets.UTF_8))) {
+            writer.write('{');
+            if (description != null) {
+                writer.write("\"description\":");
+                writer.write(JSONUtil.quote(description));
+                if (snapshotWriter != null) {
+                    writer.write(',');
+                }
             }
-            ExportUtil.exportBytes(IoUtil.readBytes(new FileInputStream(zipFile)),
-                    URLEncoder.encode(zipFile.getName(), StandardCharsets.UTF_8.name()), "application/zip");
-        }
-        catch (IOException e) {
-            log.error("generation bundle failed", e);
-        }
-        finally {
-            FileUtil.del(dir);
+            if (snapshotWriter != null) {
+                writer.write("\"snapshot\":");
+                if (!snapshotWriter.write(writer)) {
+                    writer.write("null");
+                }
+            }
+            writer.write('}');
         }
+        zip.closeEntry();
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void analyze(MultipartFile file, String password, String parentId, String preNodeId, Long userId) {
         log.info("parse bundle file");
         ExceptionUtil.isNotNull(file, ActionException.FILE_EMPTY);
@@ -228,96 +374,295 @@ public class NodeBundleServiceImpl implements NodeBundleService {
         String spaceId = nodeMapper.selectSpaceIdByNodeId(parentId);
         Long memberId = userSpaceCacheService.getMemberId(userId, spaceId);
         iNodeService.checkEnableOperateNodeBySpaceFeature(memberId, spaceId, parentId);
-        String manifestStr = null;
-        String assetsContent = null;
-        // get file
-        Map<String, String> fileNameToContentMap = MapUtil.newHashMap();
-        try (ZipInputStream zip = new ZipInputStream(file.getInputStream())) {
-            ZipEntry entry;
-            while ((entry = zip.getNextEntry()) != null) {
-                String name = entry.getName();
-                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(zip));
-                String line;
-                StringBuilder content = new StringBuilder();
-                while ((line = bufferedReader.readLine()) != null) {
-                    content.append(line);
+        // the upload is kept as a file, entries are read in place and datasheets from several threads
+        File bundle = FileUtil.createTempFile("bundle", ".apitable", null, true);
+        try {
+            FileUtil.writeFromStream(file.getInputStream(), bundle);
+            try (ZipFile zip = new ZipFile(bundle, StandardCharsets.UTF_8)) {
+                this.analyze(zip, password, parentId, preNodeId, spaceId, userId);
+            }
+        }
+        catch (IOException | IORuntimeException | JSONException | NullPointerException e) {
+            log.info("parsing bundle file failed", e);
+            throw new BusinessException(ActionException.FILE_ERROR_CONTENT);
+        }
+        finally {
+            FileUtil.del(bundle);
+        }
+    }
+
+    private void analyze(ZipFile zip, String password, String parentId, String preNodeId, String spaceId, Long userId) throws IOException {
+        ZipEntry manifestEntry = zip.getEntry(MANIFEST);
+        ExceptionUtil.isNotNull(manifestEntry, ActionException.FILE_ERROR_CONTENT);
+        Manifest manifest = JSONUtil.parseObj(readEntry(zip, manifestEntry)).toBean(Manifest.class);
+        // verify parsing password
+        ExceptionUtil.isTrue(StrUtil.isBlank(manifest.getEncryption()) ||
+                (StrUtil.isNotBlank(password) && passwordService.matches(password, manifest.getPassword())), ActionException.FILE_ERROR_PASSWORD);
+        // processing file tree
+        List<NodeEntity> nodeList = new ArrayList<>();
+        Map<String, String> newNodeIdMap = MapUtil.newHashMap();
+        Map<String, List<DataSheetCreateRo>> fileNameToNodeMap = MapUtil.newHashMap();
+        // the description of a datasheet is picked up while its file is parsed
+        Map<String, String> nodeIdToDescMap = new ConcurrentHashMap<>();
+        Map<String, Callable<DatasheetMeta>> tasks = new LinkedHashMap<>();
+        NodeFileTree root = manifest.getRoot();
+        // If the export is a root node, modify it to folder type
+        if (root.getType() == NodeType.ROOT.getNodeType()) {
+            root.setType(NodeType.FOLDER.getNodeType());
+        }
+        // duplicate name modification at the same level
+        String name = iNodeService.duplicateNameModify(parentId, root.getType(), root.getNodeName(), null);
+        root.setNodeName(name);
+        this.processNode(userId, spaceId, parentId, preNodeId, root, nodeList, newNodeIdMap, fileNameToNodeMap);
+        // processing data files
+        if (MapUtil.isNotEmpty(fileNameToNodeMap)) {
+            Map<String, ZipEntry> fileNameToEntryMap = MapUtil.newHashMap();
+            fileNameToNodeMap.keySet().forEach(fileName -> {
+                ZipEntry entry = zip.getEntry(fileName);
+                ExceptionUtil.isNotNull(entry, ActionException.FILE_ERROR_CONTENT);
+                fileNameToEntryMap.put(fileName, entry);
+            });
+            // Obtain the ID of the space to which the original node belongs. If it is inconsistent with the saved space, you need to clear the data related to the member field.
+            String sourceSpaceId = nodeMapper.selectSpaceIdByNodeIdIncludeDeleted(root.getNodeId());
+            boolean same = spaceId.equals(sourceSpaceId);
+            Map<String, Integer> nodeIdToTypeMap = nodeList.stream().collect(Collectors.toMap(NodeEntity::getNodeId, NodeEntity::getType));
+            for (Map.Entry<String, List<DataSheetCreateRo>> item : fileNameToNodeMap.entrySet()) {
+                ZipEntry entry = fileNameToEntryMap.get(item.getKey());
+                String description = null;
+                for (DataSheetCreateRo createRo : item.getValue()) {
+                    if (nodeIdToTypeMap.get(createRo.getNodeId()) == NodeType.DATASHEET.getNodeType()) {
+                        tasks.put(createRo.getNodeId(), () -> this.createDatasheet(zip, entry, userId, spaceId, same, newNodeIdMap, createRo, nodeIdToDescMap));
+                        continue;
+                    }
+                    if (description == null) {
+                        description = StrUtil.nullToEmpty(readDescription(zip, entry));
+                    }
+                    if (!description.isEmpty()) {
+                        nodeIdToDescMap.put(createRo.getNodeId(), description);
+                    }
                 }
-                if (MANIFEST.equals(name)) {
-                    manifestStr = content.toString();
+            }
+        }
+        // resource files are read before anything is written
+        List<NodeAssetDTO> assets = null;
+        ZipEntry assetsEntry = zip.stream().filter(entry -> entry.getName().startsWith(ASSET_DIR)).findFirst().orElse(null);
+        if (assetsEntry != null) {
+            String assetsContent = readEntry(zip, assetsEntry);
+            if (StrUtil.isNotBlank(assetsContent)) {
+                assets = JSONUtil.parseArray(Base64.decodeStr(assetsContent)).toList(NodeAssetDTO.class);
+            }
+        }
+        // nodes are inserted as deleted ones and restored when the import is published,
+        // an import broken off midway leaves them like permanently deleted nodes
+        boolean flag = SqlHelper.retBool(nodeMapper.insertBatchDeleted(nodeList));
+        ExceptionUtil.isTrue(flag, DatabaseException.INSERT_ERROR);
+        Map<String, DatasheetMeta> created = this.createDatasheets(userId, tasks);
+        List<NodeDescEntity> nodeDescList = new ArrayList<>();
+        nodeIdToDescMap.forEach((nodeId, description) -> {
+            NodeDescEntity descEntity = NodeDescEntity.builder().id(IdWorker.getId()).nodeId(nodeId).description(description).build();
+            nodeDescList.add(descEntity);
+        });
+        List<String> nodeIds = nodeList.stream().map(NodeEntity::getNodeId).collect(Collectors.toList());
+        List<NodeAssetDTO> nodeAssets = assets;
+        try {
+            // nodes, descriptions, assets and statistics are published in one transaction
+            transactionTemplate.executeWithoutResult(status -> {
+                // The node after the original front node is updated, and the position is moved back by one bit.
+                nodeMapper.updatePreNodeIdBySelf(newNodeIdMap.get(root.getNodeId()), preNodeId, parentId);
+                int restored = nodeMapper.updateIsDeletedFalseByNodeIdIn(userId, nodeIds);
+                ExceptionUtil.isTrue(restored == nodeIds.size(), DatabaseException.INSERT_ERROR);
+                iNodeDescService.insertBatch(nodeDescList);
+                if (CollUtil.isNotEmpty(nodeAssets)) {
+                    iSpaceAssetService.processNodeAssets(newNodeIdMap, spaceId, nodeAssets);
                 }
-                else if (name.startsWith(ASSET_DIR)) {
-                    assetsContent = content.toString();
+                iSpaceStatisticsService.incrementNodes(spaceId, nodeList.stream()
+                        .collect(Collectors.groupingBy(NodeEntity::getType, Collectors.counting())));
+                created.values().forEach(meta -> iSpaceStatisticsService.incrementDatasheet(spaceId, meta));
+                nodeTreeSnapshotCacheService.invalidate(spaceId);
+            });
+        }
+        catch (RuntimeException e) {
+            this.removeDatasheets(userId, created.keySet());
+            throw e;
+        }
+    }
+
+    /**
+     * create datasheets in parallel, each one in its own transaction.
+     * the created ones are removed again if any of them fails.
+     *
+     * @return meta of the created datasheets by datasheet id
+     */
+    private Map<String, DatasheetMeta> createDatasheets(Long userId, Map<String, Callable<DatasheetMeta>> tasks) {
+        Map<String, DatasheetMeta> created = new ConcurrentHashMap<>();
+        if (tasks.isEmpty()) {
+            return created;
+        }
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        tasks.forEach((dstId, task) -> futures.add(importExecutor.submit(() -> {
+            if (aborted.get()) {
+                return;
+            }
+            DatasheetMeta meta = transactionTemplate.execute(status -> {
+                try {
+                    return task.call();
                 }
-                else {
-                    fileNameToContentMap.put(name, content.toString());
+                catch (IOException e) {
+                    throw new IORuntimeException(e);
+                }
+                catch (RuntimeException e) {
+                    throw e;
+                }
+                catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            if (meta != null) {
+                created.put(dstId, meta);
+            }
+        })));
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            }
+            catch (ExecutionException e) {
+                aborted.set(true);
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                aborted.set(true);
+                if (failure == null) {
+                    failure = new BusinessException(ActionException.FILE_ERROR_CONTENT);
                 }
             }
         }
-        catch (IOException e) {
-            log.info("parsing bundle file failed");
-            throw new BusinessException(ActionException.FILE_ERROR_CONTENT);
+        if (failure != null) {
+            this.removeDatasheets(userId, created.keySet());
+            throw failure;
         }
-        ExceptionUtil.isNotBlank(manifestStr, ActionException.FILE_ERROR_CONTENT);
-        // file parsing
-        try {
-            Manifest manifest = JSONUtil.parseObj(manifestStr).toBean(Manifest.class);
-            // verify parsing password
-            ExceptionUtil.isTrue(StrUtil.isBlank(manifest.getEncryption()) ||
-                    (StrUtil.isNotBlank(password) && passwordService.matches(password, manifest.getPassword())), ActionException.FILE_ERROR_PASSWORD);
-            // processing file tree
-            List<NodeEntity> nodeList = new ArrayList<>();
-            Map<String, String> newNodeIdMap = MapUtil.newHashMap();
-            Map<String, List<DataSheetCreateRo>> fileNameToNodeMap = MapUtil.newHashMap();
-            NodeFileTree root = manifest.getRoot();
-            // If the export is a root node, modify it to folder type
-            if (root.getType() == NodeType.ROOT.getNodeType()) {
-                root.setType(NodeType.FOLDER.getNodeType());
+        return created;
+    }
+
+    private void removeDatasheets(Long userId, Set<String> dstIds) {
+        if (dstIds.isEmpty()) {
+            return;
+        }
+        log.info("Remove datasheets of failed import {}", dstIds);
+        List<String> ids = new ArrayList<>(dstIds);
+        transactionTemplate.executeWithoutResult(status -> {
+            iDatasheetService.updateIsDeletedStatus(userId, ids, true);
+            iDatasheetRecordService.deleteByDstIds(ids);
+        });
+    }
+
+    /**
+     * create the datasheet of a node from the snapshot of its data file, the records are inserted while being parsed
+     *
+     * @return meta of the datasheet, null if the file has no snapshot
+     */
+    private DatasheetMeta createDatasheet(ZipFile zip, ZipEntry entry, Long userId, String spaceId, boolean same,
+            Map<String, String> newNodeIdMap, DataSheetCreateRo createRo, Map<String, String> nodeIdToDescMap) throws IOException {
+        DatasheetMeta created = null;
+        try (JsonParser parser = openDataFile(zip, entry)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("description".equals(name) && token == JsonToken.VALUE_STRING) {
+                    nodeIdToDescMap.put(createRo.getNodeId(), parser.getText());
+                }
+                else if ("snapshot".equals(name) && token == JsonToken.START_OBJECT) {
+                    created = createDatasheet(parser, userId, spaceId, same, newNodeIdMap, createRo);
+                }
+                else {
+                    parser.skipChildren();
+                }
             }
-            // duplicate name modification at the same level
-            String name = iNodeService.duplicateNameModify(parentId, root.getType(), root.getNodeName(), null);
-            root.setNodeName(name);
-            this.processNode(userId, spaceId, parentId, preNodeId, root, nodeList, newNodeIdMap, fileNameToNodeMap);
-            // processing data files
-            if (MapUtil.isNotEmpty(fileNameToNodeMap)) {
-                ExceptionUtil.isTrue(fileNameToNodeMap.size() == fileNameToContentMap.size(), ActionException.FILE_ERROR_CONTENT);
-                // Obtain the ID of the space to which the original node belongs. If it is inconsistent with the saved space, you need to clear the data related to the member field.
-                String sourceSpaceId = nodeMapper.selectSpaceIdByNodeIdIncludeDeleted(root.getNodeId());
-                boolean same = spaceId.equals(sourceSpaceId);
-                List<NodeDescEntity> nodeDescList = new ArrayList<>();
-                fileNameToContentMap.forEach((fileName, content) -> {
-                    NodeDataFile dataFile = JSONUtil.parseObj(Base64.decodeStr(content)).toBean(NodeDataFile.class);
-                    List<DataSheetCreateRo> roList = fileNameToNodeMap.get(fileName);
-                    SnapshotMapRo snapshot = dataFile.getSnapshot();
-                    roList.forEach(createRo -> {
-                        if (snapshot != null) {
-                            MetaMapRo meta = snapshot.getMeta().toBean(MetaMapRo.class);
-                            List<String> delFieldIds = iDatasheetService.replaceFieldDstId(userId, same, meta, newNodeIdMap);
-                            if (!same && CollUtil.isNotEmpty(delFieldIds)) {
-                                snapshot.getRecordMap().values().forEach(recordMapRo ->
-                                        JSONUtil.parseObj(recordMapRo).getJSONObject("data").keySet().removeIf(delFieldIds::contains));
-                            }
-                            iDatasheetService.create(userId, spaceId, createRo.getNodeId(), createRo.getName(), meta, snapshot.getRecordMap());
-                        }
-                        if (dataFile.getDescription() != null) {
-                            NodeDescEntity descEntity = NodeDescEntity.builder().id(IdWorker.getId()).nodeId(createRo.getNodeId()).description(dataFile.getDescription()).build();
-                            nodeDescList.add(descEntity);
-                        }
-                    });
-                });
-                iNodeDescService.insertBatch(nodeDescList);
+        }
+        return created;
+    }
+
+    private DatasheetMeta createDatasheet(JsonParser parser, Long userId, String spaceId, boolean same,
+            Map<String, String> newNodeIdMap, DataSheetCreateRo createRo) throws IOException {
+        DatasheetMeta meta = null;
+        List<String> delFieldIds = new ArrayList<>();
+        TokenBuffer recordMap = null;
+        boolean created = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if ("meta".equals(name)) {
+                meta = iDatasheetService.replaceFieldDstId(userId, same, DatasheetMetaCodec.parse(RecordDataJson.read(parser, null)), newNodeIdMap, delFieldIds);
             }
-            // The node after the original front node is updated, and the position is moved back by one bit.
-            nodeMapper.updatePreNodeIdBySelf(newNodeIdMap.get(root.getNodeId()), preNodeId, parentId);
-            iNodeService.insertBatch(nodeList, null);
-            // processing resource files
-            if (StrUtil.isNotBlank(assetsContent)) {
-                List<NodeAssetDTO> list = JSONUtil.parseArray(Base64.decodeStr(assetsContent)).toList(NodeAssetDTO.class);
-                iSpaceAssetService.processNodeAssets(newNodeIdMap, spaceId, list);
+            else if ("recordMap".equals(name) && meta == null) {
+                // the record map came before the meta, it is kept until the meta is read
+                recordMap = new TokenBuffer(parser);
+                recordMap.copyCurrentStructure(parser);
             }
+            else if ("recordMap".equals(name)) {
+                iDatasheetService.create(userId, spaceId, createRo.getNodeId(), createRo.getName(), meta, parser, same ? null : delFieldIds);
+                created = true;
+            }
+            else {
+                parser.skipChildren();
+            }
+        }
+        if (!created && meta != null && recordMap != null) {
+            try (JsonParser buffered = recordMap.asParser()) {
+                buffered.nextToken();
+                iDatasheetService.create(userId, spaceId, createRo.getNodeId(), createRo.getName(), meta, buffered, same ? null : delFieldIds);
+            }
+            created = true;
+        }
+        ExceptionUtil.isTrue(created, ActionException.FILE_ERROR_CONTENT);
+        return meta;
+    }
+
+    private String readDescription(ZipFile zip, ZipEntry entry) throws IOException {
+        try (JsonParser parser = openDataFile(zip, entry)) {
+            if (!seekField(parser, "description") || parser.currentToken() != JsonToken.VALUE_STRING) {
+                return null;
+            }
+            return parser.getText();
         }
-        catch (JSONException | NullPointerException e) {
+    }
+
+    /**
+     * data file is json encoded in base64, it is decoded while being parsed
+     */
+    private JsonParser openDataFile(ZipFile zip, ZipEntry entry) throws IOException {
+        JsonParser parser = DATA_FILE_JSON_FACTORY.createParser(java.util.Base64.getMimeDecoder().wrap(zip.getInputStream(entry)));
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.close();
             throw new BusinessException(ActionException.FILE_ERROR_CONTENT);
         }
+        return parser;
+    }
+
+    /**
+     * move the parser to the value of a top level field, other fields are skipped
+     */
+    private boolean seekField(JsonParser parser, String fieldName) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if (fieldName.equals(name)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private String readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            // line breaks are dropped, same as they are read line by line
+            return StrUtil.removeAll(IoUtil.read(in, StandardCharsets.UTF_8), '\r', '\n');
+        }
     }
 
     private void processNode(Long userId, String spaceId, String parentId, String preNodeId, NodeFileTree node, List<NodeEntity> nodeList, Map<String, String> newNodeIdMap, Map<String, List<DataSheetCreateRo>> fileNameToNodeMap) {
@@ -365,16 +710,37 @@ public class NodeBundleServiceImpl implements NodeBundleService {
         }
     }
 
-    private void createDataFile(String dir, Digester md5, Map<String, String> nodeIdToFileNameMap, List<File> files, String nodeId, SnapshotMapRo snapshotMapRo, String nodeDesc) {
-        NodeDataFile dataFile = new NodeDataFile(nodeDesc, snapshotMapRo);
-        String jsonStrEncode = Base64.encode(JSONUtil.parseObj(dataFile).toString());
-        String fileName = StrUtil.join(".", md5.digestHex(jsonStrEncode), "apitable");
-        // The same file already exists and is not generated repeatedly (scenario: folder description is the same)
-        if (!nodeIdToFileNameMap.containsValue(fileName)) {
-            File file = FileUtil.writeUtf8String(jsonStrEncode, StrUtil.format("{}/{}--{}", dir, DATA_DIR, fileName));
-            files.add(file);
-        }
-        nodeIdToFileNameMap.put(nodeId, fileName);
+    /**
+     * writes the snapshot json of a data file
+     */
+    @FunctionalInterface
+    private interface SnapshotWriter {
+
+        /**
+         * @param writer target writer
+         * @return false if there is no snapshot
+         * @throws IOException if writing fails
+         */
+        boolean write(Writer writer) throws IOException;
     }
 
+    /**
+     * stream of current zip entry, closing it does not close the zip
+     */
+    private static class EntryOutputStream extends FilterOutputStream {
+
+        EntryOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
@@ -0,0 +1,508 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.apitable.workspace.service.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.shared.component.notification.NotificationManager;
+import com.apitable.workspace.dto.NodeCopyJobDTO;
+import com.apitable.workspace.mapper.DatasheetMapper;
+import com.apitable.workspace.mapper.NodeMapper;
+import com.apitable.workspace.service.IDatasheetService;
+import com.apitable.workspace.service.INodeCopyJobService;
+import com.apitable.workspace.vo.NodeCopyJobVo;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.apitable.core.constants.RedisConstants.NODE_COPY_JOBS;
+
+/**
+ * <p>
+ * node copy job service implementation.
+ * jobs are kept in redis with the status of each datasheet and run by one instance at a time,
+ * unfinished jobs are picked up again by any started instance.
+ * a failed datasheet is retried with backoff, its node is marked once the attempts run out.
+ * only jobs finished without failure expire.
+ * </p>
+ */
+@Slf4j
+@Service
+public class NodeCopyJobServiceImpl implements INodeCopyJobService {
+
+    /**
+     * jobs run at the same time on an instance
+     */
+    private static final int JOB_PARALLELISM = 2;
+
+    /**
+     * datasheets of all jobs are copied by these threads, which also bounds the connections taken
+     */
+    private static final int COPY_PARALLELISM = 4;
+
+    /**
+     * a job finished without failure is kept for a while to be read
+     */
+    private static final Duration FINISHED_JOB_TTL = Duration.ofDays(1);
+
+    private static final Duration OWNER_TTL = Duration.ofMinutes(2);
+
+    /**
+     * the owner key is renewed while the job runs, a stopped instance gives the job up in one owner ttl
+     */
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(30);
+
+    private static final int MAX_ATTEMPTS = 4;
+
+    /**
+     * delay before the first retry, doubled on each attempt
+     */
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private static final long SCAN_INTERVAL_SECONDS = 30;
+
+    private static final String FIELD_PARAMS = "params";
+
+    private static final String FIELD_STATUS_PREFIX = "dst:";
+
+    private static final String FIELD_ATTEMPTS_PREFIX = "attempts:";
+
+    private static final String FIELD_RETRY_AT = "retryAt";
+
+    private static final String PENDING = "pending";
+
+    private static final String SUCCESS = "success";
+
+    private static final String FAILED = "failed";
+
+    private static final String PROGRESS_TYPE = "nodeCopyProgress";
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: owner, ARGV[2]: milliseconds to live. the key is renewed only by its owner
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0", Long.class);
+
+    /**
+     * KEYS[1]: owner key, ARGV[1]: owner. the key is deleted only by its owner
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    @Resource
+    private IDatasheetService iDatasheetService;
+
+    @Resource
+    private DatasheetMapper datasheetMapper;
+
+    @Resource
+    private NodeMapper nodeMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final Semaphore permits = new Semaphore(JOB_PARALLELISM);
+
+    private final BlockingQueue<Boolean> wakeup = new ArrayBlockingQueue<>(1);
+
+    private ExecutorService dispatcher;
+
+    private ExecutorService jobWorkers;
+
+    private ExecutorService copyWorkers;
+
+    private ScheduledExecutorService heartbeat;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        dispatcher = Executors.newSingleThreadExecutor(ThreadUtil.newNamedThreadFactory("node-copy-", true));
+        jobWorkers = Executors.newFixedThreadPool(JOB_PARALLELISM, ThreadUtil.newNamedThreadFactory("node-copy-job-", true));
+        copyWorkers = Executors.newFixedThreadPool(COPY_PARALLELISM, ThreadUtil.newNamedThreadFactory("node-copy-worker-", true));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(ThreadUtil.newNamedThreadFactory("node-copy-heartbeat-", true));
+        // each datasheet is committed on its own
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // unfinished jobs are kept, picked up by the next started instance
+        dispatcher.shutdownNow();
+        jobWorkers.shutdownNow();
+        copyWorkers.shutdownNow();
+        heartbeat.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        dispatcher.execute(this::dispatch);
+    }
+
+    @Override
+    public void submit(NodeCopyJobDTO job) {
+        if (CollUtil.isEmpty(job.getDatasheets())) {
+            return;
+        }
+        Map<String, String> hash = new HashMap<>(job.getDatasheets().size() + 1);
+        hash.put(FIELD_PARAMS, JSONUtil.toJsonStr(job));
+        job.getDatasheets().forEach(datasheet -> hash.put(FIELD_STATUS_PREFIX + datasheet.getDstId(), PENDING));
+        String jobKey = RedisConstants.getNodeCopyJobKey(job.getNodeId());
+        Runnable submit = () -> {
+            stringRedisTemplate.opsForHash().putAll(jobKey, hash);
+            stringRedisTemplate.opsForSet().add(NODE_COPY_JOBS, job.getNodeId());
+            wakeup.offer(Boolean.TRUE);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit.run();
+            }
+        });
+    }
+
+    @Override
+    public NodeCopyJobVo getJob(String nodeId) {
+        Map<Object, Object> job = stringRedisTemplate.opsForHash().entries(RedisConstants.getNodeCopyJobKey(nodeId));
+        if (job.isEmpty()) {
+            return null;
+        }
+        boolean unfinished = Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(NODE_COPY_JOBS, nodeId));
+        return this.toVo(nodeId, job, unfinished);
+    }
+
+    @Override
+    public boolean retry(String nodeId) {
+        String jobKey = RedisConstants.getNodeCopyJobKey(nodeId);
+        Map<Object, Object> job = stringRedisTemplate.opsForHash().entries(jobKey);
+        if (job.isEmpty()) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(NODE_COPY_JOBS, nodeId))) {
+            // still running, left for the owner
+            return true;
+        }
+        Map<String, String> retries = new HashMap<>(job.size());
+        List<String> failedNodeIds = new ArrayList<>();
+        job.forEach((field, status) -> {
+            if (FAILED.equals(status)) {
+                retries.put(field.toString(), PENDING);
+                failedNodeIds.add(field.toString().substring(FIELD_STATUS_PREFIX.length()));
+            }
+        });
+        if (retries.isEmpty()) {
+            return false;
+        }
+        stringRedisTemplate.opsForHash().putAll(jobKey, retries);
+        // attempts start over
+        Object[] resets = failedNodeIds.stream().map(dstId -> FIELD_ATTEMPTS_PREFIX + dstId).toArray();
+        stringRedisTemplate.opsForHash().delete(jobKey, resets);
+        stringRedisTemplate.opsForHash().delete(jobKey, FIELD_RETRY_AT);
+        stringRedisTemplate.persist(jobKey);
+        this.markCopyFailed(failedNodeIds, false);
+        stringRedisTemplate.opsForSet().add(NODE_COPY_JOBS, nodeId);
+        wakeup.offer(Boolean.TRUE);
+        return true;
+    }
+
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> nodeIds = stringRedisTemplate.opsForSet().members(NODE_COPY_JOBS);
+                if (CollUtil.isNotEmpty(nodeIds)) {
+                    for (String nodeId : nodeIds) {
+                        if (!running.add(nodeId)) {
+                            continue;
+                        }
+                        // wait for an idle worker, jobs are not queued in memory
+                        permits.acquire();
+                        jobWorkers.execute(() -> {
+                            try {
+                                run(nodeId);
+                            }
+                            finally {
+                                running.remove(nodeId);
+                                permits.release();
+                            }
+                        });
+                    }
+                }
+                wakeup.poll(SCAN_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception e) {
+            log.error("Node copy dispatcher stopped", e);
+        }
+    }
+
+    private void run(String nodeId) {
+        String ownerKey = RedisConstants.getNodeCopyOwnerKey(nodeId);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(ownerKey, instanceId, OWNER_TTL))) {
+            return;
+        }
+        AtomicBoolean lost = new AtomicBoolean();
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(() -> this.renew(nodeId, ownerKey, lost),
+                HEARTBEAT_INTERVAL.toMillis(), HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        boolean release = true;
+        try {
+            runOwned(nodeId, lost);
+        }
+        catch (InterruptedException e) {
+            // copies may still be running, the owner key is left to expire
+            release = false;
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception e) {
+            log.error("Node copy job [{}] failed", nodeId, e);
+        }
+        finally {
+            renewal.cancel(false);
+            if (release) {
+                stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(ownerKey), instanceId);
+            }
+        }
+    }
+
+    /**
+     * keep the job owned while it runs, a job taken over by another instance is given up
+     */
+    private void renew(String nodeId, String ownerKey, AtomicBoolean lost) {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(ownerKey),
+                    instanceId, String.valueOf(OWNER_TTL.toMillis()));
+            if (renewed == null || renewed == 0) {
+                log.warn("Node copy job [{}] is no longer owned by this instance", nodeId);
+                lost.set(true);
+            }
+        }
+        catch (Exception e) {
+            log.warn("Renew the owner of node copy job [{}] failed", nodeId, e);
+        }
+    }
+
+    private void runOwned(String nodeId, AtomicBoolean lost) throws InterruptedException {
+        String jobKey = RedisConstants.getNodeCopyJobKey(nodeId);
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(jobKey);
+        if (!entries.containsKey(FIELD_PARAMS)) {
+            stringRedisTemplate.opsForSet().remove(NODE_COPY_JOBS, nodeId);
+            return;
+        }
+        Object retryAt = entries.get(FIELD_RETRY_AT);
+        if (retryAt != null && Long.parseLong(retryAt.toString()) > System.currentTimeMillis()) {
+            // waiting for the next attempt
+            return;
+        }
+        NodeCopyJobDTO job = JSONUtil.toBean(entries.get(FIELD_PARAMS).toString(), NodeCopyJobDTO.class);
+        List<NodeCopyJobDTO.Datasheet> pending = job.getDatasheets().stream()
+                .filter(datasheet -> PENDING.equals(entries.get(FIELD_STATUS_PREFIX + datasheet.getDstId())))
+                .collect(Collectors.toList());
+        log.info("Run node copy job [{}], {} of {} datasheets to copy", nodeId, pending.size(), job.getDatasheets().size());
+        List<Future<?>> futures = new ArrayList<>(pending.size());
+        for (NodeCopyJobDTO.Datasheet datasheet : pending) {
+            futures.add(copyWorkers.submit(() -> this.copyAndRecord(job, datasheet, lost)));
+        }
+        // the owner key is released only after every copy has finished
+        this.awaitAll(nodeId, futures);
+        if (lost.get()) {
+            // left to the instance owning it now
+            return;
+        }
+        Map<Object, Object> result = stringRedisTemplate.opsForHash().entries(jobKey);
+        OptionalLong retries = job.getDatasheets().stream()
+                .filter(datasheet -> PENDING.equals(result.get(FIELD_STATUS_PREFIX + datasheet.getDstId())))
+                .mapToLong(datasheet -> {
+                    Object attempts = result.get(FIELD_ATTEMPTS_PREFIX + datasheet.getDstId());
+                    return attempts != null ? Long.parseLong(attempts.toString()) : 0;
+                })
+                .max();
+        if (retries.isPresent()) {
+            // the job stays unfinished until every datasheet succeeded or ran out of attempts
+            long delay = RETRY_DELAY.toMillis() << Math.max(retries.getAsLong() - 1, 0);
+            stringRedisTemplate.opsForHash().put(jobKey, FIELD_RETRY_AT, String.valueOf(System.currentTimeMillis() + delay));
+            log.info("Node copy job [{}] is retried in {} ms", nodeId, delay);
+            return;
+        }
+        stringRedisTemplate.opsForSet().remove(NODE_COPY_JOBS, nodeId);
+        if (!result.containsValue(FAILED)) {
+            stringRedisTemplate.expire(jobKey, FINISHED_JOB_TTL);
+        }
+        this.notifyProgress(job, false);
+    }
+
+    private void copyAndRecord(NodeCopyJobDTO job, NodeCopyJobDTO.Datasheet datasheet, AtomicBoolean lost) {
+        if (lost.get()) {
+            return;
+        }
+        String jobKey = RedisConstants.getNodeCopyJobKey(job.getNodeId());
+        try {
+            if (this.copy(job, datasheet)) {
+                stringRedisTemplate.opsForHash().put(jobKey, FIELD_STATUS_PREFIX + datasheet.getDstId(), SUCCESS);
+            }
+            else {
+                Long attempts = stringRedisTemplate.opsForHash().increment(jobKey, FIELD_ATTEMPTS_PREFIX + datasheet.getDstId(), 1);
+                if (attempts != null && attempts >= MAX_ATTEMPTS) {
+                    stringRedisTemplate.opsForHash().put(jobKey, FIELD_STATUS_PREFIX + datasheet.getDstId(), FAILED);
+                    this.markCopyFailed(Collections.singletonList(datasheet.getDstId()), true);
+                }
+            }
+        }
+        catch (Exception e) {
+            // the status stays pending, a copied datasheet is found on the next attempt
+            log.error("Record the copy of datasheet [{}] of node copy job [{}] failed", datasheet.getDstId(), job.getNodeId(), e);
+        }
+        this.notifyProgress(job, true);
+    }
+
+    private void awaitAll(String nodeId, List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            }
+            catch (ExecutionException e) {
+                log.error("Copy task of node copy job [{}] failed", nodeId, e.getCause());
+            }
+            catch (InterruptedException e) {
+                // copies not started yet are dropped, the pending datasheets are run again
+                futures.forEach(f -> f.cancel(false));
+                throw e;
+            }
+        }
+    }
+
+    private boolean copy(NodeCopyJobDTO job, NodeCopyJobDTO.Datasheet datasheet) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // copied by an instance stopped before saving the status
+                if (datasheetMapper.selectByDstId(datasheet.getDstId()) != null) {
+                    return;
+                }
+                iDatasheetService.copy(job.getUserId(), job.getSpaceId(), datasheet.getSourceDstId(), datasheet.getDstId(),
+                        datasheet.getDstName(), job.getOptions(), job.getNewNodeMap());
+            });
+            return true;
+        }
+        catch (Exception e) {
+            log.error("Copy datasheet [{}] to [{}] of node copy job [{}] failed",
+                    datasheet.getSourceDstId(), datasheet.getDstId(), job.getNodeId(), e);
+            return false;
+        }
+    }
+
+    private void markCopyFailed(List<String> nodeIds, boolean copyFailed) {
+        if (nodeIds.isEmpty()) {
+            return;
+        }
+        try {
+            nodeMapper.updateExtraCopyFailedByNodeIdIn(nodeIds, copyFailed);
+        }
+        catch (Exception e) {
+            log.warn("Mark the copy of nodes {} failed as {} failed", nodeIds, copyFailed, e);
+        }
+    }
+
+    private void notifyProgress(NodeCopyJobDTO job, boolean unfinished) {
+        try {
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(RedisConstants.getNodeCopyJobKey(job.getNodeId()));
+            NotificationManager.me().spaceProgressNotify(job.getSpaceId(), PROGRESS_TYPE, this.toVo(job.getNodeId(), entries, unfinished));
+        }
+        catch (Exception e) {
+            log.warn("Push progress of node copy job [{}] failed", job.getNodeId(), e);
+        }
+    }
+
+    private NodeCopyJobVo toVo(String nodeId, Map<Object, Object> job, boolean unfinished) {
+        int total = 0;
+        int completed = 0;
+        List<String> failedNodeIds = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : job.entrySet()) {
+            String field = entry.getKey().toString();
+            if (!field.startsWith(FIELD_STATUS_PREFIX)) {
+                continue;
+            }
+            total++;
+            if (SUCCESS.equals(entry.getValue())) {
+                completed++;
+            }
+            else if (FAILED.equals(entry.getValue())) {
+                failedNodeIds.add(field.substring(FIELD_STATUS_PREFIX.length()));
+            }
+        }
+        NodeCopyJobVo vo = new NodeCopyJobVo();
+        vo.setNodeId(nodeId);
+        vo.setTotal(total);
+        vo.setCompleted(completed);
+        vo.setFailedNodeIds(failedNodeIds);
+        vo.setRunning(unfinished);
+        return vo;
+    }
+}
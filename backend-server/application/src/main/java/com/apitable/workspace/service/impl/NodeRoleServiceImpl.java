@@ -62,6 +62,7 @@ import com.apitable.organization.vo.MemberTeamPathInfo;
 import com.apitable.organization.vo.RoleInfoVo;
 import com.apitable.organization.vo.UnitMemberVo;
 import com.apitable.organization.vo.UnitTeamVo;
+import com.apitable.shared.cache.service.PermissionCacheService;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
 import com.apitable.shared.constants.AuditConstants;
 import com.apitable.shared.listener.event.AuditSpaceEvent;
@@ -120,6 +121,9 @@ public class NodeRoleServiceImpl implements INodeRoleService {
     @Resource
     private UserSpaceCacheService userSpaceCacheService;
 
+    @Resource
+    private PermissionCacheService permissionCacheService;
+
     @Resource
     private IUnitService iUnitService;
 
@@ -248,6 +252,7 @@ public class NodeRoleServiceImpl implements INodeRoleService {
         }
         // The specified table ID is deleted to avoid deleting the file administrator.
         iControlRoleService.removeByIds(ids);
+        permissionCacheService.invalidateControlRoles(Collections.singletonList(nodeId));
         // publish space audit events
         JSONObject info = JSONUtil.createObj();
         info.set(AuditConstants.UNIT_ID, unitId);
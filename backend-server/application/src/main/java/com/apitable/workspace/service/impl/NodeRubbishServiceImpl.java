@@ -30,10 +30,13 @@ import com.apitable.control.service.IControlService;
 import com.apitable.core.util.ExceptionUtil;
 import com.apitable.interfaces.billing.facade.EntitlementServiceFacade;
 import com.apitable.interfaces.billing.model.SubscriptionInfo;
+import com.apitable.shared.cache.service.NodeTreeSnapshotCacheService;
 import com.apitable.shared.clock.spring.ClockManager;
 import com.apitable.shared.component.TaskManager;
 import com.apitable.shared.config.properties.LimitProperties;
+import com.apitable.space.dto.NodeTypeStaticsDTO;
 import com.apitable.space.service.ISpaceAssetService;
+import com.apitable.space.service.ISpaceStatisticsService;
 import com.apitable.workspace.dto.NodeBaseInfoDTO;
 import com.apitable.workspace.enums.NodeType;
 import com.apitable.workspace.enums.PermissionException;
@@ -55,6 +58,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -71,6 +75,9 @@ public class NodeRubbishServiceImpl implements INodeRubbishService {
     @Resource
     private NodeMapper nodeMapper;
 
+    @Resource
+    private NodeTreeSnapshotCacheService nodeTreeSnapshotCacheService;
+
     @Resource
     private IDatasheetService iDatasheetService;
 
@@ -92,6 +99,9 @@ public class NodeRubbishServiceImpl implements INodeRubbishService {
     @Resource
     private LimitProperties limitProperties;
 
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
     @Override
     public List<RubbishNodeVo> getRubbishNodeList(String spaceId, Long memberId, Integer size, String lastNodeId, Boolean isOverLimit) {
         log.info("The member [{}] of the space [{}] obtains the node list of the rubbish, and the ID of the last node in the loaded list:[{}]", memberId, spaceId, lastNodeId);
@@ -151,7 +161,10 @@ public class NodeRubbishServiceImpl implements INodeRubbishService {
         log.info("The user [{}] restores the node [{}] of the rubbish to the parent node [{}]", userId, nodeId, parentId);
         // Obtain the node ID of the node and its child descendants.
         List<String> subNodeIds = nodeMapper.selectBatchAllSubNodeIds(Collections.singletonList(nodeId), true);
+        Map<Integer, Long> nodeDeltas = new HashMap<>();
         if (CollUtil.isNotEmpty(subNodeIds)) {
+            nodeDeltas = nodeMapper.selectTypeStaticsByNodeIds(subNodeIds).stream()
+                    .collect(Collectors.toMap(NodeTypeStaticsDTO::getType, statics -> statics.getTotal().longValue()));
             // recovery datasheet
             iDatasheetService.updateIsDeletedStatus(userId, subNodeIds, false);
             // Restore the spatial attachment resources of the node
@@ -171,6 +184,11 @@ public class NodeRubbishServiceImpl implements INodeRubbishService {
         // modify the information of the recovery node
         boolean flag = SqlHelper.retBool(nodeMapper.updateInfoByNodeId(nodeId, parentId, null, name));
         ExceptionUtil.isTrue(flag, DatabaseException.EDIT_ERROR);
+        String spaceId = nodeMapper.selectSpaceIdByNodeIdIncludeDeleted(nodeId);
+        nodeTreeSnapshotCacheService.invalidate(spaceId);
+        // the records and views of recovered datasheets are left to the reconciliation
+        iSpaceStatisticsService.incrementNodes(spaceId, nodeDeltas);
+        iSpaceStatisticsService.markStale(spaceId);
     }
 
     @Override
@@ -33,9 +33,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import cn.hutool.core.bean.BeanUtil;
@@ -75,6 +78,8 @@ import com.apitable.organization.dto.MemberDTO;
 import com.apitable.organization.mapper.MemberMapper;
 import com.apitable.organization.service.IMemberService;
 import com.apitable.shared.cache.bean.LoginUserDto;
+import com.apitable.shared.cache.bean.NodeTreeSnapshot;
+import com.apitable.shared.cache.service.NodeTreeSnapshotCacheService;
 import com.apitable.shared.cache.service.UserSpaceCacheService;
 import com.apitable.shared.component.adapter.MultiDatasourceAdapterTemplate;
 import com.apitable.shared.config.properties.LimitProperties;
@@ -90,17 +95,20 @@ import com.apitable.shared.sysconfig.i18n.I18nStringsUtil;
 import com.apitable.shared.util.CollectionUtil;
 import com.apitable.shared.util.IdUtil;
 import com.apitable.shared.util.StringUtil;
+import com.apitable.space.dto.NodeTypeStaticsDTO;
 import com.apitable.space.enums.AuditSpaceAction;
 import com.apitable.space.enums.SpaceException;
 import com.apitable.space.mapper.SpaceAssetMapper;
 import com.apitable.space.service.ISpaceAssetService;
 import com.apitable.space.service.ISpaceRoleService;
 import com.apitable.space.service.ISpaceService;
+import com.apitable.space.service.ISpaceStatisticsService;
 import com.apitable.space.vo.SpaceGlobalFeature;
 import com.apitable.template.enums.TemplateException;
 import com.apitable.workspace.dto.CreateNodeDto;
 import com.apitable.workspace.dto.NodeBaseInfoDTO;
 import com.apitable.workspace.dto.NodeCopyEffectDTO;
+import com.apitable.workspace.dto.NodeCopyJobDTO;
 import com.apitable.workspace.dto.NodeCopyOptions;
 import com.apitable.workspace.dto.NodeData;
 import com.apitable.workspace.dto.NodeExtraDTO;
@@ -139,11 +147,13 @@ import com.apitable.workspace.service.IDatasheetMetaService;
 import com.apitable.workspace.service.IDatasheetRecordService;
 import com.apitable.workspace.service.IDatasheetService;
 import com.apitable.workspace.service.IFieldRoleService;
+import com.apitable.workspace.service.INodeCopyJobService;
 import com.apitable.workspace.service.INodeDescService;
 import com.apitable.workspace.service.INodeRelService;
 import com.apitable.workspace.service.INodeRoleService;
 import com.apitable.workspace.service.INodeService;
 import com.apitable.workspace.service.IResourceMetaService;
+import com.apitable.workspace.support.DatasheetMetaCodec;
 import com.apitable.workspace.vo.BaseNodeInfo;
 import com.apitable.workspace.vo.FieldPermissionInfo;
 import com.apitable.workspace.vo.NodeFromSpaceVo;
@@ -157,7 +167,6 @@ import com.apitable.workspace.vo.NodePermissionView;
 import com.apitable.workspace.vo.NodeSearchResult;
 import com.apitable.workspace.vo.NodeShareTree;
 import com.apitable.workspace.vo.ShowcaseVo.NodeExtra;
-import com.apitable.workspace.vo.SimpleSortableNodeInfo;
 import com.apitable.core.exception.BusinessException;
 import com.apitable.core.support.tree.DefaultTreeBuildFactory;
 import com.apitable.core.util.ExceptionUtil;
@@ -170,17 +179,22 @@ import com.apitable.integration.grpc.NodeDeleteRo;
 
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import static com.apitable.shared.constants.AssetsPublicConstants.SPACE_PREFIX;
-import static com.apitable.shared.util.NodeUtil.sortNode;
 import static com.apitable.core.constants.RedisConstants.getTemplateQuoteKey;
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
 
 @Service
 @Slf4j
 public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> implements INodeService {
 
+    private static final int SEARCH_NODE_LIMIT = 50;
+
     @Resource
     private NodeMapper nodeMapper;
 
@@ -232,6 +246,9 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
     @Resource
     private IFieldRoleService iFieldRoleService;
 
+    @Resource
+    private INodeCopyJobService iNodeCopyJobService;
+
     @Resource
     private IGrpcClientService grpcClientService;
 
@@ -259,6 +276,27 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
     @Resource
     private IWidgetService iWidgetService;
 
+    @Resource
+    private NodeTreeSnapshotCacheService nodeTreeSnapshotCacheService;
+
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
+    @Resource(name = APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor taskExecutor;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate importCleanupTransaction;
+
+    @PostConstruct
+    public void init() {
+        // the records saved by an import are deleted after the import rolls back, out of its transaction
+        importCleanupTransaction = new TransactionTemplate(transactionManager);
+        importCleanupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     @Override
     public String getRootNodeIdBySpaceId(String spaceId) {
         log.info("The root node ID of the query space [{}]", spaceId);
@@ -278,6 +316,15 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         return NodeType.toEnum(type);
     }
 
+    @Override
+    public Map<String, NodeType> getTypeByNodeIds(Collection<String> nodeIds) {
+        if (CollUtil.isEmpty(nodeIds)) {
+            return new HashMap<>(0);
+        }
+        return nodeMapper.selectBaseNodeInfoByNodeIdsIncludeDelete(new ArrayList<>(nodeIds)).stream()
+                .collect(Collectors.toMap(NodeBaseInfoDTO::getNodeId, info -> NodeType.toEnum(info.getType()), (k1, k2) -> k1));
+    }
+
     @Override
     public NodeEntity getByNodeId(String nodeId) {
         log.info("Query node: {}", nodeId);
@@ -402,7 +449,8 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
             return new ArrayList<>();
         }
         // fuzzy search results
-        List<String> nodeIds = nodeMapper.selectLikeNodeName(spaceId, StrUtil.trim(keyword));
+        List<String> nodeIds = nodeTreeSnapshotCacheService.getSnapshot(spaceId)
+                .searchNodeIdsByName(StrUtil.trim(keyword), SEARCH_NODE_LIMIT);
         List<NodeInfoVo> nodeInfos = this.getNodeInfoByNodeIds(spaceId, memberId, nodeIds);
         return formatNodeSearchResults(spaceId, nodeInfos);
     }
@@ -410,7 +458,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
     @Override
     public NodeInfoTreeVo getNodeTree(String spaceId, String nodeId, Long memberId, int depth) {
         log.info("Query node tree ");
-        List<String> nodeIds = nodeMapper.selectSubNodesByOrder(spaceId, nodeId, depth);
+        List<String> nodeIds = nodeTreeSnapshotCacheService.getSnapshot(spaceId).getSubNodesByOrder(nodeId, depth);
         return this.getNodeInfoTreeByNodeIds(spaceId, memberId, nodeIds);
     }
 
@@ -418,7 +466,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
     public List<NodeInfoVo> getChildNodesByNodeId(String spaceId, Long memberId, String nodeId, NodeType nodeType) {
         log.info("Query the list of child nodes ");
         // Get a direct child node
-        List<String> subNodeIds = nodeMapper.selectOrderSubNodeIds(nodeId, nodeType);
+        List<String> subNodeIds = nodeTreeSnapshotCacheService.getSnapshot(spaceId).getOrderedSubNodeIds(nodeId, nodeType);
         return this.getNodeInfoByNodeIds(spaceId, memberId, subNodeIds);
     }
 
@@ -436,8 +484,9 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         // -- a
         // ---- b
         // ------ c
-        // At this time, when obtaining node c, it should return [c, b, a]
-        List<String> parentNodeIds = nodeMapper.selectParentNodePath(nodeId);
+        // At this time, when obtaining node c, it should return [a, b, c]
+        NodeTreeSnapshot snapshot = nodeTreeSnapshotCacheService.getSnapshot(spaceId);
+        List<String> parentNodeIds = snapshot.getParentNodePath(nodeId);
         // No parent node should report an error, but the location node does not need to return empty directly.
         if (parentNodeIds.isEmpty()) {
             return null;
@@ -453,17 +502,14 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
             }
         }
         // Query root node
-        String rootNodeId = getRootNodeIdBySpaceId(spaceId);
+        String rootNodeId = snapshot.getRootNodeId() != null ? snapshot.getRootNodeId() : getRootNodeIdBySpaceId(spaceId);
         // Query the first layer node under the root node
-        List<String> firstLevelNodes = nodeMapper.selectSubNodeIds(rootNodeId);
+        List<String> firstLevelNodes = snapshot.getSubNodeIds(rootNodeId);
         // The parent node supplements the tree node load.
         List<String> viewNodeIds = new ArrayList<>(firstLevelNodes);
         viewNodeIds.add(rootNodeId);
         for (int i = 0; i < parentNodeIds.size() - 1; i++) {
-            List<SimpleSortableNodeInfo> subNodeList = nodeMapper.selectSubNodeInfo(parentNodeIds.get(i));
-            List<SimpleSortableNodeInfo> sortedNodeList = sortNode(subNodeList);
-            List<String> subNodeIds = sortedNodeList.stream().map(SimpleSortableNodeInfo::getNodeId).collect(Collectors.toList());
-            viewNodeIds.addAll(subNodeIds);
+            viewNodeIds.addAll(snapshot.getOrderedSubNodeIds(parentNodeIds.get(i), null));
         }
         return this.getNodeInfoTreeByNodeIds(spaceId, memberId, viewNodeIds);
     }
@@ -501,7 +547,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
     public NodeInfoTreeVo getNodeInfoTreeByNodeIds(String spaceId, Long memberId, List<String> nodeIds) {
         log.info("Query the views of multiple nodes and construct a tree structure ");
         // Constructing a tree requires data structure support to construct a tree, first construct the tree, and then integrate and delete it.
-        ControlRoleDict roleDict = controlTemplate.fetchNodeTreeNode(memberId, nodeIds);
+        ControlRoleDict roleDict = controlTemplate.fetchNodeTreeNode(spaceId, memberId, nodeIds);
         ExceptionUtil.isFalse(roleDict.isEmpty(), PermissionException.NODE_ACCESS_DENIED);
         List<NodeInfoTreeVo> treeList = nodeMapper.selectNodeInfoTreeByNodeIds(roleDict.keySet(), memberId);
         // Node switches to memory custom sort
@@ -514,8 +560,9 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
 
     private <T extends NodeInfoVo> void setRole(List<T> list, ControlRoleDict roleDict, SpaceGlobalFeature feature) {
         list.forEach(node -> {
-            node.setRole(roleDict.get(node.getNodeId()).getRoleTag());
-            node.setPermissions(roleDict.get(node.getNodeId()).permissionToBean(NodePermissionView.class, feature));
+            ControlRole role = roleDict.get(node.getNodeId());
+            node.setRole(role.getRoleTag());
+            node.setPermissions(role.permissionToBean(NodePermissionView.class, feature));
         });
     }
 
@@ -547,6 +594,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         nodeMapper.updatePreNodeIdBySelf(nodeId, preNodeId, nodeOpRo.getParentId());
         boolean flag = save(nodeEntity);
         ExceptionUtil.isTrue(flag, DatabaseException.INSERT_ERROR);
+        nodeTreeSnapshotCacheService.invalidate(spaceId);
         return nodeEntity.getNodeId();
     }
 
@@ -585,6 +633,8 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
 
         boolean flag = save(nodeEntity);
         ExceptionUtil.isTrue(flag, DatabaseException.INSERT_ERROR);
+        nodeTreeSnapshotCacheService.invalidate(dto.getSpaceId());
+        this.incrementNodeStatistics(Collections.singletonList(nodeEntity));
         return nodeEntity.getNodeId();
     }
 
@@ -604,6 +654,8 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
             // iSubscriptionService.checkSheetNums(nodeList.get(0).getSpaceId(), dstCount);
             boolean flag = SqlHelper.retBool(nodeMapper.insertBatch(nodeList));
             ExceptionUtil.isTrue(flag, DatabaseException.INSERT_ERROR);
+            nodeList.stream().map(NodeEntity::getSpaceId).distinct().forEach(nodeTreeSnapshotCacheService::invalidate);
+            this.incrementNodeStatistics(nodeList);
         }
     }
 
@@ -644,6 +696,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         String nodeName = duplicateNameModify(entity.getParentId(), entity.getType(), name, nodeId);
         boolean flag = SqlHelper.retBool(nodeMapper.updateNameByNodeId(nodeId, nodeName));
         ExceptionUtil.isTrue(flag, DatabaseException.EDIT_ERROR);
+        nodeTreeSnapshotCacheService.invalidate(entity.getSpaceId());
         // The datasheet node, corresponding to the modification.
         if (entity.getType() == NodeType.DATASHEET.getNodeType()) {
             iDatasheetService.updateDstName(userId, nodeId, nodeName);
@@ -750,6 +803,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         nodeMapper.updatePreNodeIdBySelf(nodeEntity.getNodeId(), preNodeId, parentId);
         // Update the information of this node (the ID of the previous node may be updated to null, so update By Id is not used)
         nodeMapper.updateInfoByNodeId(nodeEntity.getNodeId(), parentId, preNodeId, name);
+        nodeTreeSnapshotCacheService.invalidate(nodeEntity.getSpaceId());
         // Publish Space Audit Events
         info.set(AuditConstants.MOVE_EFFECT_SUFFIX_NODES, CollUtil.emptyIfNull(suffixNodeIds));
         AuditSpaceArg arg = AuditSpaceArg.builder().action(action).userId(userId).nodeId(opRo.getNodeId()).info(info).build();
@@ -776,6 +830,11 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         List<String> nodeIds = nodeMapper.selectBatchAllSubNodeIds(idList, false);
         // delete all nodes and child descendants
         if (CollUtil.isNotEmpty(nodeIds)) {
+            // the records and views of deleted datasheets are left to the reconciliation
+            Map<Integer, Long> nodeDeltas = nodeMapper.selectTypeStaticsByNodeIds(nodeIds).stream()
+                    .collect(Collectors.toMap(NodeTypeStaticsDTO::getType, statics -> -statics.getTotal().longValue()));
+            iSpaceStatisticsService.incrementNodes(spaceId, nodeDeltas);
+            iSpaceStatisticsService.markStale(spaceId);
             this.nodeDeleteChangeset(nodeIds);
             iDatasheetService.updateIsDeletedStatus(userId, nodeIds, true);
             boolean flag = SqlHelper.retBool(nodeMapper.updateIsRubbishByNodeIdIn(userId, nodeIds, true));
@@ -796,6 +855,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
             AuditSpaceArg arg = AuditSpaceArg.builder().action(AuditSpaceAction.DELETE_NODE).userId(userId).nodeId(nodeEntity.getNodeId()).build();
             SpringContextHolder.getApplicationContext().publishEvent(new AuditSpaceEvent(this, arg));
         });
+        nodeTreeSnapshotCacheService.invalidate(spaceId);
     }
 
     @Override
@@ -808,6 +868,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
             // delete node and datasheet information
             boolean flag = SqlHelper.retBool(nodeMapper.updateIsRubbishByNodeIdIn(userId, subNodeIds, true));
             ExceptionUtil.isTrue(flag, DatabaseException.DELETE_ERROR);
+            nodeTreeSnapshotCacheService.invalidate(nodeMapper.selectSpaceIdByNodeIdIncludeDeleted(subNodeIds.get(0)));
             iDatasheetService.updateIsDeletedStatus(userId, subNodeIds, true);
             // delete the spatial attachment resource of the node
             iSpaceAssetService.updateIsDeletedByNodeIds(subNodeIds, true);
@@ -1088,26 +1149,29 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         }
         boolean flag = SqlHelper.retBool(nodeMapper.insertBatch(storeEntities));
         ExceptionUtil.isTrue(flag, NodeException.SHARE_NODE_STORE_FAIL);
+        nodeTreeSnapshotCacheService.invalidate(spaceId);
+        this.incrementNodeStatistics(storeEntities);
         // Copy datasheet processing
         if (nodeTypeToNodeIdsMap.containsKey(NodeType.DATASHEET.getNodeType())) {
+            List<NodeShareTree> datasheets = nodeTypeToNodeIdsMap.get(NodeType.DATASHEET.getNodeType()).stream()
+                    .filter(subNode -> !filterNodeIds.contains(subNode.getNodeId()))
+                    .collect(Collectors.toList());
             if (options.isFilterPermissionField()) {
                 // Obtain the datasheet and the field set of the corresponding column permission
-                Map<String, List<String>> dstPermissionFieldsMap = new HashMap<>(16);
-                nodeTypeToNodeIdsMap.get(NodeType.DATASHEET.getNodeType()).stream()
-                        .filter(subNode -> !filterNodeIds.contains(subNode.getNodeId()))
-                        .forEach(subNode -> {
-                            List<String> permissionFieldIds = iFieldRoleService.getPermissionFieldIds(subNode.getNodeId());
-                            if (!permissionFieldIds.isEmpty()) {
-                                dstPermissionFieldsMap.put(subNode.getNodeId(), permissionFieldIds);
-                            }
-                        });
-                options.setDstPermissionFieldsMap(dstPermissionFieldsMap);
+                Set<String> dstIds = datasheets.stream().map(NodeShareTree::getNodeId).collect(Collectors.toSet());
+                options.setDstPermissionFieldsMap(iFieldRoleService.getPermissionFieldIds(dstIds));
             }
-            for (NodeShareTree subNode : nodeTypeToNodeIdsMap.get(NodeType.DATASHEET.getNodeType())) {
-                if (filterNodeIds.contains(subNode.getNodeId())) {
-                    continue;
+            if (options.isAsync()) {
+                // the node tree is saved with the current transaction, the datasheets are filled by the job after it
+                List<NodeCopyJobDTO.Datasheet> jobDatasheets = datasheets.stream()
+                        .map(subNode -> new NodeCopyJobDTO.Datasheet(subNode.getNodeId(), newNodeMap.get(subNode.getNodeId()), subNode.getNodeName()))
+                        .collect(Collectors.toList());
+                iNodeCopyJobService.submit(new NodeCopyJobDTO(userId, spaceId, newNodeMap.get(folderId), options, newNodeMap, jobDatasheets));
+            }
+            else {
+                for (NodeShareTree subNode : datasheets) {
+                    iDatasheetService.copy(userId, spaceId, subNode.getNodeId(), newNodeMap.get(subNode.getNodeId()), subNode.getNodeName(), options, newNodeMap);
                 }
-                iDatasheetService.copy(userId, spaceId, subNode.getNodeId(), newNodeMap.get(subNode.getNodeId()), subNode.getNodeName(), options, newNodeMap);
             }
         }
         // Copy form processing
@@ -1620,30 +1684,18 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
      * Get the superior path, split by "/", do not retain the root node
      */
     private Map<String, String> getSuperiorPathByParentIds(String spaceId, List<String> parentIds) {
-        // gets all parent nodes other than the non root node
-        List<NodeBaseInfoDTO> parentNodes = nodeMapper.selectParentNodeByNodeIds(spaceId, parentIds);
-        if (CollUtil.isEmpty(parentNodes)) {
-            return null;
-        }
-        Map<String, NodeBaseInfoDTO> nodeIdToInfoMap = parentNodes.stream().collect(Collectors.toMap(NodeBaseInfoDTO::getNodeId, dto -> dto));
+        NodeTreeSnapshot snapshot = nodeTreeSnapshotCacheService.getSnapshot(spaceId);
         Map<String, String> nodeIdToPathMap = new HashMap<>(parentIds.size());
         for (String nodeId : parentIds) {
             if (nodeIdToPathMap.get(nodeId) != null) {
                 continue;
             }
-            // get the node name from bottom up
-            List<String> pathList = new ArrayList<>();
-            String node = nodeId;
-            while (nodeIdToInfoMap.get(node) != null) {
-                NodeBaseInfoDTO dto = nodeIdToInfoMap.get(node);
-                pathList.add(dto.getNodeName());
-                node = dto.getParentId();
-            }
+            // the path from the first level node, exclude root node
+            List<String> pathList = snapshot.getParentNodePath(nodeId);
             if (CollUtil.isEmpty(pathList)) {
                 continue;
             }
-            // reverse output path
-            String path = StrUtil.join(" / ", CollUtil.reverse(pathList));
+            String path = pathList.stream().map(snapshot::getNodeName).collect(Collectors.joining(" / "));
             nodeIdToPathMap.put(nodeId, StrUtil.addPrefixIfNot(path, "/ "));
         }
         return nodeIdToPathMap;
@@ -1653,7 +1705,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
     @Transactional(rollbackFor = Exception.class)
     public String parseExcel(Long userId, String uuid, String spaceId, Long memberId, String parentNodeId, String fileName, String fileSuffix, InputStream inputStream) {
         ExcelReader excelReader = null;
-        MultiSheetReadListener readListener = new MultiSheetReadListener(this, userId, uuid, spaceId, memberId, parentNodeId, fileName);
+        MultiSheetReadListener readListener = new MultiSheetReadListener(this, taskExecutor, importCleanupTransaction, userId, uuid, spaceId, memberId, parentNodeId, fileName);
         ExcelReaderBuilder readerBuilder;
         ExcelTypeEnum excelType = FileSuffixConstants.XLS.equals(fileSuffix) ?
                 ExcelTypeEnum.XLS :
@@ -1667,11 +1719,17 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
             excelReader.read(readSheets);
             return readListener.getRetNodeData().getNodeId();
         }
+        catch (RuntimeException e) {
+            // the records are saved before the datasheets are created, they are deleted after the rollback
+            readListener.abort();
+            throw e;
+        }
         finally {
             if (excelReader != null) {
                 // Don't forget to close it here. Temporary files will be created when reading, and the disk will collapse.
                 excelReader.finish();
             }
+            readListener.close();
         }
     }
 
@@ -1679,7 +1737,7 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
     @Transactional(rollbackFor = Exception.class)
     public String parseCsv(Long userId, String uuid, String spaceId, Long memberId, String parentNodeId, String fileName, InputStream inputStream) {
         ExcelReader excelReader = null;
-        CsvReadListener readListener = new CsvReadListener(this, userId, uuid, spaceId, memberId, parentNodeId, fileName);
+        CsvReadListener readListener = new CsvReadListener(this, taskExecutor, importCleanupTransaction, userId, uuid, spaceId, memberId, parentNodeId, fileName);
         try {
             excelReader = EasyExcel.read(inputStream)
                     .excelType(ExcelTypeEnum.CSV)
@@ -1688,11 +1746,17 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
             excelReader.readAll();
             return readListener.getRetNodeId();
         }
+        catch (RuntimeException e) {
+            // the records are saved before the datasheet is created, they are deleted after the rollback
+            readListener.abort();
+            throw e;
+        }
         finally {
             if (excelReader != null) {
                 // Don't forget to close it here. Temporary files will be created when reading, and the disk will collapse.
                 excelReader.finish();
             }
+            readListener.close();
         }
     }
 
@@ -1703,10 +1767,16 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         nodeMapper.updatePreNodeIdBySelf(data.getNodeId(), null, data.getParentId());
 
         nodeMapper.insertBatch(nodeEntities);
+        nodeEntities.stream().map(NodeEntity::getSpaceId).distinct().forEach(nodeTreeSnapshotCacheService::invalidate);
+        this.incrementNodeStatistics(nodeEntities);
 
         iDatasheetService.batchSave(datasheetEntities);
 
         iDatasheetMetaService.batchSave(metaEntities);
+        if (CollUtil.isNotEmpty(nodeEntities)) {
+            String spaceId = nodeEntities.get(0).getSpaceId();
+            metaEntities.forEach(meta -> iSpaceStatisticsService.incrementDatasheet(spaceId, DatasheetMetaCodec.parse(meta.getMetaData())));
+        }
 
         iDatasheetRecordService.batchSave(recordEntities);
     }
@@ -1716,6 +1786,11 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         iDatasheetRecordService.batchSave(recordEntities);
     }
 
+    @Override
+    public void deleteDstRecords(Collection<String> dstIds) {
+        iDatasheetRecordService.deleteByDstIds(dstIds);
+    }
+
     @Override
     public NodeExtra getNodeExtras(String nodeId, String spaceId, String extras) {
         NodeExtra extraVo = new NodeExtra();
@@ -1878,4 +1953,13 @@ public class NodeServiceImpl extends ServiceImpl<NodeMapper, NodeEntity> impleme
         return results;
     }
 
+    /**
+     * count the created nodes in the statistics of their spaces
+     */
+    private void incrementNodeStatistics(List<NodeEntity> nodes) {
+        nodes.stream()
+                .collect(Collectors.groupingBy(NodeEntity::getSpaceId,
+                        Collectors.groupingBy(NodeEntity::getType, Collectors.counting())))
+                .forEach(iSpaceStatisticsService::incrementNodes);
+    }
 }
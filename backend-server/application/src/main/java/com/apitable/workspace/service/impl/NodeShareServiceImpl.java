@@ -40,6 +40,7 @@ import com.apitable.base.enums.ParameterException;
 import com.apitable.space.enums.LabsFeatureEnum;
 import com.apitable.space.service.ILabsApplicantService;
 import com.apitable.organization.dto.MemberDTO;
+import com.apitable.shared.cache.service.NodeTreeSnapshotCacheService;
 import com.apitable.shared.constants.AuditConstants;
 import com.apitable.control.infrastructure.ControlRoleDict;
 import com.apitable.control.infrastructure.ControlTemplate;
@@ -103,6 +104,9 @@ public class NodeShareServiceImpl implements INodeShareService {
     @Resource
     private NodeMapper nodeMapper;
 
+    @Resource
+    private NodeTreeSnapshotCacheService nodeTreeSnapshotCacheService;
+
     @Resource
     private NodeShareSettingMapper nodeShareSettingMapper;
 
@@ -275,7 +279,7 @@ public class NodeShareServiceImpl implements INodeShareService {
         boolean hasChildren = nodeMapper.selectHasChildren(node.getNodeId());
         nodeShareInfoVo.setIsFolder(hasChildren);
         if (hasChildren) {
-            List<String> subNodeIds = nodeMapper.selectSubNodesByOrder(node.getSpaceId(), node.getNodeId(), 0);
+            List<String> subNodeIds = nodeTreeSnapshotCacheService.getSnapshot(node.getSpaceId()).getSubNodesByOrder(node.getNodeId(), 0);
             if (CollUtil.isNotEmpty(subNodeIds)) {
                 nodeIds.addAll(subNodeIds);
             }
@@ -379,7 +383,7 @@ public class NodeShareServiceImpl implements INodeShareService {
         // Filter the required permissions of the node and share the display logic of the node tree synchronously.
         ControlRoleDict roleDict = controlTemplate.fetchShareNodeTree(member.getId(), nodeIds);
         ExceptionUtil.isFalse(roleDict.isEmpty(), NodeException.SHARE_EXPIRE);
-        NodeCopyOptions options = NodeCopyOptions.builder().copyData(true).verifyNodeCount(true).filterPermissionField(true).build();
+        NodeCopyOptions options = NodeCopyOptions.builder().copyData(true).verifyNodeCount(true).filterPermissionField(true).async(true).build();
         if (roleDict.keySet().size() != nodeIds.size()) {
             List<String> filterNodeIds = CollUtil.subtractToList(nodeIds, roleDict.keySet());
             options.setFilterNodeIds(filterNodeIds);
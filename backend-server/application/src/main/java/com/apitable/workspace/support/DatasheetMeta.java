@@ -0,0 +1,236 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Getter;
+import lombok.With;
+
+import com.apitable.workspace.enums.FieldType;
+
+/**
+ * <p>
+ * immutable datasheet meta, parsed once by {@link DatasheetMetaCodec} and shared by the operations on it.
+ * edits return a new instance and copy only the changed parts,
+ * the json nodes held by an instance must not be modified in place.
+ * </p>
+ * fields keep the attributes of {@code FieldMapRo}, views and widget panels keep the stored json as is.
+ */
+@Getter
+@With
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class DatasheetMeta {
+
+    private static final String[] STYLE_FIELD_KEYS = { "coverFieldId", "kanbanFieldId", "startFieldId", "endFieldId", "linkFieldId" };
+
+    private final Map<String, Field> fieldMap;
+
+    private final List<ObjectNode> views;
+
+    private final ArrayNode widgetPanels;
+
+    @JsonCreator
+    public DatasheetMeta(@JsonProperty("fieldMap") Map<String, Field> fieldMap,
+            @JsonProperty("views") List<ObjectNode> views,
+            @JsonProperty("widgetPanels") ArrayNode widgetPanels) {
+        this.fieldMap = fieldMap == null ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(fieldMap));
+        this.views = views == null ? null : Collections.unmodifiableList(new ArrayList<>(views));
+        this.widgetPanels = widgetPanels;
+    }
+
+    public Field getField(String fieldId) {
+        return fieldMap.get(fieldId);
+    }
+
+    /**
+     * @return field id of the first column of the first view, null if absent
+     */
+    public String getFirstColumnFieldId() {
+        if (views == null || views.isEmpty()) {
+            return null;
+        }
+        JsonNode fieldId = views.get(0).path("columns").path(0).get("fieldId");
+        return fieldId == null || fieldId.isNull() ? null : fieldId.asText();
+    }
+
+    /**
+     * @param fieldIds field ids to remove
+     * @return meta without the fields
+     */
+    public DatasheetMeta withoutFields(Collection<String> fieldIds) {
+        if (fieldIds.isEmpty()) {
+            return this;
+        }
+        Map<String, Field> fields = new LinkedHashMap<>(fieldMap);
+        fields.keySet().removeAll(fieldIds);
+        return withFieldMap(fields);
+    }
+
+    /**
+     * @param recordIds record ids in the rows of every view
+     * @return meta whose views contain the records only
+     */
+    public DatasheetMeta withViewRows(List<String> recordIds) {
+        if (views == null) {
+            return this;
+        }
+        ArrayNode rows = DatasheetMetaCodec.createArrayNode();
+        recordIds.forEach(recordId -> rows.addObject().put("recordId", recordId));
+        List<ObjectNode> newViews = new ArrayList<>(views.size());
+        for (ObjectNode view : views) {
+            ObjectNode newView = view.deepCopy();
+            newView.set("rows", rows.deepCopy());
+            newViews.add(newView);
+        }
+        return withViews(newViews);
+    }
+
+    /**
+     * remove the references to fields from the columns, filter, sort, group and style of views
+     *
+     * @param delFieldIds field ids removed from view attributes
+     * @param delFieldIdsInFilter field ids removed from filter conditions
+     * @return meta with the views processed
+     */
+    public DatasheetMeta withoutViewFieldIds(Collection<String> delFieldIds, Collection<String> delFieldIdsInFilter) {
+        if (views == null || (delFieldIds.isEmpty() && delFieldIdsInFilter.isEmpty())) {
+            return this;
+        }
+        List<ObjectNode> newViews = new ArrayList<>(views.size());
+        for (ObjectNode view : views) {
+            ObjectNode newView = view.deepCopy();
+            removeInfoIfExistFieldId(newView.get("columns"), delFieldIds);
+            JsonNode filterInfo = newView.get("filterInfo");
+            if (filterInfo != null && !filterInfo.isNull()) {
+                JsonNode conditions = filterInfo.get("conditions");
+                removeInfoIfExistFieldId(conditions, delFieldIdsInFilter);
+                if (conditions == null || conditions.size() == 0) {
+                    newView.remove("filterInfo");
+                }
+            }
+            removeInfoIfExistFieldId(newView.get("sortInfo"), delFieldIds);
+            removeInfoIfExistFieldId(newView.get("groupInfo"), delFieldIds);
+            JsonNode style = newView.get("style");
+            if (style instanceof ObjectNode) {
+                for (String key : STYLE_FIELD_KEYS) {
+                    JsonNode fieldId = style.get(key);
+                    if (fieldId != null && delFieldIds.contains(fieldId.asText())) {
+                        ((ObjectNode) style).remove(key);
+                    }
+                }
+            }
+            newViews.add(newView);
+        }
+        return withViews(newViews);
+    }
+
+    /**
+     * remove the objects whose field id is absent or in the given ids from an array
+     */
+    private static void removeInfoIfExistFieldId(JsonNode array, Collection<String> fieldIds) {
+        if (array == null || !array.isArray()) {
+            return;
+        }
+        for (Iterator<JsonNode> it = array.elements(); it.hasNext(); ) {
+            JsonNode fieldId = it.next().get("fieldId");
+            if (fieldId == null || fieldId.isNull() || fieldIds.contains(fieldId.asText())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * immutable field of datasheet
+     */
+    @Getter
+    @With
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class Field {
+
+        private final String id;
+
+        private final String name;
+
+        private final String desc;
+
+        private final Integer type;
+
+        private final ObjectNode property;
+
+        private final Boolean required;
+
+        @JsonCreator
+        public Field(@JsonProperty("id") String id, @JsonProperty("name") String name,
+                @JsonProperty("desc") String desc, @JsonProperty("type") Integer type,
+                @JsonProperty("property") ObjectNode property, @JsonProperty("required") Boolean required) {
+            this.id = id;
+            this.name = name;
+            this.desc = desc;
+            this.type = type;
+            this.property = property;
+            this.required = required;
+        }
+
+        public FieldType getFieldType() {
+            return type == null ? FieldType.NOT_SUPPORT : FieldType.create(type);
+        }
+
+        public boolean isType(FieldType fieldType) {
+            return type != null && type == fieldType.getFieldType();
+        }
+
+        /**
+         * @param key property key
+         * @return text of the property value, null if absent
+         */
+        public String getPropertyText(String key) {
+            JsonNode value = property == null ? null : property.get(key);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+
+        /**
+         * @param key   property key
+         * @param value property value, the key is removed if null
+         * @return field with the property value replaced
+         */
+        public Field withPropertyValue(String key, Object value) {
+            ObjectNode newProperty = property == null ? DatasheetMetaCodec.createObjectNode() : property.deepCopy();
+            if (value == null) {
+                newProperty.remove(key);
+            }
+            else {
+                newProperty.set(key, DatasheetMetaCodec.toNode(value));
+            }
+            return withProperty(newProperty);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.support;
+
+import java.io.IOException;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.apitable.core.exception.BusinessException;
+
+/**
+ * <p>
+ * json codec of {@link DatasheetMeta}
+ * </p>
+ */
+public final class DatasheetMetaCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true)
+            .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+
+    private DatasheetMetaCodec() {
+    }
+
+    /**
+     * @param metaData meta json stored in datasheet meta table
+     * @return datasheet meta
+     */
+    public static DatasheetMeta parse(String metaData) {
+        try {
+            return MAPPER.readValue(metaData, DatasheetMeta.class);
+        }
+        catch (IOException e) {
+            throw new BusinessException("Invalid datasheet meta: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param meta datasheet meta
+     * @return meta json
+     */
+    public static String write(DatasheetMeta meta) {
+        try {
+            return MAPPER.writeValueAsString(meta);
+        }
+        catch (JsonProcessingException e) {
+            throw new BusinessException("Invalid datasheet meta: " + e.getMessage());
+        }
+    }
+
+    /**
+     * convert to the json object used by snapshots
+     *
+     * @param meta datasheet meta
+     * @return meta json object
+     */
+    public static JSONObject toJSONObject(DatasheetMeta meta) {
+        return JSONUtil.parseObj(write(meta));
+    }
+
+    /**
+     * @param json json array
+     * @return array node
+     */
+    public static ArrayNode parseArray(String json) {
+        try {
+            return (ArrayNode) MAPPER.readTree(json);
+        }
+        catch (IOException | ClassCastException e) {
+            throw new BusinessException("Invalid json array: " + e.getMessage());
+        }
+    }
+
+    static ObjectNode createObjectNode() {
+        return MAPPER.createObjectNode();
+    }
+
+    static ArrayNode createArrayNode() {
+        return MAPPER.createArrayNode();
+    }
+
+    static JsonNode toNode(Object value) {
+        return MAPPER.valueToTree(value);
+    }
+}
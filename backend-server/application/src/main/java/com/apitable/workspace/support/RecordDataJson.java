@@ -0,0 +1,176 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.support;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collection;
+
+import cn.hutool.core.io.IORuntimeException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * <p>
+ * operations on the raw json of record data, the data is read and written as a token stream
+ * without being parsed into a json object.
+ * </p>
+ */
+public final class RecordDataJson {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private RecordDataJson() {
+    }
+
+    /**
+     * remove the data of fields
+     *
+     * @param data     raw record data
+     * @param fieldIds field ids
+     * @return record data without the fields, the raw data itself if it contains none of them
+     */
+    public static String removeFields(String data, Collection<String> fieldIds) {
+        if (data == null || fieldIds == null || fieldIds.isEmpty() || !containsAnyField(data, fieldIds)) {
+            return data;
+        }
+        StringWriter writer = new StringWriter(data.length());
+        try (JsonParser parser = JSON_FACTORY.createParser(data);
+             JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return data;
+            }
+            gen.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldId = parser.getCurrentName();
+                parser.nextToken();
+                if (fieldIds.contains(fieldId)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                gen.writeFieldName(fieldId);
+                gen.copyCurrentStructure(parser);
+            }
+            gen.writeEndObject();
+        }
+        catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * copy the data of a field to another field
+     *
+     * @param data        raw record data
+     * @param fromFieldId field id to copy from
+     * @param toFieldId   field id to copy to, the existing data is replaced
+     * @return record data with the copied field, null if the data of the source field is absent
+     */
+    public static String copyField(String data, String fromFieldId, String toFieldId) {
+        if (data == null || !data.contains(quote(fromFieldId))) {
+            return null;
+        }
+        StringWriter writer = new StringWriter(data.length() * 2);
+        boolean copied = false;
+        try (JsonParser parser = JSON_FACTORY.createParser(data);
+             JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            TokenBuffer fieldData = null;
+            gen.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldId = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if (fieldId.equals(toFieldId)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                gen.writeFieldName(fieldId);
+                if (fieldId.equals(fromFieldId) && valueToken != JsonToken.VALUE_NULL) {
+                    fieldData = new TokenBuffer(parser);
+                    fieldData.copyCurrentStructure(parser);
+                    fieldData.serialize(gen);
+                }
+                else {
+                    gen.copyCurrentStructure(parser);
+                }
+            }
+            if (fieldData != null) {
+                gen.writeFieldName(toFieldId);
+                fieldData.serialize(gen);
+                copied = true;
+            }
+            gen.writeEndObject();
+        }
+        catch (IOException e) {
+            throw new IORuntimeException(e);
+        }
+        return copied ? writer.toString() : null;
+    }
+
+    /**
+     * read the value at the current token of the parser as raw json, the parser ends at its last token
+     *
+     * @param parser   parser positioned at the value
+     * @param fieldIds fields left out if the value is an object, may be empty
+     * @return raw json of the value
+     * @throws IOException if reading fails
+     */
+    public static String read(JsonParser parser, Collection<String> fieldIds) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(writer)) {
+            if (parser.currentToken() != JsonToken.START_OBJECT || fieldIds == null || fieldIds.isEmpty()) {
+                gen.copyCurrentStructure(parser);
+            }
+            else {
+                gen.writeStartObject();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldId = parser.getCurrentName();
+                    parser.nextToken();
+                    if (fieldIds.contains(fieldId)) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    gen.writeFieldName(fieldId);
+                    gen.copyCurrentStructure(parser);
+                }
+                gen.writeEndObject();
+            }
+        }
+        return writer.toString();
+    }
+
+    private static boolean containsAnyField(String data, Collection<String> fieldIds) {
+        for (String fieldId : fieldIds) {
+            if (data.contains(quote(fieldId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String fieldId) {
+        return '"' + fieldId + '"';
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.apitable.workspace.vo;
+
+import java.util.List;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+/**
+ * <p>
+ * Node Copy Job View
+ * </p>
+ */
+@Data
+@ApiModel("Node Copy Job View")
+public class NodeCopyJobVo {
+
+    @ApiModelProperty(value = "Copied Node ID", example = "fod8mXUeiXyVo", position = 1)
+    private String nodeId;
+
+    @ApiModelProperty(value = "Number of datasheets to copy", example = "30", position = 2)
+    private Integer total;
+
+    @ApiModelProperty(value = "Number of copied datasheets", example = "12", position = 3)
+    private Integer completed;
+
+    @ApiModelProperty(value = "Datasheets failed to copy", example = "[\"dstRr3ggf1M1ASRnuw\"]", position = 4)
+    private List<String> failedNodeIds;
+
+    @ApiModelProperty(value = "Whether the job is still running", example = "true", position = 5)
+    private Boolean running;
+}
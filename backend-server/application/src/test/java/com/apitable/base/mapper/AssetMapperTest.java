@@ -90,4 +90,13 @@ public class AssetMapperTest extends AbstractMyBatisMapperTest {
         Integer count = assetMapper.updateFileSizeMimeTypeById(assetEntity);
         assertThat(count).isEqualTo(1);
     }
+
+    @Test
+    @Sql("/sql/asset-data.sql")
+    void testClearPreviewByIdAndPreview() {
+        assertThat(assetMapper.clearPreviewByIdAndPreview(1504000749080977410L, "space/preview/other")).isZero();
+        assertThat(assetMapper.clearPreviewByIdAndPreview(1504000749080977410L, "space/2022/03/16/f84c9bbaa3dd49e98584bf2125a546cd"))
+                .isEqualTo(1);
+        assertThat(assetMapper.selectById(1504000749080977410L).getPreview()).isNull();
+    }
 }
@@ -38,6 +38,9 @@ import com.apitable.control.infrastructure.role.NodeReaderRole;
 import com.apitable.control.infrastructure.role.NodeUpdaterRole;
 import com.apitable.control.infrastructure.role.RoleConstants.Field;
 import com.apitable.control.infrastructure.role.RoleConstants.Node;
+import com.apitable.space.vo.SpaceGlobalFeature;
+import com.apitable.workspace.vo.DatasheetPermissionView;
+import com.apitable.workspace.vo.NodePermissionView;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.util.Lists.list;
@@ -263,4 +266,33 @@ public class ControlRoleTest {
         assertThat(updater.getPermissions()).contains(NodePermission.EDIT_CELL);
         assertThat(updater.getPermissions()).contains(NodePermission.CREATE_ROW);
     }
+
+    @Test
+    public void testPermissionToBean() {
+        ControlRole reader = ControlRoleManager.parseNodeRole(Node.READER);
+        NodePermissionView view = reader.permissionToBean(NodePermissionView.class);
+        assertThat(view.getReadable()).isTrue();
+        assertThat(view.getEditable()).isNull();
+        // every call returns a new bean
+        assertThat(reader.permissionToBean(NodePermissionView.class)).isNotSameAs(view).isEqualTo(view);
+
+        ControlRole editor = ControlRoleManager.parseFieldRole(Field.EDITOR);
+        com.apitable.workspace.vo.FieldPermission fieldPermission = editor.permissionToBean(com.apitable.workspace.vo.FieldPermission.class);
+        assertThat(fieldPermission.getReadable()).isTrue();
+        assertThat(fieldPermission.getEditable()).isTrue();
+    }
+
+    @Test
+    public void testPermissionToBeanWithExportLevel() {
+        ControlRole manager = ControlRoleManager.parseNodeRole(Node.MANAGER);
+        SpaceGlobalFeature closed = SpaceGlobalFeature.builder().exportLevel(ExportLevelEnum.LEVEL_CLOSED.getValue()).build();
+        assertThat(manager.permissionToBean(DatasheetPermissionView.class, closed).getExportable()).isFalse();
+        assertThat(manager.permissionToBean(DatasheetPermissionView.class, closed).getManageable()).isTrue();
+
+        SpaceGlobalFeature beyondEdit = SpaceGlobalFeature.builder().exportLevel(ExportLevelEnum.LEVEL_BEYOND_EDIT.getValue()).build();
+        assertThat(manager.permissionToBean(DatasheetPermissionView.class, beyondEdit).getExportable()).isTrue();
+
+        ControlRole admin = new NodeManagerRole(true, true);
+        assertThat(admin.permissionToBean(NodePermissionView.class, closed).getExportable()).isTrue();
+    }
 }
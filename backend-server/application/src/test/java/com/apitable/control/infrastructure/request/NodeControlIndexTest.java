@@ -0,0 +1,93 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.control.infrastructure.request;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.apitable.control.infrastructure.role.RoleConstants.Node;
+import com.apitable.workspace.dto.ControlRoleInfo;
+import com.apitable.workspace.dto.SimpleNodeInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.util.Lists.list;
+
+/**
+ * Node control index unit test
+ */
+public class NodeControlIndexTest {
+
+    @Test
+    public void testFindParentNodeIdWithRoleConfig() {
+        NodeTreeIndex index = new NodeTreeIndex(mockTree());
+        SimpleNodeInfo node = index.getNode("fod3");
+        assertThat(index.findParentNodeIdFromBottom2Top(node)).containsExactly("fod2", "root");
+        assertThat(index.findParentNodeIdFromTop2Bottom(node)).containsExactly("root", "fod2");
+        assertThat(index.indexOf("fod2")).isEqualTo(2);
+        assertThat(index.getNode("not_exist")).isNull();
+    }
+
+    @Test
+    public void testCollectAllChildren() {
+        NodeTreeIndex index = new NodeTreeIndex(mockTree());
+        Set<String> children = new HashSet<>();
+        index.collectAllChildren("fod1", children);
+        assertThat(children).containsExactlyInAnyOrder("fod2", "fod3", "dst1");
+    }
+
+    @Test
+    public void testGetNodeRolesMatchMemberUnits() {
+        List<ControlRoleInfo> roleInfos = list(
+            mockRole("fod1", 1L, Node.EDITOR),
+            mockRole("fod1", 2L, Node.READER),
+            mockRole("fod2", 3L, Node.MANAGER));
+        NodeRoleIndex index = new NodeRoleIndex(roleInfos, list(2L, 1L));
+        assertThat(index.getNodeRoles("fod1")).containsExactlyInAnyOrder(Node.EDITOR, Node.READER);
+        assertThat(index.getNodeRoles("fod2")).isEmpty();
+        assertThat(index.getNodeRoles("fod3")).isEmpty();
+    }
+
+    private static List<SimpleNodeInfo> mockTree() {
+        return list(
+            mockNode("root", "0", false),
+            mockNode("fod1", "root", true),
+            mockNode("fod2", "fod1", false),
+            mockNode("fod3", "fod2", true),
+            mockNode("dst1", "fod3", true));
+    }
+
+    private static SimpleNodeInfo mockNode(String nodeId, String parentId, boolean extend) {
+        SimpleNodeInfo node = new SimpleNodeInfo();
+        node.setNodeId(nodeId);
+        node.setParentId(parentId);
+        node.setExtend(extend);
+        return node;
+    }
+
+    private static ControlRoleInfo mockRole(String controlId, Long unitId, String role) {
+        ControlRoleInfo info = new ControlRoleInfo();
+        info.setControlId(controlId);
+        info.setUnitId(unitId);
+        info.setRole(role);
+        return info;
+    }
+}
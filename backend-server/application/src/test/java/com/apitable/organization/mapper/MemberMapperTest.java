@@ -76,13 +76,6 @@ public class MemberMapperTest extends AbstractMyBatisMapperTest {
         assertThat(entities).isNotEmpty();
     }
 
-    @Test
-    @Sql("/sql/unit-member-data.sql")
-    void testSelectMemberIdsLikeName() {
-        List<Long> ids = memberMapper.selectMemberIdsLikeName("spc41", "41");
-        assertThat(ids).isNotEmpty();
-    }
-
     @Test
     @Sql("/sql/unit-member-data.sql")
     void testSelectIdBySpaceIdAndNames() {
@@ -187,13 +187,6 @@ public class TeamMapperTest extends AbstractMyBatisMapperTest {
         assertThat(entities).isNotEmpty();
     }
 
-    @Test
-    @Sql("/sql/unit-team-data.sql")
-    void testSelectTeamIdsLikeName() {
-        List<Long> ids = teamMapper.selectTeamIdsLikeName("spc41", "team");
-        assertThat(ids).isNotEmpty();
-    }
-
     @Test
     @Sql("/sql/unit-team-data.sql")
     void testSelectIdBySpaceIdAndNames() {
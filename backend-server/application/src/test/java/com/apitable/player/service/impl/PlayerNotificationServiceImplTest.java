@@ -20,16 +20,26 @@ package com.apitable.player.service.impl;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.lang.Dict;
+import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import org.junit.jupiter.api.Test;
 
 import com.apitable.AbstractIntegrationTest;
+import com.apitable.core.constants.RedisConstants;
 import com.apitable.player.dto.NotificationModelDTO;
+import com.apitable.player.ro.NotificationCreateRo;
 import com.apitable.player.service.IPlayerNotificationService;
 import com.apitable.shared.component.notification.INotificationFactory;
 import com.apitable.shared.component.notification.NotificationManager;
@@ -37,11 +47,17 @@ import com.apitable.shared.component.notification.NotificationTemplateId;
 import com.apitable.shared.sysconfig.notification.NotificationTemplate;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static com.apitable.shared.constants.NotificationConstants.BODY_EXTRAS;
 import static com.apitable.shared.constants.NotificationConstants.EXTRA_TOAST;
 import static com.apitable.shared.constants.NotificationConstants.EXTRA_TOAST_URL;
+import static com.apitable.shared.constants.NotificationConstants.INVOLVE_RECORD_IDS;
+import static com.apitable.shared.constants.NotificationConstants.RECORD_MENTION_TIMES;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * <p>
@@ -49,12 +65,21 @@ import static org.assertj.core.api.Assertions.assertThat;
  * </p>
  */
 public class PlayerNotificationServiceImplTest extends AbstractIntegrationTest {
+
+    private static final String ADD_RECORD_OUT_OF_LIMIT = "add_record_out_of_limit";
+
     @Autowired
     private IPlayerNotificationService iPlayerNotificationService;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
     private INotificationFactory notificationFactory;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
     @Test
     public void testCreateNewUserWelcomeNotification() {
         Long userId = IdWorker.getId();
@@ -75,4 +100,144 @@ public class PlayerNotificationServiceImplTest extends AbstractIntegrationTest {
         assertThat(extrasObj.getByPath(BODY_EXTRAS + "." + EXTRA_TOAST + "." + EXTRA_TOAST_URL)).isEqualTo(template.getUrl());
 
     }
+
+    @Test
+    public void testFrequencyLimitedCountsEachUserOnce() {
+        NotificationTemplate template = notificationFactory.getTemplateById(NotificationTemplateId.CAPACITY_LIMIT.getValue());
+        List<Long> userIds = CollUtil.newArrayList(IdWorker.getId(), IdWorker.getId());
+        String nonce = IdWorker.getIdStr();
+        assertThat(notificationFactory.frequencyLimited(userIds, template, nonce)).isEmpty();
+        assertThat(notificationFactory.frequencyLimited(userIds, template, nonce)).containsExactlyInAnyOrderElementsOf(userIds);
+    }
+
+    @Test
+    public void testReleaseFrequencyGivesBackTheCount() {
+        NotificationTemplate template = notificationFactory.getTemplateById(NotificationTemplateId.CAPACITY_LIMIT.getValue());
+        List<Long> userIds = CollUtil.newArrayList(IdWorker.getId(), IdWorker.getId());
+        String nonce = IdWorker.getIdStr();
+        assertThat(notificationFactory.frequencyLimited(userIds, template, nonce)).isEmpty();
+        notificationFactory.releaseFrequency(userIds.subList(0, 1), template, nonce);
+        assertThat(notificationFactory.frequencyLimited(userIds, template, nonce)).containsExactly(userIds.get(1));
+    }
+
+    @Test
+    public void testDelayLockReturnsHolderOfLockedKeys() {
+        String key = "test:notification:lock:" + IdWorker.getIdStr();
+        Long notifyId = IdWorker.getId();
+        assertThat(notificationFactory.delayLock(Collections.singletonMap(key, notifyId))).isEmpty();
+        Map<String, Long> locked = notificationFactory.delayLock(Collections.singletonMap(key, IdWorker.getId()));
+        assertThat(locked).containsEntry(key, notifyId);
+    }
+
+    @Test
+    public void testReleaseDelayLockOnlyByHolder() {
+        String key = "test:notification:lock:" + IdWorker.getIdStr();
+        Long notifyId = IdWorker.getId();
+        assertThat(notificationFactory.delayLock(Collections.singletonMap(key, notifyId))).isEmpty();
+        notificationFactory.releaseDelayLock(Collections.singletonMap(key, IdWorker.getId()));
+        assertThat(notificationFactory.delayLock(Collections.singletonMap(key, IdWorker.getId()))).containsEntry(key, notifyId);
+        notificationFactory.releaseDelayLock(Collections.singletonMap(key, notifyId));
+        assertThat(notificationFactory.delayLock(Collections.singletonMap(key, IdWorker.getId()))).isEmpty();
+    }
+
+    @Test
+    public void testMemberMentionedRolledBackReleasesDelayLock() {
+        Long userId = IdWorker.getId();
+        NotificationTemplate template = notificationFactory.getTemplateById(NotificationTemplateId.SINGLE_RECORD_MEMBER_MENTION.getValue());
+        NotificationCreateRo ro = mentionRo("dst" + IdWorker.getIdStr(), "rec1", "rec2");
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            iPlayerNotificationService.createMemberMentionedNotify(Collections.singletonList(userId), template, ro);
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(iPlayerNotificationService.getUserNotificationByTypeAndIsRead(userId, 0)).isEmpty();
+
+        iPlayerNotificationService.createMemberMentionedNotify(Collections.singletonList(userId), template, ro);
+        assertThat(iPlayerNotificationService.getUserNotificationByTypeAndIsRead(userId, 0)).hasSize(1);
+    }
+
+    @Test
+    public void testMemberMentionedMergedIntoHolderCommittedLater() throws Exception {
+        Long userId = IdWorker.getId();
+        NotificationTemplate template = notificationFactory.getTemplateById(NotificationTemplateId.SINGLE_RECORD_MEMBER_MENTION.getValue());
+        String nodeId = "dst" + IdWorker.getIdStr();
+        NotificationCreateRo first = mentionRo(nodeId, "rec1", "rec2");
+        NotificationCreateRo second = mentionRo(nodeId, "rec3", "rec4");
+        String mergeKey = notificationFactory.getDelayLockKey(userId.toString(), first) + ":merges";
+        CountDownLatch created = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    iPlayerNotificationService.createMemberMentionedNotify(Collections.singletonList(userId), template, first);
+                    created.countDown();
+                    // committed once the other mention is kept for it
+                    for (int i = 0; i < 50 && !Boolean.TRUE.equals(stringRedisTemplate.hasKey(mergeKey)); i++) {
+                        ThreadUtil.sleep(100);
+                    }
+                }));
+        assertThat(created.await(10, TimeUnit.SECONDS)).isTrue();
+        iPlayerNotificationService.createMemberMentionedNotify(Collections.singletonList(userId), template, second);
+        holder.get(10, TimeUnit.SECONDS);
+
+        List<NotificationModelDTO> notify = iPlayerNotificationService.getUserNotificationByTypeAndIsRead(userId, 0);
+        assertThat(notify).hasSize(1);
+        JSONObject extras = JSONUtil.parseObj(notify.get(0).getNotifyBody()).getJSONObject(BODY_EXTRAS);
+        assertThat(extras.getJSONArray(INVOLVE_RECORD_IDS).toList(String.class)).containsExactlyInAnyOrder("rec1", "rec2", "rec3", "rec4");
+        assertThat(extras.getInt(RECORD_MENTION_TIMES)).isEqualTo(4);
+        assertThat(stringRedisTemplate.hasKey(mergeKey)).isFalse();
+    }
+
+    @Test
+    public void testCreateNotifyInBatchSkipsFailedMessage() {
+        Long userId = IdWorker.getId();
+        NotificationCreateRo ro = new NotificationCreateRo();
+        ro.setTemplateId(NotificationTemplateId.NEW_USER_WELCOME_NOTIFY.getValue());
+        ro.setToUserId(Collections.singletonList(userId.toString()));
+        ro.setBody(JSONUtil.createObj());
+        NotificationCreateRo invalid = new NotificationCreateRo();
+        invalid.setTemplateId(NotificationTemplateId.NEW_USER_WELCOME_NOTIFY.getValue());
+        invalid.setToUserId(Collections.emptyList());
+        invalid.setBody(JSONUtil.createObj());
+        List<NotificationCreateRo> failed = iPlayerNotificationService.createNotifyInBatch(CollUtil.newArrayList(ro, invalid));
+        assertThat(failed).containsExactly(invalid);
+        assertThat(iPlayerNotificationService.getUserNotificationByTypeAndIsRead(userId, 0)).hasSize(1);
+    }
+
+    @Test
+    public void testCreateNotifyInBatchCountsFrequencyOnceCommitted() {
+        Long userId = IdWorker.getId();
+        NotificationCreateRo ro = new NotificationCreateRo();
+        ro.setTemplateId(ADD_RECORD_OUT_OF_LIMIT);
+        ro.setToUserId(Collections.singletonList(userId.toString()));
+        ro.setFromUserId("0");
+        ro.setBody(JSONUtil.createObj());
+        NotificationCreateRo duplicate = BeanUtil.copyProperties(ro, NotificationCreateRo.class);
+        NotificationCreateRo invalid = new NotificationCreateRo();
+        invalid.setTemplateId(ADD_RECORD_OUT_OF_LIMIT);
+        invalid.setToUserId(Collections.emptyList());
+        invalid.setBody(JSONUtil.createObj());
+        NotificationTemplate template = notificationFactory.getTemplateById(ADD_RECORD_OUT_OF_LIMIT);
+        String nonce = DigestUtil.md5Hex("");
+
+        // a rolled back batch leaves nothing in redis
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(iPlayerNotificationService.createNotifyInBatch(CollUtil.newArrayList(ro, invalid))).containsExactly(invalid);
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(stringRedisTemplate.hasKey(RedisConstants.getUserNotifyFrequencyKey(userId, template.getId(), nonce))).isFalse();
+        assertThat(iPlayerNotificationService.getUserNotificationByTypeAndIsRead(userId, 0)).isEmpty();
+
+        // the failed message does not roll back the others, the duplicate is limited within the batch
+        List<NotificationCreateRo> failed = iPlayerNotificationService.createNotifyInBatch(CollUtil.newArrayList(ro, invalid, duplicate));
+        assertThat(failed).containsExactly(invalid);
+        assertThat(iPlayerNotificationService.getUserNotificationByTypeAndIsRead(userId, 0)).hasSize(1);
+        assertThat(notificationFactory.frequencyLimited(Collections.singletonList(userId), template, nonce)).containsExactly(userId);
+    }
+
+    private static NotificationCreateRo mentionRo(String nodeId, String... recordIds) {
+        NotificationCreateRo ro = new NotificationCreateRo();
+        ro.setTemplateId(NotificationTemplateId.SINGLE_RECORD_MEMBER_MENTION.getValue());
+        ro.setFromUserId("0");
+        ro.setNodeId(nodeId);
+        ro.setBody(JSONUtil.createObj().set(BODY_EXTRAS, JSONUtil.createObj().set(INVOLVE_RECORD_IDS, recordIds)));
+        return ro;
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.bean;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.apitable.workspace.dto.SimpleNodeInfo;
+import com.apitable.workspace.dto.SnapshotNodeInfo;
+import com.apitable.workspace.enums.NodeType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.util.Lists.list;
+
+/**
+ * Node tree snapshot unit test
+ */
+public class NodeTreeSnapshotTest {
+
+    /**
+     * root
+     * -- fod1
+     * ---- dst2
+     * ---- fod2
+     * ------ dst3
+     * -- dst1
+     */
+    private static NodeTreeSnapshot mockSnapshot() {
+        List<SnapshotNodeInfo> nodes = list(
+            mockNode("dst3", "fod2", null, NodeType.DATASHEET, true),
+            mockNode("fod2", "fod1", "dst2", NodeType.FOLDER, false),
+            mockNode("dst1", "root", "fod1", NodeType.DATASHEET, true),
+            mockNode("dst2", "fod1", null, NodeType.DATASHEET, true),
+            mockNode("fod1", "root", null, NodeType.FOLDER, true),
+            mockNode("root", "0", null, NodeType.ROOT, true));
+        return new NodeTreeSnapshot("spc1", nodes);
+    }
+
+    @Test
+    public void testOrderedSubNodeIds() {
+        NodeTreeSnapshot snapshot = mockSnapshot();
+        assertThat(snapshot.getRootNodeId()).isEqualTo("root");
+        assertThat(snapshot.getOrderedSubNodeIds("root", null)).containsExactly("fod1", "dst1");
+        assertThat(snapshot.getOrderedSubNodeIds("fod1", NodeType.FOLDER)).containsExactly("fod2");
+        assertThat(snapshot.getSubNodeIds("fod1")).containsExactlyInAnyOrder("dst2", "fod2");
+    }
+
+    @Test
+    public void testOrderedSubNodeIdsWithBrokenChain() {
+        List<SnapshotNodeInfo> nodes = list(
+            mockNode("root", "0", null, NodeType.ROOT, true),
+            mockNode("dst1", "root", "dst4", NodeType.DATASHEET, true),
+            mockNode("dst2", "root", "dst1", NodeType.DATASHEET, true),
+            mockNode("dst3", "root", "not_exist", NodeType.DATASHEET, true),
+            mockNode("fod1", "root", null, NodeType.FOLDER, true),
+            mockNode("dst5", "fod1", "dst6", NodeType.DATASHEET, true),
+            mockNode("dst6", "fod1", "dst5", NodeType.DATASHEET, true));
+        NodeTreeSnapshot snapshot = new NodeTreeSnapshot("spc1", nodes);
+        assertThat(snapshot.getOrderedSubNodeIds("root", null)).containsExactly("fod1", "dst1", "dst2", "dst3");
+        assertThat(snapshot.getOrderedSubNodeIds("fod1", null)).containsExactly("dst5", "dst6");
+        assertThat(snapshot.getSubNodesByOrder("root", 0)).containsExactly("root", "fod1", "dst1", "dst2", "dst3", "dst5", "dst6");
+    }
+
+    @Test
+    public void testSubNodesByOrder() {
+        NodeTreeSnapshot snapshot = mockSnapshot();
+        assertThat(snapshot.getSubNodesByOrder("root", 1)).containsExactly("root", "fod1", "dst1");
+        assertThat(snapshot.getSubNodesByOrder("root", 2)).containsExactly("root", "fod1", "dst1", "dst2", "fod2");
+        assertThat(snapshot.getSubNodesByOrder("root", 0)).containsExactly("root", "fod1", "dst1", "dst2", "fod2", "dst3");
+        assertThat(snapshot.getSubNodesByOrder("not_exist", 0)).containsExactly("not_exist");
+    }
+
+    @Test
+    public void testParentNodePath() {
+        NodeTreeSnapshot snapshot = mockSnapshot();
+        assertThat(snapshot.getParentNodePath("dst3")).containsExactly("fod1", "fod2", "dst3");
+        assertThat(snapshot.getParentNodePath("root")).isEmpty();
+    }
+
+    @Test
+    public void testAllParentNodeInfos() {
+        NodeTreeSnapshot snapshot = mockSnapshot();
+        List<SimpleNodeInfo> infos = snapshot.getAllParentNodeInfos(list("dst3", "dst2"));
+        assertThat(infos.stream().map(SimpleNodeInfo::getNodeId).collect(Collectors.toList()))
+            .containsExactly("fod1", "fod2", "dst3", "dst2");
+        assertThat(infos.get(1).getExtend()).isFalse();
+    }
+
+    @Test
+    public void testSearchNodeIdsByName() {
+        List<SnapshotNodeInfo> nodes = list(
+            mockNamedNode("dst1", "root", "Sales Report"),
+            mockNamedNode("dst2", "root", "report"),
+            mockNamedNode("dst3", "root", "Annual Report"),
+            mockNamedNode("dst4", "root", "reports of sales"),
+            mockNamedNode("dst5", "root", "Plan"),
+            mockNamedNode("root", "0", "report"));
+        nodes.get(4).setTemplate(true);
+        NodeTreeSnapshot snapshot = new NodeTreeSnapshot("spc1", nodes);
+        assertThat(snapshot.searchNodeIdsByName("Report", 50)).containsExactly("dst2", "dst4", "dst1", "dst3");
+        assertThat(snapshot.searchNodeIdsByName("report", 2)).containsExactly("dst2", "dst4");
+        assertThat(snapshot.searchNodeIdsByName("s", 50)).containsExactly("dst1", "dst4");
+        assertThat(snapshot.searchNodeIdsByName("plan", 50)).isEmpty();
+        assertThat(snapshot.searchNodeIdsByName("sales reports", 50)).isEmpty();
+        assertThat(snapshot.getNodeName("dst3")).isEqualTo("Annual Report");
+    }
+
+    private static SnapshotNodeInfo mockNamedNode(String nodeId, String parentId, String nodeName) {
+        SnapshotNodeInfo node = mockNode(nodeId, parentId, null, NodeType.DATASHEET, true);
+        node.setNodeName(nodeName);
+        return node;
+    }
+
+    private static SnapshotNodeInfo mockNode(String nodeId, String parentId, String preNodeId, NodeType type, boolean extend) {
+        SnapshotNodeInfo node = new SnapshotNodeInfo();
+        node.setNodeId(nodeId);
+        node.setParentId(parentId);
+        node.setPreNodeId(preNodeId);
+        node.setType(type.getNodeType());
+        node.setExtend(extend);
+        return node;
+    }
+}
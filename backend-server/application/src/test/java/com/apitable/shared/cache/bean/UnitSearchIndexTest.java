@@ -0,0 +1,60 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.bean;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.apitable.organization.dto.UnitNameDTO;
+import com.apitable.organization.enums.UnitType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.util.Lists.list;
+
+/**
+ * Unit search index unit test
+ */
+public class UnitSearchIndexTest {
+
+    @Test
+    public void testSearchTeamsAndMembers() {
+        List<UnitNameDTO> units = list(
+            mockUnit(UnitType.TEAM, 1L, "Design"),
+            mockUnit(UnitType.TEAM, 2L, "Product Design"),
+            mockUnit(UnitType.MEMBER, 3L, "设计师小王"),
+            mockUnit(UnitType.MEMBER, 4L, "小王"),
+            mockUnit(UnitType.MEMBER, 5L, null));
+        UnitSearchIndex index = new UnitSearchIndex("spc1", units);
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.searchTeamIds("design", 10)).containsExactly(1L, 2L);
+        assertThat(index.searchTeamIds("sign", 10)).containsExactly(1L, 2L);
+        assertThat(index.searchMemberIds("小王", 10)).containsExactly(4L, 3L);
+        assertThat(index.searchMemberIds("王", 1)).containsExactly(3L);
+        assertThat(index.searchMemberIds("design", 10)).isEmpty();
+    }
+
+    private static UnitNameDTO mockUnit(UnitType unitType, Long refId, String name) {
+        UnitNameDTO unit = new UnitNameDTO();
+        unit.setUnitType(unitType.getType());
+        unit.setRefId(refId);
+        unit.setName(name);
+        return unit;
+    }
+}
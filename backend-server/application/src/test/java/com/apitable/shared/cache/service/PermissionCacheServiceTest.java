@@ -0,0 +1,90 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service;
+
+import java.util.List;
+import java.util.Map;
+
+import cn.hutool.core.collection.CollUtil;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.AbstractIntegrationTest;
+import com.apitable.control.infrastructure.role.RoleConstants.Node;
+import com.apitable.control.service.IControlRoleService;
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.mock.bean.MockUserSpace;
+import com.apitable.workspace.dto.ControlRoleInfo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PermissionCacheServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private PermissionCacheService permissionCacheService;
+
+    @Autowired
+    private IControlRoleService iControlRoleService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Test
+    void givenControlRolesWhenRemoveRoleThenReloaded() {
+        iControlRoleService.addControlRole(1L, "nod", CollUtil.newArrayList(1L), Node.READER);
+        Map<String, List<ControlRoleInfo>> controlRoles = permissionCacheService.getControlRoles(CollUtil.newArrayList("nod", "nod2"));
+        assertThat(controlRoles.get("nod")).hasSize(1);
+        assertThat(controlRoles.get("nod2")).isEmpty();
+
+        iControlRoleService.removeByControlIdAndUnitId("nod", 1L);
+        assertThat(permissionCacheService.getControlRoles(CollUtil.newArrayList("nod")).get("nod")).isEmpty();
+    }
+
+    @Test
+    void givenMissedControlRolesWhenGetThenAllWrittenBack() {
+        List<String> controlIds = CollUtil.newArrayList("nod3", "nod4", "nod5");
+        permissionCacheService.invalidateControlRoles(controlIds);
+        iControlRoleService.addControlRole(1L, "nod4", CollUtil.newArrayList(1L), Node.READER);
+        assertThat(permissionCacheService.getControlRoles(controlIds)).containsOnlyKeys(controlIds);
+        for (String controlId : controlIds) {
+            assertThat(stringRedisTemplate.hasKey(RedisConstants.getPermissionControlRolesKey(controlId))).isTrue();
+        }
+        assertThat(permissionCacheService.getControlRoles(controlIds).get("nod4")).hasSize(1);
+    }
+
+    @Test
+    void givenMemberWhenAddToRoleThenUnitsReloaded() {
+        MockUserSpace userSpace = createSingleUserAndSpace();
+        Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(userSpace.getUserId(), userSpace.getSpaceId());
+        List<Long> unitIds = permissionCacheService.getMemberUnits(memberId).getUnitIds();
+
+        addRoleMembers(userSpace);
+        assertThat(permissionCacheService.getMemberUnits(memberId).getUnitIds()).hasSize(unitIds.size() + 1);
+    }
+
+    @Test
+    void givenMainAdminWhenGetSpaceAdminsThenContains() {
+        MockUserSpace userSpace = createSingleUserAndSpace();
+        Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(userSpace.getUserId(), userSpace.getSpaceId());
+        assertThat(permissionCacheService.getSpaceAdmins(userSpace.getSpaceId())).containsExactly(memberId);
+        assertThat(permissionCacheService.getMemberUnits(memberId).getSpaceId()).isEqualTo(userSpace.getSpaceId());
+    }
+}
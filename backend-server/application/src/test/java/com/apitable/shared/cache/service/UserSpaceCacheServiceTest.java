@@ -0,0 +1,59 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service;
+
+import org.junit.jupiter.api.Test;
+
+import com.apitable.AbstractIntegrationTest;
+import com.apitable.mock.bean.MockUserSpace;
+import com.apitable.shared.cache.bean.UserSpaceDto;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserSpaceCacheServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private UserSpaceCacheService userSpaceCacheService;
+
+    @Test
+    void givenUserSpaceWhenDeleteThenReloaded() {
+        MockUserSpace userSpace = createSingleUserAndSpace();
+        Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(userSpace.getUserId(), userSpace.getSpaceId());
+        UserSpaceDto cached = userSpaceCacheService.getUserSpace(userSpace.getUserId(), userSpace.getSpaceId());
+        assertThat(cached.getMemberId()).isEqualTo(memberId);
+        assertThat(cached.isMainAdmin()).isTrue();
+        assertThat(userSpaceCacheService.getMemberId(userSpace.getUserId(), userSpace.getSpaceId())).isEqualTo(memberId);
+
+        userSpaceCacheService.delete(userSpace.getUserId(), userSpace.getSpaceId());
+        UserSpaceDto reloaded = userSpaceCacheService.getUserSpace(userSpace.getUserId(), userSpace.getSpaceId());
+        assertThat(reloaded).isNotSameAs(cached);
+        assertThat(reloaded.getMemberId()).isEqualTo(memberId);
+    }
+
+    @Test
+    void givenSpaceWhenDeleteAllThenMemberIdReloaded() {
+        MockUserSpace userSpace = createSingleUserAndSpace();
+        Long memberId = userSpaceCacheService.getMemberId(userSpace.getUserId(), userSpace.getSpaceId());
+
+        userSpaceCacheService.delete(userSpace.getSpaceId());
+        assertThat(userSpaceCacheService.getMemberId(userSpace.getUserId(), userSpace.getSpaceId())).isEqualTo(memberId);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service.impl;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.shared.config.properties.CacheProperties;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class RedisNearCacheTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ValueOperations<String, String> valueOperations;
+
+    private RedisNearCache<String> cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        given(stringRedisTemplate.opsForValue()).willReturn(valueOperations);
+        cache = new RedisNearCache<>("test", String.class, stringRedisTemplate, new CacheProperties.UserContext());
+    }
+
+    @Test
+    public void testInvalidationOfOtherKeyDoesNotRefusePut() {
+        long stamp = cache.stamp("key:1");
+        cache.invalidate(Collections.singletonList("key:2"));
+        cache.put("key:1", "value", stamp, 1, TimeUnit.MINUTES);
+        verify(valueOperations).set(eq("key:1"), eq("\"value\""), anyLong(), eq(TimeUnit.MINUTES));
+        assertThat(cache.get("key:1")).isEqualTo("value");
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    public void testInvalidationOfSameKeyRefusesPut() {
+        long stamp = cache.stamp("key:1");
+        cache.invalidate(Collections.singletonList("key:1"));
+        cache.put("key:1", "value", stamp, 1, TimeUnit.MINUTES);
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void testLocalValueIsDroppedByInvalidation() {
+        given(valueOperations.get("key:1")).willReturn("\"value\"");
+        assertThat(cache.get("key:1")).isEqualTo("value");
+        assertThat(cache.get("key:1")).isEqualTo("value");
+        verify(valueOperations, times(1)).get("key:1");
+        cache.invalidate(Collections.singletonList("key:1"));
+        assertThat(cache.get("key:1")).isEqualTo("value");
+        verify(valueOperations, times(2)).get("key:1");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.cache.service.impl;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class SpaceLocalCacheTest {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+
+    private final Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+
+    private SpaceLocalCache<String> newCache(Function<String, String> loader, int maxSpaces) {
+        return new SpaceLocalCache<>("test", spaceId -> {
+            loads.computeIfAbsent(spaceId, k -> new AtomicInteger()).incrementAndGet();
+            return loader.apply(spaceId);
+        }, stringRedisTemplate, true, maxSpaces, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SpaceLocalCache<String> cache = newCache(spaceId -> {
+            loading.countDown();
+            await(release);
+            return spaceId + "-value";
+        }, 10);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("spc1"));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> cache.get("spc1"));
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("spc1-value");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("spc1-value");
+        assertThat(cache.get("spc1")).isEqualTo("spc1-value");
+        assertThat(loads.get("spc1")).hasValue(1);
+    }
+
+    @Test
+    public void testValueLoadedBeforeInvalidationIsNotInstalled() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger generation = new AtomicInteger();
+        SpaceLocalCache<String> cache = newCache(spaceId -> {
+            int current = generation.incrementAndGet();
+            if (current == 1) {
+                loading.countDown();
+                await(release);
+            }
+            return "v" + current;
+        }, 10);
+        CompletableFuture<String> stale = CompletableFuture.supplyAsync(() -> cache.get("spc1"));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.evictLocal("spc1");
+        release.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+        assertThat(cache.get("spc1")).isEqualTo("v2");
+        assertThat(cache.get("spc1")).isEqualTo("v2");
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        SpaceLocalCache<String> cache = newCache(spaceId -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("fail");
+            }
+            return "value";
+        }, 10);
+        assertThatThrownBy(() -> cache.get("spc1")).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.get("spc1")).isEqualTo("value");
+    }
+
+    @Test
+    public void testEldestIsEvicted() {
+        SpaceLocalCache<String> cache = newCache(spaceId -> spaceId, 2);
+        cache.get("spc1");
+        cache.get("spc2");
+        cache.get("spc3");
+        assertThat(cache.values()).containsExactly("spc2", "spc3");
+        cache.get("spc1");
+        assertThat(loads.get("spc1")).hasValue(2);
+        assertThat(cache.values()).containsExactly("spc3", "spc1");
+        cache.get("spc3");
+        assertThat(loads.get("spc3")).hasValue(1);
+    }
+
+    @Test
+    public void testDisabledCacheLoadsEveryTime() {
+        SpaceLocalCache<String> cache = new SpaceLocalCache<>("test", spaceId -> {
+            loads.computeIfAbsent(spaceId, k -> new AtomicInteger()).incrementAndGet();
+            return spaceId;
+        }, stringRedisTemplate, false, 10, Duration.ofMinutes(1));
+        cache.get("spc1");
+        cache.get("spc1");
+        assertThat(loads.get("spc1")).hasValue(2);
+        assertThat(cache.values()).isEmpty();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
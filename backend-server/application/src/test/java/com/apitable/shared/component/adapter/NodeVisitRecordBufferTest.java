@@ -0,0 +1,136 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.adapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.AbstractIntegrationTest;
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.workspace.entity.NodeVisitRecordEntity;
+import com.apitable.workspace.enums.NodeType;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static com.apitable.core.constants.RedisConstants.NODE_VISIT_DIRTY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NodeVisitRecordBufferTest extends AbstractIntegrationTest {
+
+    private static final NodeType NODE_TYPE = NodeType.DATASHEET;
+
+    @Autowired
+    private NodeVisitRecordBuffer nodeVisitRecordBuffer;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @BeforeEach
+    public void clearDirty() {
+        stringRedisTemplate.delete(NODE_VISIT_DIRTY);
+    }
+
+    @Test
+    void givenVisitsNotKeptWhenRecordWithoutSavedThenSkipped() {
+        Long memberId = IdWorker.getId();
+        assertThat(nodeVisitRecordBuffer.record("spc1", memberId, "dst1", NODE_TYPE, null)).isFalse();
+        assertThat(nodeVisitRecordBuffer.getRecentlyVisitNodeIds(memberId, NODE_TYPE)).isNull();
+        assertThat(stringRedisTemplate.opsForZSet().size(NODE_VISIT_DIRTY)).isZero();
+    }
+
+    @Test
+    void givenSavedVisitsWhenRecordThenLatestFirst() throws InterruptedException {
+        Long memberId = IdWorker.getId();
+        assertThat(nodeVisitRecordBuffer.record("spc1", memberId, "dst4", NODE_TYPE, Arrays.asList("dst1", "dst2", "dst3"))).isTrue();
+        assertThat(nodeVisitRecordBuffer.getRecentlyVisitNodeIds(memberId, NODE_TYPE)).containsExactly("dst4", "dst3", "dst2", "dst1");
+        Thread.sleep(2);
+        assertThat(nodeVisitRecordBuffer.record("spc1", memberId, "dst2", NODE_TYPE, null)).isTrue();
+        assertThat(nodeVisitRecordBuffer.getRecentlyVisitNodeIds(memberId, NODE_TYPE)).containsExactly("dst2", "dst4", "dst3", "dst1");
+    }
+
+    @Test
+    void givenManySavedVisitsWhenRecordThenLatestKept() {
+        Long memberId = IdWorker.getId();
+        List<String> saved = IntStream.range(0, 12).mapToObj(i -> "dst" + i).collect(Collectors.toList());
+        nodeVisitRecordBuffer.record("spc1", memberId, "dst12", NODE_TYPE, saved);
+        List<String> kept = nodeVisitRecordBuffer.getRecentlyVisitNodeIds(memberId, NODE_TYPE);
+        assertThat(kept).hasSize(NodeVisitRecordBuffer.RECENTLY_NODE_ID_LENGTH);
+        assertThat(kept).startsWith("dst12", "dst11").doesNotContain("dst0", "dst1", "dst2");
+    }
+
+    @Test
+    void givenDirtyVisitsWhenFlushThenSavedOnce() {
+        Long memberId = IdWorker.getId();
+        Long otherMemberId = IdWorker.getId();
+        nodeVisitRecordBuffer.record("spc1", memberId, "dst2", NODE_TYPE, Arrays.asList("dst1"));
+        nodeVisitRecordBuffer.record("spc2", otherMemberId, "dst3", NODE_TYPE, new ArrayList<>());
+        List<NodeVisitRecordEntity> saved = new ArrayList<>();
+        assertThat(nodeVisitRecordBuffer.flush(500, saved::addAll)).isEqualTo(2);
+        assertThat(saved).extracting(NodeVisitRecordEntity::getMemberId).containsExactlyInAnyOrder(memberId, otherMemberId);
+        NodeVisitRecordEntity record = saved.stream().filter(r -> r.getMemberId().equals(memberId)).findFirst().orElseThrow();
+        assertThat(record.getSpaceId()).isEqualTo("spc1");
+        assertThat(record.getNodeType()).isEqualTo(NODE_TYPE.getNodeType());
+        assertThat(record.getNodeIds()).isEqualTo("dst1,dst2");
+        assertThat(nodeVisitRecordBuffer.flush(500, saved::addAll)).isZero();
+    }
+
+    @Test
+    void givenVisitDuringFlushWhenFlushedThenStaysDirty() {
+        Long memberId = IdWorker.getId();
+        nodeVisitRecordBuffer.record("spc1", memberId, "dst1", NODE_TYPE, new ArrayList<>());
+        List<NodeVisitRecordEntity> saved = new ArrayList<>();
+        nodeVisitRecordBuffer.flush(500, records -> {
+            saved.addAll(records);
+            sleep();
+            nodeVisitRecordBuffer.record("spc1", memberId, "dst2", NODE_TYPE, null);
+        });
+        assertThat(saved).extracting(NodeVisitRecordEntity::getNodeIds).containsExactly("dst1");
+        saved.clear();
+        assertThat(nodeVisitRecordBuffer.flush(500, saved::addAll)).isEqualTo(1);
+        assertThat(saved).extracting(NodeVisitRecordEntity::getNodeIds).containsExactly("dst1,dst2");
+    }
+
+    @Test
+    void givenDroppedVisitsWhenFlushThenNothingSaved() {
+        Long memberId = IdWorker.getId();
+        nodeVisitRecordBuffer.record("spc1", memberId, "dst1", NODE_TYPE, new ArrayList<>());
+        stringRedisTemplate.delete(RedisConstants.getNodeVisitKey(memberId, NODE_TYPE.getNodeType()));
+        List<NodeVisitRecordEntity> saved = new ArrayList<>();
+        assertThat(nodeVisitRecordBuffer.flush(500, saved::addAll)).isEqualTo(1);
+        assertThat(saved).isEmpty();
+        assertThat(stringRedisTemplate.opsForZSet().size(NODE_VISIT_DIRTY)).isZero();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(2);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.asset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.apitable.starter.oss.core.OssClientTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.asset.entity.AssetEntity;
+import com.apitable.asset.mapper.AssetMapper;
+import com.apitable.core.constants.RedisConstants;
+
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static com.apitable.core.constants.RedisConstants.ASSET_PREVIEW_JOBS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Answers.RETURNS_DEFAULTS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * runs the asset preview queue against an in-memory redis
+ */
+public class AssetPreviewQueueTest {
+
+    private static final Long ASSET_ID = 41L;
+
+    private static final String CHECKSUM = "a3/k6dEo0oArGIgAj1NsIg==";
+
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+
+    private final Set<String> jobs = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    private AssetMapper assetMapper;
+
+    private OssClientTemplate ossTemplate;
+
+    private AssetPreviewQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        assetMapper = mock(AssetMapper.class);
+        ossTemplate = mock(OssClientTemplate.class);
+        queue = new AssetPreviewQueue();
+        ReflectionTestUtils.setField(queue, "assetMapper", assetMapper);
+        ReflectionTestUtils.setField(queue, "ossTemplate", ossTemplate);
+        ReflectionTestUtils.setField(queue, "stringRedisTemplate", this.redis());
+        ReflectionTestUtils.setField(queue, "meterRegistry", new SimpleMeterRegistry());
+        queue.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.destroy();
+    }
+
+    @Test
+    void testPreviewKeyIsKnownBeforeRenderingAndSafeInPath() {
+        String preview = queue.previewKey(CHECKSUM);
+        assertThat(preview).isEqualTo(queue.previewKey(CHECKSUM)).startsWith("space/preview/");
+        assertThat(preview.substring("space/preview/".length())).matches("[0-9a-f]{32}");
+        assertThat(queue.previewKey("1TEHKHE/kRI//itWS+VmqA==")).isNotEqualTo(preview);
+    }
+
+    @Test
+    void testSubmittedJobIsRenderedToThePreviewKey() throws Exception {
+        this.givenAsset(queue.previewKey(CHECKSUM));
+        this.givenFile(this.pdf());
+        queue.submit(ASSET_ID, CHECKSUM, "bucket", "space/2022/03/16/file");
+        queue.submit(ASSET_ID, CHECKSUM, "bucket", "space/2022/03/16/file");
+        assertThat(jobs).containsExactly(CHECKSUM);
+
+        this.run();
+        verify(ossTemplate).upload(eq("bucket"), any(InputStream.class), eq(queue.previewKey(CHECKSUM)),
+                eq(MediaType.IMAGE_JPEG_VALUE), anyString());
+        verify(assetMapper, never()).updateById(any(AssetEntity.class));
+        assertThat(jobs).isEmpty();
+        assertThat(hashes).doesNotContainKey(RedisConstants.getAssetPreviewJobKey(CHECKSUM));
+        assertThat(values).isEmpty();
+    }
+
+    @Test
+    void testPreviewOfAssetWithoutOneIsFilled() throws Exception {
+        this.givenAsset(null);
+        this.givenFile(this.pdf());
+        queue.submit(ASSET_ID, CHECKSUM, "bucket", "space/2022/03/16/file");
+
+        this.run();
+        verify(assetMapper).updateById(AssetEntity.builder().id(ASSET_ID).preview(queue.previewKey(CHECKSUM)).build());
+    }
+
+    @Test
+    void testPreviewIsClearedWhenNothingIsRendered() throws Exception {
+        this.givenAsset(queue.previewKey(CHECKSUM));
+        this.givenFile("not a pdf".getBytes());
+        queue.submit(ASSET_ID, CHECKSUM, "bucket", "space/2022/03/16/file");
+
+        this.run();
+        verify(ossTemplate, never()).upload(anyString(), any(InputStream.class), anyString(), anyString(), anyString());
+        verify(assetMapper).clearPreviewByIdAndPreview(ASSET_ID, queue.previewKey(CHECKSUM));
+        assertThat(jobs).isEmpty();
+    }
+
+    @Test
+    void testFailedJobIsRetriedThenGivenUp() {
+        this.givenAsset(queue.previewKey(CHECKSUM));
+        willThrow(new IllegalStateException("storage unavailable")).given(ossTemplate)
+                .executeStreamFunction(eq("bucket"), anyString(), any());
+        queue.submit(ASSET_ID, CHECKSUM, "bucket", "space/2022/03/16/file");
+
+        this.run();
+        this.run();
+        assertThat(jobs).containsExactly(CHECKSUM);
+        assertThat(hashes.get(RedisConstants.getAssetPreviewJobKey(CHECKSUM))).containsEntry("attempts", "2");
+        verify(assetMapper, never()).clearPreviewByIdAndPreview(any(), any());
+
+        this.run();
+        assertThat(jobs).isEmpty();
+        verify(assetMapper).clearPreviewByIdAndPreview(ASSET_ID, queue.previewKey(CHECKSUM));
+    }
+
+    @Test
+    void testPreviewRenderedUnderAnotherKeyIsKept() {
+        this.givenAsset("space/2022/03/16/f84c9bbaa3dd49e98584bf2125a546cd");
+        queue.submit(ASSET_ID, CHECKSUM, "bucket", "space/2022/03/16/file");
+
+        this.run();
+        verify(ossTemplate, never()).executeStreamFunction(anyString(), anyString(), any());
+        assertThat(jobs).isEmpty();
+    }
+
+    @Test
+    void testDispatcherRunsSubmittedJob() throws Exception {
+        this.givenAsset(queue.previewKey(CHECKSUM));
+        this.givenFile(this.pdf());
+        queue.start();
+        queue.submit(ASSET_ID, CHECKSUM, "bucket", "space/2022/03/16/file");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!jobs.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(jobs).isEmpty();
+        verify(ossTemplate, times(1)).upload(eq("bucket"), any(InputStream.class), eq(queue.previewKey(CHECKSUM)),
+                eq(MediaType.IMAGE_JPEG_VALUE), anyString());
+    }
+
+    private void run() {
+        ReflectionTestUtils.invokeMethod(queue, "run", CHECKSUM);
+    }
+
+    private void givenAsset(String preview) {
+        given(assetMapper.selectById(ASSET_ID)).willReturn(AssetEntity.builder().id(ASSET_ID).checksum(CHECKSUM).preview(preview).build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenFile(byte[] content) {
+        willAnswer(invocation -> {
+            invocation.<Consumer<InputStream>>getArgument(2).accept(new ByteArrayInputStream(content));
+            return null;
+        }).given(ossTemplate).executeStreamFunction(eq("bucket"), anyString(), any());
+    }
+
+    private byte[] pdf() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private Map<Object, Object> hash(String key) {
+        return hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redis() {
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "entries":
+                    return new HashMap<>(hashes.getOrDefault((String) args[0], Collections.emptyMap()));
+                case "increment":
+                    return Long.parseLong(this.hash((String) args[0]).merge(args[1], args[2].toString(),
+                            (value, delta) -> String.valueOf(Long.parseLong(value.toString()) + Long.parseLong(delta.toString()))).toString());
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        SetOperations<String, String> setOperations = mock(SetOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "members":
+                    return new HashSet<>(jobs);
+                case "remove":
+                    Arrays.asList(args).subList(1, args.length).forEach(jobs::remove);
+                    return (long) args.length - 1;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            if ("setIfAbsent".equals(invocation.getMethod().getName())) {
+                return values.putIfAbsent((String) args[0], (String) args[1]) == null;
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        return mock(StringRedisTemplate.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "opsForHash":
+                    return hashOperations;
+                case "opsForSet":
+                    return setOperations;
+                case "opsForValue":
+                    return valueOperations;
+                case "delete":
+                    return hashes.remove((String) args[0]) != null;
+                case "execute":
+                    List<String> keys = (List<String>) args[1];
+                    if (((RedisScript<?>) args[0]).getScriptAsString().contains("'SADD'")) {
+                        // the submit script: the job is written together with its pending mark
+                        if (!jobs.add(args[2].toString())) {
+                            return 0L;
+                        }
+                        Map<Object, Object> job = new ConcurrentHashMap<>();
+                        for (int i = 4; i < args.length; i += 2) {
+                            job.put(args[i], args[i + 1]);
+                        }
+                        hashes.put(keys.get(1), job);
+                        return 1L;
+                    }
+                    // the release script: the owner key is deleted only by its owner
+                    return values.remove(keys.get(0), args[2]) ? 1L : 0L;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+}
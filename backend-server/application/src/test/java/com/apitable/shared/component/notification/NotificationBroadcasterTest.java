@@ -0,0 +1,323 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.notification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.player.mapper.PlayerNotificationMapper;
+import com.apitable.player.ro.NotificationCreateRo;
+import com.apitable.player.service.IPlayerNotificationService;
+import com.apitable.shared.component.notification.NotificationBroadcaster.BroadcastType;
+import com.apitable.shared.sysconfig.notification.NotificationTemplate;
+import com.apitable.user.mapper.UserMapper;
+
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static com.apitable.core.constants.RedisConstants.NOTIFY_BROADCAST_DEAD_JOBS;
+import static com.apitable.core.constants.RedisConstants.NOTIFY_BROADCAST_JOBS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Answers.RETURNS_DEFAULTS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * runs the notification broadcast jobs against an in-memory redis
+ */
+public class NotificationBroadcasterTest {
+
+    private static final String TEMPLATE_ID = "test_broadcast";
+
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> expires = new ConcurrentHashMap<>();
+
+    private final List<Runnable> submitted = Collections.synchronizedList(new ArrayList<>());
+
+    private IPlayerNotificationService iPlayerNotificationService;
+
+    private UserMapper userMapper;
+
+    private NotificationBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        iPlayerNotificationService = mock(IPlayerNotificationService.class);
+        userMapper = mock(UserMapper.class);
+        given(userMapper.selectCurrentTime()).willReturn(LocalDateTime.now());
+        INotificationFactory notificationFactory = mock(INotificationFactory.class);
+        NotificationTemplate template = new NotificationTemplate();
+        template.setId(TEMPLATE_ID);
+        given(notificationFactory.getTemplateById(TEMPLATE_ID)).willReturn(template);
+        broadcaster = new NotificationBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "iPlayerNotificationService", iPlayerNotificationService);
+        ReflectionTestUtils.setField(broadcaster, "playerNotificationMapper", mock(PlayerNotificationMapper.class));
+        ReflectionTestUtils.setField(broadcaster, "userMapper", userMapper);
+        ReflectionTestUtils.setField(broadcaster, "notificationFactory", notificationFactory);
+        ReflectionTestUtils.setField(broadcaster, "stringRedisTemplate", this.redis());
+        ReflectionTestUtils.setField(broadcaster, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(broadcaster, "meterRegistry", new SimpleMeterRegistry());
+        broadcaster.init();
+        // the jobs are run by the test, the ones run again later are left out
+        ExecutorService coordinator = mock(ExecutorService.class);
+        willAnswer(invocation -> submitted.add(invocation.getArgument(0))).given(coordinator).execute(any());
+        ReflectionTestUtils.setField(broadcaster, "coordinator", coordinator);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    public void testBroadcastReachesEveryUserInChunks() {
+        given(userMapper.selectIdsAfterId(eq(0L), any(), anyInt(), anyBoolean())).willReturn(this.users(1, 150));
+        String jobId = this.broadcast();
+
+        verify(iPlayerNotificationService).createNotifyWithoutVerify(eq(this.users(1, 100)), any(), any());
+        verify(iPlayerNotificationService).createNotifyWithoutVerify(eq(this.users(101, 150)), any(), any());
+        assertThat(hashes).doesNotContainKey(this.jobKey(jobId));
+        assertThat(this.members(NOTIFY_BROADCAST_JOBS)).doesNotContain(jobId);
+        assertThat(this.members(NOTIFY_BROADCAST_DEAD_JOBS)).doesNotContain(jobId);
+        assertThat(values).doesNotContainKey(RedisConstants.getNotifyBroadcastOwnerKey(jobId));
+    }
+
+    @Test
+    public void testFailingJobIsGivenUpWithoutRefreshingTtl() {
+        given(userMapper.selectIdsAfterId(eq(0L), any(), anyInt(), anyBoolean())).willReturn(this.users(1, 150));
+        willThrow(new IllegalStateException("chunk failed")).given(iPlayerNotificationService)
+                .createNotifyWithoutVerify(argThat(userIds -> userIds != null && userIds.contains(120L)), any(), any());
+        String jobId = this.broadcast();
+
+        assertThat(this.field(jobId, "attempts")).isEqualTo("1");
+        assertThat(this.members(NOTIFY_BROADCAST_JOBS)).contains(jobId);
+        assertThat(this.members(RedisConstants.getNotifyBroadcastChunksKey(jobId))).containsExactly("1-100");
+        assertThat(expires.get(this.jobKey(jobId))).isEqualTo(1);
+
+        hashes.get(this.jobKey(jobId)).put("attempts", "4");
+        this.run(jobId);
+        assertThat(this.field(jobId, "attempts")).isEqualTo("5");
+        assertThat(this.members(NOTIFY_BROADCAST_JOBS)).doesNotContain(jobId);
+        assertThat(this.members(NOTIFY_BROADCAST_DEAD_JOBS)).contains(jobId);
+        assertThat(expires.get(this.jobKey(jobId))).isEqualTo(1);
+        // the finished chunk is not run again
+        verify(iPlayerNotificationService, times(1)).createNotifyWithoutVerify(eq(this.users(1, 100)), any(), any());
+    }
+
+    @Test
+    public void testProgressStartsAttemptsOver() {
+        given(userMapper.selectIdsAfterId(eq(0L), any(), anyInt(), anyBoolean())).willReturn(this.users(1, 100));
+        given(userMapper.selectIdsAfterId(eq(100L), any(), anyInt(), anyBoolean())).willReturn(this.users(101, 150));
+        willThrow(new IllegalStateException("chunk failed")).given(iPlayerNotificationService)
+                .createNotifyWithoutVerify(argThat(userIds -> userIds != null && userIds.contains(120L)), any(), any());
+        String jobId = this.submit();
+        hashes.get(this.jobKey(jobId)).put("attempts", "4");
+        this.run(jobId);
+
+        assertThat(this.field(jobId, "checkpoint")).isEqualTo("100");
+        assertThat(this.field(jobId, "attempts")).isEqualTo("1");
+        assertThat(this.members(NOTIFY_BROADCAST_JOBS)).contains(jobId);
+        assertThat(this.members(NOTIFY_BROADCAST_DEAD_JOBS)).doesNotContain(jobId);
+        assertThat(expires.get(this.jobKey(jobId))).isEqualTo(2);
+    }
+
+    @Test
+    public void testJobTakenOverIsNotCountedAsFailure() {
+        given(userMapper.selectIdsAfterId(eq(0L), any(), anyInt(), anyBoolean())).willReturn(this.users(1, 100));
+        String jobId = this.submit();
+        willAnswer(invocation -> {
+            // taken over by another instance while running the chunk
+            values.put(RedisConstants.getNotifyBroadcastOwnerKey(jobId), "other");
+            return true;
+        }).given(iPlayerNotificationService).createNotifyWithoutVerify(any(), any(), any());
+        this.run(jobId);
+
+        assertThat(this.field(jobId, "attempts")).isNull();
+        assertThat(this.field(jobId, "checkpoint")).isEqualTo("0");
+        assertThat(this.members(NOTIFY_BROADCAST_JOBS)).contains(jobId);
+        assertThat(this.members(NOTIFY_BROADCAST_DEAD_JOBS)).doesNotContain(jobId);
+    }
+
+    /**
+     * submit the job without running it
+     */
+    private String submit() {
+        NotificationCreateRo ro = new NotificationCreateRo();
+        ro.setTemplateId(TEMPLATE_ID);
+        broadcaster.broadcast(BroadcastType.CREATE, TEMPLATE_ID, ro);
+        assertThat(submitted).hasSize(1);
+        submitted.clear();
+        return this.members(NOTIFY_BROADCAST_JOBS).iterator().next();
+    }
+
+    private String broadcast() {
+        String jobId = this.submit();
+        this.run(jobId);
+        return jobId;
+    }
+
+    private void run(String jobId) {
+        ReflectionTestUtils.invokeMethod(broadcaster, "run", jobId);
+    }
+
+    private List<Long> users(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+
+    private String jobKey(String jobId) {
+        return RedisConstants.getNotifyBroadcastJobKey(jobId);
+    }
+
+    private String field(String jobId, String field) {
+        Object value = hashes.getOrDefault(this.jobKey(jobId), Collections.emptyMap()).get(field);
+        return value != null ? value.toString() : null;
+    }
+
+    private Set<String> members(String key) {
+        return sets.getOrDefault(key, Collections.emptySet());
+    }
+
+    private Map<Object, Object> hash(String key) {
+        return hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    }
+
+    private Set<String> set(String key) {
+        return sets.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redis() {
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            String key = args.length > 0 ? String.valueOf(args[0]) : null;
+            switch (invocation.getMethod().getName()) {
+                case "entries":
+                    return new HashMap<>(hashes.getOrDefault(key, Collections.emptyMap()));
+                case "put":
+                    this.hash(key).put(args[1], args[2]);
+                    return null;
+                case "putAll":
+                    this.hash(key).putAll((Map<Object, Object>) args[1]);
+                    return null;
+                case "increment":
+                    return Long.parseLong(this.hash(key).merge(args[1], args[2].toString(),
+                            (value, delta) -> String.valueOf(Long.parseLong(value.toString()) + Long.parseLong(delta.toString()))).toString());
+                case "delete":
+                    Arrays.asList(args).subList(1, args.length).forEach(this.hash(key)::remove);
+                    return (long) args.length - 1;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        SetOperations<String, String> setOperations = mock(SetOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            String key = args.length > 0 ? String.valueOf(args[0]) : null;
+            switch (invocation.getMethod().getName()) {
+                case "members":
+                    return new HashSet<>(this.set(key));
+                case "add":
+                    Arrays.asList(args).subList(1, args.length).forEach(member -> this.set(key).add(member.toString()));
+                    return (long) args.length - 1;
+                case "remove":
+                    Arrays.asList(args).subList(1, args.length).forEach(this.set(key)::remove);
+                    return (long) args.length - 1;
+                case "move":
+                    if (!this.set(key).remove(args[1].toString())) {
+                        return false;
+                    }
+                    return this.set(args[2].toString()).add(args[1].toString());
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            if ("setIfAbsent".equals(invocation.getMethod().getName())) {
+                return values.putIfAbsent((String) args[0], (String) args[1]) == null;
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        return mock(StringRedisTemplate.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "opsForHash":
+                    return hashOperations;
+                case "opsForSet":
+                    return setOperations;
+                case "opsForValue":
+                    return valueOperations;
+                case "hasKey":
+                    return hashes.containsKey((String) args[0]) || sets.containsKey((String) args[0]);
+                case "delete":
+                    return hashes.remove((String) args[0]) != null | sets.remove((String) args[0]) != null;
+                case "expire":
+                    expires.merge((String) args[0], 1, Integer::sum);
+                    return true;
+                case "execute":
+                    // the owner scripts: renew or delete the key held by the owner
+                    String key = ((List<String>) args[1]).get(0);
+                    if (!args[2].equals(values.get(key))) {
+                        return 0L;
+                    }
+                    if (((RedisScript<?>) args[0]).getScriptAsString().contains("'DEL'")) {
+                        values.remove(key);
+                    }
+                    return 1L;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+}
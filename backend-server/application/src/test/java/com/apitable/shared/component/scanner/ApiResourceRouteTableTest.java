@@ -0,0 +1,89 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.shared.component.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.apitable.shared.component.ResourceDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ApiResourceRouteTableTest {
+
+    private static ResourceDefinition route(String url) {
+        ResourceDefinition definition = new ResourceDefinition();
+        definition.setResourceCode(url);
+        definition.setResourceUrl(url);
+        return definition;
+    }
+
+    private static ApiResourceRouteTable routeTable(String... urls) {
+        List<ResourceDefinition> definitions = new ArrayList<>();
+        for (String url : urls) {
+            definitions.add(route(url));
+        }
+        return new ApiResourceRouteTable(definitions, 16);
+    }
+
+    @Test
+    void testMatchExactUrl() {
+        ApiResourceRouteTable table = routeTable("/node/list", "/node/get");
+        assertThat(table.match("/node/get").getResourceUrl()).isEqualTo("/node/get");
+        assertThat(table.match("/node/delete")).isNull();
+        assertThat(table.match("/node/get/")).isNull();
+        assertThat(table.match(null)).isNull();
+    }
+
+    @Test
+    void testLiteralSegmentWinsOverVariable() {
+        ApiResourceRouteTable table = routeTable("/node/{nodeId}/share", "/node/position/share", "/node/{nodeId}");
+        assertThat(table.match("/node/position/share").getResourceUrl()).isEqualTo("/node/position/share");
+        assertThat(table.match("/node/fod123/share").getResourceUrl()).isEqualTo("/node/{nodeId}/share");
+        assertThat(table.match("/node/fod123").getResourceUrl()).isEqualTo("/node/{nodeId}");
+        assertThat(table.match("/node/fod123/other")).isNull();
+    }
+
+    @Test
+    void testBacktrackToVariableBranch() {
+        ApiResourceRouteTable table = routeTable("/space/list/mine", "/space/{spaceId}/members");
+        assertThat(table.match("/space/list/members").getResourceUrl()).isEqualTo("/space/{spaceId}/members");
+    }
+
+    @Test
+    void testMatchSegmentPatternAndFallback() {
+        ApiResourceRouteTable table = routeTable("/asset/file-?", "/asset/{id:\\d+}", "/internal/**");
+        assertThat(table.match("/asset/file-a").getResourceUrl()).isEqualTo("/asset/file-?");
+        assertThat(table.match("/asset/123").getResourceUrl()).isEqualTo("/asset/{id:\\d+}");
+        assertThat(table.match("/asset/abc")).isNull();
+        assertThat(table.match("/internal/spaces/spc1/nodes").getResourceUrl()).isEqualTo("/internal/**");
+    }
+
+    @Test
+    void testCachedResultIsStable() {
+        ApiResourceRouteTable table = routeTable("/node/{nodeId}");
+        ResourceDefinition first = table.match("/node/fod1");
+        for (int i = 0; i < 100; i++) {
+            table.match("/node/fod" + i);
+        }
+        assertThat(table.match("/node/fod1")).isSameAs(first);
+    }
+}
@@ -79,9 +79,9 @@ public class SpaceAssetMapperTest extends AbstractMyBatisMapperTest {
 
     @Test
     @Sql({ "/sql/space-asset-data.sql", "/sql/asset-data.sql" })
-    void testSelectFileSizeBySpaceId() {
-        List<Integer> entities = spaceAssetMapper.selectFileSizeBySpaceId("spc41");
-        assertThat(entities).isNotEmpty();
+    void testSumFileSizeBySpaceId() {
+        Long size = spaceAssetMapper.sumFileSizeBySpaceId("spc41");
+        assertThat(size).isEqualTo(41L);
     }
 
 }
@@ -96,9 +96,9 @@ public class StaticsMapperTest extends AbstractMyBatisMapperTest {
 
     @Test
     @Sql("/sql/space-asset-data.sql")
-    void testSelectFileSizeBySpaceId() {
-        List<Integer> entities = staticsMapper.selectFileSizeBySpaceId("spc41");
-        assertThat(entities).isNotEmpty();
+    void testSumFileSizeBySpaceId() {
+        Long size = staticsMapper.sumFileSizeBySpaceId("spc41");
+        assertThat(size).isEqualTo(41L);
     }
 
     @Test
@@ -0,0 +1,165 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.space.service.impl;
+
+import java.util.Collections;
+
+import javax.annotation.Resource;
+
+import cn.hutool.core.util.IdUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.AbstractIntegrationTest;
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.space.dto.SpaceStatisticsDTO;
+import com.apitable.space.enums.SpaceCounter;
+import com.apitable.space.service.ISpaceStatisticsService;
+import com.apitable.space.service.IStaticsService;
+
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.apitable.core.constants.RedisConstants.SPACE_STATISTICS_RECONCILE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SpaceStatisticsServiceImplTest extends AbstractIntegrationTest {
+
+    @Resource
+    private ISpaceStatisticsService iSpaceStatisticsService;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private IStaticsService iStaticsService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private String spaceId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        spaceId = "spc" + IdUtil.fastSimpleUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stringRedisTemplate.delete(RedisConstants.getSpaceStatisticsKey(spaceId));
+        stringRedisTemplate.opsForZSet().remove(SPACE_STATISTICS_RECONCILE, spaceId);
+    }
+
+    @Test
+    void testFirstReadComputesAndKeepsTheCounts() {
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(3L);
+        given(iStaticsService.getViewTypeStaticsBySpaceId(spaceId)).willReturn(Collections.singletonMap(6, 2L));
+
+        SpaceStatisticsDTO statistics = iSpaceStatisticsService.getStatistics(spaceId);
+        assertThat(statistics.getMemberCount()).isEqualTo(3);
+        assertThat(statistics.getViewTypeCounts()).containsEntry(6, 2L);
+
+        SpaceStatisticsDTO kept = iSpaceStatisticsService.getStatistics(spaceId);
+        assertThat(kept.getMemberCount()).isEqualTo(3);
+        assertThat(kept.getViewTypeCounts()).containsEntry(6, 2L);
+        verify(iStaticsService, times(1)).getMemberTotalCountBySpaceId(spaceId);
+    }
+
+    @Test
+    void testIncrementIsAppliedOnlyOnCommit() {
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(3L);
+        iSpaceStatisticsService.getStatistics(spaceId);
+
+        transactionTemplate.executeWithoutResult(status -> iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, 2));
+        assertThat(iSpaceStatisticsService.getStatistics(spaceId).getMemberCount()).isEqualTo(5);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, 1);
+            status.setRollbackOnly();
+        });
+        assertThat(iSpaceStatisticsService.getStatistics(spaceId).getMemberCount()).isEqualTo(5);
+        assertThat(stringRedisTemplate.opsForHash().get(RedisConstants.getSpaceStatisticsKey(spaceId), "pending")).isEqualTo("0");
+    }
+
+    @Test
+    void testReconcileKeepsComputedCountsAndClearsGoneCounters() {
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(3L);
+        given(iStaticsService.getViewTypeStaticsBySpaceId(spaceId)).willReturn(Collections.singletonMap(6, 2L));
+        iSpaceStatisticsService.getStatistics(spaceId);
+
+        // changed outside the write paths
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(7L);
+        given(iStaticsService.getViewTypeStaticsBySpaceId(spaceId)).willReturn(Collections.emptyMap());
+        iSpaceStatisticsService.reconcile(spaceId);
+
+        SpaceStatisticsDTO statistics = iSpaceStatisticsService.getStatistics(spaceId);
+        assertThat(statistics.getMemberCount()).isEqualTo(7);
+        assertThat(statistics.getViewTypeCounts()).containsEntry(6, 0L);
+    }
+
+    @Test
+    void testReconcileIsRefusedWhenIncrementedWhileComputing() {
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(3L);
+        iSpaceStatisticsService.getStatistics(spaceId);
+
+        // a member added and counted after the counters were read, the database already has it
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willAnswer(invocation -> {
+            transactionTemplate.executeWithoutResult(status -> iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, 1));
+            return 4L;
+        });
+        assertThat(iSpaceStatisticsService.reconcile(spaceId).getMemberCount()).isEqualTo(4);
+
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(4L);
+        assertThat(iSpaceStatisticsService.getStatistics(spaceId).getMemberCount()).isEqualTo(4);
+        assertThat(stringRedisTemplate.opsForZSet().score(SPACE_STATISTICS_RECONCILE, spaceId)).isNotNull();
+    }
+
+    @Test
+    void testReconcileIsRefusedWhileCommittedIncrementIsPending() {
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(3L);
+        iSpaceStatisticsService.getStatistics(spaceId);
+
+        given(iStaticsService.getMemberTotalCountBySpaceId(spaceId)).willReturn(4L);
+        transactionTemplate.executeWithoutResult(status -> {
+            iSpaceStatisticsService.increment(spaceId, SpaceCounter.MEMBER, 1);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // committed, the increment is not applied yet
+                    iSpaceStatisticsService.reconcile(spaceId);
+                }
+            });
+        });
+
+        assertThat(iSpaceStatisticsService.getStatistics(spaceId).getMemberCount()).isEqualTo(4);
+    }
+}
@@ -18,10 +18,10 @@
 
 package com.apitable.user.mapper;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import cn.hutool.core.collection.CollUtil;
-import org.apache.ibatis.cursor.Cursor;
 import org.junit.jupiter.api.Test;
 
 import com.apitable.AbstractMyBatisMapperTest;
@@ -140,11 +140,17 @@ public class UserMapperTest extends AbstractMyBatisMapperTest {
     }
 
 
+    @Test
+    void testSelectCurrentTime() {
+        assertThat(userMapper.selectCurrentTime()).isNotNull();
+    }
+
     @Test
     @Sql("/sql/user-data.sql")
-    void testSelectAllUserIdByIgnoreDelete() {
-        Cursor<Long> entities = userMapper.selectAllUserIdByIgnoreDelete(false);
-        assertThat(entities).isNotEmpty();
+    void testSelectIdsAfterId() {
+        List<Long> userIds = userMapper.selectIdsAfterId(0L, LocalDateTime.now(), 1, false);
+        assertThat(userIds).hasSize(1);
+        assertThat(userMapper.selectIdsAfterId(userIds.get(0), LocalDateTime.now(), 10, false)).doesNotContain(userIds.get(0));
     }
 
 
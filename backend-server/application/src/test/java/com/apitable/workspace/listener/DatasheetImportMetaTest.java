@@ -0,0 +1,65 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.listener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatasheetImportMetaTest {
+
+    @Test
+    void givenRowsOverThresholdWhenToJsonThenKeepRowOrder() {
+        try (DatasheetImportMeta meta = new DatasheetImportMeta(2, "Grid view", null, 3)) {
+            String firstFieldId = meta.addField(0, "name");
+            String secondFieldId = meta.addField(1, null);
+            for (int i = 0; i < 10; i++) {
+                meta.addRow("rec" + i);
+            }
+            JSONObject json = JSONUtil.parseObj(meta.toJson());
+            assertThat(json.getJSONObject("fieldMap").getJSONObject(firstFieldId).getStr("name")).isEqualTo("name");
+            assertThat(json.getJSONObject("fieldMap").getJSONObject(secondFieldId).getStr("name")).isEqualTo("the 2 col");
+            JSONObject view = json.getJSONArray("views").getJSONObject(0);
+            assertThat(view.containsKey("authSave")).isFalse();
+            assertThat(view.getJSONArray("columns").getJSONObject(0).getInt("statType")).isEqualTo(1);
+            assertThat(view.getJSONArray("columns").getJSONObject(1).containsKey("statType")).isFalse();
+            JSONArray rows = view.getJSONArray("rows");
+            assertThat(rows).hasSize(10);
+            for (int i = 0; i < 10; i++) {
+                assertThat(rows.getJSONObject(i).getStr("recordId")).isEqualTo("rec" + i);
+            }
+        }
+    }
+
+    @Test
+    void givenCellsWhenEncodeDataThenTextRecordData() {
+        Map<String, String> cells = new LinkedHashMap<>();
+        cells.put("fld1", "a \"quoted\" text");
+        cells.put("fld2", "b");
+        JSONObject data = JSONUtil.parseObj(RecordImportPipeline.encodeData(cells));
+        assertThat(data.getJSONArray("fld1").getJSONObject(0).getStr("text")).isEqualTo("a \"quoted\" text");
+        assertThat(data.getJSONArray("fld2").getJSONObject(0).getInt("type")).isEqualTo(1);
+    }
+}
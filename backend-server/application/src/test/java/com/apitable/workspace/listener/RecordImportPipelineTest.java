@@ -0,0 +1,91 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.listener;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import javax.annotation.Resource;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.apitable.AbstractIntegrationTest;
+import com.apitable.shared.util.IdUtil;
+import com.apitable.workspace.mapper.DatasheetRecordMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
+
+public class RecordImportPipelineTest extends AbstractIntegrationTest {
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @Resource(name = APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor taskExecutor;
+
+    @Resource
+    private DatasheetRecordMapper datasheetRecordMapper;
+
+    @Test
+    void givenFailureWhileReadingWhenRollbackThenNoRecordsRemain() {
+        String dstId = IdUtil.createDstId();
+        assertThatThrownBy(() -> importInTransaction(dstId, 1200, pipeline -> {
+            pipeline.abort();
+            throw new IllegalStateException("read failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(datasheetRecordMapper.countByDstId(dstId)).isZero();
+    }
+
+    @Test
+    void givenFailureAfterFinishWhenRollbackThenNoRecordsRemain() {
+        String dstId = IdUtil.createDstId();
+        assertThatThrownBy(() -> importInTransaction(dstId, 1200, pipeline -> {
+            pipeline.finish();
+            assertThat(pipeline.getSavedCount()).isEqualTo(1200);
+            throw new IllegalStateException("create datasheet failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(datasheetRecordMapper.countByDstId(dstId)).isZero();
+    }
+
+    @Test
+    void givenCommittedImportThenRecordsRemain() {
+        String dstId = IdUtil.createDstId();
+        importInTransaction(dstId, 600, RecordImportPipeline::finish);
+        assertThat(datasheetRecordMapper.countByDstId(dstId)).isEqualTo(600);
+    }
+
+    private void importInTransaction(String dstId, int rows, Consumer<RecordImportPipeline> complete) {
+        TransactionTemplate cleanupTransaction = new TransactionTemplate(transactionManager);
+        cleanupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            RecordImportPipeline pipeline = new RecordImportPipeline(iNodeService, taskExecutor, cleanupTransaction, -1L, "{}");
+            for (int i = 0; i < rows; i++) {
+                pipeline.add(dstId, IdUtil.createRecordId(), Collections.singletonMap("fld1", "row " + i));
+            }
+            complete.accept(pipeline);
+        });
+    }
+}
@@ -51,6 +51,13 @@ public class DatasheetMetaMapperTest extends AbstractMyBatisMapperTest {
         assertThat(entities).isNotEmpty();
     }
 
+    @Test
+    @Sql("/sql/datasheet-meta-data.sql")
+    void testSelectDstIdsByDstIds() {
+        List<String> dstIds = datasheetMetaMapper.selectDstIdsByDstIds(CollUtil.newArrayList("ni41", "ni42"));
+        assertThat(dstIds).containsExactly("ni41");
+    }
+
     @Test
     @Sql("/sql/datasheet-meta-data.sql")
     void testCountByMetaData() {
@@ -22,11 +22,13 @@ import java.util.Collections;
 import java.util.List;
 
 import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import com.apitable.AbstractMyBatisMapperTest;
 import com.apitable.workspace.dto.UrlNodeInfoDTO;
+import com.apitable.workspace.entity.NodeEntity;
 import com.apitable.workspace.vo.BaseNodeInfo;
 import com.apitable.workspace.vo.NodeInfo;
 import com.apitable.workspace.vo.NodeInfoTreeVo;
@@ -43,6 +45,35 @@ public class NodeMapperTest extends AbstractMyBatisMapperTest {
     @Autowired
     NodeMapper nodeMapper;
 
+    @Test
+    void testInsertBatchDeletedThenRestore() {
+        NodeEntity node = NodeEntity.builder()
+                .id(IdWorker.getId())
+                .spaceId("spc41")
+                .parentId("ni41")
+                .nodeId("ni42")
+                .nodeName("imported")
+                .type(1)
+                .isTemplate(false)
+                .createdBy(41L)
+                .updatedBy(41L)
+                .build();
+        nodeMapper.insertBatchDeleted(Collections.singletonList(node));
+        assertThat(nodeMapper.selectNodeNameByNodeId("ni42")).isNull();
+        int restored = nodeMapper.updateIsDeletedFalseByNodeIdIn(41L, Collections.singletonList("ni42"));
+        assertThat(restored).isEqualTo(1);
+        assertThat(nodeMapper.selectNodeNameByNodeId("ni42")).isEqualTo("imported");
+    }
+
+    @Test
+    @Sql("/sql/node-data.sql")
+    void testUpdateExtraCopyFailedByNodeIdIn() {
+        nodeMapper.updateExtraCopyFailedByNodeIdIn(Collections.singletonList("ni41"), true);
+        assertThat(nodeMapper.selectExtraByNodeId("ni41")).contains("copyFailed");
+        nodeMapper.updateExtraCopyFailedByNodeIdIn(Collections.singletonList("ni41"), false);
+        assertThat(nodeMapper.selectExtraByNodeId("ni41")).doesNotContain("copyFailed");
+    }
+
     @Test
     @Sql("/sql/node-data.sql")
     void testSelectSpaceIdByNodeIdIncludeDeleted() {
@@ -91,14 +122,6 @@ public class NodeMapperTest extends AbstractMyBatisMapperTest {
     }
 
 
-    @Test
-    @Sql("/sql/node-data.sql")
-    void testSelectLikeNodeName() {
-        List<String> ids = nodeMapper.selectLikeNodeName("spc41", "apitable boy");
-        assertThat(ids).isNotEmpty();
-    }
-
-
     @Test
     @Sql({ "/sql/node-data.sql", "/sql/space-data.sql" })
     void testSelectNodeInfoByNodeIds() {
@@ -299,13 +322,6 @@ public class NodeMapperTest extends AbstractMyBatisMapperTest {
     //
     // @Test
     // @Sql("/sql/node-data.sql")
-    // void testSelectParentNodeByNodeIds() {
-    //     nodeMapper.selectParentNodeByNodeIds();
-    //     assertThat();
-    // }
-    //
-    // @Test
-    // @Sql("/sql/node-data.sql")
     // void testSelectParentIdByNodeId() {
     //     nodeMapper.selectParentIdByNodeId();
     //     assertThat();
@@ -0,0 +1,53 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.mapper;
+
+import java.util.List;
+
+import cn.hutool.core.collection.CollUtil;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.AbstractMyBatisMapperTest;
+import com.apitable.workspace.entity.NodeVisitRecordEntity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NodeVisitRecordMapperTest extends AbstractMyBatisMapperTest {
+
+    @Autowired
+    NodeVisitRecordMapper nodeVisitRecordMapper;
+
+    @Test
+    void testInsertBatchAndUpdateNodeIds() {
+        nodeVisitRecordMapper.insertBatch(CollUtil.newArrayList(
+                NodeVisitRecordEntity.builder().id(41L).spaceId("spc41").memberId(41L).nodeType(1).nodeIds("fod1").build(),
+                NodeVisitRecordEntity.builder().id(42L).spaceId("spc41").memberId(42L).nodeType(1).nodeIds("fod2").build()));
+        List<Long> memberIds = nodeVisitRecordMapper.selectMemberIdsByMemberIdsAndNodeType(CollUtil.newArrayList(41L, 42L, 43L), 1);
+        assertThat(memberIds).containsExactlyInAnyOrder(41L, 42L);
+
+        nodeVisitRecordMapper.updateNodeIdsByMemberIdsAndNodeType(CollUtil.newArrayList(
+                NodeVisitRecordEntity.builder().memberId(41L).nodeIds("fod1,fod3").build(),
+                NodeVisitRecordEntity.builder().memberId(42L).nodeIds("fod2,fod4").build()), 1);
+        assertThat(nodeVisitRecordMapper.selectNodeIdsByMemberIdAndNodeType(41L, 1)).isEqualTo("fod1,fod3");
+        assertThat(nodeVisitRecordMapper.selectNodeIdsByMemberIdAndNodeType(42L, 1)).isEqualTo("fod2,fod4");
+    }
+
+}
@@ -44,6 +44,7 @@ import com.apitable.workspace.service.IFieldRoleService;
 import com.apitable.workspace.service.INodeRoleService;
 import com.apitable.workspace.service.INodeService;
 import com.apitable.workspace.vo.FieldCollaboratorVO;
+import com.apitable.workspace.vo.FieldPermissionView;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -197,6 +198,37 @@ public class FieldRoleServiceImplTest extends AbstractIntegrationTest {
         assertThat(roleToUnitIds.get(RoleConstants.Field.EDITOR).get(0)).isEqualTo(3L);
     }
 
+    @Test
+    void givenFieldRoleEnabledWhenGetFieldPermissionViewsThenLoadAllNodes() {
+        MockUserSpace userSpace = createSingleUserAndSpace();
+        String nodeId = initNode(userSpace, false, false);
+        String otherNodeId = initNode(userSpace, false, false);
+        String fieldId = getNoFirstFieldId(nodeId);
+        iFieldRoleService.enableFieldRole(userSpace.getUserId(), nodeId, fieldId, true);
+        Long memberId = iMemberService.getMemberIdByUserIdAndSpaceId(userSpace.getUserId(), userSpace.getSpaceId());
+        Map<String, FieldPermissionView> views = iFieldRoleService.getFieldPermissionViews(memberId,
+                CollUtil.newArrayList(nodeId, otherNodeId), null);
+        assertThat(views).containsOnlyKeys(nodeId, otherNodeId);
+        assertThat(views.get(nodeId).getFieldPermissionMap()).containsOnlyKeys(fieldId);
+        assertThat(views.get(nodeId).getFieldPermissionMap().get(fieldId).getManageable()).isTrue();
+        assertThat(views.get(otherNodeId).getFieldPermissionMap()).isNull();
+        FieldPermissionView view = iFieldRoleService.getFieldPermissionView(memberId, nodeId, null);
+        assertThat(view.getFieldPermissionMap().get(fieldId).getRole())
+                .isEqualTo(views.get(nodeId).getFieldPermissionMap().get(fieldId).getRole());
+    }
+
+    @Test
+    void givenFieldRoleEnabledWhenGetPermissionFieldIdsInBatchThenSameAsSingle() {
+        MockUserSpace userSpace = createSingleUserAndSpace();
+        String nodeId = initNode(userSpace, false, false);
+        String otherNodeId = initNode(userSpace, false, false);
+        String fieldId = getNoFirstFieldId(nodeId);
+        iFieldRoleService.enableFieldRole(userSpace.getUserId(), nodeId, fieldId, true);
+        Map<String, List<String>> permissionFieldIds = iFieldRoleService.getPermissionFieldIds(CollUtil.newHashSet(nodeId, otherNodeId));
+        assertThat(permissionFieldIds).containsOnlyKeys(nodeId);
+        assertThat(permissionFieldIds.get(nodeId)).isEqualTo(iFieldRoleService.getPermissionFieldIds(nodeId));
+    }
+
     private String initNode(MockUserSpace userSpace, boolean isAddControl, boolean isExtend) {
         String rootNodeId = iNodeService.getRootNodeIdBySpaceId(userSpace.getSpaceId());
         String controlNodeId = null;
@@ -0,0 +1,365 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.core.constants.RedisConstants;
+import com.apitable.workspace.dto.NodeCopyJobDTO;
+import com.apitable.workspace.mapper.DatasheetMapper;
+import com.apitable.workspace.mapper.NodeMapper;
+import com.apitable.workspace.service.IDatasheetService;
+import com.apitable.workspace.vo.NodeCopyJobVo;
+
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static com.apitable.core.constants.RedisConstants.NODE_COPY_JOBS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Answers.RETURNS_DEFAULTS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * runs the node copy job engine against an in-memory redis
+ */
+public class NodeCopyJobServiceImplTest {
+
+    private static final String NODE_ID = "fodCopy";
+
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    private final Set<String> expiring = ConcurrentHashMap.newKeySet();
+
+    private final AtomicReference<BiConsumer<Object, Object>> beforeHashPut = new AtomicReference<>((field, value) -> {});
+
+    private IDatasheetService iDatasheetService;
+
+    private NodeMapper nodeMapper;
+
+    private NodeCopyJobServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        iDatasheetService = mock(IDatasheetService.class);
+        nodeMapper = mock(NodeMapper.class);
+        service = new NodeCopyJobServiceImpl();
+        ReflectionTestUtils.setField(service, "iDatasheetService", iDatasheetService);
+        ReflectionTestUtils.setField(service, "datasheetMapper", mock(DatasheetMapper.class));
+        ReflectionTestUtils.setField(service, "nodeMapper", nodeMapper);
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", this.redis());
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        service.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void testSubmittedJobIsDispatchedAndFinished() throws InterruptedException {
+        service.start();
+        service.submit(this.job("dst1", "dst2"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getJob(NODE_ID).getRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        NodeCopyJobVo job = service.getJob(NODE_ID);
+        assertThat(job.getRunning()).isFalse();
+        assertThat(job.getCompleted()).isEqualTo(2);
+        assertThat(job.getFailedNodeIds()).isEmpty();
+        assertThat(expiring).contains(this.jobKey());
+        assertThat(values).doesNotContainKey(this.ownerKey());
+        verify(iDatasheetService, times(2)).copy(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testFailedCopyIsRetriedWithBackoffUntilAttemptsRunOut() {
+        willThrow(new IllegalStateException("copy failed")).given(iDatasheetService)
+                .copy(any(), any(), eq("src2"), any(), any(), any(), any());
+        service.submit(this.job("dst1", "dst2"));
+
+        long before = System.currentTimeMillis();
+        this.run();
+        assertThat(this.field("dst:dst1")).isEqualTo("success");
+        assertThat(this.field("dst:dst2")).isEqualTo("pending");
+        assertThat(this.field("attempts:dst2")).isEqualTo("1");
+        assertThat(Long.parseLong(this.field("retryAt"))).isBetween(before + 30_000, System.currentTimeMillis() + 30_000);
+
+        // not due yet
+        this.run();
+        assertThat(this.field("attempts:dst2")).isEqualTo("1");
+
+        hashes.get(this.jobKey()).put("retryAt", "0");
+        before = System.currentTimeMillis();
+        this.run();
+        assertThat(this.field("attempts:dst2")).isEqualTo("2");
+        assertThat(Long.parseLong(this.field("retryAt"))).isBetween(before + 60_000, System.currentTimeMillis() + 60_000);
+        verify(iDatasheetService, times(1)).copy(any(), any(), eq("src1"), any(), any(), any(), any());
+
+        for (int i = 0; i < 2; i++) {
+            hashes.get(this.jobKey()).put("retryAt", "0");
+            this.run();
+        }
+        assertThat(this.field("dst:dst2")).isEqualTo("failed");
+        assertThat(this.members()).doesNotContain(NODE_ID);
+        assertThat(expiring).doesNotContain(this.jobKey());
+        assertThat(service.getJob(NODE_ID).getFailedNodeIds()).containsExactly("dst2");
+        verify(nodeMapper).updateExtraCopyFailedByNodeIdIn(Collections.singletonList("dst2"), true);
+    }
+
+    @Test
+    public void testManualRetryStartsAttemptsOver() {
+        willThrow(new IllegalStateException("copy failed")).given(iDatasheetService)
+                .copy(any(), any(), eq("src1"), any(), any(), any(), any());
+        service.submit(this.job("dst1"));
+        for (int i = 0; i < 4; i++) {
+            hashes.computeIfPresent(this.jobKey(), (key, hash) -> {
+                hash.remove("retryAt");
+                return hash;
+            });
+            this.run();
+        }
+        assertThat(this.field("dst:dst1")).isEqualTo("failed");
+
+        assertThat(service.retry(NODE_ID)).isTrue();
+        assertThat(this.field("dst:dst1")).isEqualTo("pending");
+        assertThat(hashes.get(this.jobKey())).doesNotContainKeys("attempts:dst1", "retryAt");
+        assertThat(this.members()).contains(NODE_ID);
+        verify(nodeMapper).updateExtraCopyFailedByNodeIdIn(Collections.singletonList("dst1"), false);
+
+        willAnswer(invocation -> Collections.emptyList()).given(iDatasheetService)
+                .copy(any(), any(), eq("src1"), any(), any(), any(), any());
+        this.run();
+        assertThat(this.field("dst:dst1")).isEqualTo("success");
+        assertThat(this.members()).doesNotContain(NODE_ID);
+    }
+
+    @Test
+    public void testLostOwnershipStopsTheJob() {
+        List<Runnable> renewals = new ArrayList<>();
+        ScheduledExecutorService heartbeat = mock(ScheduledExecutorService.class);
+        willAnswer(invocation -> {
+            renewals.add(invocation.getArgument(0));
+            return mock(ScheduledFuture.class);
+        }).given(heartbeat).scheduleAtFixedRate(any(), anyLong(), anyLong(), any());
+        ReflectionTestUtils.setField(service, "heartbeat", heartbeat);
+        ReflectionTestUtils.setField(service, "copyWorkers", Executors.newSingleThreadExecutor());
+        willAnswer(invocation -> {
+            // taken over by another instance while copying
+            values.put(this.ownerKey(), "other");
+            renewals.forEach(Runnable::run);
+            return Collections.emptyList();
+        }).given(iDatasheetService).copy(any(), any(), eq("src1"), any(), any(), any(), any());
+        service.submit(this.job("dst1", "dst2"));
+
+        this.run();
+        verify(iDatasheetService, never()).copy(any(), any(), eq("src2"), any(), any(), any(), any());
+        assertThat(this.field("dst:dst2")).isEqualTo("pending");
+        assertThat(this.members()).contains(NODE_ID);
+        assertThat(hashes.get(this.jobKey())).doesNotContainKey("retryAt");
+        assertThat(values).containsEntry(this.ownerKey(), "other");
+    }
+
+    @Test
+    public void testOwnerIsKeptUntilEveryCopyFinished() {
+        CountDownLatch recordFailed = new CountDownLatch(1);
+        AtomicReference<String> ownerWhileCopying = new AtomicReference<>();
+        beforeHashPut.set((field, value) -> {
+            if ("dst:dst1".equals(field)) {
+                recordFailed.countDown();
+                throw new IllegalStateException("redis unavailable");
+            }
+        });
+        willAnswer(invocation -> {
+            recordFailed.await(5, TimeUnit.SECONDS);
+            Thread.sleep(200);
+            ownerWhileCopying.set(values.get(this.ownerKey()));
+            return Collections.emptyList();
+        }).given(iDatasheetService).copy(any(), any(), eq("src2"), any(), any(), any(), any());
+        service.submit(this.job("dst1", "dst2"));
+
+        this.run();
+        assertThat(ownerWhileCopying.get()).isEqualTo(ReflectionTestUtils.getField(service, "instanceId"));
+        assertThat(values).doesNotContainKey(this.ownerKey());
+        // left pending, found copied on the next attempt
+        assertThat(this.field("dst:dst1")).isEqualTo("pending");
+        assertThat(this.field("dst:dst2")).isEqualTo("success");
+        assertThat(this.members()).contains(NODE_ID);
+    }
+
+    private void run() {
+        ReflectionTestUtils.invokeMethod(service, "run", NODE_ID);
+    }
+
+    private NodeCopyJobDTO job(String... dstIds) {
+        NodeCopyJobDTO job = new NodeCopyJobDTO();
+        job.setUserId(1L);
+        job.setSpaceId("spcCopy");
+        job.setNodeId(NODE_ID);
+        job.setNewNodeMap(new HashMap<>());
+        List<NodeCopyJobDTO.Datasheet> datasheets = new ArrayList<>();
+        for (String dstId : dstIds) {
+            datasheets.add(new NodeCopyJobDTO.Datasheet(dstId.replace("dst", "src"), dstId, dstId));
+        }
+        job.setDatasheets(datasheets);
+        return job;
+    }
+
+    private String jobKey() {
+        return RedisConstants.getNodeCopyJobKey(NODE_ID);
+    }
+
+    private String ownerKey() {
+        return RedisConstants.getNodeCopyOwnerKey(NODE_ID);
+    }
+
+    private String field(String field) {
+        Object value = hashes.getOrDefault(this.jobKey(), Collections.emptyMap()).get(field);
+        return value != null ? value.toString() : null;
+    }
+
+    private Set<String> members() {
+        return sets.getOrDefault(NODE_COPY_JOBS, Collections.emptySet());
+    }
+
+    private Map<Object, Object> hash(String key) {
+        return hashes.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+    }
+
+    private Set<String> set(String key) {
+        return sets.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redis() {
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            String key = args.length > 0 ? String.valueOf(args[0]) : null;
+            switch (invocation.getMethod().getName()) {
+                case "entries":
+                    return new HashMap<>(hashes.getOrDefault(key, Collections.emptyMap()));
+                case "put":
+                    beforeHashPut.get().accept(args[1], args[2]);
+                    this.hash(key).put(args[1], args[2]);
+                    return null;
+                case "putAll":
+                    this.hash(key).putAll((Map<Object, Object>) args[1]);
+                    return null;
+                case "increment":
+                    return Long.parseLong(this.hash(key).merge(args[1], args[2].toString(),
+                            (value, delta) -> String.valueOf(Long.parseLong(value.toString()) + Long.parseLong(delta.toString()))).toString());
+                case "delete":
+                    Arrays.asList(args).subList(1, args.length).forEach(this.hash(key)::remove);
+                    return (long) args.length - 1;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        SetOperations<String, String> setOperations = mock(SetOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            String key = args.length > 0 ? String.valueOf(args[0]) : null;
+            switch (invocation.getMethod().getName()) {
+                case "members":
+                    return new HashSet<>(this.set(key));
+                case "isMember":
+                    return this.set(key).contains(args[1]);
+                case "add":
+                    Arrays.asList(args).subList(1, args.length).forEach(member -> this.set(key).add(member.toString()));
+                    return (long) args.length - 1;
+                case "remove":
+                    Arrays.asList(args).subList(1, args.length).forEach(this.set(key)::remove);
+                    return (long) args.length - 1;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            if ("setIfAbsent".equals(invocation.getMethod().getName())) {
+                return values.putIfAbsent((String) args[0], (String) args[1]) == null;
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        return mock(StringRedisTemplate.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "opsForHash":
+                    return hashOperations;
+                case "opsForSet":
+                    return setOperations;
+                case "opsForValue":
+                    return valueOperations;
+                case "persist":
+                    return expiring.remove((String) args[0]);
+                case "expire":
+                    return expiring.add((String) args[0]);
+                case "execute":
+                    // the owner scripts: renew or delete the key held by the owner
+                    String key = ((List<String>) args[1]).get(0);
+                    if (!args[2].equals(values.get(key))) {
+                        return 0L;
+                    }
+                    if (((RedisScript<?>) args[0]).getScriptAsString().contains("'DEL'")) {
+                        values.remove(key);
+                    }
+                    return 1L;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+}
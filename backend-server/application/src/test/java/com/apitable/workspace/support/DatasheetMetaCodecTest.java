@@ -0,0 +1,86 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.support;
+
+import java.util.Collections;
+import java.util.List;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.Test;
+
+import com.apitable.workspace.enums.FieldType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DatasheetMetaCodecTest {
+
+    private static final String META = "{\"fieldMap\":{"
+            + "\"fld1\":{\"id\":\"fld1\",\"name\":\"Title\",\"type\":1,\"property\":{\"defaultValue\":\"\"}},"
+            + "\"fld2\":{\"id\":\"fld2\",\"name\":\"Link\",\"type\":7,\"property\":{\"foreignDatasheetId\":\"dst2\",\"brotherFieldId\":\"fld9\"},\"unknown\":1}},"
+            + "\"views\":[{\"id\":\"viw1\",\"name\":\"Grid\",\"type\":1,\"autoSave\":true,"
+            + "\"rows\":[{\"recordId\":\"rec1\"}],"
+            + "\"columns\":[{\"fieldId\":\"fld1\"},{\"fieldId\":\"fld2\",\"hidden\":true}],"
+            + "\"filterInfo\":{\"conjunction\":\"and\",\"conditions\":[{\"fieldId\":\"fld2\",\"operator\":\"isEmpty\"}]},"
+            + "\"style\":{\"coverFieldId\":\"fld2\",\"isCoverFit\":true}}],"
+            + "\"widgetPanels\":[{\"id\":\"wpl1\",\"widgets\":[{\"id\":\"wdt1\",\"height\":6.2}]}]}";
+
+    @Test
+    void testParseAndWrite() {
+        DatasheetMeta meta = DatasheetMetaCodec.parse(META);
+        assertThat(meta.getFieldMap()).containsOnlyKeys("fld1", "fld2");
+        assertThat(meta.getField("fld2").isType(FieldType.LINK)).isTrue();
+        assertThat(meta.getField("fld2").getPropertyText("foreignDatasheetId")).isEqualTo("dst2");
+        assertThat(meta.getFirstColumnFieldId()).isEqualTo("fld1");
+
+        JSONObject json = JSONUtil.parseObj(DatasheetMetaCodec.write(meta));
+        // unknown field attributes are dropped, views are kept as stored
+        assertThat(json.getJSONObject("fieldMap").getJSONObject("fld2").containsKey("unknown")).isFalse();
+        assertThat(json.getJSONObject("fieldMap").getJSONObject("fld1").containsKey("desc")).isFalse();
+        assertThat(json.getJSONArray("views").getJSONObject(0).getBool("autoSave")).isTrue();
+        assertThat(json.getJSONArray("widgetPanels").getJSONObject(0).getJSONArray("widgets").getJSONObject(0).getStr("height")).isEqualTo("6.2");
+    }
+
+    @Test
+    void testEditIsCopyOnWrite() {
+        DatasheetMeta meta = DatasheetMetaCodec.parse(META);
+        DatasheetMeta.Field field = meta.getField("fld2").withPropertyValue("foreignDatasheetId", "dst3");
+        assertThat(field.getPropertyText("foreignDatasheetId")).isEqualTo("dst3");
+        assertThat(field.getPropertyText("brotherFieldId")).isEqualTo("fld9");
+        assertThat(meta.getField("fld2").getPropertyText("foreignDatasheetId")).isEqualTo("dst2");
+
+        DatasheetMeta newMeta = meta.withViewRows(Collections.singletonList("rec2"));
+        assertThat(newMeta.getViews().get(0).get("rows").get(0).get("recordId").asText()).isEqualTo("rec2");
+        assertThat(meta.getViews().get(0).get("rows").get(0).get("recordId").asText()).isEqualTo("rec1");
+    }
+
+    @Test
+    void testWithoutViewFieldIds() {
+        DatasheetMeta meta = DatasheetMetaCodec.parse(META);
+        List<String> fieldIds = Collections.singletonList("fld2");
+        DatasheetMeta newMeta = meta.withoutFields(fieldIds).withoutViewFieldIds(fieldIds, fieldIds);
+        assertThat(newMeta.getFieldMap()).containsOnlyKeys("fld1");
+        JSONObject view = JSONUtil.parseObj(DatasheetMetaCodec.write(newMeta)).getJSONArray("views").getJSONObject(0);
+        assertThat(view.getJSONArray("columns")).hasSize(1);
+        assertThat(view.containsKey("filterInfo")).isFalse();
+        assertThat(view.getJSONObject("style").containsKey("coverFieldId")).isFalse();
+        assertThat(view.getJSONObject("style").getBool("isCoverFit")).isTrue();
+        assertThat(meta.getViews().get(0).get("columns")).hasSize(2);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.workspace.support;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecordDataJsonTest {
+
+    @Test
+    void testRemoveFields() {
+        String data = "{\"fld1\":\"a\",\"fld2\":[{\"text\":\"fld1\"}],\"fld3\":{\"x\":1}}";
+        JSONObject result = JSONUtil.parseObj(RecordDataJson.removeFields(data, List.of("fld1", "fld3")));
+        assertThat(result.keySet()).containsExactly("fld2");
+        assertThat(result.getJSONArray("fld2").getJSONObject(0).getStr("text")).isEqualTo("fld1");
+    }
+
+    @Test
+    void testRemoveAbsentFieldsReturnsOriginalData() {
+        String data = "{\"fld1\":\"a\"}";
+        assertThat(RecordDataJson.removeFields(data, Collections.singletonList("fld9"))).isSameAs(data);
+    }
+
+    @Test
+    void testCopyField() {
+        String data = "{\"fld1\":[{\"text\":\"a\"}],\"fld2\":\"old\"}";
+        JSONObject result = JSONUtil.parseObj(RecordDataJson.copyField(data, "fld1", "fld2"));
+        assertThat(result.getJSONArray("fld2")).isEqualTo(result.getJSONArray("fld1"));
+        assertThat(RecordDataJson.copyField(data, "fld9", "fld2")).isNull();
+    }
+
+    @Test
+    void testReadLeavesParserAfterValue() throws IOException {
+        String recordMap = "{\"rec1\":{\"data\":{\"fld1\":\"a\",\"fld2\":{\"fld1\":1}},\"id\":\"rec1\"}}";
+        try (JsonParser parser = new JsonFactory().createParser(recordMap)) {
+            parser.nextToken();
+            parser.nextToken();
+            parser.nextToken();
+            assertThat(parser.nextFieldName()).isEqualTo("data");
+            parser.nextToken();
+            JSONObject data = JSONUtil.parseObj(RecordDataJson.read(parser, List.of("fld1")));
+            assertThat(data.keySet()).containsExactly("fld2");
+            assertThat(data.getJSONObject("fld2").getInt("fld1")).isEqualTo(1);
+            assertThat(parser.nextFieldName()).isEqualTo("id");
+        }
+    }
+}
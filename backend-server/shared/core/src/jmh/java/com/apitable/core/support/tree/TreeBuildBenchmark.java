@@ -0,0 +1,186 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.core.support.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apitable.core.support.tree.v2.TreeUtil;
+
+/**
+ * compares the tree builders on a tree of the given size, where every node has up to 10 children.
+ * {@code legacyRecursive} is the scan-per-node algorithm the v1 factory used before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeBuildBenchmark {
+
+    private static final int FAN_OUT = 10;
+
+    @Param({ "1000", "10000" })
+    private int nodeCount;
+
+    private List<Node> nodes;
+
+    private List<NodeV2> nodesV2;
+
+    @Setup
+    public void setup() {
+        nodes = new ArrayList<>(nodeCount);
+        nodesV2 = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            String parentId = i == 0 ? DefaultTreeBuildFactory.ROOT_PARENT_ID : "n" + ((i - 1) / FAN_OUT);
+            nodes.add(new Node("n" + i, parentId));
+            nodesV2.add(new NodeV2("n" + i, parentId));
+        }
+    }
+
+    @Benchmark
+    public List<Node> legacyRecursive() {
+        for (Node node : nodes) {
+            legacyBuildChildNodes(nodes, node);
+        }
+        return nodes;
+    }
+
+    @Benchmark
+    public List<Node> defaultFactory() {
+        return new DefaultTreeBuildFactory<Node>().doTreeBuild(nodes);
+    }
+
+    @Benchmark
+    public List<NodeV2> defaultFactoryV2() {
+        return TreeUtil.build(nodesV2);
+    }
+
+    private static void legacyBuildChildNodes(List<Node> totalNodes, Node node) {
+        List<Node> children = new ArrayList<>();
+        for (Node item : totalNodes) {
+            if (item.getNodeParentId().equals(node.getNodeId())) {
+                children.add(item);
+            }
+        }
+        for (Node child : children) {
+            legacyBuildChildNodes(totalNodes, child);
+        }
+        node.setChildrenNodes(children);
+    }
+
+    public static class Node implements Tree {
+
+        private final String id;
+
+        private final String parentId;
+
+        private List children;
+
+        Node(String id, String parentId) {
+            this.id = id;
+            this.parentId = parentId;
+        }
+
+        @Override
+        public String getNodeId() {
+            return id;
+        }
+
+        @Override
+        public String getNodeParentId() {
+            return parentId;
+        }
+
+        @Override
+        public List getChildrenNodes() {
+            return children;
+        }
+
+        @Override
+        public void setChildrenNodes(List childrenNodes) {
+            this.children = childrenNodes;
+        }
+    }
+
+    public static class NodeV2 implements com.apitable.core.support.tree.v2.Tree {
+
+        private final String id;
+
+        private String parentId;
+
+        private List children;
+
+        private int level;
+
+        NodeV2(String id, String parentId) {
+            this.id = id;
+            this.parentId = parentId;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getParentId() {
+            return parentId;
+        }
+
+        @Override
+        public void setParentId(String parentId) {
+            this.parentId = parentId;
+        }
+
+        @Override
+        public List getChildren() {
+            return children;
+        }
+
+        @Override
+        public void setChildren(List children) {
+            this.children = children;
+        }
+
+        @Override
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public int getLevel() {
+            return level;
+        }
+    }
+}
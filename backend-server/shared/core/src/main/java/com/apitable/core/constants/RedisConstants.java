@@ -30,9 +30,14 @@ import cn.hutool.core.util.StrUtil;
 public class RedisConstants {
 
     /**
-     * login user information
+     * login user information, jackson encoded
      */
-    private static final String LOGIN_USER_KEY = "cache:user:{}:information";
+    private static final String LOGIN_USER_KEY = "cache:user:{}:info";
+
+    /**
+     * login user information written by the previous release, still read by instances not upgraded yet
+     */
+    private static final String LEGACY_LOGIN_USER_KEY = "cache:user:{}:information";
 
     /**
      * user's main active space ID
@@ -40,9 +45,14 @@ public class RedisConstants {
     private static final String USER_ACTIVE_SPACE_KEY = "cache:user:{}:space:active";
 
     /**
-     * user corresponding space information
+     * user corresponding space information, jackson encoded
+     */
+    private static final String USER_SPACE_KEY = "cache:user:{}:space:{}:info";
+
+    /**
+     * user corresponding space information written by the previous release, still read by instances not upgraded yet
      */
-    private static final String USER_SPACE_KEY = "cache:user:{}:space:{}:information";
+    private static final String LEGACY_USER_SPACE_KEY = "cache:user:{}:space:{}:information";
 
     /**
      * data table information opened by the user in the space
@@ -139,11 +149,136 @@ public class RedisConstants {
      */
     private static final String SPACE_TEMPLATE_QUOTE = "template:quote:{}:{}";
 
+    /**
+     * notification broadcast job ---> hash: type, template id, payload, checkpoint, attempts
+     */
+    private static final String NOTIFY_BROADCAST_JOB = "notify:broadcast:job:{}";
+
+    /**
+     * instance running the notification broadcast job
+     */
+    private static final String NOTIFY_BROADCAST_OWNER = "notify:broadcast:owner:{}";
+
+    /**
+     * finished chunks of the current page of notification broadcast job ---> set: first user id - last user id
+     */
+    private static final String NOTIFY_BROADCAST_CHUNKS = "notify:broadcast:job:{}:chunks";
+
+    /**
+     * unfinished notification broadcast job ids
+     */
+    public static final String NOTIFY_BROADCAST_JOBS = "notify:broadcast:jobs";
+
+    /**
+     * notification broadcast job ids given up after failing too many times
+     */
+    public static final String NOTIFY_BROADCAST_DEAD_JOBS = "notify:broadcast:jobs:dead";
+
+    /**
+     * asset preview job ---> hash: asset id, bucket name, key, attempts
+     */
+    private static final String ASSET_PREVIEW_JOB = "asset:preview:job:{}";
+
+    /**
+     * instance running the asset preview job
+     */
+    private static final String ASSET_PREVIEW_OWNER = "asset:preview:owner:{}";
+
+    /**
+     * checksums of pending asset preview jobs
+     */
+    public static final String ASSET_PREVIEW_JOBS = "asset:preview:jobs";
+
+    /**
+     * space statistics ---> hash: counter, count
+     */
+    private static final String SPACE_STATISTICS = "space:statistics:{}";
+
+    /**
+     * instance reconciling the space statistics
+     */
+    private static final String SPACE_STATISTICS_OWNER = "space:statistics:owner:{}";
+
+    /**
+     * space ids of kept statistics, scored by the time of next reconciliation
+     */
+    public static final String SPACE_STATISTICS_RECONCILE = "space:statistics:reconcile";
+
+    /**
+     * node copy job ---> hash: params, datasheet status
+     */
+    private static final String NODE_COPY_JOB = "node:copy:job:{}";
+
+    /**
+     * instance running the node copy job
+     */
+    private static final String NODE_COPY_OWNER = "node:copy:owner:{}";
+
+    /**
+     * node ids of unfinished node copy jobs
+     */
+    public static final String NODE_COPY_JOBS = "node:copy:jobs";
+
+    /**
+     * recently visited nodes of member ---> zset: node id, visited time
+     */
+    private static final String NODE_VISIT = "node:visit:{}:{}";
+
+    /**
+     * visits not saved to database ---> zset: member id:node type:space id, visited time
+     */
+    public static final String NODE_VISIT_DIRTY = "node:visit:dirty";
+
+    /**
+     * instance saving the node visits
+     */
+    public static final String NODE_VISIT_FLUSH_OWNER = "node:visit:flush:owner";
+
     /**
      * notification frequency limit person/day
      */
     private static final String NOTIFY_FREQUENCY_LIMIT = "notify:cache:frequency:{}:{}:{}";
 
+    /**
+     * node tree snapshot invalidation channel ---> message: space id
+     */
+    public static final String NODE_TREE_SNAPSHOT_CHANNEL = "cache:node:tree:invalidate";
+
+    /**
+     * unit search index invalidation channel ---> message: space id
+     */
+    public static final String UNIT_SEARCH_INDEX_CHANNEL = "cache:unit:search:invalidate";
+
+    /**
+     * organization units of member ---> member id
+     */
+    private static final String PERMISSION_MEMBER_UNITS_KEY = "cache:permission:member:{}:units";
+
+    /**
+     * administrators with workbench permission of space ---> space id
+     */
+    private static final String PERMISSION_SPACE_ADMINS_KEY = "cache:permission:space:{}:admins";
+
+    /**
+     * role assignments of control unit ---> control id
+     */
+    private static final String PERMISSION_CONTROL_ROLES_KEY = "cache:permission:control:{}:roles";
+
+    /**
+     * permission cache invalidation channel ---> message: type:id
+     */
+    public static final String PERMISSION_CACHE_CHANNEL = "cache:permission:invalidate";
+
+    /**
+     * login user cache invalidation channel ---> message: redis keys
+     */
+    public static final String LOGIN_USER_CACHE_CHANNEL = "cache:user:info:invalidate";
+
+    /**
+     * user space cache invalidation channel ---> message: redis keys
+     */
+    public static final String USER_SPACE_CACHE_CHANNEL = "cache:user:space:invalidate";
+
     /**
      * Get the key stored by the login user
      *
@@ -155,6 +290,19 @@ public class RedisConstants {
         return StrUtil.format(LOGIN_USER_KEY, userId);
     }
 
+    /**
+     * Get the key stored by the login user in the previous release, deleted along with the current key
+     *
+     * @param userId user's id
+     * @return legacy login user storage key
+     * @deprecated remove after all instances are upgraded
+     */
+    @Deprecated
+    public static String getLegacyLoginUserKey(Long userId) {
+        Assert.notNull(userId, "user does not exist");
+        return StrUtil.format(LEGACY_LOGIN_USER_KEY, userId);
+    }
+
     /**
      * Get user active space
      *
@@ -179,6 +327,21 @@ public class RedisConstants {
         return StrUtil.format(USER_SPACE_KEY, userId, spaceId);
     }
 
+    /**
+     * Key for user space information stored in the previous release, deleted along with the current key
+     *
+     * @param userId  user's id
+     * @param spaceId space's id
+     * @return legacy user information storage key
+     * @deprecated remove after all instances are upgraded
+     */
+    @Deprecated
+    public static String getLegacyUserSpaceKey(Long userId, String spaceId) {
+        Assert.notNull(userId, "user does not exist");
+        Assert.notBlank(spaceId, "space does not exist");
+        return StrUtil.format(LEGACY_USER_SPACE_KEY, userId, spaceId);
+    }
+
     /**
      * Get the data table information opened by the user in the space
      *
@@ -336,6 +499,107 @@ public class RedisConstants {
         return StrUtil.format(NOTIFY_TEMPORARY_KEY, keyId);
     }
 
+    /**
+     * Get the key of notification broadcast job
+     * @param jobId job id
+     * @return String
+     */
+    public static String getNotifyBroadcastJobKey(String jobId) {
+        Assert.notBlank(jobId, "broadcast job does not exist");
+        return StrUtil.format(NOTIFY_BROADCAST_JOB, jobId);
+    }
+
+    /**
+     * Get the key of the instance running notification broadcast job
+     * @param jobId job id
+     * @return String
+     */
+    public static String getNotifyBroadcastOwnerKey(String jobId) {
+        Assert.notBlank(jobId, "broadcast job does not exist");
+        return StrUtil.format(NOTIFY_BROADCAST_OWNER, jobId);
+    }
+
+    /**
+     * Get the key of the finished chunks of notification broadcast job
+     * @param jobId job id
+     * @return String
+     */
+    public static String getNotifyBroadcastChunksKey(String jobId) {
+        Assert.notBlank(jobId, "broadcast job does not exist");
+        return StrUtil.format(NOTIFY_BROADCAST_CHUNKS, jobId);
+    }
+
+    /**
+     * Get the key of asset preview job
+     * @param checksum asset checksum
+     * @return String
+     */
+    public static String getAssetPreviewJobKey(String checksum) {
+        Assert.notBlank(checksum, "asset checksum does not exist");
+        return StrUtil.format(ASSET_PREVIEW_JOB, checksum);
+    }
+
+    /**
+     * Get the key of the instance running asset preview job
+     * @param checksum asset checksum
+     * @return String
+     */
+    public static String getAssetPreviewOwnerKey(String checksum) {
+        Assert.notBlank(checksum, "asset checksum does not exist");
+        return StrUtil.format(ASSET_PREVIEW_OWNER, checksum);
+    }
+
+    /**
+     * Get the key of space statistics
+     * @param spaceId space id
+     * @return String
+     */
+    public static String getSpaceStatisticsKey(String spaceId) {
+        Assert.notBlank(spaceId, "space does not exist");
+        return StrUtil.format(SPACE_STATISTICS, spaceId);
+    }
+
+    /**
+     * Get the key of the instance reconciling space statistics
+     * @param spaceId space id
+     * @return String
+     */
+    public static String getSpaceStatisticsOwnerKey(String spaceId) {
+        Assert.notBlank(spaceId, "space does not exist");
+        return StrUtil.format(SPACE_STATISTICS_OWNER, spaceId);
+    }
+
+    /**
+     * Get the key of node copy job
+     * @param nodeId id of the copied node
+     * @return String
+     */
+    public static String getNodeCopyJobKey(String nodeId) {
+        Assert.notBlank(nodeId, "node copy job does not exist");
+        return StrUtil.format(NODE_COPY_JOB, nodeId);
+    }
+
+    /**
+     * Get the key of the instance running node copy job
+     * @param nodeId id of the copied node
+     * @return String
+     */
+    public static String getNodeCopyOwnerKey(String nodeId) {
+        Assert.notBlank(nodeId, "node copy job does not exist");
+        return StrUtil.format(NODE_COPY_OWNER, nodeId);
+    }
+
+    /**
+     * Get the key of recently visited nodes
+     * @param memberId member id
+     * @param nodeType node type
+     * @return String
+     */
+    public static String getNodeVisitKey(Long memberId, Integer nodeType) {
+        Assert.notNull(memberId, "member does not exist");
+        return StrUtil.format(NODE_VISIT, memberId, nodeType);
+    }
+
     /**
      * Get template reference key
      *
@@ -363,4 +627,37 @@ public class RedisConstants {
         Assert.notBlank(templateId, "notification template does not exist");
         return StrUtil.format(NOTIFY_FREQUENCY_LIMIT, templateId, userId, nonce);
     }
+
+    /**
+     * Get the key of organization units of member
+     *
+     * @param memberId member's id
+     * @return String
+     */
+    public static String getPermissionMemberUnitsKey(Long memberId) {
+        Assert.notNull(memberId, "member does not exist");
+        return StrUtil.format(PERMISSION_MEMBER_UNITS_KEY, memberId);
+    }
+
+    /**
+     * Get the key of administrators with workbench permission of space
+     *
+     * @param spaceId space's id
+     * @return String
+     */
+    public static String getPermissionSpaceAdminsKey(String spaceId) {
+        Assert.notBlank(spaceId, "space does not exist");
+        return StrUtil.format(PERMISSION_SPACE_ADMINS_KEY, spaceId);
+    }
+
+    /**
+     * Get the key of role assignments of control unit
+     *
+     * @param controlId control unit's id
+     * @return String
+     */
+    public static String getPermissionControlRolesKey(String controlId) {
+        Assert.notBlank(controlId, "control unit does not exist");
+        return StrUtil.format(PERMISSION_CONTROL_ROLES_KEY, controlId);
+    }
 }
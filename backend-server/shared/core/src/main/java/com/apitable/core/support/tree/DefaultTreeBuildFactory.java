@@ -18,15 +18,16 @@
 
 package com.apitable.core.support.tree;
 
-import cn.hutool.core.collection.CollUtil;
-
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
- *     default recursive tool, used to traverse nodes that have parent-child relationships.
+ *     default tree builder, used to link nodes that have parent-child relationships.
  *     such as menu trees, dictionary trees, and so on.
+ *     nodes are indexed by parent id once, so the build is linear in the number of nodes.
  * </p>
  */
 public class DefaultTreeBuildFactory<T extends Tree> extends AbstractTreeBuildFactory<T> {
@@ -46,43 +47,17 @@ public class DefaultTreeBuildFactory<T extends Tree> extends AbstractTreeBuildFa
 	}
 
 	/**
-     * query a collection of child nodes
+     * index the nodes by their parent id in one pass, the order of siblings is kept
      *
-     * @param totalNodes     the list of all nodes
-     * @param node           node to be queried
-     * @param childNodeLists the child nodes of the queried node
+     * @param totalNodes the list of all nodes
+     * @return parent node id -> child nodes
      */
-    private void buildChildNodes(List<T> totalNodes, T node, List<T> childNodeLists) {
-        if (totalNodes == null || node == null) {
-            return;
-        }
-
-        List<T> nodeSubLists = getSubChildLevelOne(totalNodes, node);
-
-        if (CollUtil.isNotEmpty(nodeSubLists)) {
-            for (T nodeSubList : nodeSubLists) {
-                buildChildNodes(totalNodes, nodeSubList, new ArrayList<>());
-            }
-        }
-
-        childNodeLists.addAll(nodeSubLists);
-        node.setChildrenNodes(childNodeLists);
-    }
-
-    /**
-     * gets the node's child nodes
-     *
-     * @param list  the list of nodes
-     * @param node  the node to be queried
-     */
-    private List<T> getSubChildLevelOne(List<T> list, T node) {
-        List<T> nodeList = new ArrayList<>();
-        for (T nodeItem : list) {
-            if (nodeItem.getNodeParentId().equals(node.getNodeId())) {
-                nodeList.add(nodeItem);
-            }
+    private Map<String, List<T>> indexByParentId(List<T> totalNodes) {
+        Map<String, List<T>> childrenIndex = new HashMap<>(totalNodes.size());
+        for (T node : totalNodes) {
+            childrenIndex.computeIfAbsent(node.getNodeParentId(), k -> new ArrayList<>()).add(node);
         }
-        return nodeList;
+        return childrenIndex;
     }
 
     @Override
@@ -93,8 +68,10 @@ public class DefaultTreeBuildFactory<T extends Tree> extends AbstractTreeBuildFa
 
     @Override
     protected List<T> executeBuilding(List<T> nodes) {
+        Map<String, List<T>> childrenIndex = this.indexByParentId(nodes);
         for (T treeNode : nodes) {
-            this.buildChildNodes(nodes, treeNode, new ArrayList<>());
+            List<T> children = childrenIndex.get(treeNode.getNodeId());
+            treeNode.setChildrenNodes(children == null ? new ArrayList<>() : new ArrayList<>(children));
         }
         return nodes;
     }
@@ -18,30 +18,36 @@
 
 package com.apitable.core.util;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
 import java.util.Objects;
 
+import cn.hutool.core.codec.Base64;
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.crypto.SecureUtil;
 
 /**
  * <p>
  * Input stream cache
- * Consider whether the memory is full when processing a large number of images
+ * The stream is read only once, its md5 checksum and head sum are computed while it is cached,
+ * small streams stay in memory and large streams are spooled to a temporary file
  * </p>
  *
  */
 public class InputStreamCache implements AutoCloseable {
 
     /**
-     * save the bytes in the InputStream to the ByteArrayOutputStream
+     * save the bytes in the InputStream to the buffer
      */
-    private ByteArrayOutputStream byteArrayOutputStream = null;
+    private ExposedByteArrayOutputStream byteArrayOutputStream = null;
 
     /**
      * automatic transfer of temporary files
@@ -56,18 +62,32 @@ public class InputStreamCache implements AutoCloseable {
     /**
      * Auto-dump file size
      */
-    private final long AUTO_TRANSFER_TO_TEMP_SIZE = 50 * 1024 * 1024;
+    private static final long AUTO_TRANSFER_TO_TEMP_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * bytes of head sum
+     */
+    private static final int HEAD_SUM_SIZE = 32;
 
     /**
      * file size
      */
     private long fileSize;
 
+    /**
+     * bytes actually read
+     */
+    private long readSize;
+
     /**
      * Whether to automatically transfer
      */
     private boolean autoTransfer;
 
+    private String checksum;
+
+    private String headSum;
+
     public InputStreamCache(InputStream inputStream) {
         this(inputStream, -1);
     }
@@ -77,35 +97,52 @@ public class InputStreamCache implements AutoCloseable {
 
         try {
             Objects.requireNonNull(inputStream);
-
+            MessageDigest md5 = SecureUtil.md5().getDigest();
+            byte[] head = new byte[HEAD_SUM_SIZE];
+            OutputStream out;
             // Determines whether the size is self-determined and saved as a temporary file
             if (fileSize >= AUTO_TRANSFER_TO_TEMP_SIZE) {
-                location = this.saveToTemp(inputStream);
-                this.autoTransfer = true;
+                out = this.createTemp();
             }
             else {
-                if (fileSize <= 0) {
-                    byteArrayOutputStream = new ByteArrayOutputStream();
-                }
-                else {
-                    byteArrayOutputStream = new ByteArrayOutputStream((int) fileSize);
-                }
+                byteArrayOutputStream = new ExposedByteArrayOutputStream(fileSize <= 0 ? DEFAULT_BUFFER_SIZE : (int) fileSize);
+                out = byteArrayOutputStream;
+            }
+            try {
                 byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
                 int len;
-
                 while ((len = inputStream.read(buffer)) > -1) {
-                    byteArrayOutputStream.write(buffer, 0, len);
+                    md5.update(buffer, 0, len);
+                    if (readSize < HEAD_SUM_SIZE) {
+                        System.arraycopy(buffer, 0, head, (int) readSize, (int) Math.min(len, HEAD_SUM_SIZE - readSize));
+                    }
+                    readSize += len;
+                    // the size is unknown or larger than declared, spool to a temporary file
+                    if (!this.autoTransfer && readSize >= AUTO_TRANSFER_TO_TEMP_SIZE) {
+                        out = this.createTemp();
+                        byteArrayOutputStream.writeTo(out);
+                        byteArrayOutputStream = null;
+                    }
+                    out.write(buffer, 0, len);
+                }
+                out.flush();
+            }
+            finally {
+                if (this.autoTransfer) {
+                    out.close();
                 }
-                byteArrayOutputStream.flush();
             }
+            this.checksum = Base64.encode(md5.digest());
+            this.headSum = Base64.encode(head);
         }
         catch (IOException e) {
+            this.close();
             throw new RuntimeException("Cache Stream Read Exception");
         }
     }
 
     /**
-     * Get reusable stream
+     * Get reusable stream, the cached bytes are not copied
      *
      * @return reusable stream
      */
@@ -114,14 +151,19 @@ public class InputStreamCache implements AutoCloseable {
             if (ObjectUtil.isNull(location)) {
                 return null;
             }
-            return IoUtil.toStream(location);
+            try {
+                return new BufferedInputStream(Files.newInputStream(location.toPath()), DEFAULT_BUFFER_SIZE);
+            }
+            catch (IOException e) {
+                throw new RuntimeException("Cache Stream Read Exception");
+            }
         }
         else {
             if (ObjectUtil.isNull(byteArrayOutputStream)) {
                 return null;
             }
-            // return a new byte stream
-            return new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+            // return a new byte stream over the same buffer
+            return byteArrayOutputStream.toInputStream();
         }
     }
 
@@ -142,11 +184,29 @@ public class InputStreamCache implements AutoCloseable {
      */
     public long getFileSize(boolean compute) {
         if (this.fileSize <= 0 && compute) {
-            return FileTool.calculateSize(getInputStream());
+            return this.readSize;
         }
         return this.fileSize;
     }
 
+    /**
+     * Get the md5 checksum of the stream, same as {@link DigestUtil#md5Hex(InputStream)}
+     *
+     * @return md5 checksum encoded in Base64
+     */
+    public String getChecksum() {
+        return this.checksum;
+    }
+
+    /**
+     * Get the head sum of the stream, same as {@link DigestUtil#createHeadSum(InputStream)}
+     *
+     * @return the first 32 bytes encoded in Base64
+     */
+    public String getHeadSum() {
+        return this.headSum;
+    }
+
     /**
      * Get automatic deposit status
      *
@@ -157,21 +217,14 @@ public class InputStreamCache implements AutoCloseable {
     }
 
     /**
-     * Save temporary file
+     * Create temporary file
      *
-     * @param inputStream input stream
-     * @return temporary file
+     * @return output stream of temporary file
      */
-    private File saveToTemp(InputStream inputStream) {
-        // transfer file
-        File tempFile;
-        try {
-            tempFile = FileTool.createUploadTempFile().toFile();
-            return FileUtil.writeFromStream(inputStream, tempFile);
-        }
-        catch (IOException e) {
-            throw new RuntimeException("Cache Stream Read Exception");
-        }
+    private OutputStream createTemp() throws IOException {
+        location = FileTool.createUploadTempFile().toFile();
+        this.autoTransfer = true;
+        return FileUtil.getOutputStream(location);
     }
 
     @Override
@@ -179,8 +232,22 @@ public class InputStreamCache implements AutoCloseable {
         if (null == location || !getAutoTransferStatus()) {
             return;
         }
-        if (FileUtil.exist(location) && location.delete()) {
+        if (FileUtil.exist(location) && !location.delete()) {
             location.deleteOnExit();
         }
     }
+
+    /**
+     * byte array output stream which reads its buffer without copying
+     */
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        ExposedByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
 }
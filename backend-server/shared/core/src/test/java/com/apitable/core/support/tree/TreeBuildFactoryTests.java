@@ -0,0 +1,93 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.core.support.tree;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <p>
+ *  tree build factory's test
+ * </p>
+ */
+class TreeBuildFactoryTests {
+
+    @Test
+    void defaultTreeBuildKeepSiblingOrderTest() {
+        List<Node> nodes = Arrays.asList(new Node("c", "a"), new Node("a", "0"), new Node("d", "b"),
+                new Node("b", "0"), new Node("e", "a"), new Node("f", "c"));
+        List<Node> roots = new DefaultTreeBuildFactory<Node>().doTreeBuild(nodes);
+        Assertions.assertEquals(Arrays.asList("a", "b"), ids(roots));
+        Assertions.assertEquals(Arrays.asList("c", "e"), ids(roots.get(0).getChildrenNodes()));
+        Assertions.assertEquals(Arrays.asList("f"), ids(roots.get(0).getChildrenNodes().get(0).getChildrenNodes()));
+        Assertions.assertEquals(Arrays.asList("d"), ids(roots.get(1).getChildrenNodes()));
+        Assertions.assertTrue(nodes.get(5).getChildrenNodes().isEmpty());
+    }
+
+    @Test
+    void defaultTreeBuildWithRootNodeTest() {
+        List<Node> nodes = Arrays.asList(new Node("a", "root"), new Node("b", "a"), new Node("c", "other"));
+        List<Node> roots = new DefaultTreeBuildFactory<Node>("root").doTreeBuild(nodes);
+        Assertions.assertEquals(Arrays.asList("a"), ids(roots));
+        Assertions.assertEquals(Arrays.asList("b"), ids(roots.get(0).getChildrenNodes()));
+    }
+
+    private static List<String> ids(List<Node> nodes) {
+        return nodes.stream().map(Node::getNodeId).collect(Collectors.toList());
+    }
+
+    static class Node implements Tree {
+
+        private final String id;
+
+        private final String parentId;
+
+        private List<Node> children;
+
+        Node(String id, String parentId) {
+            this.id = id;
+            this.parentId = parentId;
+        }
+
+        @Override
+        public String getNodeId() {
+            return id;
+        }
+
+        @Override
+        public String getNodeParentId() {
+            return parentId;
+        }
+
+        @Override
+        public List<Node> getChildrenNodes() {
+            return children;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void setChildrenNodes(List childrenNodes) {
+            this.children = childrenNodes;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.apitable.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Random;
+
+import cn.hutool.core.io.IoUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * <p>
+ *  input stream cache's test
+ * </p>
+ */
+class InputStreamCacheTests {
+
+    @Test
+    void smallStreamStaysInMemory() {
+        byte[] bytes = randomBytes(1024);
+        try (InputStreamCache cache = new InputStreamCache(new ByteArrayInputStream(bytes), bytes.length)) {
+            Assertions.assertFalse(cache.getAutoTransferStatus());
+            Assertions.assertArrayEquals(bytes, IoUtil.readBytes(cache.getInputStream()));
+            Assertions.assertArrayEquals(bytes, IoUtil.readBytes(cache.getInputStream()));
+            Assertions.assertEquals(DigestUtil.md5Hex(new ByteArrayInputStream(bytes)), cache.getChecksum());
+            Assertions.assertEquals(DigestUtil.createHeadSum(new ByteArrayInputStream(bytes)), cache.getHeadSum());
+        }
+    }
+
+    @Test
+    void headSumOfShortStreamIsPadded() {
+        byte[] bytes = randomBytes(5);
+        try (InputStreamCache cache = new InputStreamCache(new ByteArrayInputStream(bytes))) {
+            Assertions.assertEquals(DigestUtil.createHeadSum(new ByteArrayInputStream(bytes)), cache.getHeadSum());
+            Assertions.assertEquals(5, cache.getFileSize(true));
+        }
+    }
+
+    @Test
+    void streamOfUnknownSizeIsSpooledWhenLarge() {
+        byte[] bytes = randomBytes(9 * 1024 * 1024);
+        InputStreamCache cache = new InputStreamCache(new ByteArrayInputStream(bytes));
+        try {
+            Assertions.assertTrue(cache.getAutoTransferStatus());
+            try (InputStream in = cache.getInputStream()) {
+                Assertions.assertArrayEquals(bytes, IoUtil.readBytes(in));
+            }
+            Assertions.assertEquals(DigestUtil.md5Hex(new ByteArrayInputStream(bytes)), cache.getChecksum());
+            Assertions.assertEquals(bytes.length, cache.getFileSize(true));
+        }
+        catch (Exception e) {
+            Assertions.fail(e);
+        }
+        finally {
+            cache.close();
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
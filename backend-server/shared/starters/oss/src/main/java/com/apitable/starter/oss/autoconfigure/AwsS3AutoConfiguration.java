@@ -59,6 +59,6 @@ public class AwsS3AutoConfiguration extends OssConnectionConfiguration {
         AWSCredentials credentials = new BasicAWSCredentials(aws.getAccessKeyId(), aws.getAccessKeySecret());
         EndpointConfiguration configuration =
                 new AwsClientBuilder.EndpointConfiguration(aws.getEndpoint(), aws.getRegion());
-        return new AwsS3OssClientRequestFactory(credentials, configuration);
+        return new AwsS3OssClientRequestFactory(credentials, configuration, getProperties().getTransfer().toOptions());
     }
 }
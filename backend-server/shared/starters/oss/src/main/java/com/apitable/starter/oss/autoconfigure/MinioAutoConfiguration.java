@@ -43,6 +43,7 @@ public class MinioAutoConfiguration extends OssConnectionConfiguration {
     @ConditionalOnMissingBean(OssClientRequestFactory.class)
     OssClientRequestFactory ossClientRequestFactory() {
         Minio minio = getProperties().getMinio();
-        return new MinioOssClientRequestFactory(minio.getEndpoint(), minio.getAccessKey(), minio.getSecretKey(), minio.getBucketPolicy());
+        return new MinioOssClientRequestFactory(minio.getEndpoint(), minio.getAccessKey(), minio.getSecretKey(), minio.getBucketPolicy(),
+            getProperties().getTransfer().toOptions());
     }
 }
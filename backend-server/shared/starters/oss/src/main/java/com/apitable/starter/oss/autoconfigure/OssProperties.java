@@ -18,6 +18,8 @@
 
 package com.apitable.starter.oss.autoconfigure;
 
+import com.apitable.starter.oss.core.OssTransferOptions;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -40,6 +42,8 @@ public class OssProperties {
 
     private Minio minio;
 
+    private Transfer transfer = new Transfer();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -108,6 +112,14 @@ public class OssProperties {
         this.minio = minio;
     }
 
+    public Transfer getTransfer() {
+        return transfer;
+    }
+
+    public void setTransfer(Transfer transfer) {
+        this.transfer = transfer;
+    }
+
     public static class Aws {
 
         private String accessKeyId;
@@ -310,6 +322,52 @@ public class OssProperties {
         }
     }
 
+    public static class Transfer {
+
+        /**
+         * size of each part in multipart upload and ranged download, between 5MB and 512MB
+         */
+        private long partSize = OssTransferOptions.DEFAULT_PART_SIZE;
+
+        /**
+         * objects larger than the threshold are transferred in parts, at most 512MB
+         */
+        private long multipartThreshold = OssTransferOptions.DEFAULT_MULTIPART_THRESHOLD;
+
+        /**
+         * threads transferring parts concurrently
+         */
+        private int threads = OssTransferOptions.DEFAULT_THREADS;
+
+        public long getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(long partSize) {
+            this.partSize = partSize;
+        }
+
+        public long getMultipartThreshold() {
+            return multipartThreshold;
+        }
+
+        public void setMultipartThreshold(long multipartThreshold) {
+            this.multipartThreshold = multipartThreshold;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public OssTransferOptions toOptions() {
+            return new OssTransferOptions(partSize, multipartThreshold, threads);
+        }
+    }
+
     public static class Callback {
 
         private String url;
@@ -18,22 +18,75 @@
 
 package com.apitable.starter.oss.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import cn.hutool.core.util.URLUtil;
 
 public abstract class AbstractOssClientRequest implements OssClientRequest {
 
+    /**
+     * shared by all requests, connections to the remote hosts are pooled
+     */
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * buckets known to exist, checked once per client
+     */
+    protected final Set<String> existBuckets = ConcurrentHashMap.newKeySet();
+
+    private final OssTransferOptions transferOptions;
+
+    protected AbstractOssClientRequest() {
+        this(null);
+    }
+
+    protected AbstractOssClientRequest(OssTransferOptions transferOptions) {
+        this.transferOptions = transferOptions;
+    }
+
     protected abstract boolean isBucketExist(String bucketName);
 
+    protected OssTransferOptions getTransferOptions() {
+        return transferOptions;
+    }
+
     protected InputStream getStream(String remoteUrl) throws IOException {
-        URL url = URLUtil.url(remoteUrl);
-        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-        return urlConnection.getInputStream();
+        URI uri = URLUtil.toURI(URLUtil.url(remoteUrl));
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        try {
+            HttpResponse<InputStream> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() >= 400) {
+                response.body().close();
+                throw new IOException("Server returned HTTP response code: " + response.statusCode() + " for URL: " + remoteUrl);
+            }
+            return response.body();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted to fetch " + remoteUrl, e);
+        }
     }
 
     @Override
@@ -41,6 +94,72 @@ public abstract class AbstractOssClientRequest implements OssClientRequest {
         throw new NoSuchMethodError("Oss Client NoSuchMethod - 「getStatObject」");
     }
 
+    @Override
+    public OssObject getObject(String bucketName, String path, long offset, long length) {
+        throw new NoSuchMethodError("Oss Client NoSuchMethod - 「getObject」");
+    }
+
+    /**
+     * download the object to file, parts of a large object are fetched by ranged requests in parallel
+     */
+    @Override
+    public void download(String bucketName, String key, File target) throws IOException {
+        OssStatObject stat = getStatObject(bucketName, key);
+        if (stat == null) {
+            throw new IOException("object does not exist: " + key);
+        }
+        long size = stat.getFileSize();
+        long partSize = transferOptions != null ? transferOptions.getPartSize() : size;
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (transferOptions == null || size <= transferOptions.getMultipartThreshold()) {
+                downloadPart(bucketName, key, 0, size, channel);
+                return;
+            }
+            List<CompletableFuture<Void>> parts = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += partSize) {
+                long position = offset;
+                long length = Math.min(partSize, size - offset);
+                parts.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        downloadPart(bucketName, key, position, length, channel);
+                    }
+                    catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, transferOptions.getExecutor()));
+            }
+            CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).join();
+        }
+        catch (CompletionException e) {
+            throw new IOException("download failed", e.getCause());
+        }
+    }
+
+    private void downloadPart(String bucketName, String key, long offset, long length, FileChannel channel) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        OssObject object = getObject(bucketName, key, offset, length);
+        if (object == null) {
+            throw new IOException("download failed: " + key);
+        }
+        try (InputStream in = object.getInputStream()) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long position = offset;
+            int len;
+            while ((len = in.read(buffer)) > -1) {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, len);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+            if (position != offset + length) {
+                throw new IOException("incomplete part of " + key + " at " + offset);
+            }
+        }
+    }
+
     @Override
     public void executeStreamFunction(String bucketName, String key, Consumer<InputStream> function) {
         throw new NoSuchMethodError("Oss Client NoSuchMethod - 「executeStreamFunction」");
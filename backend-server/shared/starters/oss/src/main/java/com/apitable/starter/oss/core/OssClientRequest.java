@@ -18,6 +18,7 @@
 
 package com.apitable.starter.oss.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.function.Consumer;
@@ -32,6 +33,10 @@ public interface OssClientRequest {
 
     OssObject getObject(String bucketName, String path);
 
+    OssObject getObject(String bucketName, String path, long offset, long length);
+
+    void download(String bucketName, String key, File target) throws IOException;
+
     OssStatObject getStatObject(String bucketName, String key);
 
     void executeStreamFunction(String bucketName, String key, Consumer<InputStream> function);
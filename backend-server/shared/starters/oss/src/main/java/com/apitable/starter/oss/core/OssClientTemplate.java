@@ -18,6 +18,7 @@
 
 package com.apitable.starter.oss.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.function.Consumer;
@@ -66,6 +67,33 @@ public class OssClientTemplate {
         return request.getObject(bucketName, key);
     }
 
+    /**
+     * Get part of the object
+     *
+     * @param bucketName Bucket name
+     * @param key object key
+     * @param offset start position of the part
+     * @param length length of the part
+     * @return OssObject, the stream should be closed by the caller
+     */
+    public OssObject getObject(String bucketName, String key, long offset, long length) {
+        OssClientRequest request = getOssClientRequestFactory().createClient();
+        return request.getObject(bucketName, key, offset, length);
+    }
+
+    /**
+     * Download the object to file, a large object is downloaded by ranged requests in parallel
+     *
+     * @param bucketName Bucket name
+     * @param key object key
+     * @param target target file
+     * @throws IOException io exception
+     */
+    public void download(String bucketName, String key, File target) throws IOException {
+        OssClientRequest request = getOssClientRequestFactory().createClient();
+        request.download(bucketName, key, target);
+    }
+
     public OssStatObject getStatObject(String bucketName, String key) {
         OssClientRequest request = getOssClientRequestFactory().createClient();
         return request.getStatObject(bucketName, key);
@@ -0,0 +1,117 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.starter.oss.core;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import cn.hutool.core.thread.ThreadUtil;
+
+/**
+ * <p>
+ * options of multipart upload and ranged download, parts are transferred by a shared thread pool
+ * </p>
+ */
+public class OssTransferOptions implements AutoCloseable {
+
+    /**
+     * parts except the last one should not be smaller than 5MB
+     */
+    public static final long MINIMUM_PART_SIZE = 5 * 1024 * 1024L;
+
+    /**
+     * parts and the head of upload are buffered in a byte array, keep them well below 2GB
+     */
+    public static final long MAXIMUM_BUFFER_SIZE = 512 * 1024 * 1024L;
+
+    public static final long DEFAULT_PART_SIZE = 10 * 1024 * 1024L;
+
+    public static final long DEFAULT_MULTIPART_THRESHOLD = 16 * 1024 * 1024L;
+
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * the longest time an upload waits to buffer its head, fails instead of blocking the caller
+     */
+    public static final Duration HEAD_BUFFER_TIMEOUT = Duration.ofSeconds(30);
+
+    private final long partSize;
+
+    private final long multipartThreshold;
+
+    private final int threads;
+
+    private final ExecutorService executor;
+
+    private final Semaphore headBuffers;
+
+    private final Semaphore partBuffers;
+
+    public OssTransferOptions() {
+        this(DEFAULT_PART_SIZE, DEFAULT_MULTIPART_THRESHOLD, DEFAULT_THREADS);
+    }
+
+    public OssTransferOptions(long partSize, long multipartThreshold, int threads) {
+        this.partSize = Math.min(Math.max(partSize, MINIMUM_PART_SIZE), MAXIMUM_BUFFER_SIZE);
+        this.multipartThreshold = Math.min(Math.max(multipartThreshold, this.partSize), MAXIMUM_BUFFER_SIZE);
+        this.threads = Math.max(threads, 1);
+        this.executor = Executors.newFixedThreadPool(this.threads, ThreadUtil.newNamedThreadFactory("oss-transfer-", true));
+        this.headBuffers = new Semaphore(this.threads);
+        this.partBuffers = new Semaphore(this.threads);
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public long getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * permits of buffering the head of an upload beyond one part, shared by all uploads of this options.
+     * held until the head is uploaded or split into parts.
+     * a holder may wait for {@link #getPartBuffers()}, never the other way round
+     */
+    public Semaphore getHeadBuffers() {
+        return headBuffers;
+    }
+
+    /**
+     * permits of buffering a part in flight, shared by all uploads of this options
+     */
+    public Semaphore getPartBuffers() {
+        return partBuffers;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
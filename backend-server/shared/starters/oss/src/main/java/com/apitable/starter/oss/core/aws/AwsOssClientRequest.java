@@ -23,9 +23,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
 import java.util.Date;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.StrUtil;
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -35,6 +37,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.internal.SkipMd5CheckStrategy;
 import com.amazonaws.services.s3.model.CreateBucketRequest;
 import com.amazonaws.services.s3.model.GetBucketLocationRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
@@ -50,6 +53,7 @@ import org.slf4j.LoggerFactory;
 import com.apitable.starter.oss.core.AbstractOssClientRequest;
 import com.apitable.starter.oss.core.OssObject;
 import com.apitable.starter.oss.core.OssStatObject;
+import com.apitable.starter.oss.core.OssTransferOptions;
 import com.apitable.starter.oss.core.OssUploadAuth;
 import com.apitable.starter.oss.core.OssUploadPolicy;
 import com.apitable.starter.oss.core.UrlFetchResponse;
@@ -67,17 +71,47 @@ public class AwsOssClientRequest extends AbstractOssClientRequest {
 
     private boolean autoCreateBucket = false;
 
+    private final TransferManager transferManager;
+
     public AwsOssClientRequest(AmazonS3 amazonClient) {
-        this.amazonClient = amazonClient;
+        this(amazonClient, false);
     }
 
     public AwsOssClientRequest(AmazonS3 amazonClient, boolean autoCreateBucket) {
+        this(amazonClient, autoCreateBucket, null);
+    }
+
+    public AwsOssClientRequest(AmazonS3 amazonClient, boolean autoCreateBucket, OssTransferOptions transferOptions) {
+        super(transferOptions);
         this.amazonClient = amazonClient;
         this.autoCreateBucket = autoCreateBucket;
+        long partSize = transferOptions != null ? transferOptions.getPartSize() : 10 * 1024 * 1024L;
+        long threshold = transferOptions != null ? transferOptions.getMultipartThreshold() : 100 * 1024 * 1024L;
+        // use high-level staged upload, parts are uploaded in parallel
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonClient)
+                // Set the minimum partition size, which is 5MB by default. If the setting is too small, it will cause too many slices and affect the upload speed.
+                .withMinimumUploadPartSize(partSize)
+                // Set the threshold for fragment upload. Only when the file is greater than this value will the file be uploaded in fragments,
+                // otherwise the file will be uploaded in a normal way. The default value is 16MB.
+                .withMultipartUploadThreshold(threshold)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(transferOptions != null ? transferOptions.getThreads() : 10,
+                        ThreadUtil.newNamedThreadFactory("oss-aws-transfer-", true)))
+                .build();
+    }
+
+    /**
+     * shutdown the thread pool of transfer, the shared s3 client is shutdown by its owner
+     */
+    public void shutdown() {
+        transferManager.shutdownNow(false);
     }
 
     @Override
     protected boolean isBucketExist(String bucketName) {
+        if (existBuckets.contains(bucketName)) {
+            return true;
+        }
         boolean existBucket = amazonClient.doesBucketExistV2(bucketName);
         if (!existBucket) {
             if (autoCreateBucket) {
@@ -89,6 +123,7 @@ public class AwsOssClientRequest extends AbstractOssClientRequest {
                 throw new UnsupportedOperationException("Your bucket does not exist and cannot be initialized");
             }
         }
+        existBuckets.add(bucketName);
         return existBucket;
     }
 
@@ -115,15 +150,6 @@ public class AwsOssClientRequest extends AbstractOssClientRequest {
     @Override
     public void uploadStreamForObject(String bucketName, InputStream in, String path, String mimeType, String digest) throws IOException {
         isBucketExist(bucketName);
-        // use high-level staged upload
-        TransferManager tm = TransferManagerBuilder.standard()
-                .withS3Client(amazonClient)
-                // Set the minimum partition size, which is 5MB by default. If the setting is too small, it will cause too many slices and affect the upload speed.
-                .withMinimumUploadPartSize(10 * 1024 * 1024L)
-                // Set the threshold for fragment upload. Only when the file is greater than this value will the file be uploaded in fragments,
-                // otherwise the file will be uploaded in a normal way. The default value is 16MB.
-                .withMultipartUploadThreshold(100 * 1024 * 1024L)
-                .build();
         ObjectMetadata metadata = new ObjectMetadata();
         if (StrUtil.isNotBlank(mimeType)) {
             metadata.setContentType(mimeType);
@@ -133,7 +159,7 @@ public class AwsOssClientRequest extends AbstractOssClientRequest {
         }
         metadata.setCacheControl(CACHE_CONTROL_VALUE);
         try {
-            Upload upload = tm.upload(bucketName, path, in, metadata);
+            Upload upload = transferManager.upload(bucketName, path, in, metadata);
             LOGGER.info("upload start......");
             upload.waitForCompletion();
             LOGGER.info("upload completed......");
@@ -148,9 +174,7 @@ public class AwsOssClientRequest extends AbstractOssClientRequest {
             throw new RuntimeException("upload interrupted", e);
         }
         finally {
-            // interrupt upload
             LOGGER.info("end of upload");
-            tm.shutdownNow();
         }
     }
 
@@ -211,7 +235,6 @@ public class AwsOssClientRequest extends AbstractOssClientRequest {
             S3Object object = amazonClient.getObject(bucketName, path);
             ObjectMetadata metadata = object.getObjectMetadata();
             byte[] bytes = IoUtil.readBytes(object.getObjectContent());
-            amazonClient.shutdown();
             return new OssObject(metadata.getContentMD5(), metadata.getContentLength(), metadata.getContentType(),
                     new ByteArrayInputStream(bytes));
         }
@@ -221,6 +244,20 @@ public class AwsOssClientRequest extends AbstractOssClientRequest {
         return null;
     }
 
+    @Override
+    public OssObject getObject(String bucketName, String path, long offset, long length) {
+        try {
+            S3Object object = amazonClient.getObject(new GetObjectRequest(bucketName, path).withRange(offset, offset + length - 1));
+            ObjectMetadata metadata = object.getObjectMetadata();
+            return new OssObject(metadata.getContentMD5(), metadata.getContentLength(), metadata.getContentType(),
+                    object.getObjectContent());
+        }
+        catch (SdkBaseException e) {
+            LOGGER.error("Failed to get object {} from {}", path, offset, e);
+        }
+        return null;
+    }
+
     @Override
     public OssStatObject getStatObject(String bucketName, String key) {
         ObjectMetadata metadata = amazonClient.getObjectMetadata(bucketName, key);
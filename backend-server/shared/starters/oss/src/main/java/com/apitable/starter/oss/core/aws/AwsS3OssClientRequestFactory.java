@@ -26,29 +26,47 @@ import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 
 import com.apitable.starter.oss.core.OssClientRequest;
 import com.apitable.starter.oss.core.OssClientRequestFactory;
+import com.apitable.starter.oss.core.OssTransferOptions;
 
 /**
  * aws s3 Client Request Construction Factory
  */
-public class AwsS3OssClientRequestFactory implements OssClientRequestFactory {
+public class AwsS3OssClientRequestFactory implements OssClientRequestFactory, AutoCloseable {
 
-    private AWSCredentials credentials;
+    private final OssTransferOptions transferOptions;
 
-    private EndpointConfiguration configuration;
+    /**
+     * s3 client holds a connection pool, shared by all requests of this factory
+     */
+    private final AmazonS3 s3Client;
+
+    private final AwsOssClientRequest client;
 
     public AwsS3OssClientRequestFactory(AWSCredentials credentials, EndpointConfiguration configuration) {
-        this.credentials = credentials;
-        this.configuration = configuration;
+        this(credentials, configuration, new OssTransferOptions());
     }
 
-    @Override
-    public OssClientRequest createClient() {
-        AmazonS3 s3Client =
+    public AwsS3OssClientRequestFactory(AWSCredentials credentials, EndpointConfiguration configuration,
+            OssTransferOptions transferOptions) {
+        this.transferOptions = transferOptions;
+        this.s3Client =
                 AmazonS3ClientBuilder.standard()
                         .withCredentials(new AWSStaticCredentialsProvider(credentials))
                         .withEndpointConfiguration(configuration)
                         .enablePathStyleAccess()
                         .build();
-        return new AwsOssClientRequest(s3Client, true);
+        this.client = new AwsOssClientRequest(s3Client, true, transferOptions);
+    }
+
+    @Override
+    public OssClientRequest createClient() {
+        return client;
+    }
+
+    @Override
+    public void close() {
+        client.shutdown();
+        s3Client.shutdown();
+        transferOptions.close();
     }
 }
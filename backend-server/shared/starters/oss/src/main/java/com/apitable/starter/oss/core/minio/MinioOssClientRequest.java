@@ -18,16 +18,29 @@
 
 package com.apitable.starter.oss.core.minio;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import io.minio.BucketExistsArgs;
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
 import io.minio.GetObjectArgs;
 import io.minio.GetObjectResponse;
 import io.minio.GetPresignedObjectUrlArgs;
@@ -41,10 +54,13 @@ import io.minio.StatObjectArgs;
 import io.minio.StatObjectResponse;
 import io.minio.http.Method;
 import okhttp3.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.apitable.starter.oss.core.AbstractOssClientRequest;
 import com.apitable.starter.oss.core.OssObject;
 import com.apitable.starter.oss.core.OssStatObject;
+import com.apitable.starter.oss.core.OssTransferOptions;
 import com.apitable.starter.oss.core.OssUploadAuth;
 import com.apitable.starter.oss.core.OssUploadPolicy;
 import com.apitable.starter.oss.core.UrlFetchResponse;
@@ -54,12 +70,22 @@ import com.apitable.starter.oss.core.UrlFetchResponse;
  */
 public class MinioOssClientRequest extends AbstractOssClientRequest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinioOssClientRequest.class);
+
     private static final String CONTENT_MD5 = "Content-MD5";
 
     private static final String CONTENT_TYPE = "Content-Type";
 
     private static final String CONTENT_LENGTH = "Content-Length";
 
+    private static final long PART_SIZE = 10485760;
+
+    /**
+     * temporary parts are kept out of the object namespace, parts left by a crashed process
+     * can be expired by a lifecycle rule on this prefix
+     */
+    private static final String TEMPORARY_PART_PREFIX = ".multipart/";
+
     private final MinioClient minioClient;
 
     private final boolean autoCreateBucket;
@@ -76,6 +102,11 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
     }
 
     public MinioOssClientRequest(MinioClient minioClient, boolean autoCreateBucket, String bucketPolicyJson) {
+        this(minioClient, autoCreateBucket, bucketPolicyJson, null);
+    }
+
+    public MinioOssClientRequest(MinioClient minioClient, boolean autoCreateBucket, String bucketPolicyJson, OssTransferOptions transferOptions) {
+        super(transferOptions);
         this.minioClient = minioClient;
         this.autoCreateBucket = autoCreateBucket;
         this.bucketPolicyJson = bucketPolicyJson;
@@ -83,6 +114,9 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
 
     @Override
     protected boolean isBucketExist(String bucketName) {
+        if (existBuckets.contains(bucketName)) {
+            return true;
+        }
         boolean found = false;
         try {
             found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
@@ -104,6 +138,7 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
                     throw new UnsupportedOperationException("Your bucket does not exist and cannot be initialized");
                 }
             }
+            existBuckets.add(bucketName);
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -119,7 +154,7 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
                     PutObjectArgs.builder()
                             .bucket(bucketName)
                             .object(keyPath)
-                            .stream(getStream(remoteSrcUrl), -1, 10485760)
+                            .stream(getStream(remoteSrcUrl), -1, PART_SIZE)
                             .build());
             String contentType = response.headers().get("Content-Type");
             String lengthString = response.headers().get("Content-Length");
@@ -134,19 +169,7 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
 
     @Override
     public void uploadStreamForObject(String bucketName, InputStream in, String keyPath) throws IOException {
-        isBucketExist(bucketName);
-        try {
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(keyPath)
-                            .stream(in, -1, 10485760)
-                            .build());
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-            throw new IOException("upload failed", e);
-        }
+        uploadStreamForObject(bucketName, in, keyPath, null, null);
     }
 
     @Override
@@ -157,18 +180,63 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
             if (StrUtil.isNotBlank(mimeType)) {
                 userMetadata.put(CONTENT_TYPE, mimeType);
             }
-            if (StrUtil.isNotBlank(digest)) {
-                userMetadata.put(CONTENT_MD5, digest);
+            OssTransferOptions options = getTransferOptions();
+            if (options == null) {
+                if (StrUtil.isNotBlank(digest)) {
+                    userMetadata.put(CONTENT_MD5, digest);
+                }
+                PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(path)
+                        // 10M slice upload
+                        .stream(in, -1, PART_SIZE)
+                        .headers(userMetadata);
+                if (StrUtil.isNotBlank(mimeType)) {
+                    builder.contentType(mimeType);
+                }
+                minioClient.putObject(builder.build());
+                return;
             }
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(path)
-                            // 10M slice upload
-                            .stream(in, -1, 10485760)
-                            .contentType(mimeType)
-                            .headers(userMetadata)
-                            .build());
+            int partSize = (int) options.getPartSize();
+            int threshold = (int) options.getMultipartThreshold();
+            // an upload buffers one part by itself, the small objects never wait
+            byte[] first = in.readNBytes(partSize);
+            if (first.length < partSize) {
+                putSingle(bucketName, path, first, first.length, mimeType, digest, userMetadata);
+                return;
+            }
+            // heads longer than one part are bounded across all uploads
+            Semaphore headBuffers = options.getHeadBuffers();
+            if (!headBuffers.tryAcquire(OssTransferOptions.HEAD_BUFFER_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("upload rejected, too many large uploads in progress");
+            }
+            AtomicBoolean headHeld = new AtomicBoolean(true);
+            Runnable releaseHead = () -> {
+                if (headHeld.compareAndSet(true, false)) {
+                    headBuffers.release();
+                }
+            };
+            try {
+                byte[] head = Arrays.copyOf(first, threshold);
+                // the head holds its own copy
+                first = null;
+                int length = partSize + in.readNBytes(head, partSize, threshold - partSize);
+                if (length < threshold) {
+                    putSingle(bucketName, path, head, length, mimeType, digest, userMetadata);
+                    return;
+                }
+                uploadInParts(bucketName, path, head, in, userMetadata, options, releaseHead);
+            }
+            finally {
+                releaseHead.run();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("upload interrupted", e);
+        }
+        catch (IOException e) {
+            throw e;
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -176,6 +244,117 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
         }
     }
 
+    private void putSingle(String bucketName, String path, byte[] data, int length, String mimeType, String digest,
+            Map<String, String> headers) throws Exception {
+        // small object is uploaded in one request
+        if (StrUtil.isNotBlank(digest)) {
+            headers.put(CONTENT_MD5, digest);
+        }
+        putPart(bucketName, path, data, length, mimeType, headers);
+    }
+
+    /**
+     * parts are uploaded as temporary objects in parallel, then composed into the object on the server.
+     * the head is released once it is split into parts
+     */
+    private void uploadInParts(String bucketName, String path, byte[] head, InputStream in, Map<String, String> headers,
+            OssTransferOptions options, Runnable releaseHead) throws Exception {
+        int partSize = (int) options.getPartSize();
+        ByteArrayInputStream headIn = new ByteArrayInputStream(head);
+        // parts in memory are bounded by the threads of transfer across all uploads
+        Semaphore partBuffers = options.getPartBuffers();
+        String partPrefix = TEMPORARY_PART_PREFIX + IdUtil.fastSimpleUUID() + "/part.";
+        List<String> partNames = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try {
+            while (futures.stream().noneMatch(CompletableFuture::isCompletedExceptionally)) {
+                partBuffers.acquire();
+                byte[] data;
+                try {
+                    data = readPart(headIn, in, partSize);
+                }
+                catch (IOException e) {
+                    partBuffers.release();
+                    throw e;
+                }
+                if (headIn != null && headIn.available() == 0) {
+                    headIn = null;
+                    releaseHead.run();
+                }
+                if (data.length == 0) {
+                    partBuffers.release();
+                    break;
+                }
+                String partName = partPrefix + (partNames.size() + 1);
+                partNames.add(partName);
+                try {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            putPart(bucketName, partName, data, data.length, null, null);
+                        }
+                        catch (Exception e) {
+                            throw new CompletionException(e);
+                        }
+                        finally {
+                            partBuffers.release();
+                        }
+                    }, options.getExecutor()));
+                }
+                catch (RejectedExecutionException e) {
+                    partBuffers.release();
+                    throw e;
+                }
+                if (data.length < partSize) {
+                    break;
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            List<ComposeSource> sources = partNames.stream()
+                    .map(partName -> ComposeSource.builder().bucket(bucketName).object(partName).build())
+                    .collect(Collectors.toList());
+            minioClient.composeObject(
+                    ComposeObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(path)
+                            .sources(sources)
+                            .headers(headers)
+                            .build());
+        }
+        finally {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+            for (String partName : partNames) {
+                try {
+                    minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(partName).build());
+                }
+                catch (Exception e) {
+                    LOGGER.warn("Failed to remove part {}", partName, e);
+                }
+            }
+        }
+    }
+
+    private static byte[] readPart(InputStream headIn, InputStream in, int partSize) throws IOException {
+        byte[] part = new byte[partSize];
+        int read = headIn != null ? headIn.readNBytes(part, 0, partSize) : 0;
+        read += in.readNBytes(part, read, partSize - read);
+        return read == partSize ? part : Arrays.copyOf(part, read);
+    }
+
+    private void putPart(String bucketName, String object, byte[] data, int length, String mimeType,
+            Map<String, String> headers) throws Exception {
+        PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(object)
+                .stream(new ByteArrayInputStream(data, 0, length), length, -1);
+        if (StrUtil.isNotBlank(mimeType)) {
+            builder.contentType(mimeType);
+        }
+        if (headers != null) {
+            builder.headers(headers);
+        }
+        minioClient.putObject(builder.build());
+    }
+
     @Override
     public OssObject getObject(String bucketName, String path) {
         isBucketExist(bucketName);
@@ -197,6 +376,25 @@ public class MinioOssClientRequest extends AbstractOssClientRequest {
         }
     }
 
+    @Override
+    public OssObject getObject(String bucketName, String path, long offset, long length) {
+        try {
+            GetObjectResponse response = minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(path)
+                            .offset(offset)
+                            .length(length)
+                            .build());
+            Headers headers = response.headers();
+            return new OssObject(headers.get(CONTENT_MD5), length, headers.get(CONTENT_TYPE), response);
+        }
+        catch (Exception e) {
+            LOGGER.error("Failed to get object {} from {}", path, offset, e);
+            return null;
+        }
+    }
+
     @Override
     public OssStatObject getStatObject(String bucketName, String key) {
         try {
@@ -22,31 +22,39 @@ import io.minio.MinioClient;
 
 import com.apitable.starter.oss.core.OssClientRequest;
 import com.apitable.starter.oss.core.OssClientRequestFactory;
+import com.apitable.starter.oss.core.OssTransferOptions;
 
-public class MinioOssClientRequestFactory implements OssClientRequestFactory {
+public class MinioOssClientRequestFactory implements OssClientRequestFactory, AutoCloseable {
 
-    private final String endpoint;
+    private final OssTransferOptions transferOptions;
 
-    private final String accessKey;
-
-    private final String secretKey;
-
-    private final String bucketPolicyJson;
+    /**
+     * minio client is thread safe, shared by all requests of this factory
+     */
+    private final OssClientRequest client;
 
     public MinioOssClientRequestFactory(String endpoint, String accessKey, String secretKey, String bucketPolicyJson) {
-        this.endpoint = endpoint;
-        this.accessKey = accessKey;
-        this.secretKey = secretKey;
-        this.bucketPolicyJson = bucketPolicyJson;
+        this(endpoint, accessKey, secretKey, bucketPolicyJson, new OssTransferOptions());
     }
 
-    @Override
-    public OssClientRequest createClient() {
+    public MinioOssClientRequestFactory(String endpoint, String accessKey, String secretKey, String bucketPolicyJson,
+            OssTransferOptions transferOptions) {
+        this.transferOptions = transferOptions;
         MinioClient minioClient =
             MinioClient.builder()
                 .endpoint(endpoint)
                 .credentials(accessKey, secretKey)
                 .build();
-        return new MinioOssClientRequest(minioClient, true, bucketPolicyJson);
+        this.client = new MinioOssClientRequest(minioClient, true, bucketPolicyJson, transferOptions);
+    }
+
+    @Override
+    public OssClientRequest createClient() {
+        return client;
+    }
+
+    @Override
+    public void close() {
+        transferOptions.close();
     }
 }
@@ -147,18 +147,23 @@ public class QiniuOssClientRequest extends AbstractOssClientRequest {
 
     @Override
     protected boolean isBucketExist(String bucketName) {
+        if (existBuckets.contains(bucketName)) {
+            return true;
+        }
         try {
             String[] buckets = bucketManager.buckets();
             boolean bucketExists = ArrayUtil.contains(buckets, bucketName);
             if (!bucketExists) {
                 if (autoCreateBucket) {
                     bucketManager.createBucket(bucketName, regionId);
+                    existBuckets.add(bucketName);
                     return true;
                 }
                 else {
                     throw new UnsupportedOperationException("Your bucket does not exist and cannot be initialized");
                 }
             }
+            existBuckets.add(bucketName);
         }
         catch (QiniuException e) {
             // HTTP exception
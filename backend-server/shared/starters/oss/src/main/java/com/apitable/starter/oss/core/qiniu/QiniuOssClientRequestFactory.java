@@ -37,6 +37,11 @@ public class QiniuOssClientRequestFactory implements OssClientRequestFactory {
 
     private final String uploadUrl;
 
+    /**
+     * upload and bucket managers hold their http clients, shared by all requests of this factory
+     */
+    private final OssClientRequest client;
+
     public QiniuOssClientRequestFactory(Auth auth, String regionId, String downloadDomain, String callbackUrl, String callbackBodyType, String uploadUrl) {
         this.auth = auth;
         this.regionId = regionId;
@@ -44,10 +49,11 @@ public class QiniuOssClientRequestFactory implements OssClientRequestFactory {
         this.callbackUrl = callbackUrl;
         this.callbackBodyType = callbackBodyType;
         this.uploadUrl = uploadUrl;
+        this.client = new QiniuOssClientRequest(auth, regionId, downloadDomain, callbackUrl, callbackBodyType, uploadUrl, true);
     }
 
     @Override
     public OssClientRequest createClient() {
-        return new QiniuOssClientRequest(auth, regionId, downloadDomain, callbackUrl, callbackBodyType, uploadUrl, true);
+        return client;
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.starter.oss.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OssClientRequestDownloadTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private final OssTransferOptions options = new OssTransferOptions(5 * MB, 5 * MB, 3);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    public void tearDown() {
+        options.close();
+    }
+
+    @Test
+    public void testDownloadLargeObjectInRanges() throws IOException {
+        byte[] content = randomBytes(12 * MB + 7);
+        InMemoryOssClientRequest request = new InMemoryOssClientRequest(content, options);
+        File target = tempDir.resolve("large").toFile();
+        request.download("bucket", "key", target);
+        assertThat(Files.readAllBytes(target.toPath())).isEqualTo(content);
+        assertThat(request.rangedGets.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testDownloadSmallObjectInOneRequest() throws IOException {
+        byte[] content = randomBytes(MB);
+        InMemoryOssClientRequest request = new InMemoryOssClientRequest(content, options);
+        File target = tempDir.resolve("small").toFile();
+        request.download("bucket", "key", target);
+        assertThat(Files.readAllBytes(target.toPath())).isEqualTo(content);
+        assertThat(request.rangedGets.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDownloadFailsOnTruncatedPart() {
+        byte[] content = randomBytes(11 * MB);
+        InMemoryOssClientRequest request = new InMemoryOssClientRequest(content, options) {
+            @Override
+            public OssObject getObject(String bucketName, String path, long offset, long length) {
+                return super.getObject(bucketName, path, offset, length - 1);
+            }
+        };
+        assertThatThrownBy(() -> request.download("bucket", "key", tempDir.resolve("truncated").toFile()))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * fake server keeping one object in memory
+     */
+    private static class InMemoryOssClientRequest extends AbstractOssClientRequest {
+
+        private final byte[] content;
+
+        private final AtomicInteger rangedGets = new AtomicInteger();
+
+        InMemoryOssClientRequest(byte[] content, OssTransferOptions transferOptions) {
+            super(transferOptions);
+            this.content = content;
+        }
+
+        @Override
+        protected boolean isBucketExist(String bucketName) {
+            return true;
+        }
+
+        @Override
+        public OssStatObject getStatObject(String bucketName, String key) {
+            return new OssStatObject(key, null, content.length, null);
+        }
+
+        @Override
+        public OssObject getObject(String bucketName, String path, long offset, long length) {
+            rangedGets.incrementAndGet();
+            byte[] part = Arrays.copyOfRange(content, (int) offset, (int) (offset + length));
+            return new OssObject(null, length, null, new ByteArrayInputStream(part));
+        }
+
+        @Override
+        public UrlFetchResponse uploadRemoteUrl(String bucketName, String remoteSrcUrl, String keyPath) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void uploadStreamForObject(String bucketName, InputStream in, String keyPath) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void uploadStreamForObject(String bucketName, InputStream in, String path, String mimeType, String digest) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public OssObject getObject(String bucketName, String path) {
+            return getObject(bucketName, path, 0, content.length);
+        }
+
+        @Override
+        public boolean deleteObject(String bucketName, String key) {
+            return false;
+        }
+
+        @Override
+        public void refreshCdn(String bucketName, String[] url) {
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * APITable <https://github.com/apitable/apitable>
+ * Copyright (C) 2022 APITable Ltd. <https://apitable.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.apitable.starter.oss.core.minio;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import io.minio.BucketExistsArgs;
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.apitable.starter.oss.core.OssTransferOptions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class MinioOssClientRequestUploadTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private final OssTransferOptions options = new OssTransferOptions(5 * MB, 5 * MB, 3);
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    private MinioClient minioClient;
+
+    private MinioOssClientRequest request;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        minioClient = mock(MinioClient.class);
+        given(minioClient.bucketExists(any(BucketExistsArgs.class))).willReturn(true);
+        willAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            objects.put(args.object(), args.stream().readAllBytes());
+            return null;
+        }).given(minioClient).putObject(any(PutObjectArgs.class));
+        request = new MinioOssClientRequest(minioClient, false, null, options);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        options.close();
+    }
+
+    @Test
+    public void testUploadLargeObjectInParts() throws Exception {
+        byte[] content = randomBytes(12 * MB + 7);
+        request.uploadStreamForObject("bucket", new ByteArrayInputStream(content), "space/large", null, null);
+
+        ArgumentCaptor<ComposeObjectArgs> compose = ArgumentCaptor.forClass(ComposeObjectArgs.class);
+        verify(minioClient).composeObject(compose.capture());
+        assertThat(compose.getValue().object()).isEqualTo("space/large");
+        List<String> partNames = compose.getValue().sources().stream()
+                .map(ComposeSource::object)
+                .collect(Collectors.toList());
+        assertThat(partNames).hasSize(3).allMatch(partName -> partName.startsWith(".multipart/"));
+        ByteArrayOutputStream composed = new ByteArrayOutputStream();
+        for (String partName : partNames) {
+            composed.write(objects.get(partName));
+        }
+        assertThat(composed.toByteArray()).isEqualTo(content);
+        assertThat(removedObjects()).containsExactlyInAnyOrderElementsOf(partNames);
+        assertThat(options.getPartBuffers().availablePermits()).isEqualTo(options.getThreads());
+        assertThat(options.getHeadBuffers().availablePermits()).isEqualTo(options.getThreads());
+    }
+
+    @Test
+    public void testUploadSmallObjectInOneRequest() throws Exception {
+        byte[] content = randomBytes(MB);
+        request.uploadStreamForObject("bucket", new ByteArrayInputStream(content), "space/small", null, null);
+
+        assertThat(objects).containsOnlyKeys("space/small");
+        assertThat(objects.get("space/small")).isEqualTo(content);
+        verify(minioClient, never()).composeObject(any(ComposeObjectArgs.class));
+    }
+
+    @Test
+    public void testSmallObjectDoesNotWaitForHeadBuffers() throws Exception {
+        options.getHeadBuffers().acquire(options.getThreads());
+        try {
+            byte[] content = randomBytes(MB);
+            request.uploadStreamForObject("bucket", new ByteArrayInputStream(content), "space/small", null, null);
+            assertThat(objects.get("space/small")).isEqualTo(content);
+        }
+        finally {
+            options.getHeadBuffers().release(options.getThreads());
+        }
+    }
+
+    @Test
+    public void testHeadBufferIsReleasedOnceSplitIntoParts() throws Exception {
+        Map<String, Integer> headPermits = new ConcurrentHashMap<>();
+        willAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            headPermits.put(args.object(), options.getHeadBuffers().availablePermits());
+            objects.put(args.object(), args.stream().readAllBytes());
+            return null;
+        }).given(minioClient).putObject(any(PutObjectArgs.class));
+        byte[] content = randomBytes(16 * MB);
+        request.uploadStreamForObject("bucket", new ByteArrayInputStream(content), "space/large", null, null);
+
+        String lastPart = headPermits.keySet().stream().filter(name -> name.endsWith("part.4")).findFirst().orElseThrow();
+        assertThat(headPermits.get(lastPart)).isEqualTo(options.getThreads());
+        assertThat(options.getHeadBuffers().availablePermits()).isEqualTo(options.getThreads());
+    }
+
+    @Test
+    public void testFailedPartRemovesUploadedParts() throws Exception {
+        willAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            if (args.object().endsWith("part.2")) {
+                throw new IOException("connection reset");
+            }
+            objects.put(args.object(), args.stream().readAllBytes());
+            return null;
+        }).given(minioClient).putObject(any(PutObjectArgs.class));
+        byte[] content = randomBytes(16 * MB);
+
+        assertThatThrownBy(() -> request.uploadStreamForObject("bucket", new ByteArrayInputStream(content), "space/failed", null, null))
+                .isInstanceOf(IOException.class);
+        verify(minioClient, never()).composeObject(any(ComposeObjectArgs.class));
+        assertThat(removedObjects()).containsAll(objects.keySet());
+        assertThat(options.getPartBuffers().availablePermits()).isEqualTo(options.getThreads());
+    }
+
+    private List<String> removedObjects() throws Exception {
+        ArgumentCaptor<RemoveObjectArgs> remove = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient, atLeast(0)).removeObject(remove.capture());
+        return remove.getAllValues().stream().map(RemoveObjectArgs::object).collect(Collectors.toList());
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}